@@ -0,0 +1,297 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * BenchmarkCorpus.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible, English-like text for the benchmarks. The words
+ * follow a simple determiner/adjective/noun/verb pattern and are interspersed
+ * with tokens that the Penn Treebank tokenizer has to work on (punctuation,
+ * quotes, brackets, contractions, abbreviations, numbers). It also provides
+ * a set of hand-written sentences (sentences.txt) as more realistic input.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class BenchmarkCorpus {
+
+  /** the default seed. */
+  public static final long SEED = 42;
+
+  /** a short tweet (about 20 tokens). */
+  public static final String TWEET = "tweet";
+
+  /** a paragraph (about 150 tokens). */
+  public static final String PARAGRAPH = "paragraph";
+
+  /** a document (about 10,000 tokens). */
+  public static final String DOCUMENT = "document";
+
+  /** a very long document (about 100,000 tokens). */
+  public static final String HUGE = "100k";
+
+  /** the parser model used by the benchmarks (relative to the project). */
+  public static final String MODEL = "src/test/resources/weka/filters/unsupervised/attribute/data/englishPCFG.ser.gz";
+
+  /** the resource with the hand-written sentences. */
+  public static final String SENTENCES = "sentences.txt";
+
+  /** the determiners. */
+  protected static final String[] DETERMINERS = {
+    "the", "a", "this", "every", "some", "that", "another", "no"};
+
+  /** the adjectives. */
+  protected static final String[] ADJECTIVES = {
+    "quick", "old", "red", "large", "quiet", "strange", "public", "early",
+    "final", "simple", "recent", "local", "happy", "difficult", "general"};
+
+  /** the nouns. */
+  protected static final String[] NOUNS = {
+    "dog", "report", "city", "council", "river", "market", "student", "model",
+    "parser", "government", "company", "weather", "station", "teacher", "plan",
+    "price", "road", "team", "season", "water"};
+
+  /** the verbs. */
+  protected static final String[] VERBS = {
+    "jumps", "announced", "crossed", "expects", "opened", "reported", "builds",
+    "closed", "visited", "described", "raised", "won", "found", "needs"};
+
+  /** the adverbs. */
+  protected static final String[] ADVERBS = {
+    "quickly", "yesterday", "again", "finally", "recently", "almost", "often"};
+
+  /** the prepositions. */
+  protected static final String[] PREPOSITIONS = {
+    "over", "in", "near", "after", "with", "from", "under", "during"};
+
+  /** the conjunctions. */
+  protected static final String[] CONJUNCTIONS = {
+    "and", "but", "while", "because", "so"};
+
+  /** the special tokens. */
+  protected static final String[] SPECIAL = {
+    "don't", "it's", "U.S.", "Dr.", "e.g.", "$12.50", "1,200", "3.5%",
+    "(see below)", "\"really\"", "'quoted'", "[sic]", "co-operate", "--", "..."};
+
+  /** the tweet tokens. */
+  protected static final String[] TWEET_SPECIAL = {
+    "@weka", "#nlp", "#datamining", "http://t.co/x2Ab9", ":)", "lol", "RT", "&amp;"};
+
+  /** the pattern of word classes for sentences. */
+  protected static final String[][] PATTERN = {
+    DETERMINERS, ADJECTIVES, NOUNS, VERBS, ADVERBS, PREPOSITIONS, DETERMINERS,
+    NOUNS, CONJUNCTIONS, DETERMINERS, NOUNS, VERBS, PREPOSITIONS, ADJECTIVES,
+    NOUNS};
+
+  /** the sentence endings. */
+  protected static final String[] ENDINGS = {".", ".", ".", ".", "?", "!"};
+
+  /** the random number generator. */
+  protected Random m_Random;
+
+  /**
+   * Initializes the corpus with the default seed.
+   */
+  public BenchmarkCorpus() {
+    this(SEED);
+  }
+
+  /**
+   * Initializes the corpus.
+   *
+   * @param seed	the seed for the random number generator
+   */
+  public BenchmarkCorpus(long seed) {
+    m_Random = new Random(seed);
+  }
+
+  /**
+   * Returns a random element of the array.
+   *
+   * @param words	the array to pick from
+   * @return		the element
+   */
+  protected String pick(String[] words) {
+    return words[m_Random.nextInt(words.length)];
+  }
+
+  /**
+   * Generates a sentence.
+   *
+   * @param numTokens	the number of white space separated tokens
+   * @return		the sentence
+   */
+  public String sentence(int numTokens) {
+    return sentence(numTokens, null);
+  }
+
+  /**
+   * Generates a sentence.
+   *
+   * @param numTokens	the number of white space separated tokens
+   * @param special	the additional special tokens, can be null
+   * @return		the sentence
+   */
+  protected String sentence(int numTokens, String[] special) {
+    StringBuilder	result;
+    int			i;
+    int			offset;
+
+    result = new StringBuilder();
+    offset = m_Random.nextInt(PATTERN.length);
+    for (i = 0; i < numTokens; i++) {
+      if (i > 0) {
+	if (m_Random.nextInt(10) == 0)
+	  result.append(',');
+	result.append(' ');
+      }
+      if ((special != null) && (m_Random.nextInt(6) == 0))
+	result.append(pick(special));
+      else if (m_Random.nextInt(15) == 0)
+	result.append(pick(SPECIAL));
+      else
+	result.append(pick(PATTERN[(offset + i) % PATTERN.length]));
+    }
+    if (result.length() > 0)
+      result.setCharAt(0, Character.toUpperCase(result.charAt(0)));
+    result.append(pick(ENDINGS));
+
+    return result.toString();
+  }
+
+  /**
+   * Generates a tweet.
+   *
+   * @return		the tweet
+   */
+  public String tweet() {
+    return sentence(12 + m_Random.nextInt(16), TWEET_SPECIAL);
+  }
+
+  /**
+   * Generates a paragraph with 5-8 sentences.
+   *
+   * @return		the paragraph
+   */
+  public String paragraph() {
+    StringBuilder	result;
+    int			num;
+    int			i;
+
+    result = new StringBuilder();
+    num    = 5 + m_Random.nextInt(4);
+    for (i = 0; i < num; i++) {
+      if (i > 0)
+	result.append(' ');
+      result.append(sentence(10 + m_Random.nextInt(20)));
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Generates a document consisting of paragraphs.
+   *
+   * @param numTokens	the (minimum) number of white space separated tokens
+   * @return		the document
+   */
+  public String document(int numTokens) {
+    StringBuilder	result;
+    String		paragraph;
+    int			count;
+    int			i;
+
+    result = new StringBuilder();
+    count  = 0;
+    while (count < numTokens) {
+      if (result.length() > 0)
+	result.append("\n\n");
+      paragraph = paragraph();
+      result.append(paragraph);
+      count++;
+      for (i = 0; i < paragraph.length(); i++) {
+	if (paragraph.charAt(i) == ' ')
+	  count++;
+      }
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Generates the text of the specified size, using the default seed.
+   *
+   * @param size	the size, i.e., TWEET, PARAGRAPH, DOCUMENT or HUGE
+   * @return		the text
+   */
+  public static String generate(String size) {
+    BenchmarkCorpus	corpus;
+
+    corpus = new BenchmarkCorpus();
+    if (size.equals(TWEET))
+      return corpus.tweet();
+    else if (size.equals(PARAGRAPH))
+      return corpus.paragraph();
+    else if (size.equals(DOCUMENT))
+      return corpus.document(10000);
+    else if (size.equals(HUGE))
+      return corpus.document(100000);
+    else
+      throw new IllegalArgumentException("Unknown size: " + size);
+  }
+
+  /**
+   * Reads the hand-written sentences, one per line.
+   *
+   * @return		the sentences
+   * @throws IOException	if reading of the resource fails
+   */
+  public static List<String> readSentences() throws IOException {
+    List<String>	result;
+    InputStream		in;
+    BufferedReader	reader;
+    String		line;
+
+    in = BenchmarkCorpus.class.getResourceAsStream(SENTENCES);
+    if (in == null)
+      throw new IOException("Resource not found: " + SENTENCES);
+
+    result = new ArrayList<String>();
+    reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+    try {
+      while ((line = reader.readLine()) != null) {
+	if (!line.trim().isEmpty())
+	  result.add(line.trim());
+      }
+    }
+    finally {
+      reader.close();
+    }
+
+    return result;
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * CaseFoldingBenchmark.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link CaseFolder} (with and without full case folding) with
+ * String.toLowerCase(), i.e., the conversion that the ChangeCase filter
+ * used before. The strings are either plain ASCII or every tenth of them
+ * contains non-ASCII characters.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CaseFoldingBenchmark {
+
+  /** the number of strings. */
+  public static final int NUM_STRINGS = 1000;
+
+  /** the strings (JMH parameter). */
+  @Param({"ascii", "mixed"})
+  public String text;
+
+  /** the conversion (JMH parameter). */
+  @Param({"string", "folder", "folder-full"})
+  public String method;
+
+  /** the strings to convert. */
+  protected List<String> m_Strings;
+
+  /** the case folder. */
+  protected CaseFolder m_Folder;
+
+  /**
+   * Generates the strings and sets up the conversion.
+   */
+  @Setup
+  public void setUp() {
+    BenchmarkCorpus	corpus;
+    String		s;
+    int			i;
+
+    if (!text.equals("ascii") && !text.equals("mixed"))
+      throw new IllegalArgumentException("Unknown text: " + text);
+
+    corpus    = new BenchmarkCorpus();
+    m_Strings = new ArrayList<String>();
+    for (i = 0; i < NUM_STRINGS; i++) {
+      s = corpus.sentence(8);
+      if (text.equals("mixed") && (i % 10 == 0))
+	s += " Stra\u00dfe Caf\u00e9 \u0130STANBUL";
+      m_Strings.add(s);
+    }
+
+    if (method.equals("folder"))
+      m_Folder = new CaseFolder(Locale.ENGLISH, false, false);
+    else if (method.equals("folder-full"))
+      m_Folder = new CaseFolder(Locale.ENGLISH, false, true);
+    else if (method.equals("string"))
+      m_Folder = null;
+    else
+      throw new IllegalArgumentException("Unknown method: " + method);
+  }
+
+  /**
+   * Converts all the strings to lower case.
+   *
+   * @param bh		the blackhole for the converted strings
+   */
+  @Benchmark
+  public void toLowerCase(Blackhole bh) {
+    if (m_Folder == null) {
+      for (String s: m_Strings)
+	bh.consume(s.toLowerCase());
+    }
+    else {
+      for (String s: m_Strings)
+	bh.consume(m_Folder.convert(s));
+    }
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PeakHeapProfiler.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * JMH profiler that reports the peak heap usage per iteration (secondary
+ * result "peak.heap", in MB), the maximum across the iterations. The value
+ * is the sum of the peaks of the individual heap memory pools, i.e., an
+ * upper bound, as the pools do not necessarily peak at the same time.
+ * <br><br>
+ * Usage: -prof weka.core.nlp.PeakHeapProfiler
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class PeakHeapProfiler
+  implements InternalProfiler {
+
+  /**
+   * Returns a short description of the profiler.
+   *
+   * @return		the description
+   */
+  @Override
+  public String getDescription() {
+    return "Peak heap usage (sum of the peaks of the heap memory pools)";
+  }
+
+  /**
+   * Resets the peaks of the heap memory pools.
+   *
+   * @param benchmarkParams	the parameters of the benchmark
+   * @param iterationParams	the parameters of the iteration
+   */
+  @Override
+  public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+    for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP)
+	pool.resetPeakUsage();
+    }
+  }
+
+  /**
+   * Returns the peak heap usage of the iteration.
+   *
+   * @param benchmarkParams	the parameters of the benchmark
+   * @param iterationParams	the parameters of the iteration
+   * @param result		the result of the iteration
+   * @return			the peak usage
+   */
+  @Override
+  public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result) {
+    long	peak;
+
+    peak = 0;
+    for (MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+      if ((pool.getType() == MemoryType.HEAP) && (pool.getPeakUsage() != null))
+	peak += pool.getPeakUsage().getUsed();
+    }
+
+    return Collections.singletonList(
+      new ScalarResult("peak.heap", peak / 1024.0 / 1024.0, "MB", AggregationPolicy.MAX));
+  }
+}
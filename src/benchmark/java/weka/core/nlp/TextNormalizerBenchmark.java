@@ -0,0 +1,135 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TextNormalizerBenchmark.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the single-pass {@link TextNormalizer} (all steps enabled) with
+ * applying the steps one after the other, each generating a new string (as
+ * chained filters would).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextNormalizerBenchmark {
+
+  /** the number of tweets. */
+  public static final int NUM_TWEETS = 1000;
+
+  /** the URLs. */
+  protected static final Pattern URLS = Pattern.compile("(^|(?<=\\s))(https?://|ftp://|www\\.)\\S*", Pattern.CASE_INSENSITIVE);
+
+  /** the digits. */
+  protected static final Pattern DIGITS = Pattern.compile("\\p{Nd}");
+
+  /** the punctuation. */
+  protected static final Pattern PUNCTUATION = Pattern.compile("\\p{P}");
+
+  /** the white space. */
+  protected static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  /** the normalization (JMH parameter). */
+  @Param({"fused", "chained"})
+  public String method;
+
+  /** the tweets to normalize. */
+  protected List<String> m_Tweets;
+
+  /** the normalizer. */
+  protected TextNormalizer m_Normalizer;
+
+  /**
+   * Generates the tweets and sets up the normalizer.
+   */
+  @Setup
+  public void setUp() {
+    BenchmarkCorpus	corpus;
+    int			i;
+
+    if (!method.equals("fused") && !method.equals("chained"))
+      throw new IllegalArgumentException("Unknown method: " + method);
+
+    corpus   = new BenchmarkCorpus();
+    m_Tweets = new ArrayList<String>();
+    for (i = 0; i < NUM_TWEETS; i++)
+      m_Tweets.add(corpus.tweet());
+
+    m_Normalizer = new TextNormalizer(
+      new CaseFolder(Locale.ENGLISH, false, false), true, true, true, true, "<URL>");
+  }
+
+  /**
+   * Applies the steps one after the other.
+   *
+   * @param s		the string to normalize
+   * @return		the normalized string
+   */
+  protected static String chained(String s) {
+    s = Normalizer.normalize(s, Normalizer.Form.NFKC);
+    s = URLS.matcher(s).replaceAll("<url>");
+    s = DIGITS.matcher(s).replaceAll("");
+    s = PUNCTUATION.matcher(s).replaceAll("");
+    s = s.toLowerCase(Locale.ENGLISH);
+    s = WHITESPACE.matcher(s).replaceAll(" ").trim();
+    return s;
+  }
+
+  /**
+   * Normalizes all the tweets.
+   *
+   * @param bh		the blackhole for the normalized strings
+   */
+  @Benchmark
+  public void normalize(Blackhole bh) {
+    if (method.equals("fused")) {
+      for (String s: m_Tweets)
+	bh.consume(m_Normalizer.normalize(s));
+    }
+    else {
+      for (String s: m_Tweets)
+	bh.consume(chained(s));
+    }
+  }
+}
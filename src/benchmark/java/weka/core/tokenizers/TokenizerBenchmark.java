@@ -0,0 +1,124 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TokenizerBenchmark.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.tokenizers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import weka.core.nlp.BenchmarkCorpus;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of the tokenizers on texts of different sizes.
+ * Run with "-prof gc" to obtain the allocation rate as well. The sizes go
+ * from a tweet up to 100,000 tokens, to check that the tokenizers scale
+ * linearly with the length of the text.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenizerBenchmark {
+
+  /** the size of the text (JMH parameter). */
+  @Param({BenchmarkCorpus.TWEET, BenchmarkCorpus.PARAGRAPH, BenchmarkCorpus.DOCUMENT, BenchmarkCorpus.HUGE})
+  public String size;
+
+  /** the tokenizer to use (JMH parameter). */
+  @Param({"whitespace", "whitespace-collapse", "whitespace-unicode", "ptb", "word", "hashed-ngrams"})
+  public String tokenizer;
+
+  /** the text to tokenize. */
+  protected String m_Text;
+
+  /** the tokenizer. */
+  protected Tokenizer m_Tokenizer;
+
+  /**
+   * Generates the text and configures the tokenizer.
+   */
+  @Setup
+  public void setUp() {
+    WhiteSpaceTokenizer		whitespace;
+
+    m_Text = BenchmarkCorpus.generate(size);
+
+    if (tokenizer.equals("whitespace")) {
+      m_Tokenizer = new WhiteSpaceTokenizer();
+    }
+    else if (tokenizer.equals("whitespace-collapse")) {
+      whitespace = new WhiteSpaceTokenizer();
+      whitespace.setCollapse(true);
+      m_Tokenizer = whitespace;
+    }
+    else if (tokenizer.equals("whitespace-unicode")) {
+      whitespace = new WhiteSpaceTokenizer();
+      whitespace.setUnicode(true);
+      m_Tokenizer = whitespace;
+    }
+    else if (tokenizer.equals("ptb")) {
+      m_Tokenizer = new PTBTokenizer();
+    }
+    else if (tokenizer.equals("word")) {
+      m_Tokenizer = new WordTokenizer();
+    }
+    else if (tokenizer.equals("hashed-ngrams")) {
+      m_Tokenizer = new HashedNGramTokenizer();
+    }
+    else {
+      throw new IllegalArgumentException("Unknown tokenizer: " + tokenizer);
+    }
+  }
+
+  /**
+   * Tokenizes the text and consumes all the tokens.
+   *
+   * @param bh		the blackhole for the tokens
+   * @return		the number of tokens
+   */
+  @Benchmark
+  public int tokenize(Blackhole bh) {
+    int		result;
+
+    result = 0;
+    m_Tokenizer.tokenize(m_Text);
+    while (m_Tokenizer.hasMoreElements()) {
+      bh.consume(m_Tokenizer.nextElement());
+      result++;
+    }
+
+    return result;
+  }
+}
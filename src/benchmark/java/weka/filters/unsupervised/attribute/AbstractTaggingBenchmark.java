@@ -0,0 +1,193 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractTaggingBenchmark.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.filters.unsupervised.attribute;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.nlp.BenchmarkCorpus;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Ancestor for end-to-end benchmarks of the {@link PartOfSpeechTagging}
+ * filter. Generates a dataset with a single string attribute and sets up
+ * the filter.
+ * <br><br>
+ * Corpora:
+ * <ul>
+ *   <li>short - generated sentences with 5-12 tokens</li>
+ *   <li>mixed - generated sentences with 5-60 tokens, mostly short ones
+ *   (exponential distribution, mean about 17 tokens)</li>
+ *   <li>long - generated sentences with 30-50 tokens</li>
+ *   <li>realistic - hand-written sentences</li>
+ * </ul>
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public abstract class AbstractTaggingBenchmark {
+
+  /** the number of documents in the dataset. */
+  public static final int NUM_DOCUMENTS = 10;
+
+  /** the number of sentences per document. */
+  public static final int NUM_SENTENCES = 2;
+
+  /** the corpus to use (JMH parameter). */
+  @Param({"short", "mixed", "long", "realistic"})
+  public String corpus;
+
+  /** the regular expression for the labels to keep (JMH parameter). */
+  @Param({".*", "NN.*|VB.*"})
+  public String regexp;
+
+  /** the maximum chart length for reusing parser queries (JMH parameter). */
+  @Param({"50", "0"})
+  public int maxChartLength;
+
+  /** the parser model (JMH parameter). */
+  @Param({BenchmarkCorpus.MODEL})
+  public String model;
+
+  /** the dataset to tag. */
+  protected Instances m_Data;
+
+  /** the number of sentences in the dataset. */
+  protected int m_NumSentences;
+
+  /** the filter. */
+  protected PartOfSpeechTagging m_Filter;
+
+  /**
+   * Returns the length of the next generated sentence.
+   *
+   * @param random	the random number generator to use
+   * @return		the number of tokens
+   */
+  protected int nextLength(Random random) {
+    if (corpus.equals("short"))
+      return 5 + random.nextInt(8);
+    else if (corpus.equals("mixed"))
+      return Math.min(60, 5 + (int) (-12.0 * Math.log(1.0 - random.nextDouble())));
+    else if (corpus.equals("long"))
+      return 30 + random.nextInt(21);
+    else
+      throw new IllegalArgumentException("Unknown corpus: " + corpus);
+  }
+
+  /**
+   * Generates the documents.
+   *
+   * @return		the documents
+   * @throws Exception	if generation fails
+   */
+  protected List<String> generateDocuments() throws Exception {
+    List<String>	result;
+    List<String>	sentences;
+    BenchmarkCorpus	generator;
+    Random		random;
+    StringBuilder	doc;
+    int			i;
+    int			n;
+
+    result    = new ArrayList<String>();
+    generator = new BenchmarkCorpus();
+    random    = new Random(BenchmarkCorpus.SEED);
+    sentences = null;
+    if (corpus.equals("realistic"))
+      sentences = BenchmarkCorpus.readSentences();
+
+    for (i = 0; i < NUM_DOCUMENTS; i++) {
+      doc = new StringBuilder();
+      for (n = 0; n < NUM_SENTENCES; n++) {
+	if (n > 0)
+	  doc.append(' ');
+	if (sentences != null)
+	  doc.append(sentences.get(random.nextInt(sentences.size())));
+	else
+	  doc.append(generator.sentence(nextLength(random)));
+      }
+      result.add(doc.toString());
+    }
+
+    return result;
+  }
+
+  /**
+   * Configures the filter.
+   *
+   * @return		the filter
+   */
+  protected PartOfSpeechTagging createFilter() {
+    PartOfSpeechTagging		result;
+
+    result = new PartOfSpeechTagging();
+    result.setModel(new File(model));
+    result.setRegExpLabels(regexp);
+    result.setMaxChartLength(maxChartLength);
+
+    return result;
+  }
+
+  /**
+   * Performs further initializations once the data and the filter are
+   * available.
+   *
+   * @throws Exception	if initialization fails
+   */
+  protected abstract void initialize() throws Exception;
+
+  /**
+   * Generates the dataset and sets up the filter.
+   *
+   * @throws Exception	if setup fails
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    ArrayList<Attribute>	atts;
+    Attribute			att;
+    List<String>		docs;
+    PartOfSpeechTagging		filter;
+
+    docs = generateDocuments();
+    atts = new ArrayList<Attribute>();
+    atts.add(new Attribute("text", (List<String>) null));
+    m_Data = new Instances("benchmark-" + corpus, atts, docs.size());
+    att    = m_Data.attribute(0);
+
+    // count the sentences the same way as the filter splits them
+    filter         = new PartOfSpeechTagging();
+    m_NumSentences = 0;
+    for (String doc: docs) {
+      m_Data.add(new DenseInstance(1.0, new double[]{att.addStringValue(doc)}));
+      m_NumSentences += filter.getSentences(doc).size();
+    }
+
+    m_Filter = createFilter();
+    initialize();
+  }
+}
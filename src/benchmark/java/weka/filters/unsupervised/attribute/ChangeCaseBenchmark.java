@@ -0,0 +1,164 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ChangeCaseBenchmark.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.filters.unsupervised.attribute;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import weka.core.DenseInstance;
+import weka.core.Instances;
+import weka.core.Utils;
+import weka.core.nlp.BenchmarkCorpus;
+import weka.filters.Filter;
+
+import java.io.StringReader;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link ChangeCase} on a text-feature dataset:
+ * two string attributes, 50,000 numeric attributes (of which only a few are
+ * non-zero per row) and a class attribute, read from a sparse ARFF. The data
+ * is either kept sparse or converted to dense instances and gets converted
+ * by one or more threads. Run with "-prof gc" to compare the allocation
+ * rates.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class ChangeCaseBenchmark {
+
+  /** the number of numeric attributes. */
+  public static final int NUM_NUMERIC = 50000;
+
+  /** the number of non-zero numeric values per instance. */
+  public static final int NUM_NON_ZERO = 50;
+
+  /** the number of instances. */
+  public static final int NUM_INSTANCES = 200;
+
+  /** the format of the instances (JMH parameter). */
+  @Param({"sparse", "dense"})
+  public String format;
+
+  /** the number of threads (JMH parameter). */
+  @Param({"1", "4"})
+  public int threads;
+
+  /** the dataset. */
+  protected Instances m_Data;
+
+  /** the filter. */
+  protected ChangeCase m_Filter;
+
+  /**
+   * Generates the dataset in sparse ARFF format.
+   *
+   * @return		the ARFF content
+   */
+  protected static String generate() {
+    StringBuilder	result;
+    BenchmarkCorpus	corpus;
+    Random		random;
+    TreeSet<Integer>	indices;
+    int			i;
+
+    result = new StringBuilder();
+    corpus = new BenchmarkCorpus();
+    random = new Random(BenchmarkCorpus.SEED);
+
+    result.append("@relation sparse-text\n\n");
+    result.append("@attribute title string\n");
+    result.append("@attribute text string\n");
+    for (i = 0; i < NUM_NUMERIC; i++)
+      result.append("@attribute f").append(i).append(" numeric\n");
+    result.append("@attribute class {pos,neg}\n\n");
+    result.append("@data\n");
+
+    indices = new TreeSet<Integer>();
+    for (i = 0; i < NUM_INSTANCES; i++) {
+      result.append("{0 ").append(Utils.quote(corpus.sentence(5)));
+      result.append(",1 ").append(Utils.quote(corpus.tweet()));
+      indices.clear();
+      while (indices.size() < NUM_NON_ZERO)
+	indices.add(2 + random.nextInt(NUM_NUMERIC));
+      for (int index: indices)
+	result.append(",").append(index).append(" ").append(1 + random.nextInt(5));
+      result.append(",").append(NUM_NUMERIC + 2).append(random.nextBoolean() ? " pos" : " neg");
+      result.append("}\n");
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Generates the dataset and sets up the filter.
+   *
+   * @throws Exception	if generating fails
+   */
+  @Setup
+  public void setUp() throws Exception {
+    Instances	sparse;
+    int		i;
+
+    sparse = new Instances(new StringReader(generate()));
+    sparse.setClassIndex(sparse.numAttributes() - 1);
+    if (format.equals("sparse")) {
+      m_Data = sparse;
+    }
+    else if (format.equals("dense")) {
+      m_Data = new Instances(sparse, sparse.numInstances());
+      for (i = 0; i < sparse.numInstances(); i++)
+	m_Data.add(new DenseInstance(sparse.instance(i)));
+    }
+    else {
+      throw new IllegalArgumentException("Unknown format: " + format);
+    }
+    m_Filter = new ChangeCase();
+    m_Filter.setNumThreads(threads);
+  }
+
+  /**
+   * Changes the case of the dataset.
+   *
+   * @return		the filtered dataset
+   * @throws Exception	if filtering fails
+   */
+  @Benchmark
+  public Instances changeCase() throws Exception {
+    m_Filter.setInputFormat(m_Data);
+    return Filter.useFilter(m_Data, m_Filter);
+  }
+}
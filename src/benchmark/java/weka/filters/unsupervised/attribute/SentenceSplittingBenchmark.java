@@ -0,0 +1,100 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * SentenceSplittingBenchmark.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.filters.unsupervised.attribute;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import weka.core.nlp.BenchmarkCorpus;
+import weka.core.tokenizers.SentenceTokenizer;
+import weka.core.tokenizers.sentence.PTBSentenceDetector;
+import weka.core.tokenizers.sentence.RuleBasedSentenceDetector;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of splitting documents of different sizes into
+ * sentences, as performed by {@link PartOfSpeechTagging#getSentences(String)},
+ * with the Penn Treebank and the rule-based sentence detector.
+ * Run with "-prof gc" to obtain the allocation rate as well.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SentenceSplittingBenchmark {
+
+  /** the size of the document (JMH parameter). */
+  @Param({BenchmarkCorpus.TWEET, BenchmarkCorpus.PARAGRAPH, BenchmarkCorpus.DOCUMENT, BenchmarkCorpus.HUGE})
+  public String size;
+
+  /** the sentence detector (JMH parameter). */
+  @Param({"ptb", "rule-based"})
+  public String detector;
+
+  /** the document to split. */
+  protected String m_Document;
+
+  /** the filter performing the splitting. */
+  protected PartOfSpeechTagging m_Filter;
+
+  /**
+   * Generates the document and sets up the filter (no model required).
+   */
+  @Setup
+  public void setUp() {
+    SentenceTokenizer	tokenizer;
+
+    m_Document = BenchmarkCorpus.generate(size);
+    m_Filter   = new PartOfSpeechTagging();
+    tokenizer  = new SentenceTokenizer();
+    if (detector.equals("ptb"))
+      tokenizer.setDetector(new PTBSentenceDetector());
+    else if (detector.equals("rule-based"))
+      tokenizer.setDetector(new RuleBasedSentenceDetector());
+    else
+      throw new IllegalArgumentException("Unknown detector: " + detector);
+    m_Filter.setSentenceTokenizer(tokenizer);
+  }
+
+  /**
+   * Splits the document into sentences.
+   *
+   * @return		the sentences
+   */
+  @Benchmark
+  public List<String> getSentences() {
+    return m_Filter.getSentences(m_Document);
+  }
+}
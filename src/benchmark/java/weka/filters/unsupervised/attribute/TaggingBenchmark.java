@@ -0,0 +1,124 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TaggingBenchmark.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.filters.unsupervised.attribute;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import weka.core.Instances;
+import weka.filters.Filter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of tagging a whole dataset in batch mode with
+ * {@link PartOfSpeechTagging}, using the specified number of threads. Besides
+ * the datasets per second, the number of sentences per second is reported
+ * (secondary result "sentences").
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class TaggingBenchmark
+  extends AbstractTaggingBenchmark {
+
+  /**
+   * Counts the tagged sentences.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class SentenceCounter {
+
+    /** the number of sentences tagged. */
+    public long sentences;
+
+    /**
+     * Resets the counter before each iteration.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+      sentences = 0;
+    }
+  }
+
+  /** the number of threads (JMH parameter). */
+  @Param({"1", "4"})
+  public int threads;
+
+  /**
+   * Configures the filter.
+   *
+   * @return		the filter
+   */
+  @Override
+  protected PartOfSpeechTagging createFilter() {
+    PartOfSpeechTagging		result;
+
+    result = super.createFilter();
+    result.setNumThreads(threads);
+
+    return result;
+  }
+
+  /**
+   * Loads the model by tagging the data once.
+   *
+   * @throws Exception	if tagging fails
+   */
+  @Override
+  protected void initialize() throws Exception {
+    m_Filter.setInputFormat(m_Data);
+    Filter.useFilter(m_Data, m_Filter);
+  }
+
+  /**
+   * Tags the dataset.
+   *
+   * @param counter	for counting the sentences
+   * @return		the tagged dataset
+   * @throws Exception	if tagging fails
+   */
+  @Benchmark
+  public Instances tag(SentenceCounter counter) throws Exception {
+    Instances	result;
+
+    m_Filter.setInputFormat(m_Data);
+    result = Filter.useFilter(m_Data, m_Filter);
+    counter.sentences += m_NumSentences;
+
+    return result;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TaggingLatencyBenchmark.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.filters.unsupervised.attribute;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import weka.core.Instance;
+import weka.filters.Filter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the time it takes {@link PartOfSpeechTagging} to tag a single
+ * instance once the first batch has been processed (i.e., stream mode).
+ * JMH reports the percentiles of the latency distribution. Run with
+ * "-t &lt;threads&gt;" to measure the latency under concurrent load, each
+ * thread uses its own filter.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class TaggingLatencyBenchmark
+  extends AbstractTaggingBenchmark {
+
+  /** the index of the next instance to tag. */
+  protected int m_Index;
+
+  /**
+   * Processes the data as first batch, which loads the model.
+   *
+   * @throws Exception	if tagging fails
+   */
+  @Override
+  protected void initialize() throws Exception {
+    m_Filter.setInputFormat(m_Data);
+    Filter.useFilter(m_Data, m_Filter);
+    m_Index = 0;
+  }
+
+  /**
+   * Tags the next instance, going through the public stream interface
+   * (input/output) like any other client of the filter.
+   *
+   * @return		the tagged instance
+   * @throws Exception	if tagging fails
+   */
+  @Benchmark
+  public Instance tagInstance() throws Exception {
+    Instance	result;
+
+    if (!m_Filter.input(m_Data.instance(m_Index)))
+      throw new IllegalStateException("Instance #" + (m_Index + 1) + " not available after first batch!");
+    result  = m_Filter.output();
+    m_Index = (m_Index + 1) % m_Data.numInstances();
+
+    return result;
+  }
+}
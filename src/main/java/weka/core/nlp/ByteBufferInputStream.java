@@ -0,0 +1,102 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ByteBufferInputStream.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream reading from a byte buffer, e.g., a memory-mapped file.
+ * Not thread-safe.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ByteBufferInputStream
+  extends InputStream {
+
+  /** the buffer to read from. */
+  protected ByteBuffer m_Buffer;
+
+  /**
+   * Initializes the stream. Reads from the current position of the buffer.
+   *
+   * @param buffer	the buffer to read from
+   */
+  public ByteBufferInputStream(ByteBuffer buffer) {
+    m_Buffer = buffer;
+  }
+
+  /**
+   * Reads the next byte.
+   *
+   * @return		the byte, -1 if end of buffer reached
+   */
+  @Override
+  public int read() {
+    if (!m_Buffer.hasRemaining())
+      return -1;
+    return m_Buffer.get() & 0xFF;
+  }
+
+  /**
+   * Reads up to len bytes into the array.
+   *
+   * @param b		the array to read into
+   * @param off		the offset in the array
+   * @param len		the maximum number of bytes to read
+   * @return		the number of bytes read, -1 if end of buffer reached
+   */
+  @Override
+  public int read(byte[] b, int off, int len) {
+    if (len == 0)
+      return 0;
+    if (!m_Buffer.hasRemaining())
+      return -1;
+    len = Math.min(len, m_Buffer.remaining());
+    m_Buffer.get(b, off, len);
+    return len;
+  }
+
+  /**
+   * Skips up to n bytes.
+   *
+   * @param n		the number of bytes to skip
+   * @return		the number of bytes skipped
+   */
+  @Override
+  public long skip(long n) {
+    if (n <= 0)
+      return 0;
+    n = Math.min(n, m_Buffer.remaining());
+    m_Buffer.position(m_Buffer.position() + (int) n);
+    return n;
+  }
+
+  /**
+   * Returns the number of bytes left in the buffer.
+   *
+   * @return		the number of bytes
+   */
+  @Override
+  public int available() {
+    return m_Buffer.remaining();
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * CaseFolder.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import java.io.Serializable;
+import java.util.Locale;
+
+/**
+ * Converts strings to lower or upper case for a specific locale. Strings
+ * that consist of ASCII characters only get converted via a lookup table;
+ * as soon as a non-ASCII character is encountered, the conversion falls back
+ * to {@link String#toLowerCase(Locale)}/{@link String#toUpperCase(Locale)}.
+ * For Turkish and Azerbaijani, the ASCII 'I' (lower case) and 'i' (upper
+ * case) always use the fall back, as they map to dotless/dotted variants.
+ * Strings that are already in the target case get returned as is.
+ * <br><br>
+ * Full case folding (lower case only) additionally expands characters
+ * like '&#223;' to "ss" and maps the final sigma to the regular one, so that
+ * strings that only differ in case compare equal (e.g., "Stra&#223;e" and
+ * "STRASSE"). This approximates Unicode full case folding by upper casing
+ * first and then lower casing.
+ * <br><br>
+ * Thread-safe.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class CaseFolder
+  implements Serializable {
+
+  private static final long serialVersionUID = 2328209883564409224L;
+
+  /** the final sigma. */
+  protected static final char FINAL_SIGMA = '\u03C2';
+
+  /** the sigma. */
+  protected static final char SIGMA = '\u03C3';
+
+  /** the locale. */
+  protected Locale m_Locale;
+
+  /** whether to convert to upper case. */
+  protected boolean m_UpperCase;
+
+  /** whether to apply full case folding. */
+  protected boolean m_FullFolding;
+
+  /** the ASCII conversion table (-1 = use fall back). */
+  protected int[] m_Table;
+
+  /**
+   * Initializes the folder.
+   *
+   * @param locale	the locale to use
+   * @param upperCase	whether to convert to upper case instead of lower case
+   * @param fullFolding	whether to apply full case folding (lower case only)
+   */
+  public CaseFolder(Locale locale, boolean upperCase, boolean fullFolding) {
+    String	lang;
+    int		c;
+
+    m_Locale      = locale;
+    m_UpperCase   = upperCase;
+    m_FullFolding = fullFolding && !upperCase;
+    m_Table       = new int[128];
+    for (c = 0; c < 128; c++) {
+      if (upperCase)
+	m_Table[c] = ((c >= 'a') && (c <= 'z')) ? (c - 'a' + 'A') : c;
+      else
+	m_Table[c] = ((c >= 'A') && (c <= 'Z')) ? (c - 'A' + 'a') : c;
+    }
+    lang = locale.getLanguage();
+    if (lang.equals("tr") || lang.equals("az")) {
+      if (upperCase)
+	m_Table['i'] = -1;
+      else
+	m_Table['I'] = -1;
+    }
+  }
+
+  /**
+   * Returns the locale in use.
+   *
+   * @return		the locale
+   */
+  public Locale getLocale() {
+    return m_Locale;
+  }
+
+  /**
+   * Returns whether to convert to upper case.
+   *
+   * @return		true if upper case
+   */
+  public boolean getUpperCase() {
+    return m_UpperCase;
+  }
+
+  /**
+   * Returns whether full case folding gets applied.
+   *
+   * @return		true if full case folding
+   */
+  public boolean getFullFolding() {
+    return m_FullFolding;
+  }
+
+  /**
+   * Parses the locale, e.g., "en", "en_US" or "tr-TR". An empty string
+   * results in the default locale.
+   *
+   * @param s		the locale string
+   * @return		the locale
+   */
+  public static Locale parseLocale(String s) {
+    String[]	parts;
+
+    s = s.trim();
+    if (s.isEmpty())
+      return Locale.getDefault();
+    parts = s.split("[_-]", 3);
+    if (parts.length == 1)
+      return new Locale(parts[0]);
+    else if (parts.length == 2)
+      return new Locale(parts[0], parts[1]);
+    else
+      return new Locale(parts[0], parts[1], parts[2]);
+  }
+
+  /**
+   * Converts the string using the full Unicode conversion.
+   *
+   * @param s		the string to convert
+   * @return		the converted string
+   */
+  protected String convertFull(String s) {
+    if (m_UpperCase)
+      return s.toUpperCase(m_Locale);
+    if (!m_FullFolding)
+      return s.toLowerCase(m_Locale);
+    return s.toUpperCase(m_Locale).toLowerCase(m_Locale).replace(FINAL_SIGMA, SIGMA);
+  }
+
+  /**
+   * Converts a single character via the ASCII lookup table.
+   *
+   * @param c		the character to convert
+   * @return		the converted character, -1 if the character requires
+   * 			the conversion of the whole string (non-ASCII, or
+   * 			locale-specific)
+   */
+  public int convert(char c) {
+    if (c >= 128)
+      return -1;
+    return m_Table[c];
+  }
+
+  /**
+   * Converts the string.
+   *
+   * @param s		the string to convert
+   * @return		the converted string, the same instance if unchanged
+   */
+  public String convert(String s) {
+    char[]	result;
+    int		len;
+    int		i;
+    int		c;
+    int		m;
+
+    // skip the characters that stay the same
+    len = s.length();
+    for (i = 0; i < len; i++) {
+      c = s.charAt(i);
+      if ((c >= 128) || (m_Table[c] != c))
+	break;
+    }
+    if (i == len)
+      return s;
+
+    result = s.toCharArray();
+    for (; i < len; i++) {
+      c = result[i];
+      if (c >= 128)
+	return convertFull(s);
+      m = m_Table[c];
+      if (m == -1)
+	return convertFull(s);
+      result[i] = (char) m;
+    }
+
+    return new String(result);
+  }
+
+  /**
+   * Returns a short description of the setup.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return "locale=" + m_Locale + ", upper-case=" + m_UpperCase + ", full-folding=" + m_FullFolding;
+  }
+}
@@ -0,0 +1,1072 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * DiskParseCache.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import weka.core.Utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Persistent cache for parsed sentences, surviving JVM runs. The key
+ * consists of a fingerprint of the model identity and a SHA-1 digest of the
+ * model identity and the tokenized sentence.
+ * <br><br>
+ * The records are stored in append-only segment files in the cache
+ * directory, with each record consisting of the key, the generation, the
+ * length of the encoded sentence, the encoded sentence and a CRC32 checksum.
+ * Full segments are memory-mapped for reading. When opening the cache, the
+ * segments get scanned to build the in-memory index, truncating a partially
+ * written last record (e.g., after a crash).
+ * <br><br>
+ * Retention: every run (see {@link #startRun(String)}) starts a new
+ * generation, stored in the lock file. Records that have not been used for
+ * more than the maximum age (in generations) expire; a hit on a record older
+ * than half the maximum age stores it again with the current generation.
+ * Records of models that have not been used by any run since opening the
+ * cache (e.g., after the model file changed) are considered obsolete. Once
+ * at least half of the stored bytes are superseded, expired or obsolete
+ * records, the cache should get compacted (see {@link #needsCompaction()}),
+ * i.e., the remaining records get copied into new segments and the old
+ * segments removed. This happens automatically when opening the cache.
+ * <br><br>
+ * The cache is thread-safe: lookups only share a read lock, i.e., threads
+ * can read concurrently, while storing a sentence and compaction require
+ * exclusive access. Use {@link #getInstance(File)} to share a cache within
+ * the JVM. The cache locks the directory for writing; if the lock is
+ * already held (e.g., by another JVM), the cache gets opened read-only,
+ * i.e., new sentences do not get stored (see {@link #isReadOnly()}).
+ * Records that cannot be read get dropped and counted as errors, nothing
+ * gets output.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class DiskParseCache {
+
+  /** the prefix of the segment files. */
+  public static final String SEGMENT_PREFIX = "segment-";
+
+  /** the extension of the segment files. */
+  public static final String SEGMENT_EXTENSION = ".dat";
+
+  /** the default maximum size of a segment in bytes. */
+  public static final int DEFAULT_MAX_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  /** the name of the lock file. */
+  public static final String LOCK_FILE = "cache.lock";
+
+  /** the length of the model fingerprint. */
+  public static final int MODEL_LENGTH = 8;
+
+  /** the length of the digest. */
+  public static final int DIGEST_LENGTH = 20;
+
+  /** the length of the key (model fingerprint and digest). */
+  public static final int KEY_LENGTH = MODEL_LENGTH + DIGEST_LENGTH;
+
+  /** the size of a record without the encoded sentence. */
+  public static final int RECORD_OVERHEAD = KEY_LENGTH + 4 + 4 + 4;
+
+  /** the default maximum age of records (in generations, i.e., runs). */
+  public static final int DEFAULT_MAX_AGE = 30;
+
+  /** the shared caches (canonical path - cache). */
+  protected static Map<String, DiskParseCache> m_Instances = new HashMap<String, DiskParseCache>();
+
+  /** the cache directory. */
+  protected File m_Directory;
+
+  /** the maximum size of a segment. */
+  protected int m_MaxSegmentSize;
+
+  /** the maximum age of records in generations. */
+  protected volatile int m_MaxAge;
+
+  /**
+   * The location of a record.
+   */
+  protected static class Location {
+
+    /** the segment ID. */
+    public final int segment;
+
+    /** the offset in the segment. */
+    public final int offset;
+
+    /** the size of the record. */
+    public final int size;
+
+    /** the generation in which the record was last stored. */
+    public final int generation;
+
+    /**
+     * Initializes the location.
+     *
+     * @param segment	the segment ID
+     * @param offset	the offset in the segment
+     * @param size	the size of the record
+     * @param generation	the generation of the record
+     */
+    public Location(int segment, int offset, int size, int generation) {
+      this.segment    = segment;
+      this.offset     = offset;
+      this.size       = size;
+      this.generation = generation;
+    }
+  }
+
+  /** the index (key - location). */
+  protected Map<ByteBuffer, Location> m_Index;
+
+  /** the number of bytes of indexed records per model (fingerprint - bytes). */
+  protected Map<ByteBuffer, Long> m_ModelBytes;
+
+  /** the models of the runs since opening the cache (fingerprints). */
+  protected Set<ByteBuffer> m_Models;
+
+  /** the current generation. */
+  protected int m_Generation;
+
+  /** the memory-mapped full segments. */
+  protected Map<Integer, MappedByteBuffer> m_Sealed;
+
+  /** the ID of the segment that gets appended to. */
+  protected int m_ActiveID;
+
+  /** the segment that gets appended to. */
+  protected RandomAccessFile m_Active;
+
+  /** the size of the active segment. */
+  protected long m_ActiveSize;
+
+  /** the total number of bytes stored in the segments. */
+  protected long m_TotalBytes;
+
+  /** the number of bytes of superseded and expired records. */
+  protected long m_DeadBytes;
+
+  /** the number of expired records. */
+  protected long m_Expired;
+
+  /** the number of hits. */
+  protected AtomicLong m_Hits;
+
+  /** the number of misses. */
+  protected AtomicLong m_Misses;
+
+  /** the number of records that could not be read. */
+  protected long m_Errors;
+
+  /** guards index and segments (lookups: read lock, modifications: write lock). */
+  protected ReentrantReadWriteLock m_Access;
+
+  /** the lock file, null if read-only. */
+  protected RandomAccessFile m_LockFile;
+
+  /** the lock on the directory, null if read-only. */
+  protected FileLock m_Lock;
+
+  /** whether the cache is read-only. */
+  protected volatile boolean m_ReadOnly;
+
+  /** whether the cache has been closed. */
+  protected volatile boolean m_Closed;
+
+  /**
+   * Opens the cache in the specified directory, creating it if necessary.
+   *
+   * @param dir		the cache directory
+   * @throws IOException	if opening fails
+   */
+  public DiskParseCache(File dir) throws IOException {
+    this(dir, DEFAULT_MAX_SEGMENT_SIZE);
+  }
+
+  /**
+   * Opens the cache in the specified directory, creating it if necessary.
+   *
+   * @param dir			the cache directory
+   * @param maxSegmentSize	the maximum size of a segment in bytes
+   * @throws IOException	if opening fails
+   */
+  public DiskParseCache(File dir, int maxSegmentSize) throws IOException {
+    this(dir, maxSegmentSize, DEFAULT_MAX_AGE);
+  }
+
+  /**
+   * Opens the cache in the specified directory, creating it if necessary.
+   *
+   * @param dir			the cache directory
+   * @param maxSegmentSize	the maximum size of a segment in bytes
+   * @param maxAge		the maximum age of records in generations
+   * @throws IOException	if opening fails
+   */
+  public DiskParseCache(File dir, int maxSegmentSize, int maxAge) throws IOException {
+    m_Directory      = dir;
+    m_MaxSegmentSize = maxSegmentSize;
+    m_MaxAge         = maxAge;
+    m_Index          = new HashMap<ByteBuffer, Location>();
+    m_ModelBytes     = new HashMap<ByteBuffer, Long>();
+    m_Models         = new HashSet<ByteBuffer>();
+    m_Sealed         = new TreeMap<Integer, MappedByteBuffer>();
+    m_Hits           = new AtomicLong();
+    m_Misses         = new AtomicLong();
+    m_Errors         = 0;
+    m_Access         = new ReentrantReadWriteLock();
+    open();
+  }
+
+  /**
+   * Returns the shared cache for the directory, opening it if necessary.
+   *
+   * @param dir		the cache directory
+   * @return		the cache
+   * @throws IOException	if opening fails
+   */
+  public static synchronized DiskParseCache getInstance(File dir) throws IOException {
+    DiskParseCache	result;
+    String		key;
+
+    key    = dir.getCanonicalPath();
+    result = m_Instances.get(key);
+    if ((result == null) || result.m_Closed) {
+      result = new DiskParseCache(new File(key));
+      m_Instances.put(key, result);
+    }
+
+    return result;
+  }
+
+  /**
+   * Generates the fingerprint of the model.
+   *
+   * @param model	the identity of the model, see {@link ParserModelRegistry#getKey}
+   * @return		the fingerprint
+   */
+  public static byte[] createFingerprint(String model) {
+    MessageDigest	digest;
+
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+      return Arrays.copyOf(digest.digest(model.getBytes("UTF-8")), MODEL_LENGTH);
+    }
+    catch (Exception e) {
+      throw new IllegalStateException("Failed to generate fingerprint!", e);
+    }
+  }
+
+  /**
+   * Generates the key for the model and sentence, i.e., the fingerprint of
+   * the model followed by the digest of model and sentence.
+   *
+   * @param model	the identity of the model, see {@link ParserModelRegistry#getKey}
+   * @param sentence	the tokenized sentence, see {@link ParseCache#createKey(List)}
+   * @return		the key
+   */
+  public static byte[] createKey(String model, String sentence) {
+    MessageDigest	digest;
+    byte[]		result;
+
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+      digest.update(model.getBytes("UTF-8"));
+      digest.update((byte) '\n');
+      digest.update(sentence.getBytes("UTF-8"));
+      result = new byte[KEY_LENGTH];
+      System.arraycopy(createFingerprint(model), 0, result, 0, MODEL_LENGTH);
+      System.arraycopy(digest.digest(), 0, result, MODEL_LENGTH, DIGEST_LENGTH);
+      return result;
+    }
+    catch (Exception e) {
+      throw new IllegalStateException("Failed to generate key!", e);
+    }
+  }
+
+  /**
+   * Returns the model fingerprint of the key.
+   *
+   * @param key		the key
+   * @return		the fingerprint
+   */
+  protected static ByteBuffer getModel(ByteBuffer key) {
+    return ByteBuffer.wrap(Arrays.copyOf(key.array(), MODEL_LENGTH));
+  }
+
+  /**
+   * Encodes the sentence.
+   *
+   * @param sentence	the sentence to encode
+   * @return		the encoded sentence
+   */
+  protected static byte[] encode(TaggedSentence sentence) {
+    ByteArrayOutputStream	bytes;
+    DataOutputStream		out;
+    int				i;
+
+    bytes = new ByteArrayOutputStream();
+    out   = new DataOutputStream(bytes);
+    try {
+      out.writeInt(sentence.size());
+      for (i = 0; i < sentence.size(); i++) {
+	out.writeUTF(sentence.getLabel(i));
+	out.writeUTF(sentence.getWord(i));
+      }
+      out.flush();
+    }
+    catch (IOException e) {
+      throw new IllegalStateException("Failed to encode sentence!", e);
+    }
+
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Decodes the sentence.
+   *
+   * @param data	the encoded sentence
+   * @return		the sentence
+   * @throws IOException	if decoding fails
+   */
+  protected static TaggedSentence decode(byte[] data) throws IOException {
+    DataInputStream	in;
+    String[]		labels;
+    String[]		words;
+    int			i;
+
+    in     = new DataInputStream(new ByteArrayInputStream(data));
+    labels = new String[in.readInt()];
+    words  = new String[labels.length];
+    for (i = 0; i < labels.length; i++) {
+      labels[i] = in.readUTF();
+      words[i]  = in.readUTF();
+    }
+
+    return new TaggedSentence(labels, words);
+  }
+
+  /**
+   * Computes the checksum of a record.
+   *
+   * @param key		the key
+   * @param generation	the generation
+   * @param data	the encoded sentence
+   * @return		the checksum
+   */
+  protected static int checksum(byte[] key, int generation, byte[] data) {
+    CRC32	crc;
+
+    crc = new CRC32();
+    crc.update(key);
+    crc.update(generation >>> 24);
+    crc.update(generation >>> 16);
+    crc.update(generation >>> 8);
+    crc.update(generation);
+    crc.update(data);
+
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Returns the file for the segment.
+   *
+   * @param id		the segment ID
+   * @return		the file
+   */
+  protected File getSegmentFile(int id) {
+    return new File(m_Directory, SEGMENT_PREFIX + String.format("%06d", id) + SEGMENT_EXTENSION);
+  }
+
+  /**
+   * Returns the IDs of the segments in the directory, in ascending order.
+   *
+   * @return		the IDs
+   */
+  protected int[] getSegmentIDs() {
+    String[]	files;
+    int[]	result;
+    int		i;
+
+    files = m_Directory.list(new FilenameFilter() {
+      public boolean accept(File dir, String name) {
+	return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_EXTENSION);
+      }
+    });
+    if (files == null)
+      files = new String[0];
+    result = new int[files.length];
+    for (i = 0; i < files.length; i++)
+      result[i] = Integer.parseInt(files[i].substring(SEGMENT_PREFIX.length(), files[i].length() - SEGMENT_EXTENSION.length()));
+    Arrays.sort(result);
+
+    return result;
+  }
+
+  /**
+   * Updates the number of bytes of indexed records of the model.
+   *
+   * @param key		the key of the record
+   * @param delta	the change in bytes
+   */
+  protected void count(ByteBuffer key, long delta) {
+    ByteBuffer	model;
+    Long	bytes;
+
+    model = getModel(key);
+    bytes = m_ModelBytes.get(model);
+    bytes = ((bytes == null) ? 0 : bytes) + delta;
+    if (bytes == 0)
+      m_ModelBytes.remove(model);
+    else
+      m_ModelBytes.put(model, bytes);
+  }
+
+  /**
+   * Adds the record to the index.
+   *
+   * @param key		the key
+   * @param location	the location of the record
+   */
+  protected void index(byte[] key, Location location) {
+    ByteBuffer	buffer;
+    Location	old;
+
+    buffer = ByteBuffer.wrap(key);
+    old    = m_Index.put(buffer, location);
+    if (old != null) {
+      m_DeadBytes += old.size;
+      count(buffer, -old.size);
+    }
+    m_TotalBytes += location.size;
+    count(buffer, location.size);
+  }
+
+  /**
+   * Removes the record from the index, e.g., after it expired.
+   *
+   * @param key		the key
+   * @return		the location of the record, null if not indexed
+   */
+  protected Location unindex(ByteBuffer key) {
+    Location	result;
+
+    result = m_Index.remove(key);
+    if (result != null) {
+      m_DeadBytes += result.size;
+      count(key, -result.size);
+    }
+
+    return result;
+  }
+
+  /**
+   * Removes all records from the index that are older than the maximum age.
+   */
+  protected void expire() {
+    Iterator<Map.Entry<ByteBuffer, Location>>	iter;
+    Map.Entry<ByteBuffer, Location>		entry;
+
+    iter = m_Index.entrySet().iterator();
+    while (iter.hasNext()) {
+      entry = iter.next();
+      if (m_Generation - entry.getValue().generation > m_MaxAge) {
+	iter.remove();
+	m_DeadBytes += entry.getValue().size;
+	count(entry.getKey(), -entry.getValue().size);
+	m_Expired++;
+      }
+    }
+  }
+
+  /**
+   * Scans the segment and adds its records to the index.
+   *
+   * @param id		the segment ID
+   * @param buffer	the content of the segment
+   * @return		the end of the last valid record
+   */
+  protected int scan(int id, ByteBuffer buffer) {
+    byte[]	key;
+    byte[]	data;
+    int		pos;
+    int		generation;
+    int		length;
+
+    pos = 0;
+    while (pos + RECORD_OVERHEAD <= buffer.limit()) {
+      buffer.position(pos);
+      key = new byte[KEY_LENGTH];
+      buffer.get(key);
+      generation = buffer.getInt();
+      length     = buffer.getInt();
+      if ((length < 0) || (pos + RECORD_OVERHEAD + length > buffer.limit()))
+	break;
+      data = new byte[length];
+      buffer.get(data);
+      if (buffer.getInt() != checksum(key, generation, data))
+	break;
+      index(key, new Location(id, pos, RECORD_OVERHEAD + length, generation));
+      m_Generation = Math.max(m_Generation, generation);
+      pos += RECORD_OVERHEAD + length;
+    }
+
+    return pos;
+  }
+
+  /**
+   * Tries to lock the cache directory.
+   *
+   * @return		true if successfully locked, false if already locked
+   * @throws IOException	if accessing the lock file fails
+   */
+  protected boolean lock() throws IOException {
+    m_LockFile = new RandomAccessFile(new File(m_Directory, LOCK_FILE), "rw");
+    try {
+      m_Lock = m_LockFile.getChannel().tryLock();
+    }
+    catch (OverlappingFileLockException e) {
+      // locked by another cache within this JVM
+      m_Lock = null;
+    }
+    if (m_Lock == null) {
+      m_LockFile.close();
+      m_LockFile = null;
+    }
+
+    return (m_Lock != null);
+  }
+
+  /**
+   * Opens the cache, i.e., locks the directory and scans all the segments.
+   * If the directory is already locked, all segments get opened read-only.
+   *
+   * @throws IOException	if opening fails
+   */
+  protected void open() throws IOException {
+    int[]		ids;
+    int			i;
+    RandomAccessFile	file;
+    MappedByteBuffer	mapped;
+    ByteBuffer		buffer;
+    int			end;
+
+    if (!m_Directory.exists() && !m_Directory.mkdirs())
+      throw new IOException("Failed to create cache directory: " + m_Directory);
+    if (!m_Directory.isDirectory())
+      throw new IOException("Cache directory is not a directory: " + m_Directory);
+
+    m_Index.clear();
+    m_ModelBytes.clear();
+    m_Models.clear();
+    m_Sealed.clear();
+    m_TotalBytes = 0;
+    m_DeadBytes  = 0;
+    m_ActiveID   = -1;
+    m_Closed     = false;
+    m_ReadOnly   = !lock();
+    m_Generation = 0;
+    // the generation of the last run (unless it didn't store any records)
+    if (!m_ReadOnly && (m_LockFile.length() >= 4))
+      m_Generation = m_LockFile.readInt();
+
+    ids = getSegmentIDs();
+    for (i = 0; i < ids.length; i++) {
+      if ((i < ids.length - 1) || m_ReadOnly) {
+	file   = new RandomAccessFile(getSegmentFile(ids[i]), "r");
+	mapped = file.getChannel().map(MapMode.READ_ONLY, 0, file.length());
+	file.close();
+	scan(ids[i], mapped);
+	m_Sealed.put(ids[i], mapped);
+      }
+      else {
+	// not mapped, as it may need truncating
+	file   = new RandomAccessFile(getSegmentFile(ids[i]), "rw");
+	buffer = ByteBuffer.allocate((int) file.length());
+	file.getChannel().read(buffer, 0);
+	buffer.flip();
+	end = scan(ids[i], buffer);
+	// remove partially written record
+	if (end < file.length())
+	  file.setLength(end);
+	m_ActiveID   = ids[i];
+	m_Active     = file;
+	m_ActiveSize = end;
+      }
+    }
+
+    expire();
+    if (m_ReadOnly)
+      return;
+
+    if (m_Active == null)
+      newSegment(0);
+
+    if (needsCompaction())
+      compact();
+  }
+
+  /**
+   * Starts a new active segment.
+   *
+   * @param id		the ID of the new segment
+   * @throws IOException	if creating the segment fails
+   */
+  protected void newSegment(int id) throws IOException {
+    m_ActiveID   = id;
+    m_Active     = new RandomAccessFile(getSegmentFile(id), "rw");
+    m_Active.setLength(0);
+    m_ActiveSize = 0;
+  }
+
+  /**
+   * Seals the active segment, i.e., memory-maps it for reading, and starts
+   * a new one.
+   *
+   * @throws IOException	if sealing fails
+   */
+  protected void seal() throws IOException {
+    m_Sealed.put(m_ActiveID, m_Active.getChannel().map(MapMode.READ_ONLY, 0, m_ActiveSize));
+    m_Active.close();
+    newSegment(m_ActiveID + 1);
+  }
+
+  /**
+   * Reads the record at the specified location.
+   *
+   * @param location	the location of the record
+   * @return		the key (index 0) and the encoded sentence (index 1)
+   * @throws IOException	if reading fails or the record is corrupt
+   */
+  protected byte[][] read(Location location) throws IOException {
+    ByteBuffer	buffer;
+    byte[]	key;
+    int		generation;
+    byte[]	data;
+
+    if (location.segment == m_ActiveID) {
+      buffer = ByteBuffer.allocate(location.size);
+      m_Active.getChannel().read(buffer, location.offset);
+      buffer.flip();
+    }
+    else {
+      buffer = m_Sealed.get(location.segment).duplicate();
+      buffer.position(location.offset);
+    }
+    key = new byte[KEY_LENGTH];
+    buffer.get(key);
+    generation = buffer.getInt();
+    data       = new byte[buffer.getInt()];
+    buffer.get(data);
+    if (buffer.getInt() != checksum(key, generation, data))
+      throw new IOException("Checksum mismatch in segment " + location.segment + " at offset " + location.offset);
+
+    return new byte[][]{key, data};
+  }
+
+  /**
+   * Appends the record to the active segment.
+   *
+   * @param key		the key
+   * @param generation	the generation of the record
+   * @param data	the encoded sentence
+   * @throws IOException	if writing fails
+   */
+  protected void append(byte[] key, int generation, byte[] data) throws IOException {
+    ByteBuffer	buffer;
+    int		size;
+
+    size = RECORD_OVERHEAD + data.length;
+    if ((m_ActiveSize > 0) && (m_ActiveSize + size > m_MaxSegmentSize))
+      seal();
+
+    buffer = ByteBuffer.allocate(size);
+    buffer.put(key);
+    buffer.putInt(generation);
+    buffer.putInt(data.length);
+    buffer.put(data);
+    buffer.putInt(checksum(key, generation, data));
+    buffer.flip();
+    m_Active.getChannel().write(buffer, m_ActiveSize);
+
+    index(key, new Location(m_ActiveID, (int) m_ActiveSize, size, generation));
+    m_ActiveSize += size;
+  }
+
+  /**
+   * Returns the cached sentence. A record that cannot be read gets removed
+   * from the index and counted as error. A record older than half the
+   * maximum age gets stored again with the current generation.
+   *
+   * @param key		the key, see {@link #createKey(String, String)}
+   * @return		the sentence, null if not cached
+   */
+  public TaggedSentence get(byte[] key) {
+    TaggedSentence	result;
+    Location		location;
+    byte[]		data;
+    byte[]		renew;
+    boolean		failed;
+
+    result = null;
+    renew  = null;
+    failed = false;
+    m_Access.readLock().lock();
+    try {
+      location = m_Index.get(ByteBuffer.wrap(key));
+      if (location != null) {
+	try {
+	  data   = read(location)[1];
+	  result = decode(data);
+	  if (!m_ReadOnly && (m_Generation - location.generation > m_MaxAge / 2))
+	    renew = data;
+	}
+	catch (IOException e) {
+	  failed = true;
+	}
+      }
+    }
+    finally {
+      m_Access.readLock().unlock();
+    }
+
+    if (failed)
+      drop(key, location);
+    if (renew != null)
+      renew(key, location, renew);
+    if (result == null)
+      m_Misses.incrementAndGet();
+    else
+      m_Hits.incrementAndGet();
+
+    return result;
+  }
+
+  /**
+   * Removes the record that could not be read from the index, unless it
+   * has been replaced in the meantime.
+   *
+   * @param key		the key of the record
+   * @param location	the location of the record
+   */
+  protected void drop(byte[] key, Location location) {
+    m_Access.writeLock().lock();
+    try {
+      if (m_Index.get(ByteBuffer.wrap(key)) == location) {
+	unindex(ByteBuffer.wrap(key));
+	m_Errors++;
+      }
+    }
+    finally {
+      m_Access.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Stores the record that got used again with the current generation,
+   * unless it has been replaced in the meantime. A failure only gets
+   * counted as error, as the old record is still available.
+   *
+   * @param key		the key of the record
+   * @param location	the location of the record
+   * @param data	the encoded sentence
+   */
+  protected void renew(byte[] key, Location location, byte[] data) {
+    m_Access.writeLock().lock();
+    try {
+      if (!m_Closed && (m_Index.get(ByteBuffer.wrap(key)) == location))
+	append(key, m_Generation, data);
+    }
+    catch (IOException e) {
+      m_Errors++;
+    }
+    finally {
+      m_Access.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Stores the sentence in the cache. Does nothing if read-only.
+   *
+   * @param key		the key, see {@link #createKey(String, String)}
+   * @param sentence	the sentence to store
+   * @throws IOException	if writing fails
+   */
+  public void put(byte[] key, TaggedSentence sentence) throws IOException {
+    byte[]	data;
+
+    if (m_ReadOnly)
+      return;
+    data = encode(sentence);
+    m_Access.writeLock().lock();
+    try {
+      if (m_Closed)
+	throw new IOException("Cache has been closed: " + m_Directory);
+      append(key, m_Generation, data);
+    }
+    finally {
+      m_Access.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns whether the cache is read-only, as another cache holds the lock
+   * on the directory.
+   *
+   * @return		true if read-only
+   */
+  public boolean isReadOnly() {
+    return m_ReadOnly;
+  }
+
+  /**
+   * Starts a new run that uses the model, i.e., increments the generation
+   * and expires the records that are too old. The model counts as being in
+   * use until the cache gets closed. Only registers the model if read-only.
+   *
+   * @param model	the identity of the model, see {@link ParserModelRegistry#getKey}
+   * @throws IOException	if storing the generation fails
+   */
+  public void startRun(String model) throws IOException {
+    m_Access.writeLock().lock();
+    try {
+      if (m_Closed)
+	throw new IOException("Cache has been closed: " + m_Directory);
+      m_Models.add(ByteBuffer.wrap(createFingerprint(model)));
+      if (m_ReadOnly)
+	return;
+      m_Generation++;
+      m_LockFile.seek(0);
+      m_LockFile.writeInt(m_Generation);
+      expire();
+    }
+    finally {
+      m_Access.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of bytes of the records of models that are not in
+   * use. Only applies once a run has started.
+   *
+   * @return		the number of bytes
+   * @see		#startRun(String)
+   */
+  protected long getObsoleteBytes() {
+    long	result;
+
+    result = 0;
+    if (m_Models.isEmpty())
+      return result;
+    for (Map.Entry<ByteBuffer, Long> entry: m_ModelBytes.entrySet()) {
+      if (!m_Models.contains(entry.getKey()))
+	result += entry.getValue();
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns whether at least half of the stored bytes are superseded,
+   * expired or obsolete records, e.g., after the whole data got tagged
+   * again with a new version of the model.
+   *
+   * @return		true if compaction is recommended
+   */
+  public boolean needsCompaction() {
+    long	dead;
+
+    m_Access.readLock().lock();
+    try {
+      dead = m_DeadBytes + getObsoleteBytes();
+      return (dead > 0) && (dead * 2 >= m_TotalBytes);
+    }
+    finally {
+      m_Access.readLock().unlock();
+    }
+  }
+
+  /**
+   * Compacts the cache, i.e., copies all live records into new segments
+   * and removes the old segments. Records of models that are not in use get
+   * dropped, unless no run has been started. Does nothing if read-only.
+   *
+   * @throws IOException	if compaction fails
+   */
+  public void compact() throws IOException {
+    List<Location>	live;
+    int[]		old;
+    byte[][]		record;
+
+    if (m_ReadOnly)
+      return;
+
+    m_Access.writeLock().lock();
+    try {
+      if (m_Closed)
+	return;
+
+      old  = getSegmentIDs();
+      live = new ArrayList<Location>();
+      for (Map.Entry<ByteBuffer, Location> entry: m_Index.entrySet()) {
+	if (m_Models.isEmpty() || m_Models.contains(getModel(entry.getKey())))
+	  live.add(entry.getValue());
+      }
+
+      // copy live records, keeping their generation
+      seal();
+      m_Index.clear();
+      m_ModelBytes.clear();
+      m_TotalBytes = 0;
+      m_DeadBytes  = 0;
+      for (Location location: live) {
+	record = read(location);
+	append(record[0], location.generation, record[1]);
+      }
+
+      // remove old segments
+      for (int id: old) {
+	m_Sealed.remove(id);
+	if (!getSegmentFile(id).delete())
+	  getSegmentFile(id).deleteOnExit();
+      }
+    }
+    finally {
+      m_Access.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Sets the maximum age of records, in generations.
+   *
+   * @param value	the maximum age
+   */
+  public void setMaxAge(int value) {
+    m_MaxAge = value;
+  }
+
+  /**
+   * Returns the maximum age of records, in generations.
+   *
+   * @return		the maximum age
+   */
+  public int getMaxAge() {
+    return m_MaxAge;
+  }
+
+  /**
+   * Returns the number of cached sentences.
+   *
+   * @return		the number of sentences
+   */
+  public int size() {
+    m_Access.readLock().lock();
+    try {
+      return m_Index.size();
+    }
+    finally {
+      m_Access.readLock().unlock();
+    }
+  }
+
+  /**
+   * Closes the cache.
+   *
+   * @throws IOException	if closing fails
+   */
+  public void close() throws IOException {
+    m_Access.writeLock().lock();
+    try {
+      if (m_Active != null) {
+	m_Active.close();
+	m_Active = null;
+      }
+      if (m_LockFile != null) {
+	// closing the channel releases the lock
+	m_LockFile.close();
+	m_LockFile = null;
+	m_Lock     = null;
+      }
+      m_Sealed.clear();
+      m_Index.clear();
+      m_ModelBytes.clear();
+      m_Closed = true;
+    }
+    finally {
+      m_Access.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the statistics of the cache.
+   *
+   * @return		the statistics
+   */
+  @Override
+  public String toString() {
+    long	hits;
+    long	total;
+
+    m_Access.readLock().lock();
+    try {
+      hits  = m_Hits.get();
+      total = hits + m_Misses.get();
+      return "dir=" + m_Directory
+	+ ", entries=" + m_Index.size()
+	+ ", bytes=" + m_TotalBytes
+	+ ", dead-bytes=" + m_DeadBytes
+	+ ", obsolete-bytes=" + getObsoleteBytes()
+	+ ", generation=" + m_Generation
+	+ ", expired=" + m_Expired
+	+ ", hits=" + hits
+	+ ", misses=" + m_Misses.get()
+	+ ", hit-rate=" + ((total == 0) ? "0" : Utils.doubleToString(100.0 * hits / total, 1)) + "%"
+	+ ", errors=" + m_Errors
+	+ (m_ReadOnly ? ", read-only" : "");
+    }
+    finally {
+      m_Access.readLock().unlock();
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ExecutorUtils.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helper methods for the worker pools used by the filters.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ExecutorUtils {
+
+  /** the number of seconds idle worker threads are kept alive. */
+  public static final int KEEP_ALIVE = 30;
+
+  /**
+   * Turns the user-supplied number of threads into the actual number,
+   * i.e., values less than 1 mean all available cores.
+   *
+   * @param numThreads	the user-supplied number
+   * @return		the actual number of threads
+   */
+  public static int getNumThreads(int numThreads) {
+    if (numThreads < 1)
+      return Runtime.getRuntime().availableProcessors();
+    return numThreads;
+  }
+
+  /**
+   * Creates a new pool with daemon worker threads. Idle workers time out,
+   * i.e., a pool that isn't shut down does not keep threads around forever.
+   *
+   * @param numThreads	the number of threads (less than 1 for all cores)
+   * @param name	the prefix for the thread names
+   * @return		the pool
+   */
+  public static ThreadPoolExecutor newPool(int numThreads, final String name) {
+    ThreadPoolExecutor	result;
+
+    numThreads = getNumThreads(numThreads);
+    result = new ThreadPoolExecutor(
+      numThreads, numThreads, KEEP_ALIVE, TimeUnit.SECONDS,
+      new LinkedBlockingQueue<Runnable>(),
+      new ThreadFactory() {
+	protected AtomicInteger m_Count = new AtomicInteger();
+	public Thread newThread(Runnable r) {
+	  Thread thread = new Thread(r, name + "-" + m_Count.incrementAndGet());
+	  thread.setDaemon(true);
+	  return thread;
+	}
+      });
+    result.allowCoreThreadTimeOut(true);
+
+    return result;
+  }
+
+  /**
+   * Waits for the job to finish and returns its result. Exceptions thrown
+   * by the job are passed on as is.
+   *
+   * @param future	the job to wait for
+   * @return		the result
+   * @throws Exception	if the job failed or waiting got interrupted
+   */
+  public static <T> T get(Future<T> future) throws Exception {
+    try {
+      return future.get();
+    }
+    catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception)
+	throw (Exception) e.getCause();
+      throw e;
+    }
+  }
+
+  /**
+   * Cancels all the jobs, e.g., after one of them failed.
+   *
+   * @param futures	the jobs to cancel
+   */
+  public static void cancel(List<? extends Future<?>> futures) {
+    for (Future<?> future: futures)
+      future.cancel(true);
+  }
+}
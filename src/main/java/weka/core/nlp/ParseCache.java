@@ -0,0 +1,219 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ParseCache.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import edu.stanford.nlp.ling.HasWord;
+import weka.core.Utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread-safe, size-bounded LRU cache for parsed sentences. The key is the
+ * tokenized sentence.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ParseCache {
+
+  /** the separator for the words in the key. */
+  public static final char SEPARATOR = '\u0000';
+
+  /** the maximum number of entries. */
+  protected int m_MaxEntries;
+
+  /** the maximum number of bytes (estimated), -1 for unlimited. */
+  protected long m_MaxBytes;
+
+  /** the cached sentences (access-ordered). */
+  protected LinkedHashMap<String, TaggedSentence> m_Cache;
+
+  /** the estimated size of the cache in bytes. */
+  protected long m_Bytes;
+
+  /** the number of cache hits. */
+  protected long m_Hits;
+
+  /** the number of cache misses. */
+  protected long m_Misses;
+
+  /** the number of evictions. */
+  protected long m_Evictions;
+
+  /**
+   * Initializes the cache.
+   *
+   * @param maxEntries	the maximum number of sentences to cache
+   * @param maxBytes	the maximum (estimated) size in bytes, -1 for unlimited
+   */
+  public ParseCache(int maxEntries, long maxBytes) {
+    m_MaxEntries = maxEntries;
+    m_MaxBytes   = maxBytes;
+    m_Cache      = new LinkedHashMap<String, TaggedSentence>(16, 0.75f, true);
+    m_Bytes      = 0;
+    m_Hits       = 0;
+    m_Misses     = 0;
+    m_Evictions  = 0;
+  }
+
+  /**
+   * Generates the key for the tokenized sentence.
+   *
+   * @param words	the words of the sentence
+   * @return		the key
+   */
+  public static String createKey(List<? extends HasWord> words) {
+    StringBuilder	result;
+    int			i;
+
+    result = new StringBuilder();
+    for (i = 0; i < words.size(); i++) {
+      if (i > 0)
+	result.append(SEPARATOR);
+      result.append(words.get(i).word());
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Returns the cached sentence.
+   *
+   * @param key		the key of the sentence
+   * @return		the sentence, null if not cached
+   */
+  public synchronized TaggedSentence get(String key) {
+    TaggedSentence	result;
+
+    result = m_Cache.get(key);
+    if (result == null)
+      m_Misses++;
+    else
+      m_Hits++;
+
+    return result;
+  }
+
+  /**
+   * Adds the sentence to the cache, evicting the least recently used ones
+   * if necessary.
+   *
+   * @param key		the key of the sentence
+   * @param sentence	the sentence to cache
+   */
+  public synchronized void put(String key, TaggedSentence sentence) {
+    TaggedSentence				old;
+    Iterator<Map.Entry<String, TaggedSentence>>	iter;
+    Map.Entry<String, TaggedSentence>		eldest;
+
+    old = m_Cache.put(key, sentence);
+    if (old != null)
+      m_Bytes -= sizeOf(key, old);
+    m_Bytes += sizeOf(key, sentence);
+
+    iter = m_Cache.entrySet().iterator();
+    while (iter.hasNext() && ((m_Cache.size() > m_MaxEntries) || ((m_MaxBytes > -1) && (m_Bytes > m_MaxBytes)))) {
+      eldest = iter.next();
+      m_Bytes -= sizeOf(eldest.getKey(), eldest.getValue());
+      iter.remove();
+      m_Evictions++;
+    }
+  }
+
+  /**
+   * Returns the estimated size of a cache entry.
+   *
+   * @param key		the key
+   * @param sentence	the cached sentence
+   * @return		the size in bytes
+   */
+  protected long sizeOf(String key, TaggedSentence sentence) {
+    // key, value and the map entry itself
+    return TaggedSentence.sizeOf(key) + sentence.sizeOf() + 48;
+  }
+
+  /**
+   * Returns the number of cached sentences.
+   *
+   * @return		the number of entries
+   */
+  public synchronized int size() {
+    return m_Cache.size();
+  }
+
+  /**
+   * Returns the estimated size of the cache.
+   *
+   * @return		the size in bytes
+   */
+  public synchronized long sizeOf() {
+    return m_Bytes;
+  }
+
+  /**
+   * Returns the number of cache hits.
+   *
+   * @return		the hits
+   */
+  public synchronized long getHits() {
+    return m_Hits;
+  }
+
+  /**
+   * Returns the number of cache misses.
+   *
+   * @return		the misses
+   */
+  public synchronized long getMisses() {
+    return m_Misses;
+  }
+
+  /**
+   * Removes all entries and resets the counters.
+   */
+  public synchronized void clear() {
+    m_Cache.clear();
+    m_Bytes     = 0;
+    m_Hits      = 0;
+    m_Misses    = 0;
+    m_Evictions = 0;
+  }
+
+  /**
+   * Returns the statistics of the cache.
+   *
+   * @return		the statistics
+   */
+  @Override
+  public synchronized String toString() {
+    long	total;
+
+    total = m_Hits + m_Misses;
+    return "entries=" + m_Cache.size()
+      + ", bytes=" + m_Bytes
+      + ", hits=" + m_Hits
+      + ", misses=" + m_Misses
+      + ", evictions=" + m_Evictions
+      + ", hit-rate=" + ((total == 0) ? "0" : Utils.doubleToString(100.0 * m_Hits / total, 1)) + "%";
+  }
+}
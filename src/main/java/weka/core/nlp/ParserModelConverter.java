@@ -0,0 +1,106 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ParserModelConverter.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+import weka.core.Utils;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Converts a (gzip compressed) Stanford parser model, e.g.,
+ * englishPCFG.ser.gz, into an uncompressed one, which the
+ * {@link ParserModelRegistry} loads via a memory-mapped file, skipping the
+ * inflation at start-up.
+ * <br><br>
+ * Options:
+ * <pre>
+ * -input &lt;file&gt;
+ *  The model to convert.
+ * -output &lt;file&gt;
+ *  The file to write the uncompressed model to (e.g., englishPCFG.ser).
+ * </pre>
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ParserModelConverter {
+
+  /** the size of the output buffer. */
+  public static final int BUFFER_SIZE = 1024 * 1024;
+
+  /**
+   * Converts the model.
+   *
+   * @param input	the model to convert
+   * @param output	the file to write the uncompressed model to
+   * @throws Exception	if loading or writing fails
+   */
+  public static void convert(File input, File output) throws Exception {
+    LexicalizedParser	parser;
+    ObjectOutputStream	oos;
+
+    if (output.getName().endsWith(".gz"))
+      throw new IllegalArgumentException("Output file must not be gzip compressed: " + output);
+
+    parser = LexicalizedParser.loadModel(input.getAbsolutePath());
+    oos    = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(output), BUFFER_SIZE));
+    try {
+      oos.writeObject(parser);
+      oos.flush();
+    }
+    finally {
+      oos.close();
+    }
+  }
+
+  /**
+   * Converts a model.
+   *
+   * @param args	the options
+   * @throws Exception	if conversion fails
+   */
+  public static void main(String[] args) throws Exception {
+    String	input;
+    String	output;
+    long	start;
+
+    if (Utils.getFlag('h', args) || Utils.getFlag("help", args)) {
+      System.out.println("Usage: " + ParserModelConverter.class.getName() + " -input <file> -output <file>");
+      return;
+    }
+
+    input  = Utils.getOption("input", args);
+    output = Utils.getOption("output", args);
+    if (input.isEmpty() || output.isEmpty())
+      throw new IllegalArgumentException("Both -input and -output must be provided!");
+
+    start = System.currentTimeMillis();
+    convert(new File(input), new File(output));
+    System.out.println("Converted " + input + " to " + output + " in " + (System.currentTimeMillis() - start) + "msec");
+
+    start = System.currentTimeMillis();
+    ParserModelRegistry.load(new File(output), null);
+    System.out.println("Loaded " + output + " in " + (System.currentTimeMillis() - start) + "msec");
+  }
+}
@@ -0,0 +1,423 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ParserModelRegistry.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+import weka.core.Utils;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.lang.ref.SoftReference;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * JVM-wide registry of Stanford parser models. Models are identified by
+ * their canonical path, timestamp and size, plus the additional parser
+ * options, so that all filters and panels using the same model share a single
+ * {@link LexicalizedParser} instance.
+ * <br><br>
+ * Owners acquire a model and release it once no longer needed. A model stays
+ * strongly referenced as long as it has at least one owner (owners that got
+ * garbage collected without releasing the model no longer count). Models
+ * without owners are only referenced softly, i.e., they get reused on the next
+ * acquisition unless the JVM ran low on memory in the meantime.
+ * <br><br>
+ * Uncompressed models (see {@link ParserModelConverter}) get recognized by
+ * their serialization header and read from a memory-mapped file.
+ * <br><br>
+ * Models can be preloaded in the background, see {@link #preload(File, String)}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ParserModelRegistry {
+
+  /**
+   * Container for a registered model.
+   */
+  protected static class Entry {
+
+    /** the key of the model. */
+    protected String m_Key;
+
+    /** the model, as long as there are owners. */
+    protected LexicalizedParser m_Parser;
+
+    /** the model, once there are no owners anymore. */
+    protected SoftReference<LexicalizedParser> m_Cached;
+
+    /** the current owners. */
+    protected List<WeakReference<Object>> m_Owners;
+
+    /** whether the entry got removed from the registry. */
+    protected boolean m_Removed;
+
+    /**
+     * Initializes the entry.
+     *
+     * @param key	the key of the model
+     */
+    public Entry(String key) {
+      m_Key    = key;
+      m_Parser = null;
+      m_Cached = null;
+      m_Owners  = new ArrayList<WeakReference<Object>>();
+      m_Removed = false;
+    }
+
+    /**
+     * Removes owners that got garbage collected and the specified owner.
+     *
+     * @param owner	the owner to remove, null to only purge
+     * @return		true if there are still owners left
+     */
+    public boolean purge(Object owner) {
+      Iterator<WeakReference<Object>>	iter;
+      Object				current;
+
+      iter = m_Owners.iterator();
+      while (iter.hasNext()) {
+	current = iter.next().get();
+	if ((current == null) || (current == owner))
+	  iter.remove();
+      }
+
+      if (m_Owners.size() == 0) {
+	if (m_Parser != null)
+	  m_Cached = new SoftReference<LexicalizedParser>(m_Parser);
+	m_Parser = null;
+      }
+
+      return (m_Owners.size() > 0);
+    }
+
+    /**
+     * Returns the model, if still available.
+     *
+     * @return		the model, null if not loaded or reclaimed
+     */
+    public LexicalizedParser get() {
+      if (m_Parser != null)
+	return m_Parser;
+      if (m_Cached != null)
+	return m_Cached.get();
+      return null;
+    }
+
+    /**
+     * Returns whether the model is neither loaded nor owned.
+     *
+     * @return		true if the entry can be removed
+     */
+    public boolean isObsolete() {
+      return (m_Owners.size() == 0) && (get() == null);
+    }
+  }
+
+  /** the registered models (key: model key). */
+  protected static final Map<String, Entry> m_Entries = new HashMap<String, Entry>();
+
+  /** the thread for loading models in the background. */
+  protected static ExecutorService m_Preloader;
+
+  /**
+   * Generates the key for the model and parser options.
+   *
+   * @param model	the model file
+   * @param options	the additional parser options, can be null
+   * @return		the key
+   * @throws Exception	if options cannot be parsed or file resolved
+   */
+  public static String getKey(File model, String options) throws Exception {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    result.append(model.getCanonicalPath());
+    result.append("|");
+    result.append(model.lastModified());
+    result.append("|");
+    result.append(model.length());
+    result.append("|");
+    if (options != null)
+      result.append(Utils.joinOptions(Utils.splitOptions(options)));
+
+    return result.toString();
+  }
+
+  /**
+   * Loads the model from disk.
+   *
+   * @param model	the model file
+   * @param options	the additional parser options, can be null
+   * @return		the model
+   * @throws Exception	if loading fails
+   */
+  protected static LexicalizedParser load(File model, String options) throws Exception {
+    LexicalizedParser	result;
+    String[]		flags;
+
+    if (options == null)
+      options = "";
+    flags = Utils.splitOptions(options);
+    if (!isUncompressed(model))
+      return LexicalizedParser.loadModel(model.getAbsolutePath(), flags);
+
+    result = loadMapped(model);
+    if (flags.length > 0)
+      result.setOptionFlags(flags);
+
+    return result;
+  }
+
+  /**
+   * Checks whether the model is an uncompressed serialized parser, i.e.,
+   * whether the file starts with the Java serialization header.
+   *
+   * @param model	the model file
+   * @return		true if uncompressed
+   * @throws IOException	if reading fails
+   */
+  public static boolean isUncompressed(File model) throws IOException {
+    DataInputStream	in;
+
+    if (model.length() < 2)
+      return false;
+    in = new DataInputStream(new FileInputStream(model));
+    try {
+      return (in.readUnsignedShort() == 0xACED);
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Deserializes an uncompressed model from the memory-mapped file.
+   *
+   * @param model	the model file
+   * @return		the model
+   * @throws Exception	if loading fails
+   */
+  protected static LexicalizedParser loadMapped(File model) throws Exception {
+    RandomAccessFile	file;
+    MappedByteBuffer	buffer;
+    ObjectInputStream	ois;
+
+    file = new RandomAccessFile(model, "r");
+    try {
+      buffer = file.getChannel().map(MapMode.READ_ONLY, 0, file.length());
+    }
+    finally {
+      file.close();
+    }
+    ois = new ObjectInputStream(new ByteBufferInputStream(buffer));
+    try {
+      return LexicalizedParser.loadModel(ois);
+    }
+    finally {
+      ois.close();
+    }
+  }
+
+  /**
+   * Returns the entry for the key, creates it if necessary.
+   *
+   * @param key		the model key
+   * @return		the entry
+   */
+  protected static Entry getEntry(String key) {
+    Entry	result;
+
+    synchronized(m_Entries) {
+      result = m_Entries.get(key);
+      if (result == null) {
+	result = new Entry(key);
+	m_Entries.put(key, result);
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Loads the specified model in a background thread, unless already loaded.
+   * The model is not owned by anyone, i.e., the caller needs to hold on to
+   * the returned future to keep the model from getting reclaimed before
+   * acquiring it. Acquiring the model while it is still being loaded blocks
+   * until loading has finished.
+   *
+   * @param model	the model file
+   * @param options	the additional parser options, can be null
+   * @return		the model, once loaded
+   */
+  public static Future<LexicalizedParser> preload(final File model, final String options) {
+    synchronized(m_Entries) {
+      if (m_Preloader == null)
+	m_Preloader = ExecutorUtils.newPool(1, ParserModelRegistry.class.getSimpleName() + "-preload");
+    }
+
+    return m_Preloader.submit(new Callable<LexicalizedParser>() {
+      public LexicalizedParser call() throws Exception {
+	String key = getKey(model, options);
+	while (true) {
+	  Entry entry = getEntry(key);
+	  synchronized(entry) {
+	    // dropped by release() in the meantime?
+	    if (entry.m_Removed)
+	      continue;
+	    LexicalizedParser result = entry.get();
+	    // owned models are always available, i.e., no owners at this stage
+	    if (result == null) {
+	      result = load(model, options);
+	      entry.m_Cached = new SoftReference<LexicalizedParser>(result);
+	    }
+	    return result;
+	  }
+	}
+      }
+    });
+  }
+
+  /**
+   * Acquires the specified model for the owner, loading it if necessary.
+   *
+   * @param owner	the owner of the model, e.g., the filter
+   * @param model	the model file
+   * @param options	the additional parser options, can be null
+   * @return		the model
+   * @throws Exception	if the model file is invalid or loading fails
+   */
+  public static LexicalizedParser acquire(Object owner, File model, String options) throws Exception {
+    LexicalizedParser	result;
+    String		key;
+    Entry		entry;
+
+    if (!model.exists())
+      throw new IOException("Model file does not exist: " + model);
+    else if (model.isDirectory())
+      throw new IOException("Model file points to a directory: " + model);
+
+    key = getKey(model, options);
+
+    // loading happens outside the global lock, other models remain accessible
+    while (true) {
+      entry = getEntry(key);
+      synchronized(entry) {
+	// dropped by release() in the meantime?
+	if (entry.m_Removed)
+	  continue;
+	entry.purge(owner);
+	result = entry.get();
+	if (result == null)
+	  result = load(model, options);
+	entry.m_Parser = result;
+	entry.m_Cached = null;
+	entry.m_Owners.add(new WeakReference<Object>(owner));
+	return result;
+      }
+    }
+  }
+
+  /**
+   * Releases all models held by the owner.
+   *
+   * @param owner	the owner to release the models for
+   */
+  public static void release(Object owner) {
+    List<Entry>		entries;
+
+    synchronized(m_Entries) {
+      entries = new ArrayList<Entry>(m_Entries.values());
+    }
+
+    for (Entry entry: entries) {
+      synchronized(entry) {
+	entry.purge(owner);
+	// remove reclaimed entry; checking and removing under the entry lock,
+	// as acquire() may have obtained the entry in the meantime (it retries
+	// with a new entry if this one got removed)
+	if (entry.isObsolete() && !entry.m_Removed) {
+	  entry.m_Removed = true;
+	  synchronized(m_Entries) {
+	    if (m_Entries.get(entry.m_Key) == entry)
+	      m_Entries.remove(entry.m_Key);
+	  }
+	}
+      }
+    }
+  }
+
+  /**
+   * Returns whether the specified model is currently held in memory.
+   *
+   * @param model	the model file
+   * @param options	the additional parser options, can be null
+   * @return		true if available without loading
+   * @throws Exception	if options cannot be parsed or file resolved
+   */
+  public static boolean isLoaded(File model, String options) throws Exception {
+    Entry	entry;
+
+    synchronized(m_Entries) {
+      entry = m_Entries.get(getKey(model, options));
+    }
+    if (entry == null)
+      return false;
+    synchronized(entry) {
+      return (entry.get() != null);
+    }
+  }
+
+  /**
+   * Returns the number of owners of the specified model.
+   *
+   * @param model	the model file
+   * @param options	the additional parser options, can be null
+   * @return		the number of owners
+   * @throws Exception	if options cannot be parsed or file resolved
+   */
+  public static int numOwners(File model, String options) throws Exception {
+    Entry	entry;
+
+    synchronized(m_Entries) {
+      entry = m_Entries.get(getKey(model, options));
+    }
+    if (entry == null)
+      return 0;
+    synchronized(entry) {
+      entry.purge(null);
+      return entry.m_Owners.size();
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * ReusableParserQuery.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.parser.common.ParserQuery;
+import edu.stanford.nlp.parser.common.ParserUtils;
+import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+import edu.stanford.nlp.trees.Tree;
+
+import java.util.List;
+
+/**
+ * Parses sentences with a single parser query, rather than creating a new
+ * query (and new chart arrays) for every sentence like
+ * {@link LexicalizedParser#apply(List)} does. The chart arrays of a query only
+ * grow when a longer sentence than seen so far gets parsed. To avoid holding
+ * on to huge charts after an unusually long sentence, the query gets discarded
+ * once a sentence exceeds the maximum chart length.
+ * <br><br>
+ * Sentences that fail to parse get counted, see {@link #getNumFailures()};
+ * reporting them is up to the caller.
+ * <br><br>
+ * Not thread-safe, use one instance per thread.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class ReusableParserQuery {
+
+  /** the default maximum sentence length for which to retain the query. */
+  public static final int DEFAULT_MAX_CHART_LENGTH = 50;
+
+  /** the parser to obtain queries from. */
+  protected LexicalizedParser m_Parser;
+
+  /** the maximum sentence length for which to retain the query (-1 unlimited). */
+  protected int m_MaxChartLength;
+
+  /** the current query. */
+  protected ParserQuery m_Query;
+
+  /** the number of queries created so far. */
+  protected int m_NumQueries;
+
+  /** the number of sentences that failed to parse. */
+  protected int m_NumFailures;
+
+  /** the exception of the last sentence that failed to parse. */
+  protected Exception m_LastFailure;
+
+  /**
+   * Initializes the query.
+   *
+   * @param parser		the parser to use
+   * @param maxChartLength	the maximum sentence length for which to retain
+   * 				the query and its charts (-1 unlimited, 0 never)
+   */
+  public ReusableParserQuery(LexicalizedParser parser, int maxChartLength) {
+    m_Parser         = parser;
+    m_MaxChartLength = maxChartLength;
+    m_Query          = null;
+    m_NumQueries     = 0;
+    m_NumFailures    = 0;
+    m_LastFailure    = null;
+  }
+
+  /**
+   * Returns the underlying parser.
+   *
+   * @return		the parser
+   */
+  public LexicalizedParser getParser() {
+    return m_Parser;
+  }
+
+  /**
+   * Returns the maximum sentence length for which the query gets retained.
+   *
+   * @return		the length, -1 unlimited, 0 never
+   */
+  public int getMaxChartLength() {
+    return m_MaxChartLength;
+  }
+
+  /**
+   * Returns how many queries got created so far.
+   *
+   * @return		the number of queries
+   */
+  public int getNumQueries() {
+    return m_NumQueries;
+  }
+
+  /**
+   * Returns how many sentences failed to parse so far, i.e., got the
+   * fall through (X ...) tree.
+   *
+   * @return		the number of failures
+   */
+  public int getNumFailures() {
+    return m_NumFailures;
+  }
+
+  /**
+   * Returns the exception of the last sentence that failed to parse.
+   *
+   * @return		the exception, null if none failed so far
+   */
+  public Exception getLastFailure() {
+    return m_LastFailure;
+  }
+
+  /**
+   * Returns the current query, creates one if necessary.
+   *
+   * @return		the query
+   */
+  protected ParserQuery getQuery() {
+    if (m_Query == null) {
+      m_Query = m_Parser.parserQuery();
+      m_NumQueries++;
+    }
+    return m_Query;
+  }
+
+  /**
+   * Parses the sentence. If parsing fails, an (X ...) tree gets returned,
+   * just like {@link LexicalizedParser#parse(List)}, and the failure gets
+   * counted.
+   *
+   * @param sentence	the words to parse
+   * @return		the parse tree
+   */
+  public Tree parse(List<? extends HasWord> sentence) {
+    Tree	result;
+    ParserQuery	query;
+
+    result = null;
+    query  = getQuery();
+    try {
+      if (query.parse(sentence)) {
+	result = query.getBestParse();
+	// -10000 denotes unknown words
+	result.setScore(query.getPCFGScore() % -10000.0);
+      }
+    }
+    catch (Exception e) {
+      m_NumFailures++;
+      m_LastFailure = e;
+      // the query may be in an inconsistent state now
+      m_Query = null;
+    }
+
+    if ((m_MaxChartLength > -1) && (sentence.size() > m_MaxChartLength))
+      m_Query = null;
+
+    if (result == null)
+      result = ParserUtils.xTree(sentence);
+
+    return result;
+  }
+}
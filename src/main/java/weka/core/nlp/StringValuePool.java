@@ -0,0 +1,159 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * StringValuePool.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import weka.core.Attribute;
+import weka.core.Utils;
+
+import java.util.HashMap;
+
+/**
+ * Remembers the indices of the values that a filter added to a string
+ * attribute of its output format, keyed by the input strings they were
+ * generated from. For repeated input strings, the index can be reused
+ * directly, i.e., neither does the string get transformed again nor added
+ * to the attribute again (which, for long strings, means compressing them
+ * just for the lookup).
+ * <br><br>
+ * The indices are only valid for the attribute object they were obtained
+ * from; once the filter's output format gets replaced (e.g., string values
+ * flushed after a batch) or the attribute loses values, the pool starts
+ * afresh. Not thread-safe.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class StringValuePool {
+
+  /** the attribute the indices refer to. */
+  protected Attribute m_Attribute;
+
+  /** the number of values of the attribute at the last access. */
+  protected int m_NumValues;
+
+  /** the input strings and the indices of their output strings. */
+  protected HashMap<String, Integer> m_Indices;
+
+  /** the number of hits. */
+  protected long m_Hits;
+
+  /** the number of misses. */
+  protected long m_Misses;
+
+  /**
+   * Initializes the pool.
+   */
+  public StringValuePool() {
+    m_Attribute = null;
+    m_NumValues = 0;
+    m_Indices   = new HashMap<String, Integer>();
+    m_Hits      = 0;
+    m_Misses    = 0;
+  }
+
+  /**
+   * Discards the indices if they don't refer to the attribute anymore.
+   *
+   * @param att		the current output attribute
+   */
+  protected void validate(Attribute att) {
+    if ((att != m_Attribute) || (att.numValues() < m_NumValues)) {
+      m_Indices.clear();
+      m_Attribute = att;
+    }
+    m_NumValues = att.numValues();
+  }
+
+  /**
+   * Returns the index of the output string generated from the input string.
+   *
+   * @param att		the output attribute
+   * @param input	the input string
+   * @return		the index, -1 if not available
+   */
+  public int get(Attribute att, String input) {
+    Integer	result;
+
+    validate(att);
+    result = m_Indices.get(input);
+    if (result == null) {
+      m_Misses++;
+      return -1;
+    }
+    m_Hits++;
+
+    return result;
+  }
+
+  /**
+   * Adds the output string to the attribute and remembers its index for the
+   * input string.
+   *
+   * @param att		the output attribute
+   * @param input	the input string
+   * @param output	the output string generated from the input string
+   * @return		the index of the output string
+   */
+  public int add(Attribute att, String input, String output) {
+    int		result;
+
+    result = att.addStringValue(output);
+    validate(att);
+    m_Indices.put(input, result);
+
+    return result;
+  }
+
+  /**
+   * Returns the number of input strings in the pool.
+   *
+   * @return		the number of strings
+   */
+  public int size() {
+    return m_Indices.size();
+  }
+
+  /**
+   * Removes all strings.
+   */
+  public void clear() {
+    m_Attribute = null;
+    m_NumValues = 0;
+    m_Indices.clear();
+    m_Hits      = 0;
+    m_Misses    = 0;
+  }
+
+  /**
+   * Returns some statistics.
+   *
+   * @return		the statistics
+   */
+  @Override
+  public String toString() {
+    long	total;
+
+    total = m_Hits + m_Misses;
+    return "strings=" + m_Indices.size()
+      + ", hits=" + m_Hits
+      + ", misses=" + m_Misses
+      + ", hit-rate=" + ((total == 0) ? "0" : Utils.doubleToString(100.0 * m_Hits / total, 1)) + "%";
+  }
+}
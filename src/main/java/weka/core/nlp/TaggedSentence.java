@@ -0,0 +1,242 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TaggedSentence.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import edu.stanford.nlp.trees.Tree;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The words of a parsed sentence with the labels of their parent nodes, in
+ * the order of a depth-first traversal of the parse tree.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class TaggedSentence
+  implements Serializable {
+
+  private static final long serialVersionUID = -2291776232011338651L;
+
+  /** the labels. */
+  protected String[] m_Labels;
+
+  /** the words. */
+  protected String[] m_Words;
+
+  /** the vocabulary IDs of the labels, null if not interned. */
+  protected int[] m_LabelIDs;
+
+  /** the vocabulary IDs of the words, null if not interned. */
+  protected int[] m_WordIDs;
+
+  /**
+   * Initializes the sentence.
+   *
+   * @param labels	the labels
+   * @param words	the words
+   */
+  public TaggedSentence(String[] labels, String[] words) {
+    if (labels.length != words.length)
+      throw new IllegalArgumentException("Number of labels and words differ: " + labels.length + " != " + words.length);
+    m_Labels = labels;
+    m_Words  = words;
+  }
+
+  /**
+   * Returns the number of words.
+   *
+   * @return		the number of words
+   */
+  public int size() {
+    return m_Words.length;
+  }
+
+  /**
+   * Returns the label of the specified word.
+   *
+   * @param index	the index of the word
+   * @return		the label
+   */
+  public String getLabel(int index) {
+    return m_Labels[index];
+  }
+
+  /**
+   * Returns the specified word.
+   *
+   * @param index	the index of the word
+   * @return		the word
+   */
+  public String getWord(int index) {
+    return m_Words[index];
+  }
+
+  /**
+   * Returns whether the labels and words have vocabulary IDs.
+   *
+   * @return		true if interned
+   * @see		#intern(Vocabulary)
+   */
+  public boolean hasIDs() {
+    return (m_WordIDs != null);
+  }
+
+  /**
+   * Returns the vocabulary ID of the label of the specified word.
+   *
+   * @param index	the index of the word
+   * @return		the ID
+   * @see		#intern(Vocabulary)
+   */
+  public int getLabelID(int index) {
+    return m_LabelIDs[index];
+  }
+
+  /**
+   * Returns the vocabulary ID of the specified word.
+   *
+   * @param index	the index of the word
+   * @return		the ID
+   * @see		#intern(Vocabulary)
+   */
+  public int getWordID(int index) {
+    return m_WordIDs[index];
+  }
+
+  /**
+   * Returns a copy of the sentence that uses the shared strings of the
+   * vocabulary and stores their IDs, adding labels and words to the
+   * vocabulary if necessary.
+   *
+   * @param vocab	the vocabulary to use
+   * @return		the interned sentence
+   */
+  public TaggedSentence intern(Vocabulary vocab) {
+    TaggedSentence	result;
+    String[]		labels;
+    String[]		words;
+    int			i;
+
+    labels = new String[m_Labels.length];
+    words  = new String[m_Words.length];
+    result = new TaggedSentence(labels, words);
+    result.m_LabelIDs = new int[labels.length];
+    result.m_WordIDs  = new int[words.length];
+    for (i = 0; i < labels.length; i++) {
+      result.m_LabelIDs[i] = vocab.getID(m_Labels[i]);
+      result.m_WordIDs[i]  = vocab.getID(m_Words[i]);
+      labels[i]            = vocab.get(result.m_LabelIDs[i]);
+      words[i]             = vocab.get(result.m_WordIDs[i]);
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns a rough estimate of the memory occupied by this object in bytes.
+   *
+   * @return		the estimated size
+   */
+  public long sizeOf() {
+    long	result;
+    int		i;
+
+    result = 24 + 2 * (16 + 4 * m_Words.length);
+    if (m_WordIDs != null)
+      result += 2 * (16 + 4 * m_Words.length);
+    for (i = 0; i < m_Words.length; i++)
+      result += sizeOf(m_Labels[i]) + sizeOf(m_Words[i]);
+
+    return result;
+  }
+
+  /**
+   * Returns a short description of the sentence.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    StringBuilder	result;
+    int			i;
+
+    result = new StringBuilder();
+    for (i = 0; i < m_Words.length; i++) {
+      if (i > 0)
+	result.append(" ");
+      result.append(m_Labels[i]);
+      result.append(":");
+      result.append(m_Words[i]);
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Returns a rough estimate of the memory occupied by a string in bytes.
+   *
+   * @param s		the string to estimate
+   * @return		the estimated size
+   */
+  public static long sizeOf(String s) {
+    return 40 + 2 * s.length();
+  }
+
+  /**
+   * Collects the leaves of the tree and the labels of their parents.
+   *
+   * @param parentTree	the tree to process
+   * @param labels	for storing the labels
+   * @param words	for storing the words
+   */
+  protected static void collect(Tree parentTree, List<String> labels, List<String> words) {
+    Tree	childTree;
+    int		i;
+
+    for (i = 0; i < parentTree.children().length; i++) {
+      childTree = parentTree.children()[i];
+      if (childTree.isLeaf()) {
+	labels.add(parentTree.label().value());
+	words.add(childTree.label().value());
+      }
+      collect(childTree, labels, words);
+    }
+  }
+
+  /**
+   * Generates a tagged sentence from the parse tree.
+   *
+   * @param tree	the parse tree
+   * @return		the tagged sentence
+   */
+  public static TaggedSentence fromTree(Tree tree) {
+    List<String>	labels;
+    List<String>	words;
+
+    labels = new ArrayList<String>();
+    words  = new ArrayList<String>();
+    collect(tree, labels, words);
+
+    return new TaggedSentence(labels.toArray(new String[labels.size()]), words.toArray(new String[words.size()]));
+  }
+}
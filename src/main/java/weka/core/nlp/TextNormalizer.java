@@ -0,0 +1,310 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TextNormalizer.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import java.io.Serializable;
+import java.text.Normalizer;
+
+/**
+ * Applies several normalization steps to a string in a single scan,
+ * generating a single output string. The steps are applied as if in the
+ * following order:
+ * <ol>
+ *   <li>Unicode NFKC normalization</li>
+ *   <li>masking of URLs, i.e., tokens starting with "http://", "https://",
+ *   "ftp://" or "www." get replaced by the mask (up to the next white
+ *   space)</li>
+ *   <li>removal of digits</li>
+ *   <li>removal of punctuation (Unicode categories P*)</li>
+ *   <li>case conversion, see {@link CaseFolder}</li>
+ *   <li>collapsing of white space, i.e., runs of white space become a single
+ *   blank and leading/trailing white space gets removed</li>
+ * </ol>
+ * The order is fixed, as the scan decides what to do with each character
+ * only once:
+ * <ul>
+ *   <li>NFKC normalization comes first, as it can generate the characters
+ *   the other steps act on (e.g., digits from circled digits, blanks from
+ *   ideographic spaces or a URL prefix from full-width letters).</li>
+ *   <li>URL masking precedes the removal of punctuation and digits, which
+ *   would otherwise destroy the prefixes (e.g., "http://").</li>
+ *   <li>The removal of digits and punctuation and the case conversion act
+ *   on different characters and therefore commute.</li>
+ *   <li>Collapsing of white space comes last, as the removals can create
+ *   new runs of white space (e.g., "a - b").</li>
+ * </ul>
+ * A configurable order would require a scan per step again.
+ * <br><br>
+ * As ASCII strings are already NFKC-normalized, the normalization only gets
+ * applied once a non-ASCII character is encountered (the scan then starts
+ * over on the normalized string). Likewise, the case conversion only falls
+ * back to converting the complete output string if it contains characters
+ * that the {@link CaseFolder} cannot convert via its lookup table.
+ * <br><br>
+ * Thread-safe.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class TextNormalizer
+  implements Serializable {
+
+  private static final long serialVersionUID = -2386329651788163617L;
+
+  /** the action for dropping an ASCII character. */
+  protected static final int DROP = -2;
+
+  /** the action for white space to collapse. */
+  protected static final int SPACE = -3;
+
+  /** the URL prefixes. */
+  protected static final String[] URL_PREFIXES = {"http://", "https://", "ftp://", "www."};
+
+  /** the case folder, null if not converting the case. */
+  protected CaseFolder m_Folder;
+
+  /** whether to apply NFKC normalization. */
+  protected boolean m_NFKC;
+
+  /** whether to collapse white space. */
+  protected boolean m_CollapseWhiteSpace;
+
+  /** whether to strip punctuation. */
+  protected boolean m_StripPunctuation;
+
+  /** whether to strip digits. */
+  protected boolean m_StripDigits;
+
+  /** the mask for URLs, null if not masking. */
+  protected String m_URLMask;
+
+  /** the actions for the ASCII characters (character, DROP, SPACE or -1 for case fall back). */
+  protected int[] m_Actions;
+
+  /**
+   * Initializes the normalizer.
+   *
+   * @param folder		the case folder, null to leave the case as is
+   * @param nfkc		whether to apply NFKC normalization
+   * @param collapseWhiteSpace	whether to collapse white space
+   * @param stripPunctuation	whether to remove punctuation
+   * @param stripDigits		whether to remove digits
+   * @param urlMask		the mask to replace URLs with, null to leave them as is
+   */
+  public TextNormalizer(CaseFolder folder, boolean nfkc, boolean collapseWhiteSpace,
+			boolean stripPunctuation, boolean stripDigits, String urlMask) {
+    char	c;
+
+    m_Folder             = folder;
+    m_NFKC               = nfkc;
+    m_CollapseWhiteSpace = collapseWhiteSpace;
+    m_StripPunctuation   = stripPunctuation;
+    m_StripDigits        = stripDigits;
+    m_URLMask            = (urlMask == null) ? null : convertCase(urlMask);
+    m_Actions            = new int[128];
+    for (c = 0; c < 128; c++) {
+      if (collapseWhiteSpace && isWhiteSpace(c))
+	m_Actions[c] = SPACE;
+      else if (stripDigits && Character.isDigit(c))
+	m_Actions[c] = DROP;
+      else if (stripPunctuation && isPunctuation(c))
+	m_Actions[c] = DROP;
+      else if (folder != null)
+	m_Actions[c] = folder.convert(c);
+      else
+	m_Actions[c] = c;
+    }
+  }
+
+  /**
+   * Returns whether the character is white space (includes non-breaking
+   * spaces).
+   *
+   * @param c		the character (code point) to check
+   * @return		true if white space
+   */
+  protected static boolean isWhiteSpace(int c) {
+    return Character.isWhitespace(c) || Character.isSpaceChar(c);
+  }
+
+  /**
+   * Returns whether the character is punctuation, i.e., in one of the
+   * Unicode categories Pc, Pd, Ps, Pe, Pi, Pf or Po.
+   *
+   * @param c		the character (code point) to check
+   * @return		true if punctuation
+   */
+  protected static boolean isPunctuation(int c) {
+    switch (Character.getType(c)) {
+      case Character.CONNECTOR_PUNCTUATION:
+      case Character.DASH_PUNCTUATION:
+      case Character.START_PUNCTUATION:
+      case Character.END_PUNCTUATION:
+      case Character.INITIAL_QUOTE_PUNCTUATION:
+      case Character.FINAL_QUOTE_PUNCTUATION:
+      case Character.OTHER_PUNCTUATION:
+	return true;
+      default:
+	return false;
+    }
+  }
+
+  /**
+   * Converts the case of the string, if a case folder is available.
+   *
+   * @param s		the string to convert
+   * @return		the (potentially) converted string
+   */
+  protected String convertCase(String s) {
+    if (m_Folder == null)
+      return s;
+    return m_Folder.convert(s);
+  }
+
+  /**
+   * Returns the length of the URL prefix at the specified position.
+   *
+   * @param s		the string to check
+   * @param offset	the position to check
+   * @return		the length of the prefix, 0 if none
+   */
+  protected int urlPrefix(String s, int offset) {
+    for (String prefix: URL_PREFIXES) {
+      if (s.regionMatches(true, offset, prefix, 0, prefix.length()))
+	return prefix.length();
+    }
+    return 0;
+  }
+
+  /**
+   * Normalizes the string.
+   *
+   * @param s		the string to normalize
+   * @return		the normalized string
+   */
+  public String normalize(String s) {
+    return normalize(s, m_NFKC);
+  }
+
+  /**
+   * Normalizes the string.
+   *
+   * @param s		the string to normalize
+   * @param nfkc	whether the string still requires NFKC normalization
+   * @return		the normalized string
+   */
+  protected String normalize(String s, boolean nfkc) {
+    StringBuilder	result;
+    boolean		space;
+    boolean		fallBack;
+    boolean		tokenStart;
+    int			len;
+    int			i;
+    int			c;
+    int			a;
+
+    len        = s.length();
+    result     = new StringBuilder(len);
+    space      = false;
+    fallBack   = false;
+    tokenStart = true;
+    i          = 0;
+
+    while (i < len) {
+      c = s.charAt(i);
+
+      if (c >= 128) {
+	if (nfkc)
+	  return normalize(Normalizer.normalize(s, Normalizer.Form.NFKC), false);
+	c = s.codePointAt(i);
+      }
+
+      if ((m_URLMask != null) && tokenStart && (urlPrefix(s, i) > 0)) {
+	while ((i < len) && !isWhiteSpace(s.codePointAt(i)))
+	  i += Character.charCount(s.codePointAt(i));
+	if (space)
+	  result.append(' ');
+	space = false;
+	result.append(m_URLMask);
+	tokenStart = false;
+	continue;
+      }
+
+      i += Character.charCount(c);
+      tokenStart = isWhiteSpace(c);
+
+      if (c < 128) {
+	a = m_Actions[c];
+	if (a == DROP)
+	  continue;
+	if (a == SPACE) {
+	  space = (result.length() > 0);
+	  continue;
+	}
+	if (space)
+	  result.append(' ');
+	space = false;
+	if (a == -1) {
+	  fallBack = true;
+	  result.append((char) c);
+	}
+	else {
+	  result.append((char) a);
+	}
+	continue;
+      }
+
+      if (m_CollapseWhiteSpace && tokenStart) {
+	space = (result.length() > 0);
+	continue;
+      }
+      if (m_StripDigits && Character.isDigit(c))
+	continue;
+      if (m_StripPunctuation && isPunctuation(c))
+	continue;
+      if (space)
+	result.append(' ');
+      space = false;
+      fallBack = true;
+      result.appendCodePoint(c);
+    }
+
+    if (fallBack)
+      return convertCase(result.toString());
+    else
+      return result.toString();
+  }
+
+  /**
+   * Returns a short description of the setup.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return
+      "case=" + ((m_Folder == null) ? "unchanged" : m_Folder.toString())
+	+ ", nfkc=" + m_NFKC
+	+ ", collapse-white-space=" + m_CollapseWhiteSpace
+	+ ", strip-punctuation=" + m_StripPunctuation
+	+ ", strip-digits=" + m_StripDigits
+	+ ", url-mask=" + m_URLMask;
+  }
+}
@@ -0,0 +1,367 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Vocabulary.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.nlp;
+
+import weka.core.Utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Serializable;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe vocabulary that interns strings and assigns them consecutive
+ * int IDs (starting at 0). The lookup uses an open-addressing hash table of
+ * primitive ints (linear probing), i.e., no boxing. Lookups accept any
+ * CharSequence (e.g., a {@link weka.core.tokenizers.TokenSpan}), a string only
+ * gets created when a new entry is added.
+ * <br><br>
+ * The vocabulary can be written to and read from a text file, with the
+ * string of ID i on line i+1 (back-quoted, see {@link Utils#backQuoteChars}).
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public class Vocabulary
+  implements Serializable {
+
+  private static final long serialVersionUID = -4630133400432532150L;
+
+  /** the default initial capacity. */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /** the hash table (ID + 1, 0 = empty slot). */
+  protected int[] m_Table;
+
+  /** the strings (index: ID). */
+  protected String[] m_Strings;
+
+  /** the hash codes of the strings (index: ID). */
+  protected int[] m_Hashes;
+
+  /** the number of strings. */
+  protected int m_Size;
+
+  /** the lock. */
+  protected ReentrantReadWriteLock m_Lock;
+
+  /**
+   * Initializes an empty vocabulary.
+   */
+  public Vocabulary() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Initializes an empty vocabulary.
+   *
+   * @param capacity	the expected number of strings
+   */
+  public Vocabulary(int capacity) {
+    int		tableSize;
+
+    tableSize = 16;
+    while (tableSize < capacity * 2)
+      tableSize *= 2;
+    m_Table   = new int[tableSize];
+    m_Strings = new String[Math.max(16, capacity)];
+    m_Hashes  = new int[m_Strings.length];
+    m_Size    = 0;
+    m_Lock    = new ReentrantReadWriteLock();
+  }
+
+  /**
+   * Computes the hash code, the same as String.hashCode().
+   *
+   * @param s		the sequence to compute the hash code for
+   * @return		the hash code
+   */
+  protected static int hash(CharSequence s) {
+    int		result;
+    int		i;
+
+    if (s instanceof String)
+      return s.hashCode();
+
+    result = 0;
+    for (i = 0; i < s.length(); i++)
+      result = 31 * result + s.charAt(i);
+
+    return result;
+  }
+
+  /**
+   * Spreads the bits of the hash code, to reduce collisions in the table.
+   *
+   * @param hash	the hash code
+   * @return		the start slot
+   */
+  protected static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Checks whether the sequence has the same characters as the string.
+   *
+   * @param s		the sequence
+   * @param str		the string
+   * @return		true if the same characters
+   */
+  protected static boolean equal(CharSequence s, String str) {
+    int		i;
+
+    if (s instanceof String)
+      return s.equals(str);
+    if (s.length() != str.length())
+      return false;
+    for (i = 0; i < str.length(); i++) {
+      if (s.charAt(i) != str.charAt(i))
+	return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Locates the slot of the sequence in the table. Must be called with a
+   * lock held.
+   *
+   * @param s		the sequence to locate
+   * @param hash	the hash code of the sequence
+   * @return		the slot, either with the sequence or empty
+   */
+  protected int locate(CharSequence s, int hash) {
+    int		mask;
+    int		slot;
+    int		id;
+
+    mask = m_Table.length - 1;
+    slot = spread(hash) & mask;
+    while ((id = m_Table[slot]) != 0) {
+      if ((m_Hashes[id - 1] == hash) && equal(s, m_Strings[id - 1]))
+	break;
+      slot = (slot + 1) & mask;
+    }
+
+    return slot;
+  }
+
+  /**
+   * Doubles the size of the table. Must be called with the write lock held.
+   */
+  protected void grow() {
+    int		mask;
+    int		slot;
+    int		i;
+
+    m_Table = new int[m_Table.length * 2];
+    mask    = m_Table.length - 1;
+    for (i = 0; i < m_Size; i++) {
+      slot = spread(m_Hashes[i]) & mask;
+      while (m_Table[slot] != 0)
+	slot = (slot + 1) & mask;
+      m_Table[slot] = i + 1;
+    }
+  }
+
+  /**
+   * Returns the ID of the sequence, without adding it.
+   *
+   * @param s		the sequence to look up
+   * @return		the ID, -1 if not present
+   */
+  public int lookup(CharSequence s) {
+    int		hash;
+
+    hash = hash(s);
+    m_Lock.readLock().lock();
+    try {
+      return m_Table[locate(s, hash)] - 1;
+    }
+    finally {
+      m_Lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the ID of the sequence, adding it if necessary.
+   *
+   * @param s		the sequence to intern
+   * @return		the ID
+   */
+  public int getID(CharSequence s) {
+    int		hash;
+    int		slot;
+    int		result;
+
+    hash   = hash(s);
+    result = lookup(s);
+    if (result > -1)
+      return result;
+
+    m_Lock.writeLock().lock();
+    try {
+      // might have been added in the meantime
+      slot = locate(s, hash);
+      if (m_Table[slot] != 0)
+	return m_Table[slot] - 1;
+
+      if (m_Size == m_Strings.length) {
+	String[] strings = new String[m_Size * 2];
+	System.arraycopy(m_Strings, 0, strings, 0, m_Size);
+	m_Strings = strings;
+	int[] hashes = new int[m_Size * 2];
+	System.arraycopy(m_Hashes, 0, hashes, 0, m_Size);
+	m_Hashes = hashes;
+      }
+      result            = m_Size;
+      m_Strings[result] = s.toString();
+      m_Hashes[result]  = hash;
+      m_Table[slot]     = result + 1;
+      m_Size++;
+      if (m_Size * 2 > m_Table.length)
+	grow();
+    }
+    finally {
+      m_Lock.writeLock().unlock();
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the shared instance of the string, adding it if necessary.
+   *
+   * @param s		the sequence to intern
+   * @return		the shared string
+   */
+  public String intern(CharSequence s) {
+    return get(getID(s));
+  }
+
+  /**
+   * Returns the string with the specified ID.
+   *
+   * @param id		the ID
+   * @return		the string
+   */
+  public String get(int id) {
+    m_Lock.readLock().lock();
+    try {
+      if ((id < 0) || (id >= m_Size))
+	throw new IndexOutOfBoundsException("Invalid ID: " + id);
+      return m_Strings[id];
+    }
+    finally {
+      m_Lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of strings.
+   *
+   * @return		the number of strings
+   */
+  public int size() {
+    m_Lock.readLock().lock();
+    try {
+      return m_Size;
+    }
+    finally {
+      m_Lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Writes the vocabulary to the text file (UTF-8), one string per line in
+   * the order of their IDs.
+   *
+   * @param file	the file to write to
+   * @throws IOException	if writing fails
+   */
+  public void write(File file) throws IOException {
+    BufferedWriter	writer;
+    int			i;
+
+    m_Lock.readLock().lock();
+    try {
+      writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
+      try {
+	for (i = 0; i < m_Size; i++) {
+	  writer.write(Utils.backQuoteChars(m_Strings[i]));
+	  writer.newLine();
+	}
+      }
+      finally {
+	writer.close();
+      }
+    }
+    finally {
+      m_Lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Reads a vocabulary from the text file (UTF-8), as written by
+   * {@link #write(File)}.
+   *
+   * @param file	the file to read from
+   * @return		the vocabulary
+   * @throws IOException	if reading fails or a string is listed twice
+   */
+  public static Vocabulary read(File file) throws IOException {
+    Vocabulary		result;
+    BufferedReader	reader;
+    String		line;
+    int			size;
+
+    result = new Vocabulary();
+    reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+    try {
+      while ((line = reader.readLine()) != null) {
+	size = result.size();
+	result.getID(Utils.unbackQuoteChars(line));
+	if (result.size() == size)
+	  throw new IOException("Duplicate entry in vocabulary '" + file + "': " + line);
+      }
+    }
+    finally {
+      reader.close();
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns a short description of the vocabulary.
+   *
+   * @return		the description
+   */
+  @Override
+  public String toString() {
+    return "size=" + size();
+  }
+}
@@ -0,0 +1,784 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * HashedNGramTokenizer.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.tokenizers;
+
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.ling.TaggedWord;
+import edu.stanford.nlp.ling.Word;
+import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+import edu.stanford.nlp.process.WordToSentenceProcessor;
+import weka.core.Option;
+import weka.core.RevisionUtils;
+import weka.core.SelectedTag;
+import weka.core.Tag;
+import weka.core.Utils;
+import weka.core.nlp.ParserModelRegistry;
+import weka.core.nlp.ReusableParserQuery;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Vector;
+
+/**
+ * Tokenizes documents with the Penn Treebank tokenizer and generates the word
+ * n-grams of each sentence, optionally combined with or replaced by their
+ * part-of-speech tags. Instead of the n-grams themselves, fixed-width hashes
+ * (e.g., "h03fa1") get output, i.e., the number of distinct tokens is bounded
+ * by 2^bits, regardless of the size of the corpus (feature hashing). The hashes
+ * of the n-grams are computed with a rolling polynomial hash over the hashes of
+ * the words, without assembling the n-grams as strings.
+ * <br><br>
+ * The tags are obtained by parsing the sentences with the Stanford parser
+ * model, which gets shared via the {@link ParserModelRegistry}.
+ *
+ <!-- options-start -->
+ * Valid options are: <p>
+ *
+ * <pre> -tokenizer &lt;spec&gt;
+ *  The Penn Treebank tokenizer (classname plus parameters) to use.
+ *  (default: weka.core.tokenizers.PTBTokenizer)</pre>
+ *
+ * <pre> -min &lt;int&gt;
+ *  The minimum n-gram size.
+ *  (default: 1)</pre>
+ *
+ * <pre> -max &lt;int&gt;
+ *  The maximum n-gram size.
+ *  (default: 3)</pre>
+ *
+ * <pre> -num-bits &lt;int&gt;
+ *  The number of bits of the hashes (1-31), i.e., at most 2^bits
+ *  different tokens get generated.
+ *  (default: 18)</pre>
+ *
+ * <pre> -tags &lt;none|append|only&gt;
+ *  Whether to use the words only, the words with their part-of-speech
+ *  tags or the tags only. Sentences whose tags do not align with
+ *  the words get skipped (only) or use the words only (append).
+ *  (default: none)</pre>
+ *
+ * <pre> -model &lt;file&gt;
+ *  The stanford model file to use for the tags.
+ *  (default: .)</pre>
+ *
+ * <pre> -additional &lt;options&gt;
+ *  The additional options for the parser.
+ *  (default: )</pre>
+ *
+ <!-- options-end -->
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision$
+ */
+public class HashedNGramTokenizer
+  extends Tokenizer {
+
+  private static final long serialVersionUID = 5366206357862155466L;
+
+  /** the prefix of the generated tokens. */
+  public static final String PREFIX = "h";
+
+  /** the words only. */
+  public static final int TAGS_NONE = 0;
+
+  /** the words with their tags. */
+  public static final int TAGS_APPEND = 1;
+
+  /** the tags only. */
+  public static final int TAGS_ONLY = 2;
+
+  /** the tag usage. */
+  public static final Tag[] TAGS_TAGS = {
+    new Tag(TAGS_NONE, "none"),
+    new Tag(TAGS_APPEND, "append"),
+    new Tag(TAGS_ONLY, "only"),
+  };
+
+  /** the base of the polynomial hash (FNV prime). */
+  protected static final int BASE = 0x01000193;
+
+  /** the offset basis of the word hashes (FNV). */
+  protected static final int OFFSET = 0x811C9DC5;
+
+  /** the hex digits. */
+  protected static final char[] DIGITS = "0123456789abcdef".toCharArray();
+
+  /** the PTB tokenizer. */
+  protected PTBTokenizer m_Tokenizer = new PTBTokenizer();
+
+  /** the minimum n-gram size. */
+  protected int m_NMin = 1;
+
+  /** the maximum n-gram size. */
+  protected int m_NMax = 3;
+
+  /** the number of bits of the hashes. */
+  protected int m_NumBits = 18;
+
+  /** the tag usage. */
+  protected int m_Tags = TAGS_NONE;
+
+  /** the model file. */
+  protected File m_Model = new File(".");
+
+  /** the additional parser options. */
+  protected String m_AdditionalOptions = "";
+
+  /** the parser query for obtaining the tags. */
+  protected transient ReusableParserQuery m_Query = null;
+
+  /** for splitting the tokens into sentences. */
+  protected transient WordToSentenceProcessor<HasWord> m_SentenceSplitter = null;
+
+  /** the hashes of the words of the current sentence. */
+  protected transient int[] m_WordHashes = null;
+
+  /** the hashes of the n-grams of the current document. */
+  protected transient int[] m_Hashes = null;
+
+  /** the number of n-gram hashes. */
+  protected transient int m_NumHashes;
+
+  /** the index of the next n-gram hash. */
+  protected transient int m_Index;
+
+  /** the number of sentences whose tags did not align with the words. */
+  protected transient int m_NumMisaligned;
+
+  /**
+   * Returns a string describing the tokenizer
+   *
+   * @return a description suitable for displaying in the explorer/experimenter
+   *         gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+      "Tokenizes documents with the Penn Treebank tokenizer and outputs the "
+	+ "word n-grams of the sentences (optionally with or replaced by their "
+	+ "part-of-speech tags) as fixed-width hashes, limiting the number of "
+	+ "distinct tokens to 2^bits (feature hashing).\n"
+	+ "The tags require a Stanford parser model.";
+  }
+
+  /**
+   * Returns an enumeration describing the available options.
+   *
+   * @return an enumeration of all the available options.
+   */
+  @Override
+  public Enumeration<Option> listOptions() {
+    Vector<Option> result = new Vector<Option>();
+
+    result.addElement(new Option(
+      "\tThe Penn Treebank tokenizer (classname plus parameters) to use.\n"
+	+ "\t(default: " + PTBTokenizer.class.getName() + ")", "tokenizer", 1,
+      "-tokenizer <spec>"));
+
+    result.addElement(new Option(
+      "\tThe minimum n-gram size.\n"
+	+ "\t(default: 1)", "min", 1, "-min <int>"));
+
+    result.addElement(new Option(
+      "\tThe maximum n-gram size.\n"
+	+ "\t(default: 3)", "max", 1, "-max <int>"));
+
+    result.addElement(new Option(
+      "\tThe number of bits of the hashes (1-31), i.e., at most 2^bits\n"
+	+ "\tdifferent tokens get generated.\n"
+	+ "\t(default: 18)", "num-bits", 1, "-num-bits <int>"));
+
+    result.addElement(new Option(
+      "\tWhether to use the words only, the words with their part-of-speech\n"
+	+ "\ttags or the tags only. Sentences whose tags do not align with\n"
+	+ "\tthe words get skipped (only) or use the words only (append).\n"
+	+ "\t(default: none)", "tags", 1, "-tags <none|append|only>"));
+
+    result.addElement(new Option(
+      "\tThe stanford model file to use for the tags.\n"
+	+ "\t(default: .)", "model", 1, "-model <file>"));
+
+    result.addElement(new Option(
+      "\tThe additional options for the parser.\n"
+	+ "\t(default: )", "additional", 1, "-additional <options>"));
+
+    return result.elements();
+  }
+
+  /**
+   * Parses a given list of options.
+   *
+   * @param options the list of options as an array of strings
+   * @throws Exception if an option is not supported
+   */
+  @Override
+  public void setOptions(String[] options) throws Exception {
+    String	tmpStr;
+    String	className;
+    String[]	classOptions;
+
+    tmpStr = Utils.getOption("tokenizer", options);
+    if (tmpStr.length() == 0) {
+      setTokenizer(new PTBTokenizer());
+    }
+    else {
+      classOptions = Utils.splitOptions(tmpStr);
+      if (classOptions.length == 0)
+	throw new Exception("Invalid tokenizer specification string");
+      className = classOptions[0];
+      classOptions[0] = "";
+      PTBTokenizer tokenizer = (PTBTokenizer) Class.forName(className).newInstance();
+      tokenizer.setOptions(classOptions);
+      setTokenizer(tokenizer);
+    }
+
+    tmpStr = Utils.getOption("min", options);
+    if (tmpStr.length() != 0)
+      setNGramMinSize(Integer.parseInt(tmpStr));
+    else
+      setNGramMinSize(1);
+
+    tmpStr = Utils.getOption("max", options);
+    if (tmpStr.length() != 0)
+      setNGramMaxSize(Integer.parseInt(tmpStr));
+    else
+      setNGramMaxSize(3);
+
+    tmpStr = Utils.getOption("num-bits", options);
+    if (tmpStr.length() != 0)
+      setNumBits(Integer.parseInt(tmpStr));
+    else
+      setNumBits(18);
+    if ((getNumBits() < 1) || (getNumBits() > 31))
+      throw new Exception("Number of bits must satisfy 1 <= x <= 31, provided: " + getNumBits());
+
+    tmpStr = Utils.getOption("tags", options);
+    if (tmpStr.length() != 0)
+      setTags(new SelectedTag(tmpStr, TAGS_TAGS));
+    else
+      setTags(new SelectedTag(TAGS_NONE, TAGS_TAGS));
+
+    tmpStr = Utils.getOption("model", options);
+    if (tmpStr.length() != 0)
+      setModel(new File(tmpStr));
+    else
+      setModel(new File("."));
+
+    setAdditionalOptions(Utils.getOption("additional", options));
+  }
+
+  /**
+   * Gets the current settings of the tokenizer.
+   *
+   * @return an array of strings suitable for passing to setOptions
+   */
+  @Override
+  public String[] getOptions() {
+    Vector<String> result = new Vector<String>();
+
+    result.add("-tokenizer");
+    result.add(Utils.toCommandLine(getTokenizer()));
+
+    result.add("-min");
+    result.add("" + getNGramMinSize());
+
+    result.add("-max");
+    result.add("" + getNGramMaxSize());
+
+    result.add("-num-bits");
+    result.add("" + getNumBits());
+
+    result.add("-tags");
+    result.add(getTags().getSelectedTag().getReadable());
+
+    result.add("-model");
+    result.add("" + getModel());
+
+    if (getAdditionalOptions().length() > 0) {
+      result.add("-additional");
+      result.add(getAdditionalOptions());
+    }
+
+    return result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * Sets the Penn Treebank tokenizer to use.
+   *
+   * @param value the tokenizer
+   */
+  public void setTokenizer(PTBTokenizer value) {
+    m_Tokenizer = value;
+  }
+
+  /**
+   * Returns the Penn Treebank tokenizer in use.
+   *
+   * @return the tokenizer
+   */
+  public PTBTokenizer getTokenizer() {
+    return m_Tokenizer;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String tokenizerTipText() {
+    return "The Penn Treebank tokenizer for splitting the documents into words.";
+  }
+
+  /**
+   * Sets the minimum n-gram size.
+   *
+   * @param value the size
+   */
+  public void setNGramMinSize(int value) {
+    m_NMin = value;
+  }
+
+  /**
+   * Returns the minimum n-gram size.
+   *
+   * @return the size
+   */
+  public int getNGramMinSize() {
+    return m_NMin;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String NGramMinSizeTipText() {
+    return "The minimum n-gram size, at least 1.";
+  }
+
+  /**
+   * Sets the maximum n-gram size.
+   *
+   * @param value the size
+   */
+  public void setNGramMaxSize(int value) {
+    m_NMax = value;
+  }
+
+  /**
+   * Returns the maximum n-gram size.
+   *
+   * @return the size
+   */
+  public int getNGramMaxSize() {
+    return m_NMax;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String NGramMaxSizeTipText() {
+    return "The maximum n-gram size, at least the minimum size.";
+  }
+
+  /**
+   * Sets the number of bits of the hashes.
+   *
+   * @param value the number of bits (1-31)
+   */
+  public void setNumBits(int value) {
+    m_NumBits = value;
+  }
+
+  /**
+   * Returns the number of bits of the hashes.
+   *
+   * @return the number of bits
+   */
+  public int getNumBits() {
+    return m_NumBits;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String numBitsTipText() {
+    return
+      "The number of bits of the hashes (1-31), i.e., at most 2^bits "
+	+ "different tokens get generated; fewer bits mean more collisions.";
+  }
+
+  /**
+   * Sets how to use the part-of-speech tags.
+   *
+   * @param value the tag usage
+   */
+  public void setTags(SelectedTag value) {
+    if (value.getTags() == TAGS_TAGS)
+      m_Tags = value.getSelectedTag().getID();
+  }
+
+  /**
+   * Returns how to use the part-of-speech tags.
+   *
+   * @return the tag usage
+   */
+  public SelectedTag getTags() {
+    return new SelectedTag(m_Tags, TAGS_TAGS);
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String tagsTipText() {
+    return
+      "Whether to use the words only, the words with their part-of-speech "
+	+ "tags or the tags only; the tags require the model. If the parser "
+	+ "splits or merges words, the tags of that sentence do not align: with "
+	+ "tags only the sentence gets skipped, otherwise its words get used "
+	+ "without tags (see getNumMisalignedSentences()).";
+  }
+
+  /**
+   * Sets the parser model to use for the tags.
+   *
+   * @param value the model file
+   */
+  public void setModel(File value) {
+    m_Model = value;
+    reset();
+  }
+
+  /**
+   * Returns the parser model to use for the tags.
+   *
+   * @return the model file
+   */
+  public File getModel() {
+    return m_Model;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String modelTipText() {
+    return "The Stanford model file to use for the part-of-speech tags.";
+  }
+
+  /**
+   * Sets the additional options for the parser.
+   *
+   * @param value the additional options
+   */
+  public void setAdditionalOptions(String value) {
+    m_AdditionalOptions = value;
+    reset();
+  }
+
+  /**
+   * Gets the current additional options for the stanford parser.
+   *
+   * @return the additional options
+   */
+  public String getAdditionalOptions() {
+    return m_AdditionalOptions;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String additionalOptionsTipText() {
+    return "The additional options for the stanford parser.";
+  }
+
+  /**
+   * Releases the parser model.
+   */
+  protected void reset() {
+    ParserModelRegistry.release(this);
+    m_Query         = null;
+    m_NumMisaligned = 0;
+  }
+
+  /**
+   * Returns the number of sentences whose tags did not align with the words
+   * since the model got set, i.e., that got skipped (tags only) or that used
+   * the words only (tags appended).
+   *
+   * @return		the number of sentences
+   */
+  public int getNumMisalignedSentences() {
+    return m_NumMisaligned;
+  }
+
+  /**
+   * Returns the parser query for obtaining the tags, acquires the model if
+   * necessary.
+   *
+   * @return		the query
+   * @throws Exception	if the model cannot be loaded
+   */
+  protected ReusableParserQuery getQuery() throws Exception {
+    LexicalizedParser	parser;
+
+    if (m_Query == null) {
+      parser  = ParserModelRegistry.acquire(this, m_Model, m_AdditionalOptions);
+      m_Query = new ReusableParserQuery(parser, ReusableParserQuery.DEFAULT_MAX_CHART_LENGTH);
+    }
+    return m_Query;
+  }
+
+  /**
+   * Computes the hash of a word and/or its tag, without concatenating them
+   * (FNV-1a, with the bits mixed afterwards).
+   *
+   * @param word	the word, null if to use the tag only
+   * @param tag		the tag, null if to use the word only
+   * @return		the hash
+   */
+  protected static int hash(String word, String tag) {
+    int		result;
+    int		i;
+
+    result = OFFSET;
+    if (word != null) {
+      for (i = 0; i < word.length(); i++)
+	result = (result ^ word.charAt(i)) * BASE;
+    }
+    if (tag != null) {
+      // separator, so that "ab"+"c" differs from "a"+"bc"
+      result = (result ^ 0x1F) * BASE;
+      for (i = 0; i < tag.length(); i++)
+	result = (result ^ tag.charAt(i)) * BASE;
+    }
+
+    return mix(result);
+  }
+
+  /**
+   * Spreads the bits of the hash (finalizer of MurmurHash3).
+   *
+   * @param h		the hash to mix
+   * @return		the mixed hash
+   */
+  protected static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  /**
+   * Adds the hash of an n-gram.
+   *
+   * @param hash	the rolling hash of the n-gram
+   * @param n		the n-gram size
+   */
+  protected void add(int hash, int n) {
+    int[]	hashes;
+
+    if (m_NumHashes == m_Hashes.length) {
+      hashes = new int[m_Hashes.length * 2];
+      System.arraycopy(m_Hashes, 0, hashes, 0, m_NumHashes);
+      m_Hashes = hashes;
+    }
+    // n-grams of different sizes with the same polynomial end up in different buckets
+    m_Hashes[m_NumHashes++] = mix(hash + n * 0x9E3779B9) & ((1 << m_NumBits) - 1);
+  }
+
+  /**
+   * Computes the hashes of the n-grams of a sentence. For each n-gram size,
+   * a window slides over the word hashes: the hash of the word leaving the
+   * window gets removed and the hash of the word entering it gets added.
+   *
+   * @param sentence	the words of the sentence
+   * @throws Exception	if the tags cannot be obtained
+   */
+  protected void addSentence(List<HasWord> sentence) throws Exception {
+    List<TaggedWord>	tagged;
+    String		tag;
+    int			len;
+    int			n;
+    int			i;
+    int			hash;
+    int			power;
+
+    len = sentence.size();
+    if (len < m_NMin)
+      return;
+
+    tagged = null;
+    if (m_Tags != TAGS_NONE) {
+      tagged = getQuery().parse(sentence).taggedYield();
+      // the parser may split or merge tokens, in which case the tags cannot
+      // be assigned to the words: with tags only, the sentence gets skipped
+      // rather than mixing word hashes into the tag n-grams
+      if (tagged.size() != len) {
+	m_NumMisaligned++;
+	if (m_Tags == TAGS_ONLY)
+	  return;
+	tagged = null;
+      }
+    }
+
+    if (m_WordHashes.length < len)
+      m_WordHashes = new int[Math.max(len, m_WordHashes.length * 2)];
+    for (i = 0; i < len; i++) {
+      tag = (tagged == null) ? null : tagged.get(i).tag();
+      if (m_Tags == TAGS_ONLY)
+	m_WordHashes[i] = hash(null, tag);
+      else
+	m_WordHashes[i] = hash(sentence.get(i).word(), tag);
+    }
+
+    for (n = m_NMin; (n <= m_NMax) && (n <= len); n++) {
+      hash  = 0;
+      power = 1;
+      for (i = 0; i < n; i++) {
+	hash = hash * BASE + m_WordHashes[i];
+	if (i > 0)
+	  power *= BASE;
+      }
+      add(hash, n);
+      for (i = n; i < len; i++) {
+	hash = (hash - m_WordHashes[i - n] * power) * BASE + m_WordHashes[i];
+	add(hash, n);
+      }
+    }
+  }
+
+  /**
+   * Formats the hash as fixed-width hex string, with the prefix.
+   *
+   * @param hash	the hash to format
+   * @return		the token
+   */
+  protected String format(int hash) {
+    char[]	result;
+    int		width;
+    int		i;
+
+    width  = (m_NumBits + 3) / 4;
+    result = new char[PREFIX.length() + width];
+    PREFIX.getChars(0, PREFIX.length(), result, 0);
+    for (i = result.length - 1; i >= PREFIX.length(); i--) {
+      result[i] = DIGITS[hash & 0xF];
+      hash >>>= 4;
+    }
+
+    return new String(result);
+  }
+
+  /**
+   * Tests if this enumeration contains more elements.
+   *
+   * @return true if and only if this enumeration object contains at least one
+   *         more element to provide; false otherwise.
+   */
+  @Override
+  public boolean hasMoreElements() {
+    return (m_Hashes != null) && (m_Index < m_NumHashes);
+  }
+
+  /**
+   * Returns the next element of this enumeration if this enumeration object has
+   * at least one more element to provide.
+   *
+   * @return the next element of this enumeration.
+   */
+  @Override
+  public String nextElement() {
+    if (!hasMoreElements())
+      throw new NoSuchElementException();
+    return format(m_Hashes[m_Index++]);
+  }
+
+  /**
+   * Sets the string to tokenize. Tokenizes the string into sentences and
+   * computes the hashes of their n-grams.
+   *
+   * @param s the string to tokenize
+   */
+  @Override
+  public void tokenize(String s) {
+    List<HasWord>	words;
+
+    if ((m_NMin < 1) || (m_NMax < m_NMin))
+      throw new IllegalStateException("Invalid n-gram sizes: min=" + m_NMin + ", max=" + m_NMax);
+    if ((m_NumBits < 1) || (m_NumBits > 31))
+      throw new IllegalStateException("Invalid number of bits (1-31): " + m_NumBits);
+
+    if (m_SentenceSplitter == null)
+      m_SentenceSplitter = new WordToSentenceProcessor<HasWord>();
+    if (m_Hashes == null) {
+      m_Hashes     = new int[256];
+      m_WordHashes = new int[64];
+    }
+    m_NumHashes = 0;
+    m_Index     = 0;
+
+    words = new ArrayList<HasWord>();
+    m_Tokenizer.tokenize(s);
+    while (m_Tokenizer.hasMoreElements())
+      words.add(new Word(m_Tokenizer.nextElement()));
+
+    try {
+      for (List<HasWord> sentence: m_SentenceSplitter.process(words))
+	addSentence(sentence);
+    }
+    catch (Exception e) {
+      m_NumHashes = 0;
+      throw new IllegalStateException("Failed to obtain part-of-speech tags!", e);
+    }
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return		the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision: -1 $");
+  }
+}
@@ -20,26 +20,129 @@
 
 package weka.core.tokenizers;
 
-import edu.stanford.nlp.ling.Word;
+import edu.stanford.nlp.ling.HasOffset;
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.process.CoreLabelTokenFactory;
+import edu.stanford.nlp.process.TokenizerFactory;
+import edu.stanford.nlp.process.WordTokenFactory;
+import weka.core.Option;
 import weka.core.RevisionUtils;
+import weka.core.SelectedTag;
+import weka.core.Tag;
+import weka.core.Utils;
 
 import java.io.StringReader;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.Vector;
 
 /**
  * <a href="http://www.cis.upenn.edu/~treebank/">Penn Treebank tokenizer</a>.
+ * The tokens get pulled from the Stanford tokenizer on demand. Via the
+ * {@link SpanTokenizer} methods, the positions of the tokens in the original
+ * string are available; note that the characters at these positions can
+ * differ from the (normalized) tokens, e.g., "(" vs "-LRB-".
+ *
+ <!-- options-start -->
+ * Valid options are: <p>
+ * 
+ * <pre> -no-ptb3-escaping
+ *  Turns off all PTB3 normalizations (parentheses, brackets, quotes,
+ *  ellipses, dashes, fractions, currency, ampersand entities, spaces).
+ *  (default: on)</pre>
+ * 
+ * <pre> -no-normalize-parentheses
+ *  Whether not to turn parentheses into -LRB- and -RRB-.
+ *  (default: normalized)</pre>
+ * 
+ * <pre> -no-normalize-other-brackets
+ *  Whether not to turn other brackets into -LCB-, -RCB-, etc.
+ *  (default: normalized)</pre>
+ * 
+ * <pre> -americanize
+ *  Whether to turn British spellings into American ones.
+ *  (default: off)</pre>
+ * 
+ * <pre> -invertible
+ *  Whether to keep track of the original text and white space of the tokens.
+ *  (default: off)</pre>
+ * 
+ * <pre> -untokenizable &lt;noneDelete|firstDelete|allDelete|noneKeep|firstKeep|allKeep&gt;
+ *  How to handle untokenizable characters: delete or keep them, logging
+ *  none, the first or all of them.
+ *  (default: firstDelete)</pre>
+ * 
+ <!-- options-end -->
  *
  * @author FracPete (fracpete at waikato dot ac dot nz)
  * @version $Revision$
  */
 public class PTBTokenizer
-  extends Tokenizer {
+  extends Tokenizer
+  implements SpanTokenizer {
 
   private static final long serialVersionUID = 1010088668175214165L;
 
-  /** the tokens. */
-  protected List<String> m_Tokens = null;
+  /** delete untokenizable characters, don't log them. */
+  public static final int UNTOKENIZABLE_NONE_DELETE = 0;
+
+  /** delete untokenizable characters, log the first. */
+  public static final int UNTOKENIZABLE_FIRST_DELETE = 1;
+
+  /** delete untokenizable characters, log all. */
+  public static final int UNTOKENIZABLE_ALL_DELETE = 2;
+
+  /** keep untokenizable characters, don't log them. */
+  public static final int UNTOKENIZABLE_NONE_KEEP = 3;
+
+  /** keep untokenizable characters, log the first. */
+  public static final int UNTOKENIZABLE_FIRST_KEEP = 4;
+
+  /** keep untokenizable characters, log all. */
+  public static final int UNTOKENIZABLE_ALL_KEEP = 5;
+
+  /** the handling of untokenizable characters (readable = PTB option value). */
+  public static final Tag[] TAGS_UNTOKENIZABLE = {
+    new Tag(UNTOKENIZABLE_NONE_DELETE, "noneDelete"),
+    new Tag(UNTOKENIZABLE_FIRST_DELETE, "firstDelete"),
+    new Tag(UNTOKENIZABLE_ALL_DELETE, "allDelete"),
+    new Tag(UNTOKENIZABLE_NONE_KEEP, "noneKeep"),
+    new Tag(UNTOKENIZABLE_FIRST_KEEP, "firstKeep"),
+    new Tag(UNTOKENIZABLE_ALL_KEEP, "allKeep"),
+  };
+
+  /** whether to apply the PTB3 normalizations. */
+  protected boolean m_PTB3Escaping = true;
+
+  /** whether to normalize parentheses. */
+  protected boolean m_NormalizeParentheses = true;
+
+  /** whether to normalize other brackets. */
+  protected boolean m_NormalizeOtherBrackets = true;
+
+  /** whether to americanize spellings. */
+  protected boolean m_Americanize = false;
+
+  /** whether to keep track of the original text. */
+  protected boolean m_Invertible = false;
+
+  /** the handling of untokenizable characters. */
+  protected int m_Untokenizable = UNTOKENIZABLE_FIRST_DELETE;
+
+  /** the factory for the Stanford tokenizers, configured with the options. */
+  protected transient TokenizerFactory<? extends HasWord> m_Factory = null;
+
+  /** the current Stanford tokenizer. */
+  protected transient edu.stanford.nlp.process.Tokenizer<? extends HasWord> m_Tokenizer = null;
+
+  /** the string being tokenized. */
+  protected transient String m_String = null;
+
+  /** the current token. */
+  protected transient HasWord m_Token = null;
+
+  /** the view on the current token. */
+  protected transient TokenSpan m_Span = null;
 
   /**
    * Returns a string describing the stemmer
@@ -55,6 +158,326 @@ public class PTBTokenizer
 	+ "http://www.cis.upenn.edu/~treebank/";
   }
 
+  /**
+   * Returns an enumeration describing the available options.
+   *
+   * @return an enumeration of all the available options.
+   */
+  @Override
+  public Enumeration<Option> listOptions() {
+    Vector<Option> result = new Vector<Option>();
+
+    result.addElement(new Option(
+      "\tTurns off all PTB3 normalizations (parentheses, brackets, quotes,\n"
+        + "\tellipses, dashes, fractions, currency, ampersand entities, spaces).\n"
+        + "\t(default: on)", "no-ptb3-escaping", 0, "-no-ptb3-escaping"));
+
+    result.addElement(new Option(
+      "\tWhether not to turn parentheses into -LRB- and -RRB-.\n"
+        + "\t(default: normalized)", "no-normalize-parentheses", 0, "-no-normalize-parentheses"));
+
+    result.addElement(new Option(
+      "\tWhether not to turn other brackets into -LCB-, -RCB-, etc.\n"
+        + "\t(default: normalized)", "no-normalize-other-brackets", 0, "-no-normalize-other-brackets"));
+
+    result.addElement(new Option(
+      "\tWhether to turn British spellings into American ones.\n"
+        + "\t(default: off)", "americanize", 0, "-americanize"));
+
+    result.addElement(new Option(
+      "\tWhether to keep track of the original text and white space of the tokens.\n"
+        + "\t(default: off)", "invertible", 0, "-invertible"));
+
+    result.addElement(new Option(
+      "\tHow to handle untokenizable characters: delete or keep them, logging\n"
+        + "\tnone, the first or all of them.\n"
+        + "\t(default: firstDelete)", "untokenizable", 1,
+      "-untokenizable <noneDelete|firstDelete|allDelete|noneKeep|firstKeep|allKeep>"));
+
+    return result.elements();
+  }
+
+  /**
+   * Parses a given list of options.
+   *
+   * @param options the list of options as an array of strings
+   * @throws Exception if an option is not supported
+   */
+  @Override
+  public void setOptions(String[] options) throws Exception {
+    String	tmpStr;
+
+    setPTB3Escaping(!Utils.getFlag("no-ptb3-escaping", options));
+
+    setNormalizeParentheses(!Utils.getFlag("no-normalize-parentheses", options));
+
+    setNormalizeOtherBrackets(!Utils.getFlag("no-normalize-other-brackets", options));
+
+    setAmericanize(Utils.getFlag("americanize", options));
+
+    setInvertible(Utils.getFlag("invertible", options));
+
+    tmpStr = Utils.getOption("untokenizable", options);
+    if (tmpStr.length() != 0)
+      setUntokenizable(new SelectedTag(tmpStr, TAGS_UNTOKENIZABLE));
+    else
+      setUntokenizable(new SelectedTag(UNTOKENIZABLE_FIRST_DELETE, TAGS_UNTOKENIZABLE));
+  }
+
+  /**
+   * Gets the current settings of the tokenizer.
+   *
+   * @return an array of strings suitable for passing to setOptions
+   */
+  @Override
+  public String[] getOptions() {
+    Vector<String> result = new Vector<String>();
+
+    if (!getPTB3Escaping())
+      result.add("-no-ptb3-escaping");
+
+    if (!getNormalizeParentheses())
+      result.add("-no-normalize-parentheses");
+
+    if (!getNormalizeOtherBrackets())
+      result.add("-no-normalize-other-brackets");
+
+    if (getAmericanize())
+      result.add("-americanize");
+
+    if (getInvertible())
+      result.add("-invertible");
+
+    result.add("-untokenizable");
+    result.add(getUntokenizable().getSelectedTag().getReadable());
+
+    return result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * Sets whether to apply the PTB3 normalizations.
+   *
+   * @param value true if to normalize
+   */
+  public void setPTB3Escaping(boolean value) {
+    m_PTB3Escaping = value;
+    m_Factory      = null;
+  }
+
+  /**
+   * Returns whether to apply the PTB3 normalizations.
+   *
+   * @return true if to normalize
+   */
+  public boolean getPTB3Escaping() {
+    return m_PTB3Escaping;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String PTB3EscapingTipText() {
+    return
+      "If disabled, none of the PTB3 normalizations get applied (parentheses, "
+	+ "brackets, quotes, ellipses, dashes, fractions, currency, ampersand "
+	+ "entities, spaces), regardless of the individual settings.";
+  }
+
+  /**
+   * Sets whether to turn parentheses into -LRB- and -RRB-.
+   *
+   * @param value true if to normalize
+   */
+  public void setNormalizeParentheses(boolean value) {
+    m_NormalizeParentheses = value;
+    m_Factory              = null;
+  }
+
+  /**
+   * Returns whether to turn parentheses into -LRB- and -RRB-.
+   *
+   * @return true if to normalize
+   */
+  public boolean getNormalizeParentheses() {
+    return m_NormalizeParentheses;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String normalizeParenthesesTipText() {
+    return "If enabled, parentheses get turned into -LRB- and -RRB-.";
+  }
+
+  /**
+   * Sets whether to turn other brackets into -LCB-, -RCB-, etc.
+   *
+   * @param value true if to normalize
+   */
+  public void setNormalizeOtherBrackets(boolean value) {
+    m_NormalizeOtherBrackets = value;
+    m_Factory                = null;
+  }
+
+  /**
+   * Returns whether to turn other brackets into -LCB-, -RCB-, etc.
+   *
+   * @return true if to normalize
+   */
+  public boolean getNormalizeOtherBrackets() {
+    return m_NormalizeOtherBrackets;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String normalizeOtherBracketsTipText() {
+    return "If enabled, other brackets get turned into -LCB-, -RCB-, -LSB- and -RSB-.";
+  }
+
+  /**
+   * Sets whether to turn British spellings into American ones.
+   *
+   * @param value true if to americanize
+   */
+  public void setAmericanize(boolean value) {
+    m_Americanize = value;
+    m_Factory     = null;
+  }
+
+  /**
+   * Returns whether to turn British spellings into American ones.
+   *
+   * @return true if to americanize
+   */
+  public boolean getAmericanize() {
+    return m_Americanize;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String americanizeTipText() {
+    return "If enabled, British spellings get turned into American ones.";
+  }
+
+  /**
+   * Sets whether to keep track of the original text and white space.
+   *
+   * @param value true if invertible
+   */
+  public void setInvertible(boolean value) {
+    m_Invertible = value;
+    m_Factory    = null;
+  }
+
+  /**
+   * Returns whether to keep track of the original text and white space.
+   *
+   * @return true if invertible
+   */
+  public boolean getInvertible() {
+    return m_Invertible;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String invertibleTipText() {
+    return
+      "If enabled, the original text and the surrounding white space of the "
+	+ "tokens get recorded (more memory, same tokens).";
+  }
+
+  /**
+   * Sets the handling of untokenizable characters.
+   *
+   * @param value the handling
+   */
+  public void setUntokenizable(SelectedTag value) {
+    if (value.getTags() == TAGS_UNTOKENIZABLE) {
+      m_Untokenizable = value.getSelectedTag().getID();
+      m_Factory       = null;
+    }
+  }
+
+  /**
+   * Returns the handling of untokenizable characters.
+   *
+   * @return the handling
+   */
+  public SelectedTag getUntokenizable() {
+    return new SelectedTag(m_Untokenizable, TAGS_UNTOKENIZABLE);
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String untokenizableTipText() {
+    return
+      "How to handle characters that cannot be tokenized: delete or keep "
+	+ "them, logging none, the first or all of them.";
+  }
+
+  /**
+   * Assembles the options string for the Stanford tokenizer.
+   *
+   * @return the options
+   */
+  protected String getPTBOptions() {
+    StringBuilder	result;
+
+    result = new StringBuilder();
+    // individual normalizations only get applied with PTB3 escaping, as the
+    // order in which the Stanford tokenizer evaluates the options is undefined
+    if (!m_PTB3Escaping) {
+      result.append("ptb3Escaping=false");
+    }
+    else {
+      result.append("normalizeParentheses=" + m_NormalizeParentheses);
+      result.append(",normalizeOtherBrackets=" + m_NormalizeOtherBrackets);
+    }
+    result.append(",americanize=" + m_Americanize);
+    result.append(",invertible=" + m_Invertible);
+    result.append(",untokenizable=" + new SelectedTag(m_Untokenizable, TAGS_UNTOKENIZABLE).getSelectedTag().getReadable());
+
+    return result.toString();
+  }
+
+  /**
+   * Returns the factory for the Stanford tokenizers, creates it if necessary.
+   *
+   * @return the factory
+   */
+  protected TokenizerFactory<? extends HasWord> getFactory() {
+    if (m_Factory == null) {
+      // invertible requires CoreLabel tokens, otherwise the lighter Word ones suffice
+      if (m_Invertible)
+	m_Factory = edu.stanford.nlp.process.PTBTokenizer.factory(new CoreLabelTokenFactory(), getPTBOptions());
+      else
+	m_Factory = edu.stanford.nlp.process.PTBTokenizer.factory(new WordTokenFactory(), getPTBOptions());
+    }
+    return m_Factory;
+  }
+
   /**
    * Tests if this enumeration contains more elements.
    *
@@ -63,7 +486,7 @@ public class PTBTokenizer
    */
   @Override
   public boolean hasMoreElements() {
-    return (m_Tokens != null) && (m_Tokens.size() > 0);
+    return (m_Tokenizer != null) && m_Tokenizer.hasNext();
   }
 
   /**
@@ -74,22 +497,87 @@ public class PTBTokenizer
    */
   @Override
   public String nextElement() {
-    return m_Tokens.remove(0);
+    if (m_Tokenizer == null)
+      throw new NoSuchElementException();
+    return m_Tokenizer.next().word();
   }
 
   /**
-   * Sets the string to tokenize. Tokenization happens immediately.
+   * Sets the string to tokenize. The tokens get generated when requested.
    *
    * @param s the string to tokenize
    */
   @Override
   public void tokenize(String s) {
-    edu.stanford.nlp.process.PTBTokenizer<Word> tokenizer;
+    m_String    = s;
+    m_Token     = null;
+    m_Tokenizer = getFactory().getTokenizer(new StringReader(s));
+  }
+
+  /**
+   * Advances to the next token.
+   *
+   * @return		true if there was another token
+   */
+  public boolean nextSpan() {
+    HasOffset	offset;
+
+    if (!hasMoreElements())
+      return false;
+
+    m_Token = m_Tokenizer.next();
+    offset  = (HasOffset) m_Token;
+    if (m_Span == null)
+      m_Span = new TokenSpan();
+    m_Span.set(m_String, offset.beginPosition(), offset.endPosition());
+
+    return true;
+  }
+
+  /**
+   * Returns the offset of the first character of the current token.
+   *
+   * @return		the offset (inclusive)
+   */
+  public int getSpanBegin() {
+    return m_Span.getBegin();
+  }
+
+  /**
+   * Returns the offset after the last character of the current token.
+   *
+   * @return		the offset (exclusive)
+   */
+  public int getSpanEnd() {
+    return m_Span.getEnd();
+  }
+
+  /**
+   * Returns the reusable view on the original characters of the current token.
+   *
+   * @return		the view
+   */
+  public CharSequence getSpan() {
+    return m_Span;
+  }
+
+  /**
+   * Returns the current (normalized) token.
+   *
+   * @return		the token
+   */
+  public String getSpanToken() {
+    return m_Token.word();
+  }
 
-    tokenizer = edu.stanford.nlp.process.PTBTokenizer.newPTBTokenizer(new StringReader(s));
-    m_Tokens = new ArrayList<String>();
-    while (tokenizer.hasNext())
-      m_Tokens.add(tokenizer.next().value());
+  /**
+   * Returns whether the tokens can differ from the characters in the
+   * original string, e.g., brackets or quotes.
+   *
+   * @return		always true
+   */
+  public boolean normalizesTokens() {
+    return true;
   }
 
   /**
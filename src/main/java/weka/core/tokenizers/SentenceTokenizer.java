@@ -0,0 +1,224 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * SentenceTokenizer.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.tokenizers;
+
+import weka.core.Option;
+import weka.core.RevisionUtils;
+import weka.core.Utils;
+import weka.core.tokenizers.sentence.AbstractSentenceDetector;
+import weka.core.tokenizers.sentence.PTBSentenceDetector;
+
+import java.util.Enumeration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Vector;
+
+/**
+ * Splits documents into sentences, i.e., the tokens are sentences. The
+ * boundaries are determined by the sentence detector, e.g., the Penn Treebank
+ * based one or the faster rule-based one. Use {@link #split(String)} for
+ * thread-safe splitting.
+ *
+ <!-- options-start -->
+ * Valid options are: <p>
+ *
+ * <pre> -detector &lt;spec&gt;
+ *  The sentence detector (classname plus parameters) to use.
+ *  (default: weka.core.tokenizers.sentence.PTBSentenceDetector)</pre>
+ *
+ <!-- options-end -->
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision$
+ */
+public class SentenceTokenizer
+  extends Tokenizer {
+
+  private static final long serialVersionUID = -2434467946209325786L;
+
+  /** the sentence detector. */
+  protected AbstractSentenceDetector m_Detector = new PTBSentenceDetector();
+
+  /** the sentences of the current document. */
+  protected transient List<String> m_Sentences = null;
+
+  /** the index of the next sentence. */
+  protected transient int m_Index;
+
+  /**
+   * Returns a string describing the tokenizer
+   *
+   * @return a description suitable for displaying in the explorer/experimenter
+   *         gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+      "Splits documents into sentences, using the specified sentence detector.";
+  }
+
+  /**
+   * Returns an enumeration describing the available options.
+   *
+   * @return an enumeration of all the available options.
+   */
+  @Override
+  public Enumeration<Option> listOptions() {
+    Vector<Option> result = new Vector<Option>();
+
+    result.addElement(new Option(
+      "\tThe sentence detector (classname plus parameters) to use.\n"
+	+ "\t(default: " + PTBSentenceDetector.class.getName() + ")", "detector", 1,
+      "-detector <spec>"));
+
+    return result.elements();
+  }
+
+  /**
+   * Parses a given list of options.
+   *
+   * @param options the list of options as an array of strings
+   * @throws Exception if an option is not supported
+   */
+  @Override
+  public void setOptions(String[] options) throws Exception {
+    String	tmpStr;
+    String	className;
+    String[]	classOptions;
+
+    tmpStr = Utils.getOption("detector", options);
+    if (tmpStr.length() == 0) {
+      setDetector(new PTBSentenceDetector());
+    }
+    else {
+      classOptions = Utils.splitOptions(tmpStr);
+      if (classOptions.length == 0)
+	throw new Exception("Invalid sentence detector specification string");
+      className = classOptions[0];
+      classOptions[0] = "";
+      AbstractSentenceDetector detector = (AbstractSentenceDetector) Class.forName(className).newInstance();
+      detector.setOptions(classOptions);
+      setDetector(detector);
+    }
+  }
+
+  /**
+   * Gets the current settings of the tokenizer.
+   *
+   * @return an array of strings suitable for passing to setOptions
+   */
+  @Override
+  public String[] getOptions() {
+    Vector<String> result = new Vector<String>();
+
+    result.add("-detector");
+    result.add(Utils.toCommandLine(getDetector()));
+
+    return result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * Sets the sentence detector to use.
+   *
+   * @param value the detector
+   */
+  public void setDetector(AbstractSentenceDetector value) {
+    m_Detector = value;
+  }
+
+  /**
+   * Returns the sentence detector in use.
+   *
+   * @return the detector
+   */
+  public AbstractSentenceDetector getDetector() {
+    return m_Detector;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String detectorTipText() {
+    return
+      "The algorithm for detecting the sentence boundaries; the rule-based "
+	+ "detector is several times faster than the Penn Treebank one, which "
+	+ "fully tokenizes the document.";
+  }
+
+  /**
+   * Splits the document into sentences. Thread-safe, does not affect the
+   * enumeration of the tokenizer.
+   *
+   * @param doc		the document to split
+   * @return		the sentences
+   */
+  public List<String> split(String doc) {
+    return m_Detector.detect(doc);
+  }
+
+  /**
+   * Tests if this enumeration contains more elements.
+   *
+   * @return true if and only if this enumeration object contains at least one
+   *         more element to provide; false otherwise.
+   */
+  @Override
+  public boolean hasMoreElements() {
+    return (m_Sentences != null) && (m_Index < m_Sentences.size());
+  }
+
+  /**
+   * Returns the next element of this enumeration if this enumeration object has
+   * at least one more element to provide.
+   *
+   * @return the next element of this enumeration.
+   */
+  @Override
+  public String nextElement() {
+    if (!hasMoreElements())
+      throw new NoSuchElementException();
+    return m_Sentences.get(m_Index++);
+  }
+
+  /**
+   * Sets the document to split into sentences.
+   *
+   * @param s the document to split
+   */
+  @Override
+  public void tokenize(String s) {
+    m_Sentences = split(s);
+    m_Index     = 0;
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return		the revision
+   */
+  @Override
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision: -1 $");
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * SpanTokenizer.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.tokenizers;
+
+/**
+ * Interface for tokenizers that can hand out the positions of the tokens in
+ * the original string, rather than a new string per token. After calling
+ * {@link Tokenizer#tokenize(String)}, use {@link #nextSpan()} to advance to the
+ * next token; don't mix this with
+ * {@link Tokenizer#hasMoreElements()}/{@link Tokenizer#nextElement()}.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ */
+public interface SpanTokenizer {
+
+  /**
+   * Advances to the next token.
+   *
+   * @return		true if there was another token
+   */
+  public boolean nextSpan();
+
+  /**
+   * Returns the offset of the first character of the current token in the
+   * original string.
+   *
+   * @return		the offset (inclusive)
+   */
+  public int getSpanBegin();
+
+  /**
+   * Returns the offset after the last character of the current token in the
+   * original string.
+   *
+   * @return		the offset (exclusive)
+   */
+  public int getSpanEnd();
+
+  /**
+   * Returns a view on the characters of the current token in the original
+   * string. The view gets reused, i.e., it is only valid until the next call
+   * of {@link #nextSpan()}; use toString() to obtain a copy.
+   *
+   * @return		the view
+   */
+  public CharSequence getSpan();
+
+  /**
+   * Returns the current token as string. This can differ from the characters
+   * in the original string, e.g., if the tokenizer normalizes tokens.
+   *
+   * @return		the token
+   */
+  public String getSpanToken();
+
+  /**
+   * Returns whether the tokens can differ from the characters in the
+   * original string. If not, the view from {@link #getSpan()} has the same
+   * characters as {@link #getSpanToken()}.
+   *
+   * @return		true if the tokens get normalized
+   */
+  public boolean normalizesTokens();
+}
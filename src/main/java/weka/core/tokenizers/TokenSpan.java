@@ -0,0 +1,183 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TokenSpan.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.tokenizers;
+
+/**
+ * Mutable view on a region of a string, without copying the characters.
+ * The hash code is the same as the one of the equivalent string.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @see SpanTokenizer
+ */
+public class TokenSpan
+  implements CharSequence {
+
+  /** the underlying string. */
+  protected String m_Text;
+
+  /** the start of the region (inclusive). */
+  protected int m_Begin;
+
+  /** the end of the region (exclusive). */
+  protected int m_End;
+
+  /**
+   * Initializes an empty view.
+   */
+  public TokenSpan() {
+    this("", 0, 0);
+  }
+
+  /**
+   * Initializes the view.
+   *
+   * @param text	the underlying string
+   * @param begin	the start of the region (inclusive)
+   * @param end		the end of the region (exclusive)
+   */
+  public TokenSpan(String text, int begin, int end) {
+    set(text, begin, end);
+  }
+
+  /**
+   * Points the view to the specified region.
+   *
+   * @param text	the underlying string
+   * @param begin	the start of the region (inclusive)
+   * @param end		the end of the region (exclusive)
+   */
+  public void set(String text, int begin, int end) {
+    m_Text  = text;
+    m_Begin = begin;
+    m_End   = end;
+  }
+
+  /**
+   * Returns the start of the region in the underlying string.
+   *
+   * @return		the offset (inclusive)
+   */
+  public int getBegin() {
+    return m_Begin;
+  }
+
+  /**
+   * Returns the end of the region in the underlying string.
+   *
+   * @return		the offset (exclusive)
+   */
+  public int getEnd() {
+    return m_End;
+  }
+
+  /**
+   * Returns the number of characters in the region.
+   *
+   * @return		the length
+   */
+  public int length() {
+    return m_End - m_Begin;
+  }
+
+  /**
+   * Returns the specified character of the region.
+   *
+   * @param index	the index in the region
+   * @return		the character
+   */
+  public char charAt(int index) {
+    if ((index < 0) || (index >= m_End - m_Begin))
+      throw new IndexOutOfBoundsException("Invalid index: " + index);
+    return m_Text.charAt(m_Begin + index);
+  }
+
+  /**
+   * Returns a new view on a part of the region.
+   *
+   * @param start	the start in the region (inclusive)
+   * @param end		the end in the region (exclusive)
+   * @return		the view
+   */
+  public CharSequence subSequence(int start, int end) {
+    if ((start < 0) || (end > m_End - m_Begin) || (start > end))
+      throw new IndexOutOfBoundsException("Invalid region: " + start + "-" + end);
+    return new TokenSpan(m_Text, m_Begin + start, m_Begin + end);
+  }
+
+  /**
+   * Checks whether the region has the same characters as the sequence.
+   *
+   * @param s		the sequence to compare with
+   * @return		true if the same characters
+   */
+  public boolean contentEquals(CharSequence s) {
+    int		i;
+    int		len;
+
+    len = m_End - m_Begin;
+    if (s.length() != len)
+      return false;
+    for (i = 0; i < len; i++) {
+      if (m_Text.charAt(m_Begin + i) != s.charAt(i))
+	return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns the hash code, the same as for the equivalent string.
+   *
+   * @return		the hash code
+   */
+  @Override
+  public int hashCode() {
+    int		result;
+    int		i;
+
+    result = 0;
+    for (i = m_Begin; i < m_End; i++)
+      result = 31 * result + m_Text.charAt(i);
+
+    return result;
+  }
+
+  /**
+   * Checks whether the object is a span with the same characters.
+   *
+   * @param obj		the object to compare with
+   * @return		true if the same characters
+   */
+  @Override
+  public boolean equals(Object obj) {
+    return (obj instanceof TokenSpan) && contentEquals((TokenSpan) obj);
+  }
+
+  /**
+   * Returns a copy of the characters in the region.
+   *
+   * @return		the characters
+   */
+  @Override
+  public String toString() {
+    return m_Text.substring(m_Begin, m_End);
+  }
+}
@@ -20,25 +20,87 @@
 
 package weka.core.tokenizers;
 
+import weka.core.Option;
 import weka.core.RevisionUtils;
+import weka.core.Utils;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.Vector;
 
 /**
- * Simply uses Java's String.split(\\s) method for generating the tokens.
+ * Splits strings on white space (space, tab, new line, vertical tab, form
+ * feed, carriage return), just like Java's String.split("\\s") method, but
+ * scanning the string without regular expressions and generating the tokens
+ * lazily. Optionally, runs of white space can be collapsed. The positions
+ * of the tokens are available via the {@link SpanTokenizer} methods.
+ * <br><br>
+ * In Unicode mode, all Unicode white space and space characters (e.g.,
+ * non-breaking spaces, em spaces, ideographic spaces, line/paragraph
+ * separators and the next-line character) act as separators as well. The
+ * characters get classified via lookup tables for ASCII/Latin-1; only other
+ * characters fall back to {@link Character#isWhitespace(char)} and
+ * {@link Character#isSpaceChar(char)}. As Unicode defines no white space
+ * outside the Basic Multilingual Plane, surrogate pairs never get split.
+ *
+ <!-- options-start -->
+ * Valid options are: <p>
+ * 
+ * <pre> -collapse
+ *  Whether to treat runs of white space as a single separator,
+ *  i.e., not to generate empty tokens.
+ *  (default: off)</pre>
+ * 
+ * <pre> -unicode
+ *  Whether to split on all Unicode white space (e.g., non-breaking
+ *  spaces) rather than on \s only.
+ *  (default: off)</pre>
+ * 
+ <!-- options-end -->
  *
  * @author FracPete (fracpete at waikato dot ac dot nz)
  * @version $Revision$
  */
 public class WhiteSpaceTokenizer
-  extends Tokenizer {
+  extends Tokenizer
+  implements SpanTokenizer {
 
   private static final long serialVersionUID = 7007134400576117968L;
 
-  /** the tokens. */
-  protected List<String> m_Tokens = null;
+  /** the ASCII white space, i.e., \\s (index: character). */
+  protected static final boolean[] WHITESPACE_ASCII = new boolean[256];
+
+  /** the Unicode white space within Latin-1 (index: character). */
+  protected static final boolean[] WHITESPACE_LATIN1 = new boolean[256];
+  static {
+    char	c;
+
+    for (c = 0; c < 256; c++) {
+      WHITESPACE_ASCII[c]  = (c == ' ') || ((c >= '\t') && (c <= '\r'));
+      WHITESPACE_LATIN1[c] = isUnicodeWhiteSpace(c);
+    }
+  }
+
+  /** whether to collapse runs of white space. */
+  protected boolean m_Collapse = false;
+
+  /** whether to split on all Unicode white space. */
+  protected boolean m_Unicode = false;
+
+  /** the lookup table for the current string. */
+  protected transient boolean[] m_Table = null;
+
+  /** the string to tokenize. */
+  protected transient String m_String = null;
+
+  /** the start of the next token. */
+  protected transient int m_Pos;
+
+  /** the end of the string, excluding trailing white space (when not collapsing). */
+  protected transient int m_End;
+
+  /** the view on the current token. */
+  protected transient TokenSpan m_Span = null;
 
   /**
    * Returns a string describing the stemmer
@@ -48,7 +110,151 @@ public class WhiteSpaceTokenizer
    */
   @Override
   public String globalInfo() {
-    return "Simply uses Java's 'String.split(\"\\\\s\")' method for generating the tokens.";
+    return
+      "Splits strings on white space, producing the same tokens as Java's "
+	+ "'String.split(\"\\\\s\")' method; optionally collapses runs of white space.\n"
+	+ "In Unicode mode, all Unicode white space (e.g., non-breaking spaces) "
+	+ "separates tokens as well.";
+  }
+
+  /**
+   * Returns an enumeration describing the available options.
+   *
+   * @return an enumeration of all the available options.
+   */
+  @Override
+  public Enumeration<Option> listOptions() {
+    Vector<Option> result = new Vector<Option>();
+
+    result.addElement(new Option(
+      "\tWhether to treat runs of white space as a single separator,\n"
+        + "\ti.e., not to generate empty tokens.\n"
+        + "\t(default: off)", "collapse", 0, "-collapse"));
+
+    result.addElement(new Option(
+      "\tWhether to split on all Unicode white space (e.g., non-breaking\n"
+        + "\tspaces) rather than on \\s only.\n"
+        + "\t(default: off)", "unicode", 0, "-unicode"));
+
+    return result.elements();
+  }
+
+  /**
+   * Parses a given list of options.
+   *
+   * @param options the list of options as an array of strings
+   * @throws Exception if an option is not supported
+   */
+  @Override
+  public void setOptions(String[] options) throws Exception {
+    setCollapse(Utils.getFlag("collapse", options));
+
+    setUnicode(Utils.getFlag("unicode", options));
+  }
+
+  /**
+   * Gets the current settings of the tokenizer.
+   *
+   * @return an array of strings suitable for passing to setOptions
+   */
+  @Override
+  public String[] getOptions() {
+    Vector<String> result = new Vector<String>();
+
+    if (getCollapse())
+      result.add("-collapse");
+
+    if (getUnicode())
+      result.add("-unicode");
+
+    return result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * Sets whether to collapse runs of white space.
+   *
+   * @param value true if to collapse
+   */
+  public void setCollapse(boolean value) {
+    m_Collapse = value;
+  }
+
+  /**
+   * Returns whether to collapse runs of white space.
+   *
+   * @return true if to collapse
+   */
+  public boolean getCollapse() {
+    return m_Collapse;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String collapseTipText() {
+    return
+      "If enabled, runs of white space are treated as a single separator and "
+	+ "leading white space gets skipped, i.e., no empty tokens get generated.";
+  }
+
+  /**
+   * Sets whether to split on all Unicode white space.
+   *
+   * @param value true if Unicode white space
+   */
+  public void setUnicode(boolean value) {
+    m_Unicode = value;
+  }
+
+  /**
+   * Returns whether to split on all Unicode white space.
+   *
+   * @return true if Unicode white space
+   */
+  public boolean getUnicode() {
+    return m_Unicode;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String unicodeTipText() {
+    return
+      "If enabled, all Unicode white space (e.g., non-breaking spaces, em "
+	+ "spaces, ideographic spaces, line separators) separates tokens, not "
+	+ "just the characters matched by \\s.";
+  }
+
+  /**
+   * Checks whether the character is Unicode white space, i.e., white space
+   * according to Java, a space character (which includes the non-breaking
+   * spaces) or the next-line character. Surrogates are never white space.
+   *
+   * @param c		the character to check
+   * @return		true if white space
+   */
+  protected static boolean isUnicodeWhiteSpace(char c) {
+    return Character.isWhitespace(c) || Character.isSpaceChar(c) || (c == '\u0085');
+  }
+
+  /**
+   * Checks whether the character is considered white space, i.e., matches
+   * the regular expression \\s or, in Unicode mode, is any Unicode white
+   * space.
+   *
+   * @param c		the character to check
+   * @return		true if white space
+   */
+  protected boolean isWhiteSpace(char c) {
+    if (c < 256)
+      return m_Table[c];
+    return m_Unicode && isUnicodeWhiteSpace(c);
   }
 
   /**
@@ -59,7 +265,14 @@ public class WhiteSpaceTokenizer
    */
   @Override
   public boolean hasMoreElements() {
-    return (m_Tokens != null) && (m_Tokens.size() > 0);
+    if (m_String == null)
+      return false;
+    if (m_Collapse) {
+      while ((m_Pos < m_End) && isWhiteSpace(m_String.charAt(m_Pos)))
+	m_Pos++;
+      return (m_Pos < m_End);
+    }
+    return (m_Pos <= m_End);
   }
 
   /**
@@ -70,17 +283,98 @@ public class WhiteSpaceTokenizer
    */
   @Override
   public String nextElement() {
-    return m_Tokens.remove(0);
+    if (!nextSpan())
+      throw new NoSuchElementException();
+    return getSpanToken();
+  }
+
+  /**
+   * Advances to the next token.
+   *
+   * @return		true if there was another token
+   */
+  public boolean nextSpan() {
+    int		start;
+
+    if (!hasMoreElements())
+      return false;
+
+    start = m_Pos;
+    while ((m_Pos < m_End) && !isWhiteSpace(m_String.charAt(m_Pos)))
+      m_Pos++;
+    if (m_Span == null)
+      m_Span = new TokenSpan();
+    m_Span.set(m_String, start, m_Pos);
+    // skip the separator (or move past the end)
+    m_Pos++;
+
+    return true;
+  }
+
+  /**
+   * Returns the offset of the first character of the current token.
+   *
+   * @return		the offset (inclusive)
+   */
+  public int getSpanBegin() {
+    return m_Span.getBegin();
+  }
+
+  /**
+   * Returns the offset after the last character of the current token.
+   *
+   * @return		the offset (exclusive)
+   */
+  public int getSpanEnd() {
+    return m_Span.getEnd();
+  }
+
+  /**
+   * Returns the reusable view on the current token.
+   *
+   * @return		the view
+   */
+  public CharSequence getSpan() {
+    return m_Span;
+  }
+
+  /**
+   * Returns the current token as string.
+   *
+   * @return		the token
+   */
+  public String getSpanToken() {
+    return m_Span.toString();
+  }
+
+  /**
+   * Returns whether the tokens can differ from the characters in the
+   * original string.
+   *
+   * @return		always false
+   */
+  public boolean normalizesTokens() {
+    return false;
   }
 
   /**
-   * Sets the string to tokenize. Tokenization happens immediately.
+   * Sets the string to tokenize. The tokens get generated when requested.
    *
    * @param s the string to tokenize
    */
   @Override
   public void tokenize(String s) {
-    m_Tokens = new ArrayList<String>(Arrays.asList(s.split("\\s")));
+    m_Table  = m_Unicode ? WHITESPACE_LATIN1 : WHITESPACE_ASCII;
+    m_String = s;
+    m_Pos    = 0;
+    m_End    = s.length();
+    // like String.split, drop trailing empty tokens (only white space -> no tokens)
+    if (!m_Collapse && (m_End > 0)) {
+      while ((m_End > 0) && isWhiteSpace(s.charAt(m_End - 1)))
+	m_End--;
+      if (m_End == 0)
+	m_String = null;
+    }
   }
 
   /**
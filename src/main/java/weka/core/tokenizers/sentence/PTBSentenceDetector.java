@@ -0,0 +1,97 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * PTBSentenceDetector.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.tokenizers.sentence;
+
+import edu.stanford.nlp.process.CoreLabelTokenFactory;
+import edu.stanford.nlp.process.DocumentPreprocessor;
+import edu.stanford.nlp.process.PTBTokenizer;
+import edu.stanford.nlp.process.TokenizerFactory;
+import edu.stanford.nlp.util.StringUtils;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits documents into sentences using Stanford's DocumentPreprocessor,
+ * which fully tokenizes the document with the Penn Treebank tokenizer. The
+ * sentences retain the original white space.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision$
+ */
+public class PTBSentenceDetector
+  extends AbstractSentenceDetector {
+
+  private static final long serialVersionUID = 2954190412395472637L;
+
+  /** the tokenizer factory to use. */
+  protected static TokenizerFactory m_TokenizerFactory;
+
+  /**
+   * Returns a string describing the detector.
+   *
+   * @return a description suitable for displaying in the explorer/experimenter
+   *         gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+      "Splits documents into sentences using Stanford's DocumentPreprocessor, "
+	+ "i.e., based on the tokens of the Penn Treebank tokenizer.";
+  }
+
+  /**
+   * Returns the tokenizer factory used for splitting documents into sentences.
+   *
+   * @return		the factory
+   */
+  public static synchronized TokenizerFactory getTokenizerFactory() {
+    if (m_TokenizerFactory == null) {
+      m_TokenizerFactory = PTBTokenizer.factory(
+	new CoreLabelTokenFactory(),
+	"normalizeParentheses=false,normalizeOtherBrackets=false,invertible=true");
+    }
+    return m_TokenizerFactory;
+  }
+
+  /**
+   * Splits the document into sentences.
+   *
+   * @param doc		the document to split
+   * @return		the sentences
+   */
+  @Override
+  public List<String> detect(String doc) {
+    List<String>		result;
+    DocumentPreprocessor	preProcessor;
+
+    result = new ArrayList<String>();
+
+    preProcessor = new DocumentPreprocessor(new StringReader(doc));
+    preProcessor.setTokenizerFactory(getTokenizerFactory());
+
+    for (List sentence: preProcessor)
+      result.add(StringUtils.joinWithOriginalWhiteSpace(sentence));
+
+    return result;
+  }
+}
@@ -0,0 +1,439 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * RuleBasedSentenceDetector.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.core.tokenizers.sentence;
+
+import weka.core.Option;
+import weka.core.Utils;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * Fast sentence splitter that scans the characters of a document once,
+ * without tokenizing it. A sentence ends after a run of '.', '!', '?' or
+ * '&#8230;', including any closing quotes or brackets, that is followed by
+ * white space (or the end of the document). Periods do not end a sentence
+ * if they follow an abbreviation or an initial, or if the next word starts
+ * with a lower case letter.
+ *
+ <!-- options-start -->
+ * Valid options are: <p>
+ *
+ * <pre> -abbreviations &lt;list&gt;
+ *  The comma-separated list of abbreviations (case-insensitive, without the
+ *  trailing period) that do not end a sentence. Abbreviations with a
+ *  trailing '#' only apply in front of a number, e.g., 'no#'.
+ *  (default: mr,mrs,ms,dr,prof,...)</pre>
+ *
+ * <pre> -split-on-newlines
+ *  Whether line breaks end sentences as well.
+ *  (default: off)</pre>
+ *
+ <!-- options-end -->
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision$
+ */
+public class RuleBasedSentenceDetector
+  extends AbstractSentenceDetector {
+
+  private static final long serialVersionUID = -6311541187410584317L;
+
+  /** the default abbreviations. */
+  public static final String DEFAULT_ABBREVIATIONS =
+    "mr,mrs,ms,dr,prof,sr,jr,st,mt,ave,rd,gen,gov,sen,rep,capt,col,lt,sgt,"
+      + "rev,hon,vs,etc,al,approx,dept,est,fig,figs,no#,nos#,vol,p#,pp#,ch,sec,"
+      + "inc,ltd,co,corp,bros,jan,feb,mar,apr,jun,jul,aug,sep,sept,oct,nov,dec";
+
+  /** the abbreviations. */
+  protected String m_Abbreviations = DEFAULT_ABBREVIATIONS;
+
+  /** whether line breaks end sentences. */
+  protected boolean m_SplitOnNewLines = false;
+
+  /** the abbreviations as set (lower case). */
+  protected transient volatile Set<String> m_AbbreviationsSet = null;
+
+  /**
+   * Returns a string describing the detector.
+   *
+   * @return a description suitable for displaying in the explorer/experimenter
+   *         gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+      "Fast, rule-based sentence splitting that scans the characters of a "
+	+ "document once, without tokenizing it. Sentences end with '.', '!', "
+	+ "'?' or an ellipsis (plus any closing quotes or brackets) that is "
+	+ "followed by white space. Periods after abbreviations or initials, or "
+	+ "followed by a lower case word, do not end a sentence.";
+  }
+
+  /**
+   * Returns an enumeration describing the available options.
+   *
+   * @return an enumeration of all the available options.
+   */
+  @Override
+  public Enumeration<Option> listOptions() {
+    Vector<Option> result = new Vector<Option>();
+
+    result.addElement(new Option(
+      "\tThe comma-separated list of abbreviations (case-insensitive, without the\n"
+	+ "\ttrailing period) that do not end a sentence. Abbreviations with a\n"
+	+ "\ttrailing '#' only apply in front of a number, e.g., 'no#'.\n"
+	+ "\t(default: mr,mrs,ms,dr,prof,...)", "abbreviations", 1, "-abbreviations <list>"));
+
+    result.addElement(new Option(
+      "\tWhether line breaks end sentences as well.\n"
+	+ "\t(default: off)", "split-on-newlines", 0, "-split-on-newlines"));
+
+    return result.elements();
+  }
+
+  /**
+   * Parses a given list of options.
+   *
+   * @param options the list of options as an array of strings
+   * @throws Exception if an option is not supported
+   */
+  @Override
+  public void setOptions(String[] options) throws Exception {
+    String	tmpStr;
+
+    tmpStr = Utils.getOption("abbreviations", options);
+    if (tmpStr.length() != 0)
+      setAbbreviations(tmpStr);
+    else
+      setAbbreviations(DEFAULT_ABBREVIATIONS);
+
+    setSplitOnNewLines(Utils.getFlag("split-on-newlines", options));
+  }
+
+  /**
+   * Gets the current settings of the detector.
+   *
+   * @return an array of strings suitable for passing to setOptions
+   */
+  @Override
+  public String[] getOptions() {
+    Vector<String> result = new Vector<String>();
+
+    result.add("-abbreviations");
+    result.add(getAbbreviations());
+
+    if (getSplitOnNewLines())
+      result.add("-split-on-newlines");
+
+    return result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * Sets the abbreviations that do not end a sentence.
+   *
+   * @param value the comma-separated list
+   */
+  public void setAbbreviations(String value) {
+    m_Abbreviations    = value;
+    m_AbbreviationsSet = null;
+  }
+
+  /**
+   * Returns the abbreviations that do not end a sentence.
+   *
+   * @return the comma-separated list
+   */
+  public String getAbbreviations() {
+    return m_Abbreviations;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String abbreviationsTipText() {
+    return
+      "The comma-separated list of abbreviations (case-insensitive, without "
+	+ "the trailing period) that do not end a sentence; abbreviations with a "
+	+ "trailing '#' only apply in front of a number, e.g., 'no#' for 'No. 5' "
+	+ "(but not 'The answer is no.').";
+  }
+
+  /**
+   * Sets whether line breaks end sentences as well.
+   *
+   * @param value true if to split on line breaks
+   */
+  public void setSplitOnNewLines(boolean value) {
+    m_SplitOnNewLines = value;
+  }
+
+  /**
+   * Returns whether line breaks end sentences as well.
+   *
+   * @return true if to split on line breaks
+   */
+  public boolean getSplitOnNewLines() {
+    return m_SplitOnNewLines;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String splitOnNewLinesTipText() {
+    return "If enabled, line breaks end sentences as well, e.g., for documents with one sentence per line.";
+  }
+
+  /**
+   * Returns the abbreviations as set, initializes it if necessary. Threads
+   * may initialize it concurrently, they all end up with the same content.
+   * Abbreviations that only apply in front of a number keep their '#'.
+   *
+   * @return		the abbreviations (lower case)
+   */
+  protected Set<String> getAbbreviationsSet() {
+    Set<String>	result;
+
+    result = m_AbbreviationsSet;
+    if (result == null) {
+      result = new HashSet<String>();
+      for (String abbr: m_Abbreviations.split(",")) {
+	abbr = abbr.trim().toLowerCase();
+	if (abbr.endsWith("."))
+	  abbr = abbr.substring(0, abbr.length() - 1);
+	if (!abbr.isEmpty())
+	  result.add(abbr);
+      }
+      m_AbbreviationsSet = result;
+    }
+
+    return result;
+  }
+
+  /**
+   * Checks whether the character ends a sentence.
+   *
+   * @param c		the character to check
+   * @return		true if terminal
+   */
+  protected boolean isTerminal(char c) {
+    return (c == '.') || (c == '!') || (c == '?') || (c == '\u2026');
+  }
+
+  /**
+   * Checks whether the character is a closing quote or bracket, which still
+   * belongs to the sentence.
+   *
+   * @param c		the character to check
+   * @return		true if closing
+   */
+  protected boolean isClosing(char c) {
+    switch (c) {
+      case '"':
+      case '\'':
+      case ')':
+      case ']':
+      case '}':
+      case '\u2019':
+      case '\u201D':
+      case '\u00BB':
+	return true;
+      default:
+	return false;
+    }
+  }
+
+  /**
+   * Checks whether the character precedes a word, i.e., white space or an
+   * opening quote or bracket.
+   *
+   * @param c		the character to check
+   * @return		true if the word starts after the character
+   */
+  protected boolean isWordBoundary(char c) {
+    switch (c) {
+      case '"':
+      case '\'':
+      case '(':
+      case '[':
+      case '{':
+      case '\u2018':
+      case '\u201C':
+      case '\u00AB':
+	return true;
+      default:
+	return Character.isWhitespace(c);
+    }
+  }
+
+  /**
+   * Checks whether the word ending in front of the period is an
+   * abbreviation: a single upper case letter (initial), letters separated by
+   * periods (e.g., "U.S" or "e.g") or a word from the list of abbreviations
+   * (the ones marked with '#' only if a number follows).
+   *
+   * @param doc		the document
+   * @param start	the start of the current sentence
+   * @param period	the position of the period
+   * @return		true if an abbreviation
+   */
+  protected boolean isAbbreviation(String doc, int start, int period) {
+    int		begin;
+    int		i;
+    boolean	initials;
+    String	word;
+
+    begin = period;
+    while ((begin > start) && !isWordBoundary(doc.charAt(begin - 1)))
+      begin--;
+    if (begin == period)
+      return false;
+
+    // initial(s), e.g., "J" or "U.S"
+    initials = true;
+    for (i = begin; i < period; i++) {
+      if ((i - begin) % 2 == 0) {
+	if (!Character.isLetter(doc.charAt(i)))
+	  initials = false;
+      }
+      else if (doc.charAt(i) != '.') {
+	initials = false;
+      }
+      if (!initials)
+	break;
+    }
+    // a single letter only if upper case, e.g., not "plan b."
+    if (initials && ((period - begin) % 2 == 1) && ((period - begin > 1) || Character.isUpperCase(doc.charAt(begin))))
+      return true;
+
+    word = doc.substring(begin, period).toLowerCase();
+    if (getAbbreviationsSet().contains(word))
+      return true;
+    if (!getAbbreviationsSet().contains(word + "#"))
+      return false;
+
+    // only in front of a number, e.g., "No. 5" but not "The answer is no."
+    i = period + 1;
+    while ((i < doc.length()) && Character.isWhitespace(doc.charAt(i)))
+      i++;
+    return (i < doc.length()) && Character.isDigit(doc.charAt(i));
+  }
+
+  /**
+   * Adds the sentence, without the surrounding white space, if not empty.
+   *
+   * @param doc		the document
+   * @param start	the start of the sentence (inclusive)
+   * @param end		the end of the sentence (exclusive)
+   * @param sentences	the sentences to add to
+   */
+  protected void add(String doc, int start, int end, List<String> sentences) {
+    while ((start < end) && Character.isWhitespace(doc.charAt(start)))
+      start++;
+    while ((end > start) && Character.isWhitespace(doc.charAt(end - 1)))
+      end--;
+    if (start < end)
+      sentences.add(doc.substring(start, end));
+  }
+
+  /**
+   * Splits the document into sentences.
+   *
+   * @param doc		the document to split
+   * @return		the sentences
+   */
+  @Override
+  public List<String> detect(String doc) {
+    List<String>	result;
+    int			len;
+    int			start;
+    int			pos;
+    int			terminal;
+    int			next;
+    boolean		periods;
+    boolean		single;
+    char		c;
+
+    result = new ArrayList<String>();
+    len    = doc.length();
+    start  = 0;
+    pos    = 0;
+
+    while (pos < len) {
+      c = doc.charAt(pos);
+
+      if (m_SplitOnNewLines && ((c == '\n') || (c == '\r'))) {
+	add(doc, start, pos, result);
+	pos++;
+	start = pos;
+	continue;
+      }
+
+      if (!isTerminal(c)) {
+	pos++;
+	continue;
+      }
+
+      // run of terminal characters, followed by closing quotes/brackets
+      terminal = pos;
+      periods  = true;
+      while ((pos < len) && isTerminal(doc.charAt(pos))) {
+	if ((doc.charAt(pos) == '!') || (doc.charAt(pos) == '?'))
+	  periods = false;
+	pos++;
+      }
+      single = (pos - terminal == 1) && (c == '.');
+      while ((pos < len) && isClosing(doc.charAt(pos)))
+	pos++;
+
+      // inside a token, e.g., "3.5" or "www.example.com"
+      if ((pos < len) && !Character.isWhitespace(doc.charAt(pos)))
+	continue;
+
+      if (periods && (pos < len)) {
+	if (single && isAbbreviation(doc, start, terminal))
+	  continue;
+	next = pos;
+	while ((next < len) && Character.isWhitespace(doc.charAt(next)))
+	  next++;
+	if ((next < len) && Character.isLowerCase(doc.charAt(next)))
+	  continue;
+      }
+
+      add(doc, start, pos, result);
+      start = pos;
+    }
+
+    add(doc, start, len, result);
+
+    return result;
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractMultiThreadedStreamFilter.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.filters.unsupervised.attribute;
+
+import weka.core.Instance;
+import weka.core.nlp.ExecutorUtils;
+import weka.filters.SimpleStreamFilter;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Ancestor for stream filters that can process a batch with multiple
+ * threads. In multi-threaded mode, the instances of the first batch get
+ * buffered till {@link #batchFinished()} gets called, so that
+ * {@link #process(weka.core.Instances)} can distribute them across the
+ * worker pool. Once the first batch is done, instances get processed
+ * immediately (e.g., test instances in the FilteredClassifier).
+ * <br><br>
+ * Derived classes handle the option for the number of threads themselves,
+ * as they describe what the threads get used for.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision$
+ */
+public abstract class AbstractMultiThreadedStreamFilter
+  extends SimpleStreamFilter {
+
+  private static final long serialVersionUID = 4410712952137618826L;
+
+  /** the number of threads to use in batch mode. */
+  protected int m_NumThreads = 1;
+
+  /** the worker pool for batch mode. */
+  protected transient ExecutorService m_Executor = null;
+
+  /**
+   * Sets the number of threads to use in batch mode.
+   *
+   * @param value the number of threads, -1 for all cores
+   */
+  public void setNumThreads(int value) {
+    m_NumThreads = value;
+  }
+
+  /**
+   * Returns the number of threads to use in batch mode.
+   *
+   * @return the number of threads, -1 for all cores
+   */
+  public int getNumThreads() {
+    return m_NumThreads;
+  }
+
+  /**
+   * Returns whether the data gets processed by multiple threads in batch mode.
+   *
+   * @return		true if multi-threaded
+   */
+  protected boolean isMultiThreaded() {
+    return (ExecutorUtils.getNumThreads(m_NumThreads) > 1);
+  }
+
+  /**
+   * Returns the worker pool, instantiates it if necessary.
+   *
+   * @return		the pool
+   */
+  protected synchronized ExecutorService getExecutor() {
+    if (m_Executor == null)
+      m_Executor = ExecutorUtils.newPool(m_NumThreads, getClass().getSimpleName());
+    return m_Executor;
+  }
+
+  /**
+   * resets the filter, i.e., m_NewBatch to true and m_FirstBatchDone to false.
+   * Shuts down the worker pool.
+   *
+   * @see #m_NewBatch
+   * @see #m_FirstBatchDone
+   */
+  @Override
+  protected void reset() {
+    super.reset();
+
+    if (m_Executor != null) {
+      m_Executor.shutdown();
+      m_Executor = null;
+    }
+  }
+
+  /**
+   * Input an instance for filtering. In multi-threaded mode, the instances
+   * of the first batch get buffered till {@link #batchFinished()} gets called.
+   * Once the first batch is done, instances get processed immediately (e.g.,
+   * test instances in the FilteredClassifier).
+   *
+   * @param instance the input instance
+   * @return true if the filtered instance may now be collected with output().
+   * @throws Exception if the input format was not set or the filtering failed
+   */
+  @Override
+  public boolean input(Instance instance) throws Exception {
+    if (!isMultiThreaded() || isFirstBatchDone())
+      return super.input(instance);
+
+    if (getInputFormat() == null)
+      throw new IllegalStateException("No input instance format defined");
+    if (m_NewBatch) {
+      resetQueue();
+      m_NewBatch = false;
+    }
+    bufferInput(instance);
+
+    return false;
+  }
+
+  /**
+   * Initializes the fields of this class when deserializing a filter that
+   * got serialized before this class existed, i.e., single-threaded.
+   */
+  private void readObjectNoData() {
+    m_NumThreads = 1;
+  }
+}
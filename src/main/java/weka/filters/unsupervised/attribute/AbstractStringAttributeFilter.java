@@ -0,0 +1,539 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * AbstractStringAttributeFilter.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.filters.unsupervised.attribute;
+
+import weka.core.Attribute;
+import weka.core.Capabilities;
+import weka.core.Capabilities.Capability;
+import weka.core.DenseInstance;
+import weka.core.Instance;
+import weka.core.Instances;
+import weka.core.Option;
+import weka.core.Range;
+import weka.core.SparseInstance;
+import weka.core.Utils;
+import weka.core.nlp.ExecutorUtils;
+import weka.core.nlp.StringValuePool;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Ancestor for filters that transform the values of the string attributes
+ * in an attribute range, one string at a time. Derived filters only
+ * implement the transformation of a single string ({@link #transform(String)}).
+ * <br><br>
+ * All other attributes get copied. Sparse instances stay sparse. The output
+ * strings of repeated input strings can be reused (see
+ * {@link StringValuePool}) and, in batch mode, the strings can be transformed
+ * by multiple threads, with the output being identical to the
+ * single-threaded one.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision$
+ */
+public abstract class AbstractStringAttributeFilter
+  extends AbstractMultiThreadedStreamFilter {
+
+  private static final long serialVersionUID = -3921606467466233710L;
+
+  /** the number of chunks per thread in multi-threaded mode. */
+  public static final int CHUNKS_PER_THREAD = 4;
+
+  /** the attribute range to work on. */
+  protected Range m_AttributeIndices = new Range("first-last");
+
+  /** whether to reuse the output strings of repeated input strings. */
+  protected boolean m_ReuseStringValues = false;
+
+  /** the indices of the string attributes to process (ascending). */
+  protected transient int[] m_StringIndices = null;
+
+  /** the string value pools (index: attribute), null if not reusing. */
+  protected transient StringValuePool[] m_Pools = null;
+
+  /**
+   * Returns an enumeration describing the available options.
+   *
+   * @return an enumeration of all the available options.
+   */
+  @Override
+  public Enumeration<Option> listOptions() {
+    Vector<Option> result = new Vector<Option>();
+
+    result.addElement(new Option("\tThe attribute range to work on.\n"
+      + "This is a comma separated list of attribute indices, with "
+      + "\"first\" and \"last\" valid values.\n"
+      + "\tSpecify an inclusive range with \"-\".\n"
+      + "\tE.g: \"first-3,5,6-10,last\".\n" + "\t(default: first-last)", "R",
+      1, "-R <range>"));
+
+    result.addElement(new Option("\tWhether to reuse the output string of repeated input strings,\n"
+      + "\trather than transforming and adding them again.\n"
+      + "\t(default: off)", "reuse-string-values", 0, "-reuse-string-values"));
+
+    result.addElement(new Option(
+      "\tThe number of threads to use for transforming in batch mode; -1 for all cores.\n"
+        + "\t(default: 1)", "num-threads", 1, "-num-threads <int>"));
+
+    result.addAll(Collections.list(super.listOptions()));
+
+    return result.elements();
+  }
+
+  /**
+   * Parses a given list of options.
+   *
+   * @param options the list of options as an array of strings
+   * @throws Exception if an option is not supported
+   */
+  @Override
+  public void setOptions(String[] options) throws Exception {
+    String tmpStr;
+
+    tmpStr = Utils.getOption("R", options);
+    if (tmpStr.length() != 0)
+      setAttributeIndices(tmpStr);
+    else
+      setAttributeIndices("first-last");
+
+    setReuseStringValues(Utils.getFlag("reuse-string-values", options));
+
+    tmpStr = Utils.getOption("num-threads", options);
+    if (tmpStr.length() != 0)
+      setNumThreads(Integer.parseInt(tmpStr));
+    else
+      setNumThreads(1);
+
+    if (getInputFormat() != null)
+      setInputFormat(getInputFormat());
+
+    super.setOptions(options);
+  }
+
+  /**
+   * Gets the current settings of the filter.
+   *
+   * @return an array of strings suitable for passing to setOptions
+   */
+  @Override
+  public String[] getOptions() {
+    Vector<String> result = new Vector<String>();
+
+    result.add("-R");
+    result.add(getAttributeIndices());
+
+    if (getReuseStringValues())
+      result.add("-reuse-string-values");
+
+    result.add("-num-threads");
+    result.add("" + getNumThreads());
+
+    Collections.addAll(result, super.getOptions());
+
+    return result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * Sets which attributes are to be acted on.
+   *
+   * @param value a string representing the list of attributes. Since the string
+   *          will typically come from a user, attributes are indexed from1. <br>
+   *          eg: first-3,5,6-last
+   */
+  public void setAttributeIndices(String value) {
+    m_AttributeIndices.setRanges(value);
+  }
+
+  /**
+   * Gets the current range selection.
+   *
+   * @return a string containing a comma separated list of ranges
+   */
+  public String getAttributeIndices() {
+    return m_AttributeIndices.getRanges();
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String attributeIndicesTipText() {
+    return "Specify range of attributes to act on; "
+      + "this is a comma separated list of attribute indices, with "
+      + "\"first\" and \"last\" valid values; specify an inclusive "
+      + "range with \"-\"; eg: \"first-3,5,6-10,last\".";
+  }
+
+  /**
+   * Sets whether to reuse the output strings of repeated input strings.
+   *
+   * @param value if true then reuse
+   */
+  public void setReuseStringValues(boolean value) {
+    m_ReuseStringValues = value;
+  }
+
+  /**
+   * Gets whether to reuse the output strings of repeated input strings.
+   *
+   * @return true if to reuse
+   */
+  public boolean getReuseStringValues() {
+    return m_ReuseStringValues;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String reuseStringValuesTipText() {
+    return
+      "If enabled, the index of the output string of an input string gets "
+	+ "remembered and reused when the input string occurs again, rather "
+	+ "than transforming and adding the string again; speeds up data with "
+	+ "many repeated strings.";
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String numThreadsTipText() {
+    return
+      "The number of threads to use for transforming in batch mode; the "
+	+ "strings get added to the output in the original order, i.e., the "
+	+ "output is the same as with a single thread; -1 uses all available "
+	+ "cores, 1 processes the data sequentially.";
+  }
+
+  /**
+   * Returns the Capabilities of this filter.
+   *
+   * @return the capabilities of this object
+   * @see weka.core.Capabilities
+   */
+  @Override
+  public Capabilities getCapabilities() {
+    Capabilities result = super.getCapabilities();
+    result.disableAll();
+
+    // attributes
+    result.enableAllAttributes();
+    result.enable(Capability.MISSING_VALUES);
+
+    // class
+    result.enableAllClasses();
+    result.enable(Capability.MISSING_CLASS_VALUES);
+    result.enable(Capability.NO_CLASS);
+
+    return result;
+  }
+
+  /**
+   * Determines the output format based on the input format and returns this. In
+   * case the output format cannot be returned immediately, i.e.,
+   * hasImmediateOutputFormat() returns false, then this method will called from
+   * batchFinished() after the call of preprocess(Instances), in which, e.g.,
+   * statistics for the actual processing step can be gathered.
+   *
+   * @param inputFormat the input format to base the output format on
+   * @return the output format
+   * @throws Exception in case the determination goes wrong
+   */
+  @Override
+  protected Instances determineOutputFormat(Instances inputFormat) throws Exception {
+    ArrayList<Integer>	indices;
+    int			i;
+
+    m_AttributeIndices.setUpper(inputFormat.numAttributes() - 1);
+
+    indices = new ArrayList<Integer>();
+    for (i = 0; i < inputFormat.numAttributes(); i++) {
+      if (inputFormat.attribute(i).isString() && m_AttributeIndices.isInRange(i))
+	indices.add(i);
+    }
+    m_StringIndices = new int[indices.size()];
+    for (i = 0; i < m_StringIndices.length; i++)
+      m_StringIndices[i] = indices.get(i);
+
+    m_Pools = null;
+    if (m_ReuseStringValues) {
+      m_Pools = new StringValuePool[inputFormat.numAttributes()];
+      for (int index: m_StringIndices)
+	m_Pools[index] = new StringValuePool();
+    }
+
+    return new Instances(inputFormat, 0);
+  }
+
+  /**
+   * Transforms the string. Must be thread-safe.
+   *
+   * @param s		the string to transform
+   * @return		the transformed string
+   */
+  protected abstract String transform(String s);
+
+  /**
+   * Transforms the string value and returns the index of the new string in
+   * the output format.
+   *
+   * @param instance	the instance to get the string from
+   * @param index	the index of the (non-missing) string attribute
+   * @param transformed	the already transformed string, null to transform it now
+   * @return		the index of the string in the output format
+   */
+  protected double transform(Instance instance, int index, String transformed) {
+    Attribute	att;
+    String	value;
+    int		result;
+
+    att   = getOutputFormat().attribute(index);
+    value = instance.stringValue(index);
+    if (m_Pools == null)
+      return att.addStringValue((transformed != null) ? transformed : transform(value));
+
+    result = m_Pools[index].get(att, value);
+    if (result == -1)
+      result = m_Pools[index].add(att, value, (transformed != null) ? transformed : transform(value));
+
+    return result;
+  }
+
+  /**
+   * Transforms the string values of the instance. Only reads the instance,
+   * i.e., can be called by the worker threads.
+   *
+   * @param instance	the instance to transform the strings for
+   * @return		the transformed strings (index: see m_StringIndices),
+   * 			null for missing values
+   */
+  protected String[] transform(Instance instance) {
+    String[]	result;
+    int		i;
+
+    result = new String[m_StringIndices.length];
+    for (i = 0; i < m_StringIndices.length; i++) {
+      if (!instance.isMissing(m_StringIndices[i]))
+	result[i] = transform(instance.stringValue(m_StringIndices[i]));
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds the transformed value of the string attribute to the sparse values,
+   * unless it is 0.
+   *
+   * @param instance	the instance to get the string from
+   * @param n		the position of the string attribute in m_StringIndices
+   * @param transformed	the already transformed strings, null to transform them now
+   * @param values	the sparse values
+   * @param indices	the sparse indices
+   * @param num		the number of sparse values so far
+   * @return		the new number of sparse values
+   */
+  protected int addString(Instance instance, int n, String[] transformed, double[] values, int[] indices, int num) {
+    int		index;
+
+    index = m_StringIndices[n];
+    if (instance.isMissing(index))
+      values[num] = Utils.missingValue();
+    else
+      values[num] = transform(instance, index, (transformed != null) ? transformed[n] : null);
+    if (values[num] != 0) {
+      indices[num] = index;
+      num++;
+    }
+    return num;
+  }
+
+  /**
+   * Processes a sparse instance: the stored values get copied, apart from the
+   * string attributes to process. The latter get added explicitly, as a
+   * string attribute without a stored value refers to the first string.
+   *
+   * @param instance	the sparse instance to process
+   * @param transformed	the already transformed strings, null to transform them now
+   * @return		the new sparse instance
+   */
+  protected Instance processSparse(Instance instance, String[] transformed) {
+    double[]	values;
+    int[]	indices;
+    double[]	newValues;
+    int[]	newIndices;
+    int		num;
+    int		next;
+    int		index;
+    int		i;
+
+    values  = new double[instance.numValues() + m_StringIndices.length];
+    indices = new int[values.length];
+    num     = 0;
+    next    = 0;
+
+    for (i = 0; i < instance.numValues(); i++) {
+      index = instance.index(i);
+      while ((next < m_StringIndices.length) && (m_StringIndices[next] < index))
+	num = addString(instance, next++, transformed, values, indices, num);
+      if ((next < m_StringIndices.length) && (m_StringIndices[next] == index)) {
+	num = addString(instance, next++, transformed, values, indices, num);
+	continue;
+      }
+      values[num]  = instance.valueSparse(i);
+      indices[num] = index;
+      num++;
+    }
+    while (next < m_StringIndices.length)
+      num = addString(instance, next++, transformed, values, indices, num);
+
+    if (num < values.length) {
+      newValues  = new double[num];
+      newIndices = new int[num];
+      System.arraycopy(values, 0, newValues, 0, num);
+      System.arraycopy(indices, 0, newIndices, 0, num);
+      values  = newValues;
+      indices = newIndices;
+    }
+
+    return new SparseInstance(instance.weight(), values, indices, instance.numAttributes());
+  }
+
+  /**
+   * Generates the output instance.
+   *
+   * @param instance	the instance to process
+   * @param transformed	the already transformed strings, null to transform them now
+   * @return		the new instance
+   */
+  protected Instance createOutput(Instance instance, String[] transformed) {
+    double[]		values;
+    int			i;
+
+    if (instance instanceof SparseInstance)
+      return processSparse(instance, transformed);
+
+    // toDoubleArray() returns a copy, only the string slots need updating
+    values = instance.toDoubleArray();
+    for (i = 0; i < m_StringIndices.length; i++) {
+      if (!instance.isMissing(m_StringIndices[i]))
+	values[m_StringIndices[i]] = transform(instance, m_StringIndices[i], (transformed != null) ? transformed[i] : null);
+    }
+
+    return new DenseInstance(instance.weight(), values);
+  }
+
+  /**
+   * processes the given instance (may change the provided instance) and returns
+   * the modified version.
+   *
+   * @param instance the instance to process
+   * @return the modified data
+   * @throws Exception in case the processing goes wrong
+   */
+  @Override
+  protected Instance process(Instance instance) throws Exception {
+    return createOutput(instance, null);
+  }
+
+  /**
+   * Processes the given data. In multi-threaded mode, the strings get
+   * transformed by the worker threads.
+   *
+   * @param instances the data to process
+   * @return the modified data
+   * @throws Exception in case the processing goes wrong
+   */
+  @Override
+  protected Instances process(Instances instances) throws Exception {
+    if (isMultiThreaded() && (instances.numInstances() > 1))
+      return processParallel(instances);
+    else
+      return super.process(instances);
+  }
+
+  /**
+   * Processes the given data in multi-threaded mode. The instances get split
+   * into consecutive chunks, whose strings get transformed by the worker
+   * threads. The transformed strings get added to the output format in the
+   * original order of the instances, i.e., the string indices are the same
+   * as with sequential processing.
+   *
+   * @param instances the data to process
+   * @return the modified data
+   * @throws Exception in case the processing goes wrong
+   */
+  protected Instances processParallel(final Instances instances) throws Exception {
+    Instances			result;
+    List<Future<String[][]>>	jobs;
+    String[][]			transformed;
+    int				numChunks;
+    int				chunkSize;
+    int				start;
+    int				i;
+    int				n;
+
+    // a few chunks per thread to even out the load
+    numChunks = ExecutorUtils.getNumThreads(m_NumThreads) * CHUNKS_PER_THREAD;
+    chunkSize = (instances.numInstances() + numChunks - 1) / numChunks;
+    jobs      = new ArrayList<Future<String[][]>>();
+    for (start = 0; start < instances.numInstances(); start += chunkSize) {
+      final int from = start;
+      final int to   = Math.min(start + chunkSize, instances.numInstances());
+      jobs.add(getExecutor().submit(new Callable<String[][]>() {
+	public String[][] call() throws Exception {
+	  String[][] strings = new String[to - from][];
+	  for (int i = from; i < to; i++)
+	    strings[i - from] = transform(instances.instance(i));
+	  return strings;
+	}
+      }));
+    }
+
+    result = new Instances(getOutputFormat(), instances.numInstances());
+    try {
+      i = 0;
+      for (Future<String[][]> job: jobs) {
+	transformed = ExecutorUtils.get(job);
+	for (n = 0; n < transformed.length; n++, i++)
+	  result.add(createOutput(instances.instance(i), transformed[n]));
+      }
+    }
+    catch (Exception e) {
+      ExecutorUtils.cancel(jobs);
+      throw e;
+    }
+
+    return result;
+  }
+}
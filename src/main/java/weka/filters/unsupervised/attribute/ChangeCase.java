@@ -20,16 +20,11 @@
 
 package weka.filters.unsupervised.attribute;
 
-import weka.core.Capabilities;
-import weka.core.Capabilities.Capability;
-import weka.core.DenseInstance;
-import weka.core.Instance;
 import weka.core.Instances;
 import weka.core.Option;
-import weka.core.Range;
 import weka.core.RevisionUtils;
 import weka.core.Utils;
-import weka.filters.SimpleStreamFilter;
+import weka.core.nlp.CaseFolder;
 
 import java.util.Collections;
 import java.util.Enumeration;
@@ -37,13 +32,28 @@ import java.util.Vector;
 
 /**
  <!-- globalinfo-start -->
- * Changes the case to lower case (default) or upper case.
+ * Changes the case to lower case (default) or upper case, using the specified locale; plain ASCII strings get converted via a lookup table. Optionally, full case folding gets applied (e.g., for matching).<br>
+ * Sparse instances stay sparse. In batch mode, the conversion can be performed by multiple threads, with the output being identical to the single-threaded one.
  * <br><br>
  <!-- globalinfo-end -->
  *
  <!-- options-start -->
  * Valid options are: <br>
  * 
+ * <pre> -uppercase
+ *  Whether to convert to upper case.
+ *  (default: off)</pre>
+ * 
+ * <pre> -locale &lt;locale&gt;
+ *  The locale to use for the conversion, e.g., 'en' or 'tr_TR'.
+ *  Uses the default locale if empty.
+ *  (default: )</pre>
+ * 
+ * <pre> -full-case-folding
+ *  Whether to apply full case folding when converting to lower case,
+ *  e.g., turning '&#223;' into 'ss'.
+ *  (default: off)</pre>
+ * 
  * <pre> -R &lt;range&gt;
  *  The attribute range to work on.
  * This is a comma separated list of attribute indices, with "first" and "last" valid values.
@@ -51,10 +61,15 @@ import java.util.Vector;
  *  E.g: "first-3,5,6-10,last".
  *  (default: first-last)</pre>
  * 
- * <pre> -uppercase
- *  Whether to convert to upper case.
+ * <pre> -reuse-string-values
+ *  Whether to reuse the output string of repeated input strings,
+ *  rather than transforming and adding them again.
  *  (default: off)</pre>
  * 
+ * <pre> -num-threads &lt;int&gt;
+ *  The number of threads to use for transforming in batch mode; -1 for all cores.
+ *  (default: 1)</pre>
+ * 
  * <pre> -output-debug-info
  *  If set, filter is run in debug mode and
  *  may output additional info to the console</pre>
@@ -69,16 +84,22 @@ import java.util.Vector;
  * @version $Revision$
  */
 public class ChangeCase
-  extends SimpleStreamFilter {
+  extends AbstractStringAttributeFilter {
 
   private static final long serialVersionUID = 5180866251200474411L;
 
-  /** the attribute range to work on. */
-  protected Range m_AttributeIndices = new Range("first-last");
-
   /** whether to use uppercase instead of lowercase. */
   protected boolean m_UpperCase;
 
+  /** the locale to use (empty for default). */
+  protected String m_Locale = "";
+
+  /** whether to apply full case folding. */
+  protected boolean m_FullCaseFolding = false;
+
+  /** the case folder in use. */
+  protected transient CaseFolder m_Folder = null;
+
   /**
    * Returns a string describing this filter.
    *
@@ -87,7 +108,14 @@ public class ChangeCase
    */
   @Override
   public String globalInfo() {
-    return "Changes the case to lower case (default) or upper case.";
+    return
+      "Changes the case to lower case (default) or upper case, using the "
+	+ "specified locale; plain ASCII strings get converted via a lookup "
+	+ "table. Optionally, full case folding gets applied (e.g., for "
+	+ "matching).\n"
+	+ "Sparse instances stay sparse. In batch mode, the conversion can be "
+	+ "performed by multiple threads, with the output being identical to "
+	+ "the single-threaded one.";
   }
 
   /**
@@ -99,16 +127,17 @@ public class ChangeCase
   public Enumeration<Option> listOptions() {
     Vector<Option> result = new Vector<Option>();
 
-    result.addElement(new Option("\tThe attribute range to work on.\n"
-      + "This is a comma separated list of attribute indices, with "
-      + "\"first\" and \"last\" valid values.\n"
-      + "\tSpecify an inclusive range with \"-\".\n"
-      + "\tE.g: \"first-3,5,6-10,last\".\n" + "\t(default: first-last)", "R",
-      1, "-R <range>"));
-
     result.addElement(new Option("\tWhether to convert to upper case.\n"
       + "\t(default: off)", "uppercase", 0, "-uppercase"));
 
+    result.addElement(new Option("\tThe locale to use for the conversion, e.g., 'en' or 'tr_TR'.\n"
+      + "\tUses the default locale if empty.\n"
+      + "\t(default: )", "locale", 1, "-locale <locale>"));
+
+    result.addElement(new Option("\tWhether to apply full case folding when converting to lower case,\n"
+      + "\te.g., turning '\u00df' into 'ss'.\n"
+      + "\t(default: off)", "full-case-folding", 0, "-full-case-folding"));
+
     result.addAll(Collections.list(super.listOptions()));
 
     return result.elements();
@@ -122,20 +151,11 @@ public class ChangeCase
    */
   @Override
   public void setOptions(String[] options) throws Exception {
-    String tmpStr;
-    String className;
-    String[] classOptions;
-
-    tmpStr = Utils.getOption("R", options);
-    if (tmpStr.length() != 0)
-      setAttributeIndices(tmpStr);
-    else
-      setAttributeIndices("first-last");
-
     setUpperCase(Utils.getFlag("uppercase", options));
 
-    if (getInputFormat() != null)
-      setInputFormat(getInputFormat());
+    setLocale(Utils.getOption("locale", options));
+
+    setFullCaseFolding(Utils.getFlag("full-case-folding", options));
 
     super.setOptions(options);
 
@@ -151,35 +171,38 @@ public class ChangeCase
   public String[] getOptions() {
     Vector<String> result = new Vector<String>();
 
-    result.add("-R");
-    result.add(getAttributeIndices());
-
     if (getUpperCase())
       result.add("-uppercase");
 
+    if (getLocale().length() > 0) {
+      result.add("-locale");
+      result.add(getLocale());
+    }
+
+    if (getFullCaseFolding())
+      result.add("-full-case-folding");
+
     Collections.addAll(result, super.getOptions());
 
     return result.toArray(new String[result.size()]);
   }
 
   /**
-   * Sets which attributes are to be acted on.
+   * Sets whether to convert to uppercase instead of lowercase.
    *
-   * @param value a string representing the list of attributes. Since the string
-   *          will typically come from a user, attributes are indexed from1. <br>
-   *          eg: first-3,5,6-last
+   * @param value if true then convert to uppercase
    */
-  public void setAttributeIndices(String value) {
-    m_AttributeIndices.setRanges(value);
+  public void setUpperCase(boolean value) {
+    m_UpperCase = value;
   }
 
   /**
-   * Gets the current range selection.
+   * Gets whether to convert to uppercase instead of lowercase.
    *
-   * @return a string containing a comma separated list of ranges
+   * @return true if to convert to uppercase
    */
-  public String getAttributeIndices() {
-    return m_AttributeIndices.getRanges();
+  public boolean getUpperCase() {
+    return m_UpperCase;
   }
 
   /**
@@ -188,29 +211,26 @@ public class ChangeCase
    * @return tip text for this property suitable for displaying in the
    *         explorer/experimenter gui
    */
-  public String attributeIndicesTipText() {
-    return "Specify range of attributes to act on; "
-      + "this is a comma separated list of attribute indices, with "
-      + "\"first\" and \"last\" valid values; specify an inclusive "
-      + "range with \"-\"; eg: \"first-3,5,6-10,last\".";
+  public String upperCaseTipText() {
+    return "If set to true, the strings get converted to upper case instead of lower case.";
   }
 
   /**
-   * Sets whether to convert to uppercase instead of lowercase.
+   * Sets the locale to use for the conversion.
    *
-   * @param value if true then convert to uppercase
+   * @param value the locale (e.g., 'en' or 'tr_TR'), empty for default
    */
-  public void setUpperCase(boolean value) {
-    m_UpperCase = value;
+  public void setLocale(String value) {
+    m_Locale = value;
   }
 
   /**
-   * Gets whether to convert to uppercase instead of lowercase.
+   * Returns the locale to use for the conversion.
    *
-   * @return true if to convert to uppercase
+   * @return the locale, empty for default
    */
-  public boolean getUpperCase() {
-    return m_UpperCase;
+  public String getLocale() {
+    return m_Locale;
   }
 
   /**
@@ -219,31 +239,42 @@ public class ChangeCase
    * @return tip text for this property suitable for displaying in the
    *         explorer/experimenter gui
    */
-  public String upperCaseTipText() {
-    return "If set to true, the strings get converted to upper case instead of lower case.";
+  public String localeTipText() {
+    return
+      "The locale to use for the conversion, e.g., 'en' or 'tr_TR' (the "
+	+ "Turkish locale maps 'I' to a dotless 'i'); uses the default locale "
+	+ "if empty.";
   }
 
   /**
-   * Returns the Capabilities of this filter.
+   * Sets whether to apply full case folding when converting to lower case.
    *
-   * @return the capabilities of this object
-   * @see weka.core.Capabilities
+   * @param value if true then apply full case folding
    */
-  @Override
-  public Capabilities getCapabilities() {
-    Capabilities result = super.getCapabilities();
-    result.disableAll();
-
-    // attributes
-    result.enableAllAttributes();
-    result.enable(Capability.MISSING_VALUES);
+  public void setFullCaseFolding(boolean value) {
+    m_FullCaseFolding = value;
+  }
 
-    // class
-    result.enableAllClasses();
-    result.enable(Capability.MISSING_CLASS_VALUES);
-    result.enable(Capability.NO_CLASS);
+  /**
+   * Returns whether to apply full case folding when converting to lower case.
+   *
+   * @return true if to apply full case folding
+   */
+  public boolean getFullCaseFolding() {
+    return m_FullCaseFolding;
+  }
 
-    return result;
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String fullCaseFoldingTipText() {
+    return
+      "If enabled, full case folding gets applied when converting to lower "
+	+ "case, e.g., '\u00df' becomes 'ss', so that strings that only differ "
+	+ "in case become equal; useful for matching.";
   }
 
   /**
@@ -259,45 +290,21 @@ public class ChangeCase
    */
   @Override
   protected Instances determineOutputFormat(Instances inputFormat) throws Exception {
-    m_AttributeIndices.setUpper(inputFormat.numAttributes() - 1);
-    return new Instances(inputFormat, 0);
+    m_Folder = new CaseFolder(CaseFolder.parseLocale(m_Locale), m_UpperCase, m_FullCaseFolding);
+
+    return super.determineOutputFormat(inputFormat);
   }
 
   /**
-   * processes the given instance (may change the provided instance) and returns
-   * the modified version.
+   * Changes the case of the string.
    *
-   * @param instance the instance to process
-   * @return the modified data
-   * @throws Exception in case the processing goes wrong
+   * @param s		the string to convert
+   * @return		the converted string, the same instance if unchanged
+   * @see		CaseFolder#convert(String)
    */
   @Override
-  protected Instance process(Instance instance) throws Exception {
-    double[]		values;
-    double[]		current;
-    int			i;
-    String		newString;
-
-    values = new double[instance.numAttributes()];
-    current = instance.toDoubleArray();
-
-    for (i = 0; i < instance.numAttributes() - 1; i++) {
-      if (!instance.attribute(i).isString() || !m_AttributeIndices.isInRange(i)) {
-	values[i] = current[i];
-	continue;
-      }
-      if (instance.isMissing(i)) {
-	values[i] = Utils.missingValue();
-	continue;
-      }
-      if (m_UpperCase)
-	newString = instance.stringValue(i).toUpperCase();
-      else
-        newString = instance.stringValue(i).toLowerCase();
-      values[i] = getOutputFormat().attribute(i).addStringValue(newString);
-    }
-
-    return new DenseInstance(instance.weight(), values);
+  protected String transform(String s) {
+    return m_Folder.convert(s);
   }
 
   /**
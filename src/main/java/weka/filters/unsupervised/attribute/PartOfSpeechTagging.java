@@ -20,14 +20,14 @@
 
 package weka.filters.unsupervised.attribute;
 
+import edu.stanford.nlp.ling.HasWord;
 import edu.stanford.nlp.ling.Sentence;
+import edu.stanford.nlp.ling.Word;
 import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
-import edu.stanford.nlp.process.CoreLabelTokenFactory;
 import edu.stanford.nlp.process.DocumentPreprocessor;
-import edu.stanford.nlp.process.PTBTokenizer;
 import edu.stanford.nlp.process.TokenizerFactory;
 import edu.stanford.nlp.trees.Tree;
-import edu.stanford.nlp.util.StringUtils;
+import weka.core.Attribute;
 import weka.core.Capabilities;
 import weka.core.Capabilities.Capability;
 import weka.core.DenseInstance;
@@ -37,21 +37,46 @@ import weka.core.Option;
 import weka.core.OptionHandler;
 import weka.core.Range;
 import weka.core.RevisionUtils;
+import weka.core.SerializedObject;
 import weka.core.Utils;
+import weka.core.nlp.DiskParseCache;
+import weka.core.nlp.ExecutorUtils;
+import weka.core.nlp.ParseCache;
+import weka.core.nlp.ParserModelRegistry;
+import weka.core.nlp.ReusableParserQuery;
+import weka.core.nlp.StringValuePool;
+import weka.core.nlp.TaggedSentence;
+import weka.core.nlp.Vocabulary;
 import weka.core.stopwords.Null;
 import weka.core.stopwords.StopwordsHandler;
+import weka.core.tokenizers.SentenceTokenizer;
+import weka.core.tokenizers.SpanTokenizer;
+import weka.core.tokenizers.TokenSpan;
 import weka.core.tokenizers.Tokenizer;
 import weka.core.tokenizers.WhiteSpaceTokenizer;
 import weka.core.tokenizers.WordTokenizer;
-import weka.filters.SimpleStreamFilter;
+import weka.core.tokenizers.sentence.PTBSentenceDetector;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
 import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 /**
@@ -78,6 +103,10 @@ import java.util.regex.Pattern;
  *  The tokenizing algorihtm (classname plus parameters) to use.
  *  (default: weka.core.tokenizers.WordTokenizer)</pre>
  * 
+ * <pre> -sentence-tokenizer &lt;spec&gt;
+ *  The tokenizer (classname plus parameters) for splitting documents into sentences.
+ *  (default: weka.core.tokenizers.SentenceTokenizer)</pre>
+ * 
  * <pre> -model &lt;file&gt;
  *  The stanford model file to use.
  *  (default: .</pre>
@@ -99,6 +128,92 @@ import java.util.regex.Pattern;
  *  The stopwords algorihtm (classname plus parameters) to use.
  *  (default: weka.core.stopwords.Null)</pre>
  * 
+ * <pre> -use-sentence-tokens
+ *  Whether to parse the tokens obtained from sentence splitting directly,
+ *  rather than re-tokenizing the sentences with the tokenizer
+ *  (always uses Penn Treebank sentence splitting).
+ *  (default: off)</pre>
+ * 
+ * <pre> -pre-tokenized
+ *  Whether the strings are already split into sentences and tokens,
+ *  using the sentence and token delimiters (tokenizers get ignored).
+ *  (default: off)</pre>
+ * 
+ * <pre> -sentence-delimiter &lt;string&gt;
+ *  The string separating the sentences of pre-tokenized strings
+ *  (back-quoted, e.g., \n or \t).
+ *  (default: \n)</pre>
+ * 
+ * <pre> -token-delimiter &lt;string&gt;
+ *  The string separating the tokens of pre-tokenized strings
+ *  (back-quoted, e.g., \n or \t).
+ *  (default: " ")</pre>
+ * 
+ * <pre> -cache-max-entries &lt;int&gt;
+ *  The maximum number of parsed sentences to cache; 0 to turn off caching.
+ *  (default: 0)</pre>
+ * 
+ * <pre> -cache-max-bytes &lt;long&gt;
+ *  The maximum (estimated) size of the sentence cache in bytes; -1 for unlimited.
+ *  (default: -1)</pre>
+ * 
+ * <pre> -use-disk-cache
+ *  Whether to use the persistent sentence cache on disk.
+ *  (default: off)</pre>
+ * 
+ * <pre> -disk-cache-dir &lt;dir&gt;
+ *  The directory for the persistent sentence cache.
+ *  (default: $HOME/wekafiles/nlp/parsecache)</pre>
+ * 
+ * <pre> -disk-cache-max-age &lt;int&gt;
+ *  The number of runs after which unused sentences get removed from the persistent cache.
+ *  (default: 30)</pre>
+ * 
+ * <pre> -max-chart-length &lt;int&gt;
+ *  The maximum sentence length for which a thread retains its parser query and chart memory.
+ *  -1 for unlimited, 0 for a new query per sentence.
+ *  (default: 50)</pre>
+ * 
+ * <pre> -num-threads &lt;int&gt;
+ *  The number of threads to use for tagging in batch mode; -1 for all cores.
+ *  (default: 1)</pre>
+ * 
+ * <pre> -parallel-sentences
+ *  Whether to parse the sentences of a document in parallel (multi-threaded only).
+ *  (default: off)</pre>
+ * 
+ * <pre> -longest-first
+ *  Whether to schedule the sentences of the documents by token count, longest first
+ *  (multi-threaded only; implies -parallel-sentences).
+ *  (default: off)</pre>
+ * 
+ * <pre> -preload
+ *  Whether to load the model in the background as soon as it is set.
+ *  (default: off)</pre>
+ * 
+ * <pre> -warm-up-corpus &lt;file&gt;
+ *  The text file with documents (one per line) to parse before the first
+ *  instance, warming up the parser; ignored if pointing to a directory.
+ *  (default: .)</pre>
+ * 
+ * <pre> -warm-up-iterations &lt;int&gt;
+ *  The number of times to parse the warm-up corpus.
+ *  (default: 1)</pre>
+ * 
+ * <pre> -vocabulary-file &lt;file&gt;
+ *  The file to load the vocabulary of labels and words from (if existing)
+ *  and to save it to after each batch; ignored if pointing to a directory.
+ *  (default: .)</pre>
+ * 
+ * <pre> -output-ids
+ *  Whether to output the vocabulary IDs of labels and words rather than the strings.
+ *  (default: off)</pre>
+ * 
+ * <pre> -reuse-string-values
+ *  Whether to reuse the tagged string of repeated input strings,
+ *  rather than tagging and adding them again.
+ *  (default: off)</pre>
+ * 
  * <pre> -output-debug-info
  *  If set, filter is run in debug mode and
  *  may output additional info to the console</pre>
@@ -112,27 +227,49 @@ import java.util.regex.Pattern;
  * @author FracPete (fracpete at waikato dot ac dot nz)
  */
 public class PartOfSpeechTagging
-  extends SimpleStreamFilter {
+  extends AbstractMultiThreadedStreamFilter {
 
   private static final long serialVersionUID = 5180866251200474411L;
 
-  /** the tokenizer factory to use. */
+  /**
+   * the tokenizer factory to use.
+   * @deprecated	the factory is managed by {@link PTBSentenceDetector#getTokenizerFactory()},
+   * 			use {@link #getTokenizerFactory()} instead
+   */
+  @Deprecated
   protected static TokenizerFactory m_TokenizerFactory;
 
+  /** the default directory for the persistent sentence cache. */
+  public static final String DEFAULT_DISK_CACHE_DIR =
+    System.getProperty("user.home") + File.separator + "wekafiles"
+      + File.separator + "nlp" + File.separator + "parsecache";
+
+  /** the maximum number of token strings to keep per thread. */
+  public static final int MAX_TOKENS = 100000;
+
+  /** the maximum number of jobs in flight per thread in multi-threaded mode. */
+  public static final int JOBS_PER_THREAD = 4;
+
+  /** the number of instances per thread in a window of sentences parsed in parallel. */
+  public static final int WINDOW_PER_THREAD = 16;
+
   /** the attribute range to work on. */
   protected Range m_AttributeIndices = new Range("first-last");
 
   /** the tokenizer algorithm to use. */
   protected Tokenizer m_Tokenizer = new WhiteSpaceTokenizer();
 
+  /** the tokenizer for splitting documents into sentences. */
+  protected SentenceTokenizer m_SentenceTokenizer = new SentenceTokenizer();
+
   /** the model to use. */
   protected File m_Model = new File(".");
 
   /** additional options for the parser. */
   protected String m_AdditionalOptions = "";
 
-  /** the parser in use. */
-  protected LexicalizedParser m_Parser = null;
+  /** the parser in use (shared via the {@link ParserModelRegistry}). */
+  protected transient LexicalizedParser m_Parser = null;
 
   /** whether to suppress the label prefixes */
   protected boolean m_SuppressLabelPrefixes = false;
@@ -143,6 +280,225 @@ public class PartOfSpeechTagging
   /** the stopwords handler to apply after the parsing. */
   protected StopwordsHandler m_Stopwords = new Null();
 
+  /** whether to parse the tokens from sentence splitting directly. */
+  protected boolean m_UseSentenceTokens = false;
+
+  /** whether the strings are already split into sentences and tokens. */
+  protected boolean m_PreTokenized = false;
+
+  /** the sentence delimiter for pre-tokenized strings (back-quoted). */
+  protected String m_SentenceDelimiter = "\\n";
+
+  /** the token delimiter for pre-tokenized strings (back-quoted). */
+  protected String m_TokenDelimiter = " ";
+
+  /** the actual sentence delimiter (un-back-quoted). */
+  protected transient String m_ActualSentenceDelimiter = null;
+
+  /** the actual token delimiter (un-back-quoted). */
+  protected transient String m_ActualTokenDelimiter = null;
+
+  /** the maximum number of sentences to cache. */
+  protected int m_CacheMaxEntries = 0;
+
+  /** the maximum size of the cache in bytes. */
+  protected long m_CacheMaxBytes = -1;
+
+  /** the cache for parsed sentences. */
+  protected transient ParseCache m_Cache = null;
+
+  /** whether to use the persistent sentence cache. */
+  protected boolean m_UseDiskCache = false;
+
+  /** the directory for the persistent sentence cache. */
+  protected File m_DiskCacheDir = new File(DEFAULT_DISK_CACHE_DIR);
+
+  /** the number of runs after which unused sentences expire from the persistent cache. */
+  protected int m_DiskCacheMaxAge = DiskParseCache.DEFAULT_MAX_AGE;
+
+  /** the persistent cache for parsed sentences, null if not used or failed. */
+  protected transient volatile DiskParseCache m_DiskCache = null;
+
+  /** why the persistent cache got disabled, null if it didn't fail. */
+  protected transient String m_DiskCacheFailure = null;
+
+  /** the identity of the model, for the persistent cache. */
+  protected transient String m_ModelKey = null;
+
+  /** the maximum sentence length for which to retain the parser query. */
+  protected int m_MaxChartLength = ReusableParserQuery.DEFAULT_MAX_CHART_LENGTH;
+
+  /** whether to parse the sentences of a document in parallel. */
+  protected boolean m_ParallelSentences = false;
+
+  /** whether to schedule the sentences by token count, longest first. */
+  protected boolean m_LongestFirst = false;
+
+  /** whether to load the model in the background as soon as it is set. */
+  protected boolean m_Preload = false;
+
+  /** the documents to parse before the first instance. */
+  protected File m_WarmUpCorpus = new File(".");
+
+  /** the number of times to parse the warm-up corpus. */
+  protected int m_WarmUpIterations = 1;
+
+  /** the file for the vocabulary. */
+  protected File m_VocabularyFile = new File(".");
+
+  /** whether to output the vocabulary IDs. */
+  protected boolean m_OutputIDs = false;
+
+  /** whether to reuse the output strings of repeated input strings. */
+  protected boolean m_ReuseStringValues = false;
+
+  /** the string value pools (index: attribute), null if not reusing. */
+  protected transient StringValuePool[] m_Pools = null;
+
+  /** the vocabulary of labels and words, null if not used. */
+  protected transient Vocabulary m_Vocabulary = null;
+
+  /** the model being loaded in the background. */
+  protected transient Future<LexicalizedParser> m_Preloading = null;
+
+  /** whether the options are currently being parsed (suppresses preloading). */
+  protected transient boolean m_SettingOptions = false;
+
+  /** the parser that got warmed up. */
+  protected transient LexicalizedParser m_WarmedUp = null;
+
+  /** the time the warm-up took in msec, -1 if none performed. */
+  protected transient long m_WarmUpTime = -1;
+
+  /** the statistics of the last multi-threaded run. */
+  protected transient String m_Statistics = "";
+
+  /** the number of sentences that failed to parse since the output format got determined. */
+  protected transient AtomicInteger m_ParseFailures = null;
+
+  /** the tokenizer/parser query combinations of the worker threads. */
+  protected transient ThreadLocal<TaggingContext> m_Contexts = null;
+
+  /**
+   * Container for the objects that cannot be shared between threads.
+   */
+  protected static class TaggingContext {
+
+    /** the tokenizer to use. */
+    public Tokenizer m_Tokenizer;
+
+    /** the parser query to use. */
+    public ReusableParserQuery m_Query;
+
+    /** for collecting the words of a sentence. */
+    public List<String> m_Words = new ArrayList<String>();
+
+    /** the strings of the tokens seen so far (looked up via the span view). */
+    public Map<TokenSpan, String> m_Tokens = new HashMap<TokenSpan, String>();
+
+    /**
+     * Initializes the context.
+     *
+     * @param tokenizer	the tokenizer to use
+     * @param query	the parser query to use, can be null
+     */
+    public TaggingContext(Tokenizer tokenizer, ReusableParserQuery query) {
+      m_Tokenizer = tokenizer;
+      m_Query     = query;
+    }
+  }
+
+  /**
+   * Container for a sentence that gets scheduled in multi-threaded mode.
+   */
+  protected static class SentenceJob {
+
+    /** the tokenized sentence. */
+    public List<? extends HasWord> m_Words;
+
+    /** the tagged sentence (not interned). */
+    public TaggedSentence m_Sentence;
+
+    /**
+     * Initializes the job.
+     *
+     * @param words	the tokenized sentence
+     */
+    public SentenceJob(List<? extends HasWord> words) {
+      m_Words = words;
+    }
+  }
+
+  /**
+   * The instances of a batch whose sentences get parsed in parallel.
+   */
+  protected static class SentenceWindow {
+
+    /** the instances. */
+    public List<Instance> m_Instances;
+
+    /** the instance and attribute index of each document. */
+    public List<int[]> m_Docs = new ArrayList<int[]>();
+
+    /** the jobs splitting and tokenizing the documents. */
+    public List<Future<List<SentenceJob>>> m_Splits = new ArrayList<Future<List<SentenceJob>>>();
+
+    /** the sentences of each document. */
+    public List<List<SentenceJob>> m_Sentences = new ArrayList<List<SentenceJob>>();
+
+    /** the jobs parsing the sentences. */
+    public List<Future<?>> m_Jobs = new ArrayList<Future<?>>();
+
+    /**
+     * Initializes the window.
+     *
+     * @param instances	the instances
+     */
+    public SentenceWindow(List<Instance> instances) {
+      m_Instances = instances;
+    }
+  }
+
+  /**
+   * Collects the statistics of parsing sentences in parallel.
+   */
+  protected static class SentenceStatistics {
+
+    /** the start time (nano seconds). */
+    public long m_Start = System.nanoTime();
+
+    /** the number of documents. */
+    public int m_Documents;
+
+    /** the number of sentences. */
+    public int m_Sentences;
+
+    /** the maximum number of tokens in a sentence. */
+    public int m_MaxTokens;
+
+    /** the time spent parsing by all threads (nano seconds). */
+    public AtomicLong m_Busy = new AtomicLong();
+
+    /** the longest time spent parsing a single sentence (nano seconds). */
+    public AtomicLong m_Longest = new AtomicLong();
+
+    /**
+     * Records the time it took to parse a sentence. Can be called by the
+     * worker threads.
+     *
+     * @param duration	the time in nano seconds
+     */
+    public void add(long duration) {
+      long	longest;
+
+      m_Busy.addAndGet(duration);
+      do {
+	longest = m_Longest.get();
+      }
+      while ((duration > longest) && !m_Longest.compareAndSet(longest, duration));
+    }
+  }
+
   /**
    * Returns a string describing this filter.
    *
@@ -178,6 +534,11 @@ public class PartOfSpeechTagging
         + "\t(default: " + WordTokenizer.class.getName() + ")", "tokenizer", 1,
       "-tokenizer <spec>"));
 
+    result.addElement(new Option(
+      "\tThe tokenizer (classname plus parameters) for splitting documents into sentences.\n"
+        + "\t(default: " + SentenceTokenizer.class.getName() + ")", "sentence-tokenizer", 1,
+      "-sentence-tokenizer <spec>"));
+
     result.addElement(new Option(
       "\tThe stanford model file to use.\n"
         + "\t(default: .", "model", 1, "-model <file>"));
@@ -199,6 +560,92 @@ public class PartOfSpeechTagging
         + "\t(default: " + Null.class.getName() + ")", "stopwords", 1,
       "-stopwords <spec>"));
 
+    result.addElement(new Option(
+      "\tWhether to parse the tokens obtained from sentence splitting directly,\n"
+        + "\trather than re-tokenizing the sentences with the tokenizer\n"
+        + "\t(always uses Penn Treebank sentence splitting).\n"
+        + "\t(default: off)", "use-sentence-tokens", 0, "-use-sentence-tokens"));
+
+    result.addElement(new Option(
+      "\tWhether the strings are already split into sentences and tokens,\n"
+        + "\tusing the sentence and token delimiters (tokenizers get ignored).\n"
+        + "\t(default: off)", "pre-tokenized", 0, "-pre-tokenized"));
+
+    result.addElement(new Option(
+      "\tThe string separating the sentences of pre-tokenized strings\n"
+        + "\t(back-quoted, e.g., \\n or \\t).\n"
+        + "\t(default: \\n)", "sentence-delimiter", 1, "-sentence-delimiter <string>"));
+
+    result.addElement(new Option(
+      "\tThe string separating the tokens of pre-tokenized strings\n"
+        + "\t(back-quoted, e.g., \\n or \\t).\n"
+        + "\t(default: \" \")", "token-delimiter", 1, "-token-delimiter <string>"));
+
+    result.addElement(new Option(
+      "\tThe maximum number of parsed sentences to cache; 0 to turn off caching.\n"
+        + "\t(default: 0)", "cache-max-entries", 1, "-cache-max-entries <int>"));
+
+    result.addElement(new Option(
+      "\tThe maximum (estimated) size of the sentence cache in bytes; -1 for unlimited.\n"
+        + "\t(default: -1)", "cache-max-bytes", 1, "-cache-max-bytes <long>"));
+
+    result.addElement(new Option(
+      "\tWhether to use the persistent sentence cache on disk.\n"
+        + "\t(default: off)", "use-disk-cache", 0, "-use-disk-cache"));
+
+    result.addElement(new Option(
+      "\tThe directory for the persistent sentence cache.\n"
+        + "\t(default: $HOME/wekafiles/nlp/parsecache)", "disk-cache-dir", 1, "-disk-cache-dir <dir>"));
+
+    result.addElement(new Option(
+      "\tThe number of runs after which unused sentences get removed from the persistent cache.\n"
+        + "\t(default: " + DiskParseCache.DEFAULT_MAX_AGE + ")", "disk-cache-max-age", 1, "-disk-cache-max-age <int>"));
+
+    result.addElement(new Option(
+      "\tThe maximum sentence length for which a thread retains its parser query and chart memory.\n"
+        + "\t-1 for unlimited, 0 for a new query per sentence.\n"
+        + "\t(default: " + ReusableParserQuery.DEFAULT_MAX_CHART_LENGTH + ")", "max-chart-length", 1, "-max-chart-length <int>"));
+
+    result.addElement(new Option(
+      "\tThe number of threads to use for tagging in batch mode; -1 for all cores.\n"
+        + "\t(default: 1)", "num-threads", 1, "-num-threads <int>"));
+
+    result.addElement(new Option(
+      "\tWhether to parse the sentences of a document in parallel (multi-threaded only).\n"
+        + "\t(default: off)", "parallel-sentences", 0, "-parallel-sentences"));
+
+    result.addElement(new Option(
+      "\tWhether to schedule the sentences of the documents by token count, longest first\n"
+        + "\t(multi-threaded only; implies -parallel-sentences).\n"
+        + "\t(default: off)", "longest-first", 0, "-longest-first"));
+
+    result.addElement(new Option(
+      "\tWhether to load the model in the background as soon as it is set.\n"
+        + "\t(default: off)", "preload", 0, "-preload"));
+
+    result.addElement(new Option(
+      "\tThe text file with documents (one per line) to parse before the first\n"
+        + "\tinstance, warming up the parser; ignored if pointing to a directory.\n"
+        + "\t(default: .)", "warm-up-corpus", 1, "-warm-up-corpus <file>"));
+
+    result.addElement(new Option(
+      "\tThe number of times to parse the warm-up corpus.\n"
+        + "\t(default: 1)", "warm-up-iterations", 1, "-warm-up-iterations <int>"));
+
+    result.addElement(new Option(
+      "\tThe file to load the vocabulary of labels and words from (if existing)\n"
+        + "\tand to save it to after each batch; ignored if pointing to a directory.\n"
+        + "\t(default: .)", "vocabulary-file", 1, "-vocabulary-file <file>"));
+
+    result.addElement(new Option(
+      "\tWhether to output the vocabulary IDs of labels and words rather than the strings.\n"
+        + "\t(default: off)", "output-ids", 0, "-output-ids"));
+
+    result.addElement(new Option(
+      "\tWhether to reuse the tagged string of repeated input strings,\n"
+        + "\trather than tagging and adding them again.\n"
+        + "\t(default: off)", "reuse-string-values", 0, "-reuse-string-values"));
+
     result.addAll(Collections.list(super.listOptions()));
 
     return result.elements();
@@ -216,71 +663,179 @@ public class PartOfSpeechTagging
     String className;
     String[] classOptions;
 
-    tmpStr = Utils.getOption("R", options);
-    if (tmpStr.length() != 0)
-      setAttributeIndices(tmpStr);
-    else
-      setAttributeIndices("first-last");
+    // the model gets preloaded only once all options have been set
+    m_SettingOptions = true;
+    try {
+      tmpStr = Utils.getOption("R", options);
+      if (tmpStr.length() != 0)
+	setAttributeIndices(tmpStr);
+      else
+	setAttributeIndices("first-last");
 
-    setInvertSelection(Utils.getFlag("V", options));
+      setInvertSelection(Utils.getFlag("V", options));
 
-    tmpStr = Utils.getOption("tokenizer", options);
-    if (tmpStr.length() == 0) {
-      setTokenizer(new WordTokenizer());
-    }
-    else {
-      classOptions = Utils.splitOptions(tmpStr);
-      if (classOptions.length == 0)
-	throw new Exception("Invalid tokenizer specification string");
-      className = classOptions[0];
-      classOptions[0] = "";
-      Tokenizer tokenizer = (Tokenizer) Class.forName(className).newInstance();
-      tokenizer.setOptions(classOptions);
-      setTokenizer(tokenizer);
-    }
-
-    tmpStr = Utils.getOption("model", options);
-    if (tmpStr.length() != 0)
-      setModel(new File(tmpStr));
-    else
-      setModel(new File("."));
+      tmpStr = Utils.getOption("tokenizer", options);
+      if (tmpStr.length() == 0) {
+	setTokenizer(new WordTokenizer());
+      }
+      else {
+	classOptions = Utils.splitOptions(tmpStr);
+	if (classOptions.length == 0)
+	  throw new Exception("Invalid tokenizer specification string");
+	className = classOptions[0];
+	classOptions[0] = "";
+	Tokenizer tokenizer = (Tokenizer) Class.forName(className).newInstance();
+	tokenizer.setOptions(classOptions);
+	setTokenizer(tokenizer);
+      }
 
-    tmpStr = Utils.getOption("additional", options);
-    if (tmpStr.length() != 0)
-      setAdditionalOptions(tmpStr);
-    else
-      setAdditionalOptions("");
+      tmpStr = Utils.getOption("sentence-tokenizer", options);
+      if (tmpStr.length() == 0) {
+	setSentenceTokenizer(new SentenceTokenizer());
+      }
+      else {
+	classOptions = Utils.splitOptions(tmpStr);
+	if (classOptions.length == 0)
+	  throw new Exception("Invalid sentence tokenizer specification string");
+	className = classOptions[0];
+	classOptions[0] = "";
+	SentenceTokenizer tokenizer = (SentenceTokenizer) Class.forName(className).newInstance();
+	tokenizer.setOptions(classOptions);
+	setSentenceTokenizer(tokenizer);
+      }
 
-    setSuppressLabelPrefixes(Utils.getFlag("suppress-label-prefixes", options));
+      tmpStr = Utils.getOption("model", options);
+      if (tmpStr.length() != 0)
+	setModel(new File(tmpStr));
+      else
+	setModel(new File("."));
+
+      tmpStr = Utils.getOption("additional", options);
+      if (tmpStr.length() != 0)
+	setAdditionalOptions(tmpStr);
+      else
+	setAdditionalOptions("");
+
+      setSuppressLabelPrefixes(Utils.getFlag("suppress-label-prefixes", options));
+
+      tmpStr = Utils.getOption("regexp-labels", options);
+      if (tmpStr.length() != 0)
+	setRegExpLabels(tmpStr);
+      else
+	setRegExpLabels(".*");
+
+      tmpStr = Utils.getOption("stopwords", options);
+      if (tmpStr.length() == 0) {
+	setStopwords(new Null());
+      }
+      else {
+	classOptions = Utils.splitOptions(tmpStr);
+	if (classOptions.length == 0)
+	  throw new Exception("Invalid stopwords specification string");
+	className = classOptions[0];
+	classOptions[0] = "";
+	StopwordsHandler stopwords = (StopwordsHandler) Class.forName(className).newInstance();
+	if (stopwords instanceof OptionHandler)
+	  ((OptionHandler) stopwords).setOptions(classOptions);
+	setStopwords(stopwords);
+      }
 
-    tmpStr = Utils.getOption("regexp-labels", options);
-    if (tmpStr.length() != 0)
-      setRegExpLabels(tmpStr);
-    else
-      setRegExpLabels(".*");
+      setUseSentenceTokens(Utils.getFlag("use-sentence-tokens", options));
 
-    tmpStr = Utils.getOption("stopwords", options);
-    if (tmpStr.length() == 0) {
-      setStopwords(new Null());
-    }
-    else {
-      classOptions = Utils.splitOptions(tmpStr);
-      if (classOptions.length == 0)
-	throw new Exception("Invalid stopwords specification string");
-      className = classOptions[0];
-      classOptions[0] = "";
-      StopwordsHandler stopwords = (StopwordsHandler) Class.forName(className).newInstance();
-      if (stopwords instanceof OptionHandler)
-        ((OptionHandler) stopwords).setOptions(classOptions);
-      setStopwords(stopwords);
-    }
+      setPreTokenized(Utils.getFlag("pre-tokenized", options));
+
+      tmpStr = Utils.getOption("sentence-delimiter", options);
+      if (tmpStr.length() != 0)
+	setSentenceDelimiter(tmpStr);
+      else
+	setSentenceDelimiter("\\n");
+
+      tmpStr = Utils.getOption("token-delimiter", options);
+      if (tmpStr.length() != 0)
+	setTokenDelimiter(tmpStr);
+      else
+	setTokenDelimiter(" ");
+
+      tmpStr = Utils.getOption("cache-max-entries", options);
+      if (tmpStr.length() != 0)
+	setCacheMaxEntries(Integer.parseInt(tmpStr));
+      else
+	setCacheMaxEntries(0);
+
+      tmpStr = Utils.getOption("cache-max-bytes", options);
+      if (tmpStr.length() != 0)
+	setCacheMaxBytes(Long.parseLong(tmpStr));
+      else
+	setCacheMaxBytes(-1);
+
+      setUseDiskCache(Utils.getFlag("use-disk-cache", options));
+
+      tmpStr = Utils.getOption("disk-cache-dir", options);
+      if (tmpStr.length() != 0)
+	setDiskCacheDir(new File(tmpStr));
+      else
+	setDiskCacheDir(new File(DEFAULT_DISK_CACHE_DIR));
+
+      tmpStr = Utils.getOption("disk-cache-max-age", options);
+      if (tmpStr.length() != 0)
+	setDiskCacheMaxAge(Integer.parseInt(tmpStr));
+      else
+	setDiskCacheMaxAge(DiskParseCache.DEFAULT_MAX_AGE);
+      if (getDiskCacheMaxAge() < 0)
+	throw new Exception("Maximum age of the disk cache must be at least 0, provided: " + getDiskCacheMaxAge());
+
+      tmpStr = Utils.getOption("max-chart-length", options);
+      if (tmpStr.length() != 0)
+	setMaxChartLength(Integer.parseInt(tmpStr));
+      else
+	setMaxChartLength(ReusableParserQuery.DEFAULT_MAX_CHART_LENGTH);
+
+      tmpStr = Utils.getOption("num-threads", options);
+      if (tmpStr.length() != 0)
+	setNumThreads(Integer.parseInt(tmpStr));
+      else
+	setNumThreads(1);
+
+      setParallelSentences(Utils.getFlag("parallel-sentences", options));
 
-    if (getInputFormat() != null)
-      setInputFormat(getInputFormat());
+      setLongestFirst(Utils.getFlag("longest-first", options));
 
-    super.setOptions(options);
+      setPreload(Utils.getFlag("preload", options));
 
-    Utils.checkForRemainingOptions(options);
+      tmpStr = Utils.getOption("warm-up-corpus", options);
+      if (tmpStr.length() != 0)
+	setWarmUpCorpus(new File(tmpStr));
+      else
+	setWarmUpCorpus(new File("."));
+
+      tmpStr = Utils.getOption("warm-up-iterations", options);
+      if (tmpStr.length() != 0)
+	setWarmUpIterations(Integer.parseInt(tmpStr));
+      else
+	setWarmUpIterations(1);
+
+      tmpStr = Utils.getOption("vocabulary-file", options);
+      if (tmpStr.length() != 0)
+	setVocabularyFile(new File(tmpStr));
+      else
+	setVocabularyFile(new File("."));
+
+      setOutputIDs(Utils.getFlag("output-ids", options));
+
+      setReuseStringValues(Utils.getFlag("reuse-string-values", options));
+
+      if (getInputFormat() != null)
+	setInputFormat(getInputFormat());
+
+      super.setOptions(options);
+
+      Utils.checkForRemainingOptions(options);
+    }
+    finally {
+      m_SettingOptions = false;
+    }
+
+    preload();
   }
 
   /**
@@ -301,6 +856,9 @@ public class PartOfSpeechTagging
     result.add("-tokenizer");
     result.add(Utils.toCommandLine(getTokenizer()));
 
+    result.add("-sentence-tokenizer");
+    result.add(Utils.toCommandLine(getSentenceTokenizer()));
+
     result.add("-model");
     result.add("" + getModel());
 
@@ -318,6 +876,72 @@ public class PartOfSpeechTagging
     result.add("-stopwords");
     result.add(Utils.toCommandLine(getStopwords()));
 
+    if (getUseSentenceTokens())
+      result.add("-use-sentence-tokens");
+
+    if (getPreTokenized())
+      result.add("-pre-tokenized");
+
+    result.add("-sentence-delimiter");
+    result.add(getSentenceDelimiter());
+
+    result.add("-token-delimiter");
+    result.add(getTokenDelimiter());
+
+    result.add("-cache-max-entries");
+    result.add("" + getCacheMaxEntries());
+
+    result.add("-cache-max-bytes");
+    result.add("" + getCacheMaxBytes());
+
+    if (getUseDiskCache())
+      result.add("-use-disk-cache");
+
+    // the default directory depends on the user's home directory
+    if (getUseDiskCache() || !getDiskCacheDir().equals(new File(DEFAULT_DISK_CACHE_DIR))) {
+      result.add("-disk-cache-dir");
+      result.add("" + getDiskCacheDir());
+    }
+
+    if (getUseDiskCache()) {
+      result.add("-disk-cache-max-age");
+      result.add("" + getDiskCacheMaxAge());
+    }
+
+    result.add("-max-chart-length");
+    result.add("" + getMaxChartLength());
+
+    result.add("-num-threads");
+    result.add("" + getNumThreads());
+
+    if (getParallelSentences())
+      result.add("-parallel-sentences");
+
+    if (getLongestFirst())
+      result.add("-longest-first");
+
+    if (getPreload())
+      result.add("-preload");
+
+    if (!getWarmUpCorpus().equals(new File("."))) {
+      result.add("-warm-up-corpus");
+      result.add("" + getWarmUpCorpus());
+    }
+
+    result.add("-warm-up-iterations");
+    result.add("" + getWarmUpIterations());
+
+    if (!getVocabularyFile().equals(new File("."))) {
+      result.add("-vocabulary-file");
+      result.add("" + getVocabularyFile());
+    }
+
+    if (getOutputIDs())
+      result.add("-output-ids");
+
+    if (getReuseStringValues())
+      result.add("-reuse-string-values");
+
     Collections.addAll(result, super.getOptions());
 
     return result.toArray(new String[result.size()]);
@@ -413,6 +1037,36 @@ public class PartOfSpeechTagging
     return "The tokenizing algorithm to use on the strings.";
   }
 
+  /**
+   * Sets the tokenizer for splitting documents into sentences.
+   *
+   * @param value the tokenizer
+   */
+  public void setSentenceTokenizer(SentenceTokenizer value) {
+    m_SentenceTokenizer = value;
+  }
+
+  /**
+   * Returns the tokenizer for splitting documents into sentences.
+   *
+   * @return the tokenizer
+   */
+  public SentenceTokenizer getSentenceTokenizer() {
+    return m_SentenceTokenizer;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String sentenceTokenizerTipText() {
+    return
+      "The tokenizer for splitting the documents into sentences, e.g., using "
+	+ "the fast rule-based sentence detector instead of the Penn Treebank one.";
+  }
+
   /**
    * Sets the parser model to use.
    *
@@ -420,6 +1074,7 @@ public class PartOfSpeechTagging
    */
   public void setModel(File value) {
     m_Model = value;
+    preload();
   }
 
   /**
@@ -448,6 +1103,7 @@ public class PartOfSpeechTagging
    */
   public void setAdditionalOptions(String value) {
     m_AdditionalOptions = value;
+    preload();
   }
 
   /**
@@ -558,174 +1214,1418 @@ public class PartOfSpeechTagging
   }
 
   /**
-   * Returns the Capabilities of this filter.
+   * Sets whether to parse the tokens from sentence splitting directly.
    *
-   * @return the capabilities of this object
-   * @see weka.core.Capabilities
+   * @param value true if to skip the tokenizer
    */
-  @Override
-  public Capabilities getCapabilities() {
-    Capabilities result = super.getCapabilities();
-    result.disableAll();
-
-    // attributes
-    result.enableAllAttributes();
-    result.enable(Capability.MISSING_VALUES);
-
-    // class
-    result.enableAllClasses();
-    result.enable(Capability.MISSING_CLASS_VALUES);
-    result.enable(Capability.NO_CLASS);
-
-    return result;
+  public void setUseSentenceTokens(boolean value) {
+    m_UseSentenceTokens = value;
   }
 
   /**
-   * resets the filter, i.e., m_NewBatch to true and m_FirstBatchDone to false.
+   * Returns whether to parse the tokens from sentence splitting directly.
    *
-   * @see #m_NewBatch
-   * @see #m_FirstBatchDone
+   * @return true if to skip the tokenizer
    */
-  @Override
-  protected void reset() {
-    super.reset();
-
-    m_Parser = null;
+  public boolean getUseSentenceTokens() {
+    return m_UseSentenceTokens;
   }
 
   /**
-   * Determines the output format based on the input format and returns this. In
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String useSentenceTokensTipText() {
+    return
+      "If enabled, the PTB tokens obtained when splitting a document into "
+	+ "sentences get parsed directly, instead of joining them into a string "
+	+ "and tokenizing that again with the tokenizer (which gets ignored, as "
+	+ "does the sentence tokenizer).";
+  }
+
+  /**
+   * Sets whether the strings are already split into sentences and tokens.
+   *
+   * @param value true if pre-tokenized
+   */
+  public void setPreTokenized(boolean value) {
+    m_PreTokenized = value;
+  }
+
+  /**
+   * Returns whether the strings are already split into sentences and tokens.
+   *
+   * @return true if pre-tokenized
+   */
+  public boolean getPreTokenized() {
+    return m_PreTokenized;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String preTokenizedTipText() {
+    return
+      "If enabled, the strings are considered to be already split into "
+	+ "sentences and tokens, separated by the sentence and token delimiters; "
+	+ "the tokenizer and sentence tokenizer get ignored.";
+  }
+
+  /**
+   * Sets the string separating the sentences of pre-tokenized strings.
+   *
+   * @param value the delimiter (back-quoted)
+   */
+  public void setSentenceDelimiter(String value) {
+    m_SentenceDelimiter = value;
+  }
+
+  /**
+   * Returns the string separating the sentences of pre-tokenized strings.
+   *
+   * @return the delimiter (back-quoted)
+   */
+  public String getSentenceDelimiter() {
+    return m_SentenceDelimiter;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String sentenceDelimiterTipText() {
+    return
+      "The string separating the sentences of pre-tokenized strings; "
+	+ "back-quoted, e.g., \\n for line breaks or \\t for tabs.";
+  }
+
+  /**
+   * Sets the string separating the tokens of pre-tokenized strings.
+   *
+   * @param value the delimiter (back-quoted)
+   */
+  public void setTokenDelimiter(String value) {
+    m_TokenDelimiter = value;
+  }
+
+  /**
+   * Returns the string separating the tokens of pre-tokenized strings.
+   *
+   * @return the delimiter (back-quoted)
+   */
+  public String getTokenDelimiter() {
+    return m_TokenDelimiter;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String tokenDelimiterTipText() {
+    return
+      "The string separating the tokens of pre-tokenized strings; "
+	+ "back-quoted, e.g., \\n for line breaks or \\t for tabs.";
+  }
+
+  /**
+   * Sets the maximum number of parsed sentences to cache.
+   *
+   * @param value the maximum number, 0 to turn off caching
+   */
+  public void setCacheMaxEntries(int value) {
+    m_CacheMaxEntries = value;
+  }
+
+  /**
+   * Returns the maximum number of parsed sentences to cache.
+   *
+   * @return the maximum number, 0 if caching is turned off
+   */
+  public int getCacheMaxEntries() {
+    return m_CacheMaxEntries;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String cacheMaxEntriesTipText() {
+    return
+      "The maximum number of parsed sentences (key: tokenized sentence) to keep "
+	+ "in the least-recently-used cache, avoiding re-parsing of repeated "
+	+ "sentences; 0 turns off caching.";
+  }
+
+  /**
+   * Sets the maximum (estimated) size of the sentence cache in bytes.
+   *
+   * @param value the maximum size, -1 for unlimited
+   */
+  public void setCacheMaxBytes(long value) {
+    m_CacheMaxBytes = value;
+  }
+
+  /**
+   * Returns the maximum (estimated) size of the sentence cache in bytes.
+   *
+   * @return the maximum size, -1 for unlimited
+   */
+  public long getCacheMaxBytes() {
+    return m_CacheMaxBytes;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String cacheMaxBytesTipText() {
+    return "The maximum (estimated) size in bytes of the sentence cache; -1 for unlimited.";
+  }
+
+  /**
+   * Returns the statistics of the sentence cache, i.e., hits and misses.
+   *
+   * @return the statistics, empty if caching is turned off
+   */
+  public String getCacheStatistics() {
+    String	result;
+
+    result = "";
+    if (m_Cache != null)
+      result = m_Cache.toString();
+    if (m_DiskCache != null)
+      result += (result.isEmpty() ? "" : "\n") + "disk: " + m_DiskCache;
+    else if (m_DiskCacheFailure != null)
+      result += (result.isEmpty() ? "" : "\n") + "disk: disabled, " + m_DiskCacheFailure;
+
+    return result;
+  }
+
+  /**
+   * Sets whether to use the persistent sentence cache.
+   *
+   * @param value true if to use the cache
+   */
+  public void setUseDiskCache(boolean value) {
+    m_UseDiskCache = value;
+  }
+
+  /**
+   * Returns whether to use the persistent sentence cache.
+   *
+   * @return true if to use the cache
+   */
+  public boolean getUseDiskCache() {
+    return m_UseDiskCache;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String useDiskCacheTipText() {
+    return
+      "If enabled, parsed sentences get stored on disk (key: model and "
+	+ "tokenized sentence) and reused across runs; checked after the "
+	+ "in-memory cache.";
+  }
+
+  /**
+   * Sets the directory for the persistent sentence cache.
+   *
+   * @param value the directory
+   */
+  public void setDiskCacheDir(File value) {
+    m_DiskCacheDir = value;
+  }
+
+  /**
+   * Returns the directory for the persistent sentence cache.
+   *
+   * @return the directory
+   */
+  public File getDiskCacheDir() {
+    return m_DiskCacheDir;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String diskCacheDirTipText() {
+    return "The directory for the persistent sentence cache; gets created if necessary.";
+  }
+
+  /**
+   * Sets the number of runs after which unused sentences get removed from
+   * the persistent cache.
+   *
+   * @param value the number of runs
+   */
+  public void setDiskCacheMaxAge(int value) {
+    m_DiskCacheMaxAge = value;
+  }
+
+  /**
+   * Returns the number of runs after which unused sentences get removed
+   * from the persistent cache.
+   *
+   * @return the number of runs
+   */
+  public int getDiskCacheMaxAge() {
+    return m_DiskCacheMaxAge;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String diskCacheMaxAgeTipText() {
+    return
+      "The number of runs after which sentences that did not get used get "
+	+ "removed from the persistent cache; sentences of other models "
+	+ "(e.g., after the model file changed) get removed when the cache "
+	+ "gets compacted.";
+  }
+
+  /**
+   * Sets the maximum sentence length for which to retain the parser query.
+   *
+   * @param value the maximum length, -1 for unlimited, 0 for never
+   */
+  public void setMaxChartLength(int value) {
+    m_MaxChartLength = value;
+  }
+
+  /**
+   * Returns the maximum sentence length for which to retain the parser query.
+   *
+   * @return the maximum length, -1 for unlimited, 0 for never
+   */
+  public int getMaxChartLength() {
+    return m_MaxChartLength;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String maxChartLengthTipText() {
+    return
+      "Each thread reuses its parser query (and its chart memory) across "
+	+ "sentences; after parsing a sentence with more tokens than this "
+	+ "limit, the query gets discarded to free its large charts; -1 for "
+	+ "unlimited, 0 for a new query per sentence.";
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String numThreadsTipText() {
+    return
+      "The number of threads to use for tagging in batch mode (and for the "
+	+ "sentences of single instances with parallel sentences), with each "
+	+ "thread using its own parser query on the shared model; -1 uses all "
+	+ "available cores, 1 processes the data sequentially.";
+  }
+
+  /**
+   * Sets whether to parse the sentences of a document in parallel.
+   *
+   * @param value true if to parse in parallel
+   */
+  public void setParallelSentences(boolean value) {
+    m_ParallelSentences = value;
+  }
+
+  /**
+   * Returns whether to parse the sentences of a document in parallel.
+   *
+   * @return true if to parse in parallel
+   */
+  public boolean getParallelSentences() {
+    return m_ParallelSentences;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String parallelSentencesTipText() {
+    return
+      "If enabled, the sentences of a document get parsed in parallel and "
+	+ "stitched back together in order rather than processing whole "
+	+ "documents per thread, in batch mode as well as for single instances "
+	+ "once the first batch has been processed; useful for long documents; "
+	+ "requires more than one thread.";
+  }
+
+  /**
+   * Sets whether to schedule the sentences by token count, longest first.
+   *
+   * @param value true if to schedule longest sentences first
+   */
+  public void setLongestFirst(boolean value) {
+    m_LongestFirst = value;
+  }
+
+  /**
+   * Returns whether to schedule the sentences by token count, longest first.
+   *
+   * @return true if to schedule longest sentences first
+   */
+  public boolean getLongestFirst() {
+    return m_LongestFirst;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String longestFirstTipText() {
+    return
+      "If enabled, the sentences of a window of documents get tokenized first "
+	+ "and then parsed in order of decreasing token count, which avoids long "
+	+ "sentences holding up the end of a window (parsing time grows roughly "
+	+ "cubically with sentence length); implies parallel sentences and "
+	+ "requires more than one thread.";
+  }
+
+  /**
+   * Sets whether to load the model in the background as soon as it is set.
+   *
+   * @param value true if to preload
+   */
+  public void setPreload(boolean value) {
+    m_Preload = value;
+    preload();
+  }
+
+  /**
+   * Returns whether to load the model in the background as soon as it is set.
+   *
+   * @return true if to preload
+   */
+  public boolean getPreload() {
+    return m_Preload;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String preloadTipText() {
+    return
+      "If enabled, the model gets loaded in the background as soon as it "
+	+ "(or the additional options) get set or the filter gets deserialized, "
+	+ "rather than when the first data arrives.";
+  }
+
+  /**
+   * Sets the documents to parse before the first instance.
+   *
+   * @param value the text file, one document per line
+   */
+  public void setWarmUpCorpus(File value) {
+    m_WarmUpCorpus = value;
+  }
+
+  /**
+   * Returns the documents to parse before the first instance.
+   *
+   * @return the text file, one document per line
+   */
+  public File getWarmUpCorpus() {
+    return m_WarmUpCorpus;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String warmUpCorpusTipText() {
+    return
+      "The text file with documents (one per line) to parse once the model "
+	+ "is loaded, so that the parser code gets compiled by the JIT before "
+	+ "the first instance; the results do not get cached; ignored if "
+	+ "pointing to a directory.";
+  }
+
+  /**
+   * Sets the number of times to parse the warm-up corpus.
+   *
+   * @param value the number of iterations
+   */
+  public void setWarmUpIterations(int value) {
+    m_WarmUpIterations = value;
+  }
+
+  /**
+   * Returns the number of times to parse the warm-up corpus.
+   *
+   * @return the number of iterations
+   */
+  public int getWarmUpIterations() {
+    return m_WarmUpIterations;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String warmUpIterationsTipText() {
+    return "The number of times to parse the warm-up corpus.";
+  }
+
+  /**
+   * Sets the file to load the vocabulary from and save it to.
+   *
+   * @param value the file, ignored if a directory
+   */
+  public void setVocabularyFile(File value) {
+    m_VocabularyFile = value;
+  }
+
+  /**
+   * Returns the file to load the vocabulary from and save it to.
+   *
+   * @return the file, ignored if a directory
+   */
+  public File getVocabularyFile() {
+    return m_VocabularyFile;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String vocabularyFileTipText() {
+    return
+      "The text file with the vocabulary of labels and words (one per line, "
+	+ "line number = ID + 1); gets loaded if it exists, so that IDs stay "
+	+ "the same across runs, and saved after each batch; ignored if "
+	+ "pointing to a directory.";
+  }
+
+  /**
+   * Sets whether to output the vocabulary IDs rather than the strings.
+   *
+   * @param value true if to output IDs
+   */
+  public void setOutputIDs(boolean value) {
+    m_OutputIDs = value;
+  }
+
+  /**
+   * Returns whether to output the vocabulary IDs rather than the strings.
+   *
+   * @return true if to output IDs
+   */
+  public boolean getOutputIDs() {
+    return m_OutputIDs;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String outputIDsTipText() {
+    return
+      "If enabled, the labels and words get output as their IDs in the "
+	+ "vocabulary (e.g., '12:345'), rather than as strings; use in "
+	+ "conjunction with the vocabulary file.";
+  }
+
+  /**
+   * Sets whether to reuse the output strings of repeated input strings.
+   *
+   * @param value true if to reuse
+   */
+  public void setReuseStringValues(boolean value) {
+    m_ReuseStringValues = value;
+  }
+
+  /**
+   * Returns whether to reuse the output strings of repeated input strings.
+   *
+   * @return true if to reuse
+   */
+  public boolean getReuseStringValues() {
+    return m_ReuseStringValues;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String reuseStringValuesTipText() {
+    return
+      "If enabled, the index of the tagged string of an input string gets "
+	+ "remembered and reused when the input string occurs again (within "
+	+ "the same batch), rather than tagging and adding the string again; "
+	+ "for data with many repeated strings.";
+  }
+
+  /**
+   * Returns the vocabulary of labels and words.
+   *
+   * @return the vocabulary, null if not in use
+   */
+  public Vocabulary getVocabulary() {
+    return m_Vocabulary;
+  }
+
+  /**
+   * Returns the time the warm-up with the current model took.
+   *
+   * @return the time in msec, -1 if no warm-up performed
+   */
+  public long getWarmUpTime() {
+    return m_WarmUpTime;
+  }
+
+  /**
+   * Returns the statistics of the last multi-threaded run that parsed
+   * sentences in parallel, i.e., number of sentences, timings and the
+   * utilisation of the worker threads.
+   *
+   * @return the statistics, empty if not available
+   */
+  public String getStatistics() {
+    if (m_Statistics == null)
+      return "";
+    return m_Statistics;
+  }
+
+  /**
+   * Returns the number of sentences that failed to parse (and got tagged
+   * with the fall through strategy) since the output format got determined.
+   *
+   * @return		the number of failures
+   */
+  public int getNumParseFailures() {
+    if (m_ParseFailures == null)
+      return 0;
+    return m_ParseFailures.get();
+  }
+
+  /**
+   * Returns the Capabilities of this filter.
+   *
+   * @return the capabilities of this object
+   * @see weka.core.Capabilities
+   */
+  @Override
+  public Capabilities getCapabilities() {
+    Capabilities result = super.getCapabilities();
+    result.disableAll();
+
+    // attributes
+    result.enableAllAttributes();
+    result.enable(Capability.MISSING_VALUES);
+
+    // class
+    result.enableAllClasses();
+    result.enable(Capability.MISSING_CLASS_VALUES);
+    result.enable(Capability.NO_CLASS);
+
+    return result;
+  }
+
+  /**
+   * resets the filter, i.e., m_NewBatch to true and m_FirstBatchDone to false.
+   *
+   * @see #m_NewBatch
+   * @see #m_FirstBatchDone
+   */
+  @Override
+  protected void reset() {
+    super.reset();
+
+    ParserModelRegistry.release(this);
+    m_Parser   = null;
+    m_Contexts = null;
+  }
+
+  /**
+   * Obtains the parser from the {@link ParserModelRegistry}, if necessary.
+   *
+   * @return		the parser
+   * @throws Exception	if the model cannot be loaded
+   */
+  protected synchronized LexicalizedParser initParser() throws Exception {
+    if (m_Parser == null)
+      m_Parser = ParserModelRegistry.acquire(this, m_Model, m_AdditionalOptions);
+    return m_Parser;
+  }
+
+  /**
+   * Starts loading the model in the background, if enabled and the model
+   * points to a file. Any errors surface when the model gets acquired.
+   * A pending load for previous settings that has not started yet gets
+   * cancelled. Does nothing while the options get parsed, as
+   * {@link #setOptions(String[])} preloads once at the end.
+   */
+  protected void preload() {
+    if (m_SettingOptions)
+      return;
+    if (m_Preloading != null)
+      m_Preloading.cancel(false);
+    if (m_Preload && m_Model.isFile())
+      m_Preloading = ParserModelRegistry.preload(m_Model, m_AdditionalOptions);
+    else
+      m_Preloading = null;
+  }
+
+  /**
+   * Parses the warm-up corpus with the current parser, unless already done.
+   * Neither the in-memory nor the disk cache get used.
+   *
+   * @throws Exception	if reading or parsing fails
+   */
+  protected void warmUp() throws Exception {
+    List<String>	docs;
+    BufferedReader	reader;
+    String		line;
+    TaggingContext	context;
+    long		start;
+    int			i;
+
+    if (!m_WarmUpCorpus.isFile() || (m_WarmUpIterations < 1) || (m_WarmedUp == m_Parser))
+      return;
+
+    docs   = new ArrayList<String>();
+    reader = new BufferedReader(new InputStreamReader(new FileInputStream(m_WarmUpCorpus), "UTF-8"));
+    try {
+      while ((line = reader.readLine()) != null) {
+	if (!line.trim().isEmpty())
+	  docs.add(line);
+      }
+    }
+    finally {
+      reader.close();
+    }
+
+    start   = System.currentTimeMillis();
+    context = getContext();
+    for (i = 0; i < m_WarmUpIterations; i++) {
+      for (String doc: docs) {
+	for (List<? extends HasWord> sentence: tokenizeDocument(doc, context))
+	  parse(context, sentence);
+      }
+    }
+    m_WarmUpTime = System.currentTimeMillis() - start;
+    m_WarmedUp   = m_Parser;
+    if (getDebug())
+      debug("warm-up: " + docs.size() + " document(s) x " + m_WarmUpIterations + " iteration(s) in " + m_WarmUpTime + "msec");
+  }
+
+  /**
+   * Determines the output format based on the input format and returns this. In
    * case the output format cannot be returned immediately, i.e.,
    * hasImmediateOutputFormat() returns false, then this method will called from
    * batchFinished() after the call of preprocess(Instances), in which, e.g.,
    * statistics for the actual processing step can be gathered.
    *
-   * @param inputFormat the input format to base the output format on
-   * @return the output format
-   * @throws Exception in case the determination goes wrong
+   * @param inputFormat the input format to base the output format on
+   * @return the output format
+   * @throws Exception in case the determination goes wrong
+   */
+  @Override
+  protected Instances determineOutputFormat(Instances inputFormat) throws Exception {
+    if (!m_Model.exists())
+      throw new IllegalStateException("Model file does not exist: " + m_Model);
+    else if (m_Model.isDirectory())
+      throw new IllegalStateException("Model file points to a directory: " + m_Model);
+    ParserModelRegistry.release(this);
+    m_Parser = null;
+    initParser();
+    m_Preloading    = null;
+    m_ParseFailures = new AtomicInteger();
+
+    if (m_CacheMaxEntries > 0)
+      m_Cache = new ParseCache(m_CacheMaxEntries, m_CacheMaxBytes);
+    else
+      m_Cache = null;
+
+    m_DiskCache        = null;
+    m_DiskCacheFailure = null;
+    m_ModelKey         = null;
+    if (m_UseDiskCache) {
+      m_ModelKey = ParserModelRegistry.getKey(m_Model, m_AdditionalOptions);
+      try {
+	m_DiskCache = DiskParseCache.getInstance(m_DiskCacheDir);
+	if (m_DiskCache.isReadOnly())
+	  debug("disk cache locked by another process, not storing sentences: " + m_DiskCacheDir);
+	m_DiskCache.setMaxAge(Math.max(0, m_DiskCacheMaxAge));
+	m_DiskCache.startRun(m_ModelKey);
+      }
+      catch (IOException e) {
+	m_DiskCache        = null;
+	m_DiskCacheFailure = e.toString();
+	debug("failed to open disk cache, disabled: " + e);
+      }
+    }
+
+    if (m_VocabularyFile.isFile())
+      m_Vocabulary = Vocabulary.read(m_VocabularyFile);
+    else if (m_OutputIDs || !m_VocabularyFile.isDirectory())
+      m_Vocabulary = new Vocabulary();
+    else
+      m_Vocabulary = null;
+
+    m_ActualSentenceDelimiter = Utils.unbackQuoteChars(m_SentenceDelimiter);
+    m_ActualTokenDelimiter    = Utils.unbackQuoteChars(m_TokenDelimiter);
+    if (m_PreTokenized && (m_ActualSentenceDelimiter.isEmpty() || m_ActualTokenDelimiter.isEmpty()))
+      throw new IllegalStateException("Sentence and token delimiters must not be empty!");
+
+    warmUp();
+
+    m_AttributeIndices.setUpper(inputFormat.numAttributes() - 1);
+
+    m_Pools = null;
+    if (m_ReuseStringValues) {
+      m_Pools = new StringValuePool[inputFormat.numAttributes()];
+      for (int i = 0; i < inputFormat.numAttributes(); i++) {
+	if (inputFormat.attribute(i).isString() && m_AttributeIndices.isInRange(i) && (i != inputFormat.classIndex()))
+	  m_Pools[i] = new StringValuePool();
+      }
+    }
+
+    return new Instances(inputFormat, 0);
+  }
+
+  /**
+   * Shortens the string if over specified maximum length.
+   *
+   * @param s the string to (potentially) shorten
+   * @param max the maximum string length
+   * @return the processed string
+   */
+  protected String shorten(String s, int max) {
+    if (s.length() > max)
+      return s.substring(0, max) + "...";
+    else
+      return s;
+  }
+
+  /**
+   * Outputs the debug message out stdout if debug flag set.
+   *
+   * @param msg		the message to output
+   */
+  protected void debug(String msg) {
+    if (getDebug())
+      System.out.println(getClass().getName() + ": " + msg);
+  }
+
+  /**
+   * Traverses the tree and adds the leaf data to the string buffer.
+   *
+   * @param parentTree	the tree to process
+   * @param content	the string buffer to add the content to
+   * @param pattern     the pattern that the labels must match (null for match-all)
+   */
+  protected void traverseTree(Tree parentTree, StringBuilder content, Pattern pattern) {
+    render(TaggedSentence.fromTree(parentTree), content, pattern);
+  }
+
+  /**
+   * Adds the words of the tagged sentence to the string buffer, applying
+   * stopwords, label pattern and label prefix suppression. Only gets called
+   * by the thread using the filter (never by the worker threads), i.e., the
+   * stopwords handler does not have to be thread-safe.
+   *
+   * @param sentence	the sentence to process
+   * @param content	the string buffer to add the content to
+   * @param pattern     the pattern that the labels must match (null for match-all)
+   */
+  protected void render(TaggedSentence sentence, StringBuilder content, Pattern pattern) {
+    int		i;
+    String      word;
+    String      label;
+
+    for (i = 0; i < sentence.size(); i++) {
+      label = sentence.getLabel(i);
+      word  = sentence.getWord(i);
+      // stopword?
+      if (m_Stopwords.isStopword(word))
+	continue;
+      // keep label?
+      if ((pattern != null) && !pattern.matcher(label).matches())
+	continue;
+      if (content.length() > 0)
+	content.append(" ");
+      if (m_OutputIDs && sentence.hasIDs()) {
+	if (!m_SuppressLabelPrefixes) {
+	  content.append(sentence.getLabelID(i));
+	  content.append(":");
+	}
+	content.append(sentence.getWordID(i));
+	continue;
+      }
+      if (!m_SuppressLabelPrefixes) {
+	content.append(label);
+	content.append(":");
+      }
+      content.append(word);
+    }
+  }
+
+  /**
+   * Obtains the sentences from the document, using the sentence tokenizer.
+   *
+   * @param doc	the document to turn into sentences.
+   * @return the list of sentences
+   */
+  protected List<String> getSentences(String doc) {
+    return m_SentenceTokenizer.split(doc);
+  }
+
+  /**
+   * Splits a pre-tokenized document into sentences and these into words,
+   * using the sentence and token delimiters. Empty sentences and tokens get
+   * skipped. The offsets of the words are relative to the document.
+   *
+   * @param doc		the document to split
+   * @return		the tokenized sentences
+   */
+  protected List<List<? extends HasWord>> splitPreTokenized(String doc) {
+    List<List<? extends HasWord>>	result;
+    List<HasWord>			words;
+    String				sentDelim;
+    String				tokDelim;
+    int					start;
+    int					end;
+    int					pos;
+    int					next;
+
+    result    = new ArrayList<List<? extends HasWord>>();
+    sentDelim = m_ActualSentenceDelimiter;
+    tokDelim  = m_ActualTokenDelimiter;
+    start     = 0;
+
+    while (start <= doc.length()) {
+      end = doc.indexOf(sentDelim, start);
+      if (end == -1)
+	end = doc.length();
+
+      words = new ArrayList<HasWord>();
+      pos   = start;
+      while (pos < end) {
+	next = doc.indexOf(tokDelim, pos);
+	if ((next == -1) || (next > end))
+	  next = end;
+	if (next > pos)
+	  words.add(new Word(doc.substring(pos, next), pos, next));
+	pos = next + tokDelim.length();
+      }
+      if (!words.isEmpty()) {
+	if (getDebug())
+	  debug("    " + words.size() + " token(s)");
+	result.add(words);
+      }
+
+      start = end + sentDelim.length();
+    }
+
+    return result;
+  }
+
+  /**
+   * Splits the document into sentences and these into words, either with
+   * the tokenizer or, if enabled, using the tokens from the sentence
+   * splitting directly or the delimiters of pre-tokenized strings.
+   *
+   * @param doc		the document to process
+   * @param context	the context to use
+   * @return		the tokenized sentences
+   */
+  protected List<List<? extends HasWord>> tokenizeDocument(String doc, TaggingContext context) {
+    List<List<? extends HasWord>>	result;
+    DocumentPreprocessor		preProcessor;
+
+    if (m_PreTokenized)
+      return splitPreTokenized(doc);
+
+    result = new ArrayList<List<? extends HasWord>>();
+
+    if (m_UseSentenceTokens) {
+      preProcessor = new DocumentPreprocessor(new StringReader(doc));
+      preProcessor.setTokenizerFactory(getTokenizerFactory());
+      for (List<HasWord> sentence: preProcessor) {
+	if (getDebug())
+	  debug("    " + sentence.size() + " token(s)");
+	result.add(sentence);
+      }
+    }
+    else {
+      for (String sentence: getSentences(doc))
+	result.add(tokenize(sentence, context));
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the pattern for the labels to keep.
+   *
+   * @return		the pattern, null if all labels are kept
    */
-  @Override
-  protected Instances determineOutputFormat(Instances inputFormat) throws Exception {
-    if (!m_Model.exists())
-      throw new IllegalStateException("Model file does not exist: " + m_Model);
-    else if (m_Model.isDirectory())
-      throw new IllegalStateException("Model file points to a directory: " + m_Model);
-    m_Parser = edu.stanford.nlp.parser.lexparser.LexicalizedParser.loadModel(
-      m_Model.getAbsolutePath(), Utils.splitOptions(m_AdditionalOptions));
+  protected Pattern getLabelsPattern() {
+    if (m_RegExpLabels.equals(".*"))
+      return null;
+    else
+      return Pattern.compile(m_RegExpLabels);
+  }
 
-    m_AttributeIndices.setUpper(inputFormat.numAttributes() - 1);
+  /**
+   * Returns the tokenizer/parser query combination for the current thread.
+   *
+   * @return		the context
+   */
+  protected synchronized TaggingContext getContext() {
+    if (m_Contexts == null) {
+      m_Contexts = new ThreadLocal<TaggingContext>() {
+	@Override
+	protected TaggingContext initialValue() {
+	  try {
+	    return new TaggingContext(
+	      (Tokenizer) new SerializedObject(m_Tokenizer).getObject(),
+	      new ReusableParserQuery(initParser(), m_MaxChartLength));
+	  }
+	  catch (Exception e) {
+	    throw new IllegalStateException("Failed to initialize worker thread!", e);
+	  }
+	}
+      };
+    }
+    return m_Contexts.get();
+  }
 
-    return new Instances(inputFormat, 0);
+  /**
+   * Parses the words of a sentence. Sentences that fail to parse get
+   * counted and, in debug mode, reported.
+   *
+   * @param context	the context to use
+   * @param words	the words to parse
+   * @return		the parse tree
+   * @throws Exception	if the model cannot be loaded
+   */
+  protected Tree parse(TaggingContext context, List<? extends HasWord> words) throws Exception {
+    Tree	result;
+    int		failures;
+
+    failures = context.m_Query.getNumFailures();
+    result   = context.m_Query.parse(words);
+    if (context.m_Query.getNumFailures() > failures) {
+      if (m_ParseFailures != null)
+	m_ParseFailures.incrementAndGet();
+      if (getDebug())
+	debug("failed to parse sentence, using fall through strategy: " + context.m_Query.getLastFailure());
+    }
+
+    return result;
   }
 
   /**
-   * Shortens the string if over specified maximum length.
+   * Returns the string for the token. The string only gets copied from the
+   * view if the token hasn't been encountered before by the current thread,
+   * i.e., repeated words share the same string.
    *
-   * @param s the string to (potentially) shorten
-   * @param max the maximum string length
-   * @return the processed string
+   * @param span	the view on the token
+   * @param context	the context to use
+   * @return		the token
    */
-  protected String shorten(String s, int max) {
-    if (s.length() > max)
-      return s.substring(0, max) + "...";
-    else
-      return s;
+  protected String getToken(CharSequence span, TaggingContext context) {
+    String	result;
+
+    if (!(span instanceof TokenSpan))
+      return span.toString();
+
+    result = context.m_Tokens.get(span);
+    if (result == null) {
+      if (context.m_Tokens.size() >= MAX_TOKENS)
+	context.m_Tokens.clear();
+      result = span.toString();
+      // the view gets reused by the tokenizer, store a fixed one
+      context.m_Tokens.put(new TokenSpan(result, 0, result.length()), result);
+    }
+
+    return result;
   }
 
   /**
-   * Outputs the debug message out stdout if debug flag set.
+   * Splits the sentence into words. With a {@link SpanTokenizer}, the words
+   * get generated directly from the spans and carry their offsets in the
+   * sentence.
    *
-   * @param msg		the message to output
+   * @param sentence	the sentence to tokenize
+   * @param context	the context to use
+   * @return		the words
    */
-  protected void debug(String msg) {
+  protected List<? extends HasWord> tokenize(String sentence, TaggingContext context) {
+    List<HasWord>	result;
+    SpanTokenizer	spans;
+    String		token;
+
     if (getDebug())
-      System.out.println(getClass().getName() + ": " + msg);
+      debug("    " + shorten(sentence, 30) + " [" + sentence.length() + "]");
+    context.m_Tokenizer.tokenize(sentence);
+
+    if (context.m_Tokenizer instanceof SpanTokenizer) {
+      spans  = (SpanTokenizer) context.m_Tokenizer;
+      result = new ArrayList<HasWord>();
+      while (spans.nextSpan()) {
+	if (spans.normalizesTokens())
+	  token = spans.getSpanToken();
+	else
+	  token = getToken(spans.getSpan(), context);
+	result.add(new Word(token, spans.getSpanBegin(), spans.getSpanEnd()));
+      }
+      return result;
+    }
+
+    context.m_Words.clear();
+    while (context.m_Tokenizer.hasMoreElements())
+      context.m_Words.add(context.m_Tokenizer.nextElement());
+
+    return Sentence.toWordList(context.m_Words.toArray(new String[context.m_Words.size()]));
   }
 
   /**
-   * Traverses the tree and adds the leaf data to the string buffer.
+   * Parses the words of a single sentence, using the caches if available.
+   * Without interning, the sentence only gets interned when it gets rendered,
+   * as worker threads must not assign vocabulary IDs (the IDs would depend on
+   * the order in which the threads finish).
    *
-   * @param parentTree	the tree to process
-   * @param content	the string buffer to add the content to
-   * @param pattern     the pattern that the labels must match (null for match-all)
+   * @param words	the words of the sentence
+   * @param context	the context to use
+   * @param intern	whether to intern the sentence before caching it
+   * @return		the tagged sentence
+   * @throws Exception	if parsing fails
+   * @see		#render(TaggedSentence, Pattern)
    */
-  protected void traverseTree(Tree parentTree, StringBuilder content, Pattern pattern) {
-    Tree	childTree;
-    int		i;
-    String      word;
-    String      label;
-
-    for (i = 0; i < parentTree.children().length; i++) {
-      childTree = parentTree.children()[i];
-      if (childTree.isLeaf()) {
-        label = parentTree.label().value();
-        word = childTree.label().value();
-        // stopword?
-        if (m_Stopwords.isStopword(word))
-          continue;
-        // keep label?
-        if ((pattern != null) && !pattern.matcher(label).matches())
-          continue;
-	if (content.length() > 0)
-	  content.append(" ");
-        if (!m_SuppressLabelPrefixes)
-          content.append(label + ":");
-        content.append(word);
+  protected TaggedSentence parseWords(List<? extends HasWord> words, TaggingContext context, boolean intern) throws Exception {
+    TaggedSentence	result;
+    DiskParseCache	diskCache;
+    String		key;
+    byte[]		diskKey;
+
+    result    = null;
+    key       = null;
+    diskKey   = null;
+    diskCache = m_DiskCache;
+    intern    = intern && (m_Vocabulary != null);
+    if ((m_Cache != null) || (diskCache != null))
+      key = ParseCache.createKey(words);
+    if (m_Cache != null)
+      result = m_Cache.get(key);
+    if ((result == null) && (diskCache != null)) {
+      diskKey = DiskParseCache.createKey(m_ModelKey, key);
+      result  = diskCache.get(diskKey);
+      if (result != null) {
+	if (intern)
+	  result = result.intern(m_Vocabulary);
+	if (m_Cache != null)
+	  m_Cache.put(key, result);
+      }
+    }
+    if (result == null) {
+      result = TaggedSentence.fromTree(parse(context, words));
+      if (intern)
+	result = result.intern(m_Vocabulary);
+      if (m_Cache != null)
+	m_Cache.put(key, result);
+      if (diskCache != null) {
+	try {
+	  diskCache.put(diskKey, result);
+	}
+	catch (IOException e) {
+	  disableDiskCache(e);
+	}
       }
-      traverseTree(childTree, content, pattern);
+    }
+
+    return result;
+  }
+
+  /**
+   * Stops using the disk cache after it failed (e.g., disk full), as the
+   * cache is optional. Can be called by the worker threads.
+   *
+   * @param e		the exception that occurred
+   */
+  protected synchronized void disableDiskCache(Exception e) {
+    if (m_DiskCache == null)
+      return;
+    m_DiskCache        = null;
+    m_DiskCacheFailure = e.toString();
+    debug("disk cache failed, disabled: " + e);
+  }
+
+  /**
+   * Compacts the disk cache if necessary, e.g., once the sentences of a
+   * previous model version make up most of it.
+   */
+  protected void compactDiskCache() {
+    DiskParseCache	diskCache;
+
+    diskCache = m_DiskCache;
+    if ((diskCache == null) || !diskCache.needsCompaction())
+      return;
+    try {
+      diskCache.compact();
+    }
+    catch (IOException e) {
+      disableDiskCache(e);
     }
   }
 
   /**
-   * Obtains the sentences from the document.
+   * Renders the tagged sentence, interning it first if necessary. Must only
+   * be called in the original order of the sentences, as interning assigns
+   * the vocabulary IDs.
    *
-   * @param doc	the document to turn into sentences.
-   * @return the list of sentences
+   * @param sentence	the tagged sentence
+   * @param pattern	the pattern that the labels must match (null for match-all)
+   * @return		the tagged words of the sentence
    */
-  protected List<String> getSentences(String doc) {
-    List<String>		result;
-    DocumentPreprocessor preProcessor;
+  protected String render(TaggedSentence sentence, Pattern pattern) {
+    StringBuilder	result;
+
+    if ((m_Vocabulary != null) && !sentence.hasIDs())
+      sentence = sentence.intern(m_Vocabulary);
+    result = new StringBuilder();
+    render(sentence, result, pattern);
+
+    return result.toString();
+  }
+
+  /**
+   * Performs the tagging of the words of a single sentence.
+   *
+   * @param words	the words of the sentence
+   * @param context	the context to use
+   * @param pattern	the pattern that the labels must match (null for match-all)
+   * @return		the tagged words of the sentence
+   * @throws Exception	if tagging fails
+   */
+  protected String tagWords(List<? extends HasWord> words, TaggingContext context, Pattern pattern) throws Exception {
+    return render(parseWords(words, context, true), pattern);
+  }
+
+  /**
+   * Appends the tagged words of a sentence to the tagged document.
+   *
+   * @param tagged	the tagged document so far
+   * @param sentence	the tagged words of the sentence to append
+   */
+  protected void append(StringBuilder tagged, String sentence) {
+    if ((tagged.length() > 0) && (sentence.length() > 0))
+      tagged.append(" ");
+    tagged.append(sentence);
+    tagged.append(". ");
+  }
+
+  /**
+   * Performs the tagging of a document.
+   *
+   * @param doc		the document to tag
+   * @param context	the context to use
+   * @param pattern	the pattern that the labels must match (null for match-all)
+   * @return		the tagged document
+   * @throws Exception	if tagging fails
+   */
+  protected String tag(String doc, TaggingContext context, Pattern pattern) throws Exception {
+    List<List<? extends HasWord>>	sentences;
+    StringBuilder			tagged;
 
-    result = new ArrayList<String>();
+    // split into sentences
+    sentences = tokenizeDocument(doc, context);
+    if (getDebug())
+      debug(sentences.size() + " sentence(s) [" + doc.length() + "]: " + shorten(doc, 40));
+    // process sentences
+    tagged = new StringBuilder();
+    for (List<? extends HasWord> sentence: sentences)
+      append(tagged, tagWords(sentence, context, pattern));
+
+    return tagged.toString().trim();
+  }
 
-    preProcessor = new DocumentPreprocessor(new StringReader(doc));
-    preProcessor.setTokenizerFactory(getTokenizerFactory());
+  /**
+   * Parses the sentences of a document, without interning them. Can be
+   * called by the worker threads.
+   *
+   * @param doc		the document to parse
+   * @param context	the context to use
+   * @return		the tagged sentences
+   * @throws Exception	if parsing fails
+   */
+  protected List<TaggedSentence> parseDocument(String doc, TaggingContext context) throws Exception {
+    List<List<? extends HasWord>>	sentences;
+    List<TaggedSentence>		result;
 
-    for (List sentence: preProcessor)
-      result.add(StringUtils.joinWithOriginalWhiteSpace(sentence));
+    sentences = tokenizeDocument(doc, context);
+    if (getDebug())
+      debug(sentences.size() + " sentence(s) [" + doc.length() + "]: " + shorten(doc, 40));
+    result = new ArrayList<TaggedSentence>();
+    for (List<? extends HasWord> sentence: sentences)
+      result.add(parseWords(sentence, context, false));
 
     return result;
   }
 
   /**
-   * processes the given instance (may change the provided instance) and returns
-   * the modified version.
+   * Renders the tagged sentences of a document, interning them if necessary.
    *
-   * @param instance the instance to process
-   * @return the modified data
-   * @throws Exception in case the processing goes wrong
+   * @param sentences	the tagged sentences
+   * @param pattern	the pattern that the labels must match (null for match-all)
+   * @return		the tagged document
+   * @see		#render(TaggedSentence, Pattern)
    */
-  @Override
-  protected Instance process(Instance instance) throws Exception {
+  protected String renderDocument(List<TaggedSentence> sentences, Pattern pattern) {
+    StringBuilder	tagged;
+
+    tagged = new StringBuilder();
+    for (TaggedSentence sentence: sentences)
+      append(tagged, render(sentence, pattern));
+
+    return tagged.toString().trim();
+  }
+
+  /**
+   * Returns whether the specified attribute of the instance gets tagged.
+   *
+   * @param instance	the instance to check
+   * @param index	the attribute index
+   * @return		true if to be tagged (unless missing)
+   */
+  protected boolean isTagged(Instance instance, int index) {
+    return instance.attribute(index).isString() && m_AttributeIndices.isInRange(index) && (index != instance.classIndex());
+  }
+
+  /**
+   * Parses the string values of the instance that are to be processed,
+   * without interning the sentences. Can be called by the worker threads.
+   *
+   * @param instance	the instance to process
+   * @param context	the context to use
+   * @return		the tagged sentences per attribute, null for values to
+   * 			copy as is
+   * @throws Exception	if parsing fails
+   */
+  protected List<List<TaggedSentence>> parse(Instance instance, TaggingContext context) throws Exception {
+    List<List<TaggedSentence>>	result;
+    int				i;
+
+    result = new ArrayList<List<TaggedSentence>>();
+    for (i = 0; i < instance.numAttributes(); i++) {
+      if (!isTagged(instance, i) || instance.isMissing(i))
+	result.add(null);
+      else
+	result.add(parseDocument(instance.stringValue(i), context));
+    }
+
+    return result;
+  }
+
+  /**
+   * Renders the parsed string values of an instance.
+   *
+   * @param parsed	the tagged sentences per attribute, null for values to
+   * 			copy as is
+   * @param pattern	the pattern that the labels must match (null for match-all)
+   * @return		the tagged strings, null for values to copy as is
+   * @see		#parse(Instance, TaggingContext)
+   */
+  protected String[] renderInstance(List<List<TaggedSentence>> parsed, Pattern pattern) {
+    String[]	result;
+    int		i;
+
+    result = new String[parsed.size()];
+    for (i = 0; i < parsed.size(); i++) {
+      if (parsed.get(i) != null)
+	result[i] = renderDocument(parsed.get(i), pattern);
+    }
+
+    return result;
+  }
+
+  /**
+   * Generates the output instance from the input instance and the tagged
+   * strings. When reusing string values, repeated input strings get the
+   * index of their tagged string from the pool.
+   *
+   * @param instance	the input instance
+   * @param tagged	the tagged strings (null for values to copy as is),
+   * 			null to tag the strings here
+   * @return		the output instance
+   * @throws Exception	if tagging fails
+   */
+  protected Instance createOutput(Instance instance, String[] tagged) throws Exception {
     double[]		values;
     double[]		current;
-    List<String>	words;
-    int			i;
-    Tree		tree;
-    List<String>	sentences;
-    StringBuilder	tagged;
-    String		newString;
+    Attribute		att;
+    String		value;
+    String		output;
+    TaggingContext	context;
     Pattern		pattern;
+    int			index;
+    int			i;
+
+    context = null;
+    pattern = null;
+    if (tagged == null) {
+      context = getContext();
+      pattern = getLabelsPattern();
+    }
 
-    words = new ArrayList<String>();
     values = new double[instance.numAttributes()];
     current = instance.toDoubleArray();
-    pattern = null;
-    if (!m_RegExpLabels.equals(".*"))
-      pattern = Pattern.compile(m_RegExpLabels);
 
     for (i = 0; i < instance.numAttributes(); i++) {
-      if (!instance.attribute(i).isString() || !m_AttributeIndices.isInRange(i) || (i == instance.classIndex())) {
+      if (!isTagged(instance, i)) {
 	values[i] = current[i];
 	continue;
       }
@@ -733,32 +2633,382 @@ public class PartOfSpeechTagging
 	values[i] = Utils.missingValue();
 	continue;
       }
-      // split into sentences
-      sentences = getSentences(instance.stringValue(i));
-      if (getDebug())
-	debug(sentences.size() + " sentence(s) [" + instance.stringValue(i).length() + "]: " + shorten(instance.stringValue(i), 40));
-      // process sentences
-      tagged = new StringBuilder();
-      for (String sentence: sentences) {
-	if (getDebug())
-	  debug("    " + shorten(sentence, 30) + " [" + sentence.length() + "]");
-	// split into words
-	words.clear();
-	m_Tokenizer.tokenize(sentence);
-	while (m_Tokenizer.hasMoreElements())
-	  words.add(m_Tokenizer.nextElement());
-	// generate parse tree
-	tree = m_Parser.apply(Sentence.toWordList(words.toArray(new String[words.size()])));
-	traverseTree(tree, tagged, pattern);
-	tagged.append(". ");
+      att   = getOutputFormat().attribute(i);
+      value = instance.stringValue(i);
+      if (m_Pools != null) {
+	index = m_Pools[i].get(att, value);
+	if (index > -1) {
+	  values[i] = index;
+	  continue;
+	}
       }
-      newString = tagged.toString().trim();
-      values[i] = getOutputFormat().attribute(i).addStringValue(newString);
+      output = (tagged == null) ? tag(value, context, pattern) : tagged[i];
+      if (m_Pools != null)
+	values[i] = m_Pools[i].add(att, value, output);
+      else
+	values[i] = att.addStringValue(output);
     }
 
     return new DenseInstance(instance.weight(), values);
   }
 
+  /**
+   * processes the given instance (may change the provided instance) and returns
+   * the modified version. In multi-threaded mode with parallel sentences
+   * (e.g., once the first batch is done), the sentences of the instance's
+   * documents get parsed by the worker threads.
+   *
+   * @param instance the instance to process
+   * @return the modified data
+   * @throws Exception in case the processing goes wrong
+   */
+  @Override
+  protected Instance process(Instance instance) throws Exception {
+    Instance		result;
+    SentenceWindow	window;
+    SentenceStatistics	stats;
+
+    if (!isMultiThreaded() || !(m_ParallelSentences || m_LongestFirst))
+      return createOutput(instance, null);
+
+    stats  = new SentenceStatistics();
+    window = split(Collections.singletonList(instance));
+    try {
+      schedule(window, stats);
+      result = assemble(window, getLabelsPattern()).get(0);
+    }
+    catch (Exception e) {
+      cancel(window);
+      throw e;
+    }
+    setStatistics(stats);
+
+    return result;
+  }
+
+  /**
+   * Processes the given data. In multi-threaded mode, the instances get
+   * distributed among the worker threads and the output gets assembled in
+   * the original order.
+   *
+   * @param instances the data to process
+   * @return the modified data
+   * @throws Exception in case the processing goes wrong
+   */
+  @Override
+  protected Instances process(Instances instances) throws Exception {
+    Instances	result;
+
+    if (isMultiThreaded())
+      result = processParallel(instances);
+    else
+      result = super.process(instances);
+
+    if (getDebug() && (getNumParseFailures() > 0))
+      debug("sentences that failed to parse: " + getNumParseFailures());
+    if (getDebug() && (m_Cache != null))
+      debug("cache: " + m_Cache);
+    compactDiskCache();
+    if (getDebug() && (m_DiskCache != null))
+      debug("disk cache: " + m_DiskCache);
+    if (getDebug() && (m_Pools != null)) {
+      for (int i = 0; i < m_Pools.length; i++) {
+	if (m_Pools[i] != null)
+	  debug("string values (" + instances.attribute(i).name() + "): " + m_Pools[i]);
+      }
+    }
+
+    if ((m_Vocabulary != null) && !m_VocabularyFile.isDirectory()) {
+      m_Vocabulary.write(m_VocabularyFile);
+      if (getDebug())
+	debug("vocabulary: " + m_Vocabulary);
+    }
+
+    return result;
+  }
+
+  /**
+   * Processes the given data in multi-threaded mode. Either the instances
+   * get distributed among the worker threads or, if enabled, the sentences.
+   * Only a limited number of instances is in flight at any time (see
+   * {@link #JOBS_PER_THREAD}), i.e., the parsed sentences of an instance only
+   * stay in memory till its output has been generated.
+   *
+   * @param instances the data to process
+   * @return the modified data
+   * @throws Exception in case the processing goes wrong
+   */
+  protected Instances processParallel(Instances instances) throws Exception {
+    Instances					result;
+    LinkedList<Future<List<List<TaggedSentence>>>>	jobs;
+    Pattern					pattern;
+    int						maxJobs;
+    int						next;
+    int						i;
+
+    if (m_ParallelSentences || m_LongestFirst)
+      return processSentences(instances);
+    if (instances.numInstances() < 2)
+      return super.process(instances);
+
+    pattern = getLabelsPattern();
+    maxJobs = ExecutorUtils.getNumThreads(m_NumThreads) * JOBS_PER_THREAD;
+    jobs    = new LinkedList<Future<List<List<TaggedSentence>>>>();
+    result  = new Instances(getOutputFormat(), instances.numInstances());
+    next    = 0;
+    try {
+      for (i = 0; i < instances.numInstances(); i++) {
+	while ((next < instances.numInstances()) && (jobs.size() < maxJobs)) {
+	  final Instance instance = instances.instance(next++);
+	  jobs.add(getExecutor().submit(new Callable<List<List<TaggedSentence>>>() {
+	    public List<List<TaggedSentence>> call() throws Exception {
+	      return parse(instance, getContext());
+	    }
+	  }));
+	}
+	// rendering interns the sentences, i.e., needs to happen in order
+	result.add(createOutput(instances.instance(i), renderInstance(ExecutorUtils.get(jobs.removeFirst()), pattern)));
+      }
+    }
+    catch (Exception e) {
+      ExecutorUtils.cancel(jobs);
+      throw e;
+    }
+
+    return result;
+  }
+
+  /**
+   * Splits the documents of the instances into sentences and tokenizes them,
+   * using the worker threads.
+   *
+   * @param instances	the instances to split
+   * @return		the window with the pending splits
+   */
+  protected SentenceWindow split(List<Instance> instances) {
+    SentenceWindow	result;
+    Instance		instance;
+    int			i;
+    int			n;
+
+    result = new SentenceWindow(instances);
+    for (i = 0; i < instances.size(); i++) {
+      instance = instances.get(i);
+      for (n = 0; n < instance.numAttributes(); n++) {
+	if (!isTagged(instance, n) || instance.isMissing(n))
+	  continue;
+	final String value = instance.stringValue(n);
+	result.m_Docs.add(new int[]{i, n});
+	result.m_Splits.add(getExecutor().submit(new Callable<List<SentenceJob>>() {
+	  public List<SentenceJob> call() throws Exception {
+	    List<SentenceJob> result = new ArrayList<SentenceJob>();
+	    for (List<? extends HasWord> sentence: tokenizeDocument(value, getContext()))
+	      result.add(new SentenceJob(sentence));
+	    return result;
+	  }
+	}));
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Waits for the documents of the window to be split and queues up their
+   * sentences for parsing (longest first, if enabled).
+   *
+   * @param window	the window to schedule
+   * @param stats	for recording the statistics
+   * @throws Exception	if splitting fails
+   */
+  protected void schedule(SentenceWindow window, final SentenceStatistics stats) throws Exception {
+    List<SentenceJob>	queue;
+    int			d;
+
+    queue = new ArrayList<SentenceJob>();
+    for (d = 0; d < window.m_Docs.size(); d++) {
+      window.m_Sentences.add(ExecutorUtils.get(window.m_Splits.get(d)));
+      queue.addAll(window.m_Sentences.get(d));
+      if (getDebug())
+	debug("document #" + (stats.m_Documents + d + 1) + ": " + window.m_Sentences.get(d).size() + " sentence(s)");
+    }
+    stats.m_Documents += window.m_Docs.size();
+    if (m_LongestFirst) {
+      // stable, i.e., sentences of same length remain in document order
+      Collections.sort(queue, new Comparator<SentenceJob>() {
+	public int compare(SentenceJob o1, SentenceJob o2) {
+	  return o2.m_Words.size() - o1.m_Words.size();
+	}
+      });
+    }
+
+    for (final SentenceJob job: queue) {
+      stats.m_Sentences++;
+      stats.m_MaxTokens = Math.max(stats.m_MaxTokens, job.m_Words.size());
+      window.m_Jobs.add(getExecutor().submit(new Callable<Object>() {
+	public Object call() throws Exception {
+	  long start = System.nanoTime();
+	  job.m_Sentence = parseWords(job.m_Words, getContext(), false);
+	  job.m_Words    = null;
+	  stats.add(System.nanoTime() - start);
+	  return null;
+	}
+      }));
+    }
+  }
+
+  /**
+   * Waits for the sentences of the window to be parsed and generates the
+   * output instances. Rendering interns the sentences, i.e., the windows
+   * must be assembled in order.
+   *
+   * @param window	the window to assemble
+   * @param pattern	the pattern that the labels must match (null for match-all)
+   * @return		the output instances
+   * @throws Exception	if parsing fails
+   */
+  protected List<Instance> assemble(SentenceWindow window, Pattern pattern) throws Exception {
+    List<Instance>	result;
+    StringBuilder	doc;
+    String[]		docsTagged;
+    int			i;
+    int			d;
+
+    for (Future<?> job: window.m_Jobs)
+      ExecutorUtils.get(job);
+
+    result = new ArrayList<Instance>();
+    d      = 0;
+    for (i = 0; i < window.m_Instances.size(); i++) {
+      docsTagged = new String[window.m_Instances.get(i).numAttributes()];
+      while ((d < window.m_Docs.size()) && (window.m_Docs.get(d)[0] == i)) {
+	doc = new StringBuilder();
+	for (SentenceJob sentence: window.m_Sentences.get(d))
+	  append(doc, render(sentence.m_Sentence, pattern));
+	docsTagged[window.m_Docs.get(d)[1]] = doc.toString().trim();
+	d++;
+      }
+      result.add(createOutput(window.m_Instances.get(i), docsTagged));
+    }
+
+    return result;
+  }
+
+  /**
+   * Cancels the pending jobs of the window, if any.
+   *
+   * @param window	the window to cancel, can be null
+   */
+  protected void cancel(SentenceWindow window) {
+    if (window == null)
+      return;
+    ExecutorUtils.cancel(window.m_Splits);
+    ExecutorUtils.cancel(window.m_Jobs);
+  }
+
+  /**
+   * Stores the statistics of the parallel sentence parsing.
+   *
+   * @param stats	the statistics
+   * @see		#getStatistics()
+   */
+  protected void setStatistics(SentenceStatistics stats) {
+    long	wall;
+    int		numThreads;
+
+    wall         = System.nanoTime() - stats.m_Start;
+    numThreads   = ExecutorUtils.getNumThreads(m_NumThreads);
+    m_Statistics = "sentences=" + stats.m_Sentences
+      + ", longest-first=" + m_LongestFirst
+      + ", max-tokens=" + stats.m_MaxTokens
+      + ", threads=" + numThreads
+      + ", wall-msec=" + (wall / 1000000)
+      + ", busy-msec=" + (stats.m_Busy.get() / 1000000)
+      + ", longest-sentence-msec=" + (stats.m_Longest.get() / 1000000)
+      + ", utilisation=" + ((wall == 0) ? "0" : Utils.doubleToString(100.0 * stats.m_Busy.get() / wall / numThreads, 1)) + "%";
+    if (getDebug())
+      debug(m_Statistics);
+  }
+
+  /**
+   * Processes the given data in multi-threaded mode, distributing the
+   * sentences of the documents among the worker threads. The data gets
+   * processed in windows of {@link #WINDOW_PER_THREAD} instances per thread:
+   * the documents of a window get split and tokenized by the workers, then
+   * its sentences get queued up for parsing (longest first, if enabled).
+   * The next window gets split and queued up while the previous one is
+   * still being parsed, i.e., the workers do not run idle between windows
+   * and at most three windows are in memory. The tagged sentences get
+   * stitched back together in the original order.
+   *
+   * @param instances the data to process
+   * @return the modified data
+   * @throws Exception in case the processing goes wrong
+   */
+  protected Instances processSentences(Instances instances) throws Exception {
+    Instances		result;
+    SentenceWindow	previous;
+    SentenceWindow	current;
+    SentenceWindow	next;
+    SentenceStatistics	stats;
+    Pattern		pattern;
+    int			windowSize;
+    int			from;
+
+    pattern    = getLabelsPattern();
+    windowSize = ExecutorUtils.getNumThreads(m_NumThreads) * WINDOW_PER_THREAD;
+    stats      = new SentenceStatistics();
+    result     = new Instances(getOutputFormat(), instances.numInstances());
+    previous   = null;
+    current    = null;
+    next       = null;
+    from       = 0;
+    try {
+      if (instances.numInstances() > 0) {
+	next = split(instances.subList(0, Math.min(windowSize, instances.numInstances())));
+	from = windowSize;
+      }
+      while (next != null) {
+	current = next;
+	next    = null;
+	schedule(current, stats);
+	if (from < instances.numInstances()) {
+	  next = split(instances.subList(from, Math.min(from + windowSize, instances.numInstances())));
+	  from += windowSize;
+	}
+	if (previous != null)
+	  result.addAll(assemble(previous, pattern));
+	previous = current;
+	current  = null;
+      }
+      if (previous != null)
+	result.addAll(assemble(previous, pattern));
+    }
+    catch (Exception e) {
+      cancel(previous);
+      cancel(current);
+      cancel(next);
+      throw e;
+    }
+    setStatistics(stats);
+
+    return result;
+  }
+
+  /**
+   * Restores the filter and starts loading the model in the background,
+   * if enabled.
+   *
+   * @param in		the stream to read from
+   * @throws IOException	if reading fails
+   * @throws ClassNotFoundException	if a class cannot be found
+   */
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    m_WarmUpTime = -1;
+    preload();
+  }
+
   /**
    * Returns the revision string.
    *
@@ -769,16 +3019,14 @@ public class PartOfSpeechTagging
   }
 
   /**
-   * Returns the tokenizer factory to use.
+   * Returns the tokenizer factory to use, i.e., the one of the
+   * {@link PTBSentenceDetector}, unless a different one has been set.
    *
    * @return		the factory
    */
   public static synchronized TokenizerFactory getTokenizerFactory() {
-    if (m_TokenizerFactory == null) {
-      m_TokenizerFactory = PTBTokenizer.factory(
-	new CoreLabelTokenFactory(),
-	"normalizeParentheses=false,normalizeOtherBrackets=false,invertible=true");
-    }
+    if (m_TokenizerFactory == null)
+      m_TokenizerFactory = PTBSentenceDetector.getTokenizerFactory();
     return m_TokenizerFactory;
   }
 
@@ -0,0 +1,641 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * TextNormalization.java
+ * Copyright (C) 2019 University of Waikato, Hamilton, NZ
+ */
+
+package weka.filters.unsupervised.attribute;
+
+import weka.core.Instances;
+import weka.core.Option;
+import weka.core.RevisionUtils;
+import weka.core.SelectedTag;
+import weka.core.Tag;
+import weka.core.Utils;
+import weka.core.nlp.CaseFolder;
+import weka.core.nlp.TextNormalizer;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Vector;
+
+/**
+ <!-- globalinfo-start -->
+ * Normalizes the strings, applying the enabled steps in a single pass over each string (in this order): Unicode NFKC normalization, masking of URLs, removal of digits, removal of punctuation, case conversion and collapsing of white space.<br>
+ * The order is fixed, as the single pass relies on it: the normalization can create characters the other steps act on, the removal of punctuation would destroy URLs and the removals can create new runs of white space.<br>
+ * Replaces chaining several string filters, each of which would copy the data and add new strings. Sparse instances stay sparse. In batch mode, the strings can be normalized by multiple threads, with the output being identical to the single-threaded one.
+ * <br><br>
+ <!-- globalinfo-end -->
+ *
+ <!-- options-start -->
+ * Valid options are: <br>
+ *
+ * <pre> -case &lt;none|lower|upper&gt;
+ *  The case conversion to apply.
+ *  (default: lower)</pre>
+ *
+ * <pre> -locale &lt;locale&gt;
+ *  The locale to use for the case conversion, e.g., 'en' or 'tr_TR'.
+ *  Uses the default locale if empty.
+ *  (default: )</pre>
+ *
+ * <pre> -full-case-folding
+ *  Whether to apply full case folding when converting to lower case,
+ *  e.g., turning '&#223;' into 'ss'.
+ *  (default: off)</pre>
+ *
+ * <pre> -nfkc
+ *  Whether to apply Unicode NFKC normalization.
+ *  (default: off)</pre>
+ *
+ * <pre> -collapse-white-space
+ *  Whether to collapse runs of white space into a single blank
+ *  and remove leading/trailing white space.
+ *  (default: off)</pre>
+ *
+ * <pre> -strip-punctuation
+ *  Whether to remove punctuation.
+ *  (default: off)</pre>
+ *
+ * <pre> -strip-digits
+ *  Whether to remove digits.
+ *  (default: off)</pre>
+ *
+ * <pre> -mask-urls
+ *  Whether to replace URLs with the URL mask.
+ *  (default: off)</pre>
+ *
+ * <pre> -url-mask &lt;mask&gt;
+ *  The string to replace URLs with.
+ *  (default: &lt;URL&gt;)</pre>
+ *
+ * <pre> -R &lt;range&gt;
+ *  The attribute range to work on.
+ * This is a comma separated list of attribute indices, with "first" and "last" valid values.
+ *  Specify an inclusive range with "-".
+ *  E.g: "first-3,5,6-10,last".
+ *  (default: first-last)</pre>
+ *
+ * <pre> -reuse-string-values
+ *  Whether to reuse the output string of repeated input strings,
+ *  rather than transforming and adding them again.
+ *  (default: off)</pre>
+ *
+ * <pre> -num-threads &lt;int&gt;
+ *  The number of threads to use for transforming in batch mode; -1 for all cores.
+ *  (default: 1)</pre>
+ *
+ * <pre> -output-debug-info
+ *  If set, filter is run in debug mode and
+ *  may output additional info to the console</pre>
+ *
+ * <pre> -do-not-check-capabilities
+ *  If set, filter capabilities are not checked before filter is built
+ *  (use with caution).</pre>
+ *
+ <!-- options-end -->
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision$
+ */
+public class TextNormalization
+  extends AbstractStringAttributeFilter {
+
+  private static final long serialVersionUID = -7164331640883018529L;
+
+  /** leaves the case as is. */
+  public static final int CASE_NONE = 0;
+
+  /** converts to lower case. */
+  public static final int CASE_LOWER = 1;
+
+  /** converts to upper case. */
+  public static final int CASE_UPPER = 2;
+
+  /** the case conversions. */
+  public static final Tag[] TAGS_CASE = {
+    new Tag(CASE_NONE, "none"),
+    new Tag(CASE_LOWER, "lower"),
+    new Tag(CASE_UPPER, "upper"),
+  };
+
+  /** the default URL mask. */
+  public static final String DEFAULT_URL_MASK = "<URL>";
+
+  /** the case conversion. */
+  protected int m_Case = CASE_LOWER;
+
+  /** the locale to use (empty for default). */
+  protected String m_Locale = "";
+
+  /** whether to apply full case folding. */
+  protected boolean m_FullCaseFolding = false;
+
+  /** whether to apply NFKC normalization. */
+  protected boolean m_NFKC = false;
+
+  /** whether to collapse white space. */
+  protected boolean m_CollapseWhiteSpace = false;
+
+  /** whether to strip punctuation. */
+  protected boolean m_StripPunctuation = false;
+
+  /** whether to strip digits. */
+  protected boolean m_StripDigits = false;
+
+  /** whether to mask URLs. */
+  protected boolean m_MaskURLs = false;
+
+  /** the URL mask. */
+  protected String m_URLMask = DEFAULT_URL_MASK;
+
+  /** the normalizer in use. */
+  protected transient TextNormalizer m_Normalizer = null;
+
+  /**
+   * Returns a string describing this filter.
+   *
+   * @return a description of the filter suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  @Override
+  public String globalInfo() {
+    return
+      "Normalizes the strings, applying the enabled steps in a single pass "
+	+ "over each string (in this order): Unicode NFKC normalization, "
+	+ "masking of URLs, removal of digits, removal of punctuation, case "
+	+ "conversion and collapsing of white space.\n"
+	+ "The order is fixed, as the single pass relies on it: the "
+	+ "normalization can create characters the other steps act on, the "
+	+ "removal of punctuation would destroy URLs and the removals can "
+	+ "create new runs of white space.\n"
+	+ "Replaces chaining several string filters, each of which would copy "
+	+ "the data and add new strings. Sparse instances stay sparse. In batch "
+	+ "mode, the strings can be normalized by multiple threads, with the "
+	+ "output being identical to the single-threaded one.";
+  }
+
+  /**
+   * Returns an enumeration describing the available options.
+   *
+   * @return an enumeration of all the available options.
+   */
+  @Override
+  public Enumeration<Option> listOptions() {
+    Vector<Option> result = new Vector<Option>();
+
+    result.addElement(new Option("\tThe case conversion to apply.\n"
+      + "\t(default: lower)", "case", 1, "-case <none|lower|upper>"));
+
+    result.addElement(new Option("\tThe locale to use for the case conversion, e.g., 'en' or 'tr_TR'.\n"
+      + "\tUses the default locale if empty.\n"
+      + "\t(default: )", "locale", 1, "-locale <locale>"));
+
+    result.addElement(new Option("\tWhether to apply full case folding when converting to lower case,\n"
+      + "\te.g., turning '\u00df' into 'ss'.\n"
+      + "\t(default: off)", "full-case-folding", 0, "-full-case-folding"));
+
+    result.addElement(new Option("\tWhether to apply Unicode NFKC normalization.\n"
+      + "\t(default: off)", "nfkc", 0, "-nfkc"));
+
+    result.addElement(new Option("\tWhether to collapse runs of white space into a single blank\n"
+      + "\tand remove leading/trailing white space.\n"
+      + "\t(default: off)", "collapse-white-space", 0, "-collapse-white-space"));
+
+    result.addElement(new Option("\tWhether to remove punctuation.\n"
+      + "\t(default: off)", "strip-punctuation", 0, "-strip-punctuation"));
+
+    result.addElement(new Option("\tWhether to remove digits.\n"
+      + "\t(default: off)", "strip-digits", 0, "-strip-digits"));
+
+    result.addElement(new Option("\tWhether to replace URLs with the URL mask.\n"
+      + "\t(default: off)", "mask-urls", 0, "-mask-urls"));
+
+    result.addElement(new Option("\tThe string to replace URLs with.\n"
+      + "\t(default: " + DEFAULT_URL_MASK + ")", "url-mask", 1, "-url-mask <mask>"));
+
+    result.addAll(Collections.list(super.listOptions()));
+
+    return result.elements();
+  }
+
+  /**
+   * Parses a given list of options.
+   *
+   * @param options the list of options as an array of strings
+   * @throws Exception if an option is not supported
+   */
+  @Override
+  public void setOptions(String[] options) throws Exception {
+    String tmpStr;
+
+    tmpStr = Utils.getOption("case", options);
+    if (tmpStr.length() != 0)
+      setCase(new SelectedTag(tmpStr, TAGS_CASE));
+    else
+      setCase(new SelectedTag(CASE_LOWER, TAGS_CASE));
+
+    setLocale(Utils.getOption("locale", options));
+
+    setFullCaseFolding(Utils.getFlag("full-case-folding", options));
+
+    setNFKC(Utils.getFlag("nfkc", options));
+
+    setCollapseWhiteSpace(Utils.getFlag("collapse-white-space", options));
+
+    setStripPunctuation(Utils.getFlag("strip-punctuation", options));
+
+    setStripDigits(Utils.getFlag("strip-digits", options));
+
+    setMaskURLs(Utils.getFlag("mask-urls", options));
+
+    tmpStr = Utils.getOption("url-mask", options);
+    if (tmpStr.length() != 0)
+      setURLMask(tmpStr);
+    else
+      setURLMask(DEFAULT_URL_MASK);
+
+    super.setOptions(options);
+
+    Utils.checkForRemainingOptions(options);
+  }
+
+  /**
+   * Gets the current settings of the filter.
+   *
+   * @return an array of strings suitable for passing to setOptions
+   */
+  @Override
+  public String[] getOptions() {
+    Vector<String> result = new Vector<String>();
+
+    result.add("-case");
+    result.add(getCase().getSelectedTag().getReadable());
+
+    if (getLocale().length() > 0) {
+      result.add("-locale");
+      result.add(getLocale());
+    }
+
+    if (getFullCaseFolding())
+      result.add("-full-case-folding");
+
+    if (getNFKC())
+      result.add("-nfkc");
+
+    if (getCollapseWhiteSpace())
+      result.add("-collapse-white-space");
+
+    if (getStripPunctuation())
+      result.add("-strip-punctuation");
+
+    if (getStripDigits())
+      result.add("-strip-digits");
+
+    if (getMaskURLs())
+      result.add("-mask-urls");
+
+    result.add("-url-mask");
+    result.add(getURLMask());
+
+    Collections.addAll(result, super.getOptions());
+
+    return result.toArray(new String[result.size()]);
+  }
+
+  /**
+   * Sets the case conversion to apply.
+   *
+   * @param value the case conversion
+   */
+  public void setCase(SelectedTag value) {
+    if (value.getTags() == TAGS_CASE)
+      m_Case = value.getSelectedTag().getID();
+  }
+
+  /**
+   * Returns the case conversion to apply.
+   *
+   * @return the case conversion
+   */
+  public SelectedTag getCase() {
+    return new SelectedTag(m_Case, TAGS_CASE);
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String caseTipText() {
+    return "Whether to leave the case as is or to convert to lower or upper case.";
+  }
+
+  /**
+   * Sets the locale to use for the case conversion.
+   *
+   * @param value the locale (e.g., 'en' or 'tr_TR'), empty for default
+   */
+  public void setLocale(String value) {
+    m_Locale = value;
+  }
+
+  /**
+   * Returns the locale to use for the case conversion.
+   *
+   * @return the locale, empty for default
+   */
+  public String getLocale() {
+    return m_Locale;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String localeTipText() {
+    return
+      "The locale to use for the case conversion, e.g., 'en' or 'tr_TR'; "
+	+ "uses the default locale if empty.";
+  }
+
+  /**
+   * Sets whether to apply full case folding when converting to lower case.
+   *
+   * @param value if true then apply full case folding
+   */
+  public void setFullCaseFolding(boolean value) {
+    m_FullCaseFolding = value;
+  }
+
+  /**
+   * Returns whether to apply full case folding when converting to lower case.
+   *
+   * @return true if to apply full case folding
+   */
+  public boolean getFullCaseFolding() {
+    return m_FullCaseFolding;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String fullCaseFoldingTipText() {
+    return
+      "If enabled, full case folding gets applied when converting to lower "
+	+ "case, e.g., '\u00df' becomes 'ss'.";
+  }
+
+  /**
+   * Sets whether to apply Unicode NFKC normalization.
+   *
+   * @param value if true then normalize
+   */
+  public void setNFKC(boolean value) {
+    m_NFKC = value;
+  }
+
+  /**
+   * Returns whether to apply Unicode NFKC normalization.
+   *
+   * @return true if to normalize
+   */
+  public boolean getNFKC() {
+    return m_NFKC;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String NFKCTipText() {
+    return
+      "If enabled, Unicode NFKC normalization gets applied, e.g., turning "
+	+ "ligatures or full-width characters into their plain equivalents; "
+	+ "only strings with non-ASCII characters require an additional pass.";
+  }
+
+  /**
+   * Sets whether to collapse white space.
+   *
+   * @param value if true then collapse white space
+   */
+  public void setCollapseWhiteSpace(boolean value) {
+    m_CollapseWhiteSpace = value;
+  }
+
+  /**
+   * Returns whether to collapse white space.
+   *
+   * @return true if to collapse white space
+   */
+  public boolean getCollapseWhiteSpace() {
+    return m_CollapseWhiteSpace;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String collapseWhiteSpaceTipText() {
+    return
+      "If enabled, runs of white space (including non-breaking spaces) get "
+	+ "replaced by a single blank and leading/trailing white space gets "
+	+ "removed.";
+  }
+
+  /**
+   * Sets whether to remove punctuation.
+   *
+   * @param value if true then remove punctuation
+   */
+  public void setStripPunctuation(boolean value) {
+    m_StripPunctuation = value;
+  }
+
+  /**
+   * Returns whether to remove punctuation.
+   *
+   * @return true if to remove punctuation
+   */
+  public boolean getStripPunctuation() {
+    return m_StripPunctuation;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String stripPunctuationTipText() {
+    return "If enabled, punctuation characters (Unicode categories P*) get removed.";
+  }
+
+  /**
+   * Sets whether to remove digits.
+   *
+   * @param value if true then remove digits
+   */
+  public void setStripDigits(boolean value) {
+    m_StripDigits = value;
+  }
+
+  /**
+   * Returns whether to remove digits.
+   *
+   * @return true if to remove digits
+   */
+  public boolean getStripDigits() {
+    return m_StripDigits;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String stripDigitsTipText() {
+    return "If enabled, digits get removed.";
+  }
+
+  /**
+   * Sets whether to replace URLs with the URL mask.
+   *
+   * @param value if true then mask URLs
+   */
+  public void setMaskURLs(boolean value) {
+    m_MaskURLs = value;
+  }
+
+  /**
+   * Returns whether to replace URLs with the URL mask.
+   *
+   * @return true if to mask URLs
+   */
+  public boolean getMaskURLs() {
+    return m_MaskURLs;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String maskURLsTipText() {
+    return
+      "If enabled, tokens starting with 'http://', 'https://', 'ftp://' or "
+	+ "'www.' get replaced by the URL mask (up to the next white space).";
+  }
+
+  /**
+   * Sets the string to replace URLs with.
+   *
+   * @param value the mask
+   */
+  public void setURLMask(String value) {
+    m_URLMask = value;
+  }
+
+  /**
+   * Returns the string to replace URLs with.
+   *
+   * @return the mask
+   */
+  public String getURLMask() {
+    return m_URLMask;
+  }
+
+  /**
+   * Returns the tip text for this property.
+   *
+   * @return tip text for this property suitable for displaying in the
+   *         explorer/experimenter gui
+   */
+  public String URLMaskTipText() {
+    return "The string to replace URLs with; only the case conversion gets applied to it.";
+  }
+
+  /**
+   * Determines the output format based on the input format and returns this. In
+   * case the output format cannot be returned immediately, i.e.,
+   * hasImmediateOutputFormat() returns false, then this method will called from
+   * batchFinished() after the call of preprocess(Instances), in which, e.g.,
+   * statistics for the actual processing step can be gathered.
+   *
+   * @param inputFormat the input format to base the output format on
+   * @return the output format
+   * @throws Exception in case the determination goes wrong
+   */
+  @Override
+  protected Instances determineOutputFormat(Instances inputFormat) throws Exception {
+    CaseFolder		folder;
+
+    folder = null;
+    if (m_Case != CASE_NONE)
+      folder = new CaseFolder(CaseFolder.parseLocale(m_Locale), (m_Case == CASE_UPPER), m_FullCaseFolding);
+    m_Normalizer = new TextNormalizer(
+      folder, m_NFKC, m_CollapseWhiteSpace, m_StripPunctuation, m_StripDigits,
+      m_MaskURLs ? m_URLMask : null);
+    if (getDebug())
+      System.out.println(getClass().getName() + ": " + m_Normalizer);
+
+    return super.determineOutputFormat(inputFormat);
+  }
+
+  /**
+   * Normalizes the string.
+   *
+   * @param s		the string to normalize
+   * @return		the normalized string
+   * @see		TextNormalizer#normalize(String)
+   */
+  @Override
+  protected String transform(String s) {
+    return m_Normalizer.normalize(s);
+  }
+
+  /**
+   * Returns the revision string.
+   *
+   * @return		the revision
+   */
+  public String getRevision() {
+    return RevisionUtils.extract("$Revision: -1 $");
+  }
+
+  /**
+   * Main method for executing this filter.
+   *
+   * @param args arguments to the filter: use -h for help
+   */
+  public static void main(String[] args) {
+    runFilter(new TextNormalization(), args);
+  }
+}
@@ -23,14 +23,13 @@ package weka.gui.explorer;
 
 import edu.stanford.nlp.ling.Sentence;
 import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
-import edu.stanford.nlp.process.DocumentPreprocessor;
 import edu.stanford.nlp.trees.Tree;
-import edu.stanford.nlp.util.StringUtils;
 import weka.core.Instances;
-import weka.core.Utils;
+import weka.core.nlp.ParserModelRegistry;
+import weka.core.nlp.ReusableParserQuery;
+import weka.core.tokenizers.SentenceTokenizer;
 import weka.core.tokenizers.Tokenizer;
 import weka.core.tokenizers.WhiteSpaceTokenizer;
-import weka.filters.unsupervised.attribute.PartOfSpeechTagging;
 import weka.gui.ExtensionFileFilter;
 import weka.gui.GenericObjectEditor;
 import weka.gui.Logger;
@@ -63,7 +62,6 @@ import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -122,12 +120,24 @@ public class NLPParseTreePanel
   /** The panel showing the current tokenizer selection. */
   protected PropertyPanel m_PanelTokenizer;
 
+  /** the tokenizer for splitting documents into sentences. */
+  protected SentenceTokenizer m_SentenceTokenizer;
+
+  /** Lets the user configure the sentence tokenizer. */
+  protected GenericObjectEditor m_EditorSentenceTokenizer;
+
+  /** The panel showing the current sentence tokenizer selection. */
+  protected PropertyPanel m_PanelSentenceTokenizer;
+
   /** the button for parsing. */
   protected JButton m_ButtonParse;
 
-  /** the parser in use. */
+  /** the parser in use (shared via the {@link ParserModelRegistry}). */
   protected LexicalizedParser m_Parser;
 
+  /** the parser query reused across sentences. */
+  protected ReusableParserQuery m_Query;
+
   /**
    * Creates the Experiment panel.
    */
@@ -148,7 +158,9 @@ public class NLPParseTreePanel
     m_Log       = new SysErrLog();
     m_FileModel = null;
     m_Parser    = null;
+    m_Query     = null;
     m_Tokenizer = new WhiteSpaceTokenizer();
+    m_SentenceTokenizer = new SentenceTokenizer();
 
     m_FileChooserModel = new JFileChooser();
     m_FileChooserModel.setFileSelectionMode(JFileChooser.FILES_ONLY);
@@ -166,6 +178,15 @@ public class NLPParseTreePanel
         repaint();
       }
     });
+
+    m_EditorSentenceTokenizer = new GenericObjectEditor();
+    m_EditorSentenceTokenizer.setClassType(SentenceTokenizer.class);
+    m_EditorSentenceTokenizer.setValue(m_SentenceTokenizer);
+    m_EditorSentenceTokenizer.addPropertyChangeListener(new PropertyChangeListener() {
+      public void propertyChange(PropertyChangeEvent e) {
+        repaint();
+      }
+    });
   }
 
   /**
@@ -180,7 +201,7 @@ public class NLPParseTreePanel
 
     setLayout(new BorderLayout());
 
-    panelAll = new JPanel(new GridLayout(6, 1));
+    panelAll = new JPanel(new GridLayout(7, 1));
     add(panelAll, BorderLayout.NORTH);
 
     labels = new ArrayList<JLabel>();
@@ -269,6 +290,17 @@ public class NLPParseTreePanel
     panel.add(m_PanelTokenizer);
     panelAll.add(panel);
 
+    // sentence tokenizer
+    m_PanelSentenceTokenizer = new PropertyPanel(m_EditorSentenceTokenizer);
+    m_PanelSentenceTokenizer.setPreferredSize(new Dimension(400, 25));
+    label = new JLabel("Sentences");
+    label.setLabelFor(m_PanelSentenceTokenizer);
+    labels.add(label);
+    panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+    panel.add(label);
+    panel.add(m_PanelSentenceTokenizer);
+    panelAll.add(panel);
+
     // parse
     m_ButtonParse = new JButton("Start");
     m_ButtonParse.addActionListener(new ActionListener() {
@@ -364,16 +396,11 @@ public class NLPParseTreePanel
    */
   protected List<String> getSentences(String doc) {
     List<String>		result;
-    DocumentPreprocessor preProcessor;
 
     result = new ArrayList<String>();
 
     try {
-      preProcessor = new DocumentPreprocessor(new StringReader(doc));
-      preProcessor.setTokenizerFactory(PartOfSpeechTagging.getTokenizerFactory());
-
-      for (List sentence : preProcessor)
-        result.add(StringUtils.joinWithOriginalWhiteSpace(sentence));
+      result = m_SentenceTokenizer.split(doc);
     }
     catch (Exception e) {
       showErrorMessage("Parsing error", "Failed to split document into sentences!", e);
@@ -423,7 +450,7 @@ public class NLPParseTreePanel
     while (m_Tokenizer.hasMoreElements())
       words.add(m_Tokenizer.nextElement());
     // generate parse tree
-    tree = m_Parser.apply(Sentence.toWordList(words.toArray(new String[words.size()])));
+    tree = m_Query.parse(Sentence.toWordList(words.toArray(new String[words.size()])));
     stree.setTree(tree);
     stree.expandAll();
 
@@ -436,6 +463,7 @@ public class NLPParseTreePanel
   protected void parse() {
     List<String>  sentences;
     JPanel        panel;
+    int           failures;
     int           i;
 
     if (m_ComboBoxValues.getSelectedIndex() == -1) {
@@ -452,8 +480,8 @@ public class NLPParseTreePanel
     }
     if (m_Parser == null) {
       try {
-        m_Parser = edu.stanford.nlp.parser.lexparser.LexicalizedParser.loadModel(
-          m_FileModel.getAbsolutePath(), Utils.splitOptions(m_TextOptions.getText()));
+        m_Parser = ParserModelRegistry.acquire(this, m_FileModel, m_TextOptions.getText());
+        m_Query  = new ReusableParserQuery(m_Parser, ReusableParserQuery.DEFAULT_MAX_CHART_LENGTH);
       }
       catch (Exception e) {
         showErrorMessage("Parser instantiation", "Failed to instantiate parser!", e);
@@ -461,9 +489,11 @@ public class NLPParseTreePanel
       }
     }
     m_Tokenizer = (Tokenizer) m_EditorTokenizer.getValue();
+    m_SentenceTokenizer = (SentenceTokenizer) m_EditorSentenceTokenizer.getValue();
 
     m_ButtonParse.setEnabled(false);
     m_PanelTrees.removeAll();
+    failures  = m_Query.getNumFailures();
     sentences = getSentences((String) m_ComboBoxValues.getSelectedItem());
     for (i = 0; i < sentences.size(); i++) {
       try {
@@ -475,6 +505,8 @@ public class NLPParseTreePanel
         break;
       }
     }
+    if (m_Query.getNumFailures() > failures)
+      m_Log.logMessage((m_Query.getNumFailures() - failures) + " sentence(s) failed to parse, using fall through strategy: " + m_Query.getLastFailure());
     m_ButtonParse.setEnabled(true);
   }
 
@@ -483,7 +515,9 @@ public class NLPParseTreePanel
    */
   protected void clear() {
     m_PanelTrees.removeAll();
+    ParserModelRegistry.release(this);
     m_Parser = null;
+    m_Query  = null;
   }
 
   /**
@@ -0,0 +1,97 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.core.nlp;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import java.util.Locale;
+
+/**
+ * Tests CaseFolder. Run from the command line with:<p>
+ * java weka.core.nlp.CaseFolderTest
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public class CaseFolderTest extends TestCase {
+
+  public CaseFolderTest(String name) {
+    super(name);
+  }
+
+  public void testASCII() {
+    CaseFolder lower = new CaseFolder(Locale.ENGLISH, false, false);
+    CaseFolder upper = new CaseFolder(Locale.ENGLISH, true, false);
+    assertEquals("hello, world 42!", lower.convert("Hello, WORLD 42!"));
+    assertEquals("HELLO, WORLD 42!", upper.convert("Hello, world 42!"));
+    // strings already in the target case get returned as is
+    String s = "hello, world 42!";
+    assertSame(s, lower.convert(s));
+    s = "HELLO, WORLD 42!";
+    assertSame(s, upper.convert(s));
+    assertSame("", lower.convert(""));
+  }
+
+  public void testTurkish() {
+    Locale tr = CaseFolder.parseLocale("tr");
+    CaseFolder lower = new CaseFolder(tr, false, false);
+    CaseFolder upper = new CaseFolder(tr, true, false);
+    // dotless and dotted i
+    assertEquals("\u0131stanbul", lower.convert("ISTANBUL"));
+    assertEquals("istanbul", lower.convert("\u0130STANBUL"));
+    assertEquals("\u0130STANBUL", upper.convert("istanbul"));
+    // other locales use the plain ASCII mapping
+    assertEquals("istanbul", new CaseFolder(Locale.ENGLISH, false, false).convert("ISTANBUL"));
+  }
+
+  public void testFullCaseFolding() {
+    CaseFolder folder = new CaseFolder(Locale.ROOT, false, true);
+    assertTrue(folder.getFullFolding());
+    assertEquals("strasse", folder.convert("Stra\u00DFe"));
+    assertEquals(folder.convert("STRASSE"), folder.convert("Stra\u00DFe"));
+    // the final sigma gets mapped to the regular one
+    assertEquals("\u03BF\u03B4\u03BF\u03C3", folder.convert("\u039F\u0394\u039F\u03A3"));
+    assertEquals(folder.convert("\u03BF\u03B4\u03BF\u03C2"), folder.convert("\u039F\u0394\u039F\u03A3"));
+    // without full case folding, these characters remain
+    CaseFolder lower = new CaseFolder(Locale.ROOT, false, false);
+    assertEquals("stra\u00DFe", lower.convert("Stra\u00DFe"));
+    assertEquals("\u03BF\u03B4\u03BF\u03C2", lower.convert("\u039F\u0394\u039F\u03A3"));
+    // not applicable to upper case
+    assertFalse(new CaseFolder(Locale.ROOT, true, true).getFullFolding());
+  }
+
+  public void testParseLocale() {
+    assertEquals(Locale.getDefault(), CaseFolder.parseLocale(" "));
+    assertEquals(new Locale("tr"), CaseFolder.parseLocale("tr"));
+    assertEquals(new Locale("en", "US"), CaseFolder.parseLocale("en_US"));
+    assertEquals(new Locale("tr", "TR"), CaseFolder.parseLocale("tr-TR"));
+  }
+
+  public static Test suite() {
+    return new TestSuite(CaseFolderTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
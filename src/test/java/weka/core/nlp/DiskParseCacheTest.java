@@ -0,0 +1,409 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.core.nlp;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import weka.tests.TestHelper;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Tests DiskParseCache. Run from the command line with:<p>
+ * java weka.core.nlp.DiskParseCacheTest
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public class DiskParseCacheTest extends TestCase {
+
+  /** the cache directory. */
+  protected File m_Directory;
+
+  public DiskParseCacheTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception if an error occurs
+   */
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    m_Directory = new File(TestHelper.getTmpDirectory() + File.separator + "DiskParseCacheTest");
+    delete();
+  }
+
+  /**
+   * Called by JUnit after each test method.
+   *
+   * @throws Exception if an error occurs
+   */
+  @Override
+  protected void tearDown() throws Exception {
+    delete();
+    super.tearDown();
+  }
+
+  /**
+   * Removes the cache directory.
+   */
+  protected void delete() {
+    File[] files = m_Directory.listFiles();
+    if (files != null) {
+      for (File file: files)
+	file.delete();
+    }
+    m_Directory.delete();
+  }
+
+  /**
+   * Creates a sentence with a single word.
+   *
+   * @param word	the word
+   * @return		the sentence
+   */
+  protected TaggedSentence sentence(String word) {
+    return new TaggedSentence(new String[]{"NN"}, new String[]{word});
+  }
+
+  /**
+   * Returns the key for the sentence with the single word.
+   *
+   * @param word	the word
+   * @return		the key
+   */
+  protected byte[] key(String word) {
+    return DiskParseCache.createKey("model", word);
+  }
+
+  /**
+   * Returns the description of the cached sentence.
+   *
+   * @param cache	the cache to query
+   * @param word	the word of the sentence
+   * @return		the description, null if not cached
+   */
+  protected String get(DiskParseCache cache, String word) {
+    TaggedSentence sentence = cache.get(key(word));
+    return (sentence == null) ? null : sentence.toString();
+  }
+
+  public void testRoundTrip() throws Exception {
+    DiskParseCache cache = new DiskParseCache(m_Directory, 100);
+    for (String word: new String[]{"cat", "dog", "bird", "fish"})
+      cache.put(key(word), sentence(word));
+    assertEquals("NN:cat", get(cache, "cat"));
+    cache.close();
+
+    // records of full and of active segments survive
+    cache = new DiskParseCache(m_Directory, 100);
+    try {
+      assertEquals(4, cache.size());
+      for (String word: new String[]{"cat", "dog", "bird", "fish"})
+	assertEquals("NN:" + word, get(cache, word));
+      assertNull(get(cache, "cow"));
+      // same sentence, different model
+      assertNull(cache.get(DiskParseCache.createKey("other", "cat")));
+    }
+    finally {
+      cache.close();
+    }
+  }
+
+  public void testTruncatedRecord() throws Exception {
+    DiskParseCache cache = new DiskParseCache(m_Directory);
+    cache.put(key("cat"), sentence("cat"));
+    cache.put(key("dog"), sentence("dog"));
+    File segment = cache.getSegmentFile(0);
+    cache.close();
+
+    // partially written last record, e.g., after a crash
+    RandomAccessFile file = new RandomAccessFile(segment, "rw");
+    long length = file.length();
+    file.setLength(length - 3);
+    file.close();
+
+    cache = new DiskParseCache(m_Directory);
+    try {
+      assertEquals(1, cache.size());
+      assertEquals("NN:cat", get(cache, "cat"));
+      assertNull(get(cache, "dog"));
+      // the partial record got removed, new records get appended
+      assertEquals(length / 2, segment.length());
+      cache.put(key("dog"), sentence("dog"));
+      assertEquals("NN:dog", get(cache, "dog"));
+    }
+    finally {
+      cache.close();
+    }
+  }
+
+  public void testCorruptRecord() throws Exception {
+    DiskParseCache cache = new DiskParseCache(m_Directory);
+    cache.put(key("cat"), sentence("cat"));
+    cache.put(key("dog"), sentence("dog"));
+    File segment = cache.getSegmentFile(0);
+    cache.close();
+
+    // flip a byte in the encoded sentence of the last record
+    RandomAccessFile file = new RandomAccessFile(segment, "rw");
+    long pos = file.length() - 5;
+    file.seek(pos);
+    int b = file.read();
+    file.seek(pos);
+    file.write(b ^ 0xFF);
+    file.close();
+
+    // the checksum fails, the record gets dropped
+    cache = new DiskParseCache(m_Directory);
+    try {
+      assertEquals(1, cache.size());
+      assertEquals("NN:cat", get(cache, "cat"));
+      assertNull(get(cache, "dog"));
+    }
+    finally {
+      cache.close();
+    }
+  }
+
+  public void testReadError() throws Exception {
+    DiskParseCache cache = new DiskParseCache(m_Directory);
+    try {
+      cache.put(key("cat"), sentence("cat"));
+      cache.put(key("dog"), sentence("dog"));
+
+      // flip a byte in the encoded sentence of the last record
+      RandomAccessFile file = new RandomAccessFile(cache.getSegmentFile(0), "rw");
+      long pos = file.length() - 5;
+      file.seek(pos);
+      int b = file.read();
+      file.seek(pos);
+      file.write(b ^ 0xFF);
+      file.close();
+
+      // the record gets dropped and counted
+      assertNull(get(cache, "dog"));
+      assertEquals(1, cache.size());
+      assertEquals("NN:cat", get(cache, "cat"));
+      assertTrue(cache.toString(), cache.toString().contains("errors=1"));
+    }
+    finally {
+      cache.close();
+    }
+  }
+
+  public void testConcurrentAccess() throws Exception {
+    final DiskParseCache cache = new DiskParseCache(m_Directory, 1000);
+    ExecutorService executor = ExecutorUtils.newPool(4, getClass().getSimpleName());
+    try {
+      for (int i = 0; i < 50; i++)
+	cache.put(key("word" + i), sentence("word" + i));
+      List<Future<Boolean>> jobs = new ArrayList<Future<Boolean>>();
+      for (int t = 0; t < 8; t++) {
+	final int offset = t * 100;
+	jobs.add(executor.submit(new Callable<Boolean>() {
+	  public Boolean call() throws Exception {
+	    for (int i = 0; i < 50; i++) {
+	      // readers and writers interleave, new records seal segments
+	      if (!("NN:word" + i).equals(get(cache, "word" + i)))
+		return false;
+	      cache.put(key("word" + (offset + 1000 + i)), sentence("word" + (offset + 1000 + i)));
+	    }
+	    return true;
+	  }
+	}));
+      }
+      for (Future<Boolean> job: jobs)
+	assertTrue(ExecutorUtils.get(job));
+      assertEquals(50 + 8 * 50, cache.size());
+      assertEquals("NN:word1049", get(cache, "word1049"));
+      assertEquals("NN:word1749", get(cache, "word1749"));
+    }
+    finally {
+      executor.shutdown();
+      cache.close();
+    }
+  }
+
+  public void testCompaction() throws Exception {
+    DiskParseCache cache = new DiskParseCache(m_Directory, 100);
+    try {
+      cache.put(key("cat"), sentence("cat"));
+      // superseded records
+      for (int i = 0; i < 10; i++)
+	cache.put(key("dog"), sentence("dog" + i));
+      assertTrue(cache.needsCompaction());
+      int segments = cache.getSegmentIDs().length;
+      assertTrue(segments > 1);
+      cache.compact();
+      assertFalse(cache.needsCompaction());
+      assertTrue(cache.getSegmentIDs().length < segments);
+      assertEquals(2, cache.size());
+      assertEquals("NN:cat", get(cache, "cat"));
+      assertEquals("NN:dog9", get(cache, "dog"));
+      cache.close();
+
+      // only the live records remain on disk
+      cache = new DiskParseCache(m_Directory, 100);
+      assertEquals(2, cache.size());
+      assertFalse(cache.needsCompaction());
+      assertEquals("NN:dog9", get(cache, "dog"));
+    }
+    finally {
+      cache.close();
+    }
+  }
+
+  /**
+   * Returns the number of bytes stored in the cache directory.
+   *
+   * @return		the number of bytes
+   */
+  protected long getDiskSize() {
+    long result = 0;
+    for (File file: m_Directory.listFiles())
+      result += file.length();
+    return result;
+  }
+
+  public void testRetention() throws Exception {
+    int maxAge = 3;
+    long maxSize = 0;
+    // nightly runs: recurring sentences and ones that only occur once
+    for (int night = 0; night < 40; night++) {
+      DiskParseCache cache = new DiskParseCache(m_Directory, 1000, maxAge);
+      try {
+	cache.startRun("model");
+	// at most the recurring sentences and the ones of the last runs
+	assertTrue(cache.toString(), cache.size() <= 10 + 10 * (maxAge + 1));
+	for (int i = 0; i < 10; i++) {
+	  if (night > 0)
+	    assertEquals("NN:recurring" + i, get(cache, "recurring" + i));
+	  else
+	    cache.put(key("recurring" + i), sentence("recurring" + i));
+	}
+	for (int i = 0; i < 10; i++)
+	  cache.put(key("night" + night + "-" + i), sentence("night" + night + "-" + i));
+	if (night > maxAge) {
+	  // a hit renews the record, i.e., only check one that never got used
+	  assertNull(get(cache, "night" + (night - maxAge - 1) + "-1"));
+	  assertEquals("NN:night" + (night - maxAge) + "-2", get(cache, "night" + (night - maxAge) + "-2"));
+	}
+	if (cache.needsCompaction())
+	  cache.compact();
+	maxSize = Math.max(maxSize, getDiskSize());
+      }
+      finally {
+	cache.close();
+      }
+    }
+    // without expiring, the cache would hold 410 records of about 60 bytes
+    assertTrue("size: " + maxSize, maxSize < 10000);
+  }
+
+  public void testModelChange() throws Exception {
+    DiskParseCache cache = new DiskParseCache(m_Directory);
+    try {
+      cache.startRun("model-1");
+      for (int i = 0; i < 10; i++)
+	cache.put(DiskParseCache.createKey("model-1", "word" + i), sentence("word" + i));
+      cache.startRun("model-2");
+      cache.put(DiskParseCache.createKey("model-2", "word0"), sentence("word0"));
+      // both models are in use
+      assertFalse(cache.needsCompaction());
+    }
+    finally {
+      cache.close();
+    }
+
+    // the model file changed, i.e., only the new model is in use
+    cache = new DiskParseCache(m_Directory);
+    try {
+      assertEquals(11, cache.size());
+      cache.startRun("model-3");
+      cache.put(DiskParseCache.createKey("model-3", "word0"), sentence("word0"));
+      assertTrue(cache.needsCompaction());
+      cache.compact();
+      assertEquals(1, cache.size());
+      assertNull(cache.get(DiskParseCache.createKey("model-1", "word0")));
+      assertNotNull(cache.get(DiskParseCache.createKey("model-3", "word0")));
+    }
+    finally {
+      cache.close();
+    }
+
+    // compaction removed the old segments
+    cache = new DiskParseCache(m_Directory);
+    try {
+      assertEquals(1, cache.size());
+      assertFalse(cache.needsCompaction());
+    }
+    finally {
+      cache.close();
+    }
+  }
+
+  public void testLock() throws Exception {
+    DiskParseCache writer = new DiskParseCache(m_Directory);
+    DiskParseCache reader = null;
+    try {
+      writer.put(key("cat"), sentence("cat"));
+      assertFalse(writer.isReadOnly());
+
+      // the directory is already locked
+      reader = new DiskParseCache(m_Directory);
+      assertTrue(reader.isReadOnly());
+      assertEquals("NN:cat", get(reader, "cat"));
+      reader.put(key("dog"), sentence("dog"));
+      assertNull(get(reader, "dog"));
+      reader.close();
+
+      // once released, the lock can be acquired again
+      writer.close();
+      writer = new DiskParseCache(m_Directory);
+      assertFalse(writer.isReadOnly());
+      assertEquals("NN:cat", get(writer, "cat"));
+    }
+    finally {
+      if (reader != null)
+	reader.close();
+      writer.close();
+    }
+  }
+
+  public static Test suite() {
+    return new TestSuite(DiskParseCacheTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.core.nlp;
+
+import edu.stanford.nlp.ling.Word;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import java.util.Arrays;
+
+/**
+ * Tests ParseCache. Run from the command line with:<p>
+ * java weka.core.nlp.ParseCacheTest
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public class ParseCacheTest extends TestCase {
+
+  public ParseCacheTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Creates a sentence with a single word.
+   *
+   * @param word	the word
+   * @return		the sentence
+   */
+  protected TaggedSentence sentence(String word) {
+    return new TaggedSentence(new String[]{"NN"}, new String[]{word});
+  }
+
+  public void testCreateKey() {
+    String key = ParseCache.createKey(Arrays.asList(new Word("a"), new Word("b c")));
+    assertEquals("a" + ParseCache.SEPARATOR + "b c", key);
+    // word boundaries are part of the key
+    assertFalse(key.equals(ParseCache.createKey(Arrays.asList(new Word("a b"), new Word("c")))));
+  }
+
+  public void testHitsAndMisses() {
+    ParseCache cache = new ParseCache(10, -1);
+    TaggedSentence s = sentence("cat");
+    assertNull(cache.get("cat"));
+    cache.put("cat", s);
+    assertSame(s, cache.get("cat"));
+    assertSame(s, cache.get("cat"));
+    assertNull(cache.get("dog"));
+    assertEquals(2, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertTrue(cache.toString(), cache.toString().contains("hit-rate=50"));
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.sizeOf());
+    assertEquals(0, cache.getHits());
+    assertEquals(0, cache.getMisses());
+  }
+
+  public void testMaxEntries() {
+    ParseCache cache = new ParseCache(2, -1);
+    cache.put("a", sentence("a"));
+    cache.put("b", sentence("b"));
+    // accessing "a" makes "b" the least recently used entry
+    cache.get("a");
+    cache.put("c", sentence("c"));
+    assertEquals(2, cache.size());
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("c"));
+    assertTrue(cache.toString(), cache.toString().contains("evictions=1"));
+  }
+
+  public void testMaxBytes() {
+    ParseCache unlimited = new ParseCache(100, -1);
+    unlimited.put("a", sentence("a"));
+    long entry = unlimited.sizeOf();
+    assertTrue(entry > 0);
+    // room for two entries of the same size
+    ParseCache cache = new ParseCache(100, 2 * entry + entry / 2);
+    cache.put("a", sentence("a"));
+    cache.put("b", sentence("b"));
+    cache.put("c", sentence("c"));
+    assertEquals(2, cache.size());
+    assertEquals(2 * entry, cache.sizeOf());
+    assertNull(cache.get("a"));
+    // replacing an entry does not count it twice
+    cache.put("c", sentence("d"));
+    assertEquals(2, cache.size());
+    assertEquals(2 * entry, cache.sizeOf());
+  }
+
+  public static Test suite() {
+    return new TestSuite(ParseCacheTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
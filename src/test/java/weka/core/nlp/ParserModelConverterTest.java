@@ -0,0 +1,113 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.core.nlp;
+
+import edu.stanford.nlp.ling.Sentence;
+import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import weka.tests.TestHelper;
+
+import java.io.File;
+
+/**
+ * Tests ParserModelConverter. Run from the command line with:<p>
+ * java weka.core.nlp.ParserModelConverterTest
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public class ParserModelConverterTest extends TestCase {
+
+  /** the compressed model file. */
+  protected File m_Model;
+
+  /** the uncompressed model file. */
+  protected File m_Converted;
+
+  public ParserModelConverterTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception if an error occurs
+   */
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    TestHelper.copyResourceToTmp("weka/filters/unsupervised/attribute/data/englishPCFG.ser.gz");
+    m_Model     = new File(TestHelper.getTmpDirectory() + File.separator + "englishPCFG.ser.gz");
+    m_Converted = new File(TestHelper.getTmpDirectory() + File.separator + "englishPCFG.ser");
+  }
+
+  /**
+   * Called by JUnit after each test method.
+   *
+   * @throws Exception if an error occurs
+   */
+  @Override
+  protected void tearDown() throws Exception {
+    TestHelper.deleteFileFromTmp("englishPCFG.ser.gz");
+    TestHelper.deleteFileFromTmp("englishPCFG.ser");
+    super.tearDown();
+  }
+
+  public void testCompressedOutput() throws Exception {
+    try {
+      ParserModelConverter.convert(m_Model, new File(TestHelper.getTmpDirectory() + File.separator + "out.ser.gz"));
+      fail("gzip compressed output not detected");
+    }
+    catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testConvert() throws Exception {
+    ParserModelConverter.convert(m_Model, m_Converted);
+    assertFalse(ParserModelRegistry.isUncompressed(m_Model));
+    assertTrue(ParserModelRegistry.isUncompressed(m_Converted));
+
+    // the memory-mapped model parses like the original one
+    LexicalizedParser original = LexicalizedParser.loadModel(m_Model.getAbsolutePath());
+    LexicalizedParser mapped = ParserModelRegistry.loadMapped(m_Converted);
+    String[][] sentences = {
+      {"The", "cat", "sat", "on", "the", "mat", "."},
+      {"Humpty", "Dumpty", "had", "a", "great", "fall", "."},
+      {"Colorless", "green", "ideas", "sleep", "furiously", "."},
+    };
+    for (String[] sentence: sentences) {
+      assertEquals(
+	original.parse(Sentence.toWordList(sentence)).toString(),
+	mapped.parse(Sentence.toWordList(sentence)).toString());
+    }
+  }
+
+  public static Test suite() {
+    return new TestSuite(ParserModelConverterTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
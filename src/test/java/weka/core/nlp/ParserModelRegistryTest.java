@@ -0,0 +1,157 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.core.nlp;
+
+import edu.stanford.nlp.parser.lexparser.LexicalizedParser;
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import weka.tests.TestHelper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Tests ParserModelRegistry. Run from the command line with:<p>
+ * java weka.core.nlp.ParserModelRegistryTest
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public class ParserModelRegistryTest extends TestCase {
+
+  /** the model file. */
+  protected File m_Model;
+
+  public ParserModelRegistryTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception if an error occurs
+   */
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    TestHelper.copyResourceToTmp("weka/filters/unsupervised/attribute/data/englishPCFG.ser.gz");
+    m_Model = new File(TestHelper.getTmpDirectory() + File.separator + "englishPCFG.ser.gz");
+  }
+
+  /**
+   * Called by JUnit after each test method.
+   *
+   * @throws Exception if an error occurs
+   */
+  @Override
+  protected void tearDown() throws Exception {
+    TestHelper.deleteFileFromTmp("englishPCFG.ser.gz");
+    super.tearDown();
+  }
+
+  public void testSharing() throws Exception {
+    Object owner1 = new Object();
+    Object owner2 = new Object();
+    try {
+      LexicalizedParser parser1 = ParserModelRegistry.acquire(owner1, m_Model, "");
+      LexicalizedParser parser2 = ParserModelRegistry.acquire(owner2, m_Model, null);
+      // same model and (empty) options, i.e., the same instance
+      assertSame(parser1, parser2);
+      assertEquals(2, ParserModelRegistry.numOwners(m_Model, ""));
+      // acquiring again does not add the owner twice
+      assertSame(parser1, ParserModelRegistry.acquire(owner1, m_Model, ""));
+      assertEquals(2, ParserModelRegistry.numOwners(m_Model, ""));
+    }
+    finally {
+      ParserModelRegistry.release(owner1);
+      ParserModelRegistry.release(owner2);
+    }
+  }
+
+  public void testRelease() throws Exception {
+    Object owner1 = new Object();
+    Object owner2 = new Object();
+    try {
+      LexicalizedParser parser = ParserModelRegistry.acquire(owner1, m_Model, "");
+      ParserModelRegistry.acquire(owner2, m_Model, "");
+      ParserModelRegistry.release(owner1);
+      assertEquals(1, ParserModelRegistry.numOwners(m_Model, ""));
+      assertTrue(ParserModelRegistry.isLoaded(m_Model, ""));
+      ParserModelRegistry.release(owner2);
+      assertEquals(0, ParserModelRegistry.numOwners(m_Model, ""));
+      // releasing an owner twice or an unknown owner is a no-op
+      ParserModelRegistry.release(owner2);
+      ParserModelRegistry.release(new Object());
+      assertEquals(0, ParserModelRegistry.numOwners(m_Model, ""));
+      // unless reclaimed, the model gets reused
+      if (ParserModelRegistry.isLoaded(m_Model, ""))
+	assertSame(parser, ParserModelRegistry.acquire(owner1, m_Model, ""));
+    }
+    finally {
+      ParserModelRegistry.release(owner1);
+      ParserModelRegistry.release(owner2);
+    }
+  }
+
+  public void testConcurrentAcquireRelease() throws Exception {
+    final Object holder = new Object();
+    ExecutorService executor = ExecutorUtils.newPool(4, getClass().getSimpleName());
+    try {
+      final LexicalizedParser parser = ParserModelRegistry.acquire(holder, m_Model, "");
+      List<Future<Boolean>> jobs = new ArrayList<Future<Boolean>>();
+      for (int i = 0; i < 8; i++) {
+	jobs.add(executor.submit(new Callable<Boolean>() {
+	  public Boolean call() throws Exception {
+	    for (int n = 0; n < 100; n++) {
+	      Object owner = new Object();
+	      boolean same = (ParserModelRegistry.acquire(owner, m_Model, "") == parser);
+	      ParserModelRegistry.release(owner);
+	      if (!same)
+		return false;
+	    }
+	    return true;
+	  }
+	}));
+      }
+      // owners coming and going must never cause the model to be loaded again
+      for (Future<Boolean> job: jobs)
+	assertTrue(ExecutorUtils.get(job));
+      assertEquals(1, ParserModelRegistry.numOwners(m_Model, ""));
+    }
+    finally {
+      executor.shutdown();
+      ParserModelRegistry.release(holder);
+    }
+  }
+
+  public static Test suite() {
+    return new TestSuite(ParserModelRegistryTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.core.nlp;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import weka.core.Attribute;
+
+import java.util.List;
+
+/**
+ * Tests StringValuePool. Run from the command line with:<p>
+ * java weka.core.nlp.StringValuePoolTest
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public class StringValuePoolTest extends TestCase {
+
+  public StringValuePoolTest(String name) {
+    super(name);
+  }
+
+  public void testReuse() {
+    Attribute att = new Attribute("text", (List<String>) null);
+    StringValuePool pool = new StringValuePool();
+    assertEquals(-1, pool.get(att, "Foo"));
+    int index = pool.add(att, "Foo", "foo");
+    assertEquals("foo", att.value(index));
+    // the index gets reused without adding the string again
+    int numValues = att.numValues();
+    assertEquals(index, pool.get(att, "Foo"));
+    assertEquals(numValues, att.numValues());
+    assertEquals(-1, pool.get(att, "FOO"));
+    assertEquals(index, pool.add(att, "FOO", "foo"));
+    assertEquals(2, pool.size());
+    assertTrue(pool.toString(), pool.toString().startsWith("strings=2, hits=1, misses=2,"));
+  }
+
+  public void testOtherAttribute() {
+    Attribute att = new Attribute("text", (List<String>) null);
+    StringValuePool pool = new StringValuePool();
+    pool.add(att, "Foo", "foo");
+    // a new output format, e.g., after flushing the string values
+    Attribute other = new Attribute("text", (List<String>) null);
+    assertEquals(-1, pool.get(other, "Foo"));
+    assertEquals(0, pool.size());
+  }
+
+  public void testFewerValues() {
+    Attribute att = new Attribute("text", (List<String>) null);
+    StringValuePool pool = new StringValuePool();
+    pool.add(att, "Foo", "foo");
+    pool.add(att, "Bar", "bar");
+    // the attribute lost its values
+    att.setStringValue("baz");
+    assertEquals(-1, pool.get(att, "Bar"));
+    assertEquals(0, pool.size());
+  }
+
+  public void testClear() {
+    Attribute att = new Attribute("text", (List<String>) null);
+    StringValuePool pool = new StringValuePool();
+    pool.add(att, "Foo", "foo");
+    pool.get(att, "Foo");
+    pool.clear();
+    assertEquals(0, pool.size());
+    assertTrue(pool.toString(), pool.toString().startsWith("strings=0, hits=0, misses=0,"));
+  }
+
+  public static Test suite() {
+    return new TestSuite(StringValuePoolTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
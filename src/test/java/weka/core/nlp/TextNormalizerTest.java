@@ -0,0 +1,113 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.core.nlp;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+
+import java.util.Locale;
+
+/**
+ * Tests TextNormalizer. Run from the command line with:<p>
+ * java weka.core.nlp.TextNormalizerTest
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public class TextNormalizerTest extends TestCase {
+
+  public TextNormalizerTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Creates a normalizer that converts to lower case using the locale.
+   *
+   * @param locale	the locale for the case conversion
+   * @param nfkc	whether to apply NFKC normalization
+   * @param urlMask	the URL mask, null for not masking
+   * @return		the normalizer
+   */
+  protected TextNormalizer lower(Locale locale, boolean nfkc, String urlMask) {
+    return new TextNormalizer(new CaseFolder(locale, false, false), nfkc, true, true, false, urlMask);
+  }
+
+  public void testURLMaskAtTokenStart() {
+    TextNormalizer n = lower(Locale.ENGLISH, false, "<URL>");
+    // prefixes are matched regardless of case, the mask gets case-converted
+    assertEquals("see <url> and <url> now", n.normalize("See http://a.org/x?y=1 and WWW.Example.com now"));
+    assertEquals("<url> <url> <url>", n.normalize("https://a ftp://b www.c"));
+    // non-ASCII white space starts a token as well
+    assertEquals("go <url>", n.normalize("go\u00A0http://a.org/"));
+    // prefixes inside a token are not URLs
+    assertEquals("xhttpaorg awwwb", n.normalize("xhttp://a.org a-www.b"));
+    // without a mask, URLs are treated like any other text
+    assertEquals("httpaorg", lower(Locale.ENGLISH, false, null).normalize("http://a.org"));
+  }
+
+  public void testNFKCRestartsAtFirstNonASCII() {
+    TextNormalizer n = new TextNormalizer(
+      new CaseFolder(Locale.ENGLISH, false, false), true, true, false, true, null);
+    // the ASCII prefix has already been processed when the ligature is
+    // encountered, the scan starts over on the normalized string
+    assertEquals("a fine fish", n.normalize("A \uFB01ne \uFB01sh"));
+    // the circled digit only becomes a digit through the normalization
+    assertEquals("ab", n.normalize("A\u2460B"));
+    // full-width letters only turn into a URL prefix through the normalization
+    assertEquals("<URL>", new TextNormalizer(null, true, true, false, false, "<URL>").normalize("\uFF57\uFF57\uFF57.a.org"));
+    // without normalization the characters remain
+    n = new TextNormalizer(
+      new CaseFolder(Locale.ENGLISH, false, false), false, true, false, true, null);
+    assertEquals("a \uFB01ne", n.normalize("A \uFB01ne"));
+    assertEquals("a\u2460b", n.normalize("A\u2460B"));
+  }
+
+  public void testTurkishFallBack() {
+    Locale tr = new Locale("tr", "TR");
+    TextNormalizer n = lower(tr, false, null);
+    // 'I' cannot be converted via the lookup table, the output gets
+    // converted as a whole after the scan
+    assertEquals("\u0131zm\u0131r istanbul", n.normalize("IZMIR, \u0130STANBUL!"));
+    assertEquals("izmir", lower(Locale.ENGLISH, false, null).normalize("IZMIR"));
+    // the fall-back is applied to the string after the other steps
+    assertEquals("t\u0131tle <url>", lower(tr, false, "<URL>").normalize("  TITLE:  http://I.org "));
+    n = new TextNormalizer(new CaseFolder(tr, true, false), false, true, true, false, null);
+    assertEquals("\u0130ZM\u0130R", n.normalize("izmir."));
+  }
+
+  public void testCollapseNonASCIIWhiteSpace() {
+    TextNormalizer n = lower(Locale.ENGLISH, false, null);
+    // no-break space, ideographic space, em space, line separator
+    assertEquals("a b c d", n.normalize("\u3000a\u00A0\u00A0b\u3000c\u2003\u2028d\u00A0"));
+    assertEquals("", n.normalize("\u00A0\u3000 \t"));
+    // with normalization, the (non-ASCII) spaces become blanks first
+    assertEquals("a b c", lower(Locale.ENGLISH, true, null).normalize("a\u00A0\u3000b \u2003c"));
+  }
+
+  public static Test suite() {
+    return new TestSuite(TextNormalizerTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
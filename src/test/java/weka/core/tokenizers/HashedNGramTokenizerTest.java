@@ -0,0 +1,181 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.core.tokenizers;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import weka.tests.TestHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests HashedNGramTokenizer. Run from the command line with:<p>
+ * java weka.core.tokenizers.HashedNGramTokenizerTest
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public class HashedNGramTokenizerTest extends AbstractTokenizerTest {
+
+  /** the sentences (one per document). */
+  public static final String[] SENTENCES = {
+    "The quick brown fox jumps over the lazy dog.",
+    "Humpty Dumpty sat on a wall.",
+    "Humpty Dumpty had a great fall!",
+    "Short.",
+    "All the king's horses and all the king's men couldn't put Humpty together again.",
+  };
+
+  public HashedNGramTokenizerTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception if an error occurs
+   */
+  @Override
+  protected void setUp() throws Exception {
+    TestHelper.setRegressionRoot();
+    super.setUp();
+  }
+
+  /**
+   * Creates a default HashedNGramTokenizer.
+   *
+   * @return		the tokenizer
+   */
+  @Override
+  public Tokenizer getTokenizer() {
+    return new HashedNGramTokenizer();
+  }
+
+  /**
+   * Computes the tokens of a single sentence without the rolling hash, i.e.,
+   * by hashing each n-gram window from scratch.
+   *
+   * @param tokenizer	the tokenizer to mimic
+   * @param sentence	the sentence
+   * @return		the tokens
+   */
+  protected List<String> windowTokens(HashedNGramTokenizer tokenizer, String sentence) {
+    List<String>	result;
+    List<String>	words;
+    int			n;
+    int			i;
+    int			j;
+    int			hash;
+
+    result = new ArrayList<String>();
+    words  = TestHelper.tokenize(tokenizer.getTokenizer(), sentence);
+    for (n = tokenizer.getNGramMinSize(); (n <= tokenizer.getNGramMaxSize()) && (n <= words.size()); n++) {
+      for (i = 0; i + n <= words.size(); i++) {
+	hash = 0;
+	for (j = i; j < i + n; j++)
+	  hash = hash * HashedNGramTokenizer.BASE + HashedNGramTokenizer.hash(words.get(j), null);
+	hash = HashedNGramTokenizer.mix(hash + n * 0x9E3779B9) & ((1 << tokenizer.getNumBits()) - 1);
+	result.add(tokenizer.format(hash));
+      }
+    }
+
+    return result;
+  }
+
+  public void testRollingMatchesWindows() {
+    HashedNGramTokenizer tokenizer = new HashedNGramTokenizer();
+    int[][] sizes = {{1, 1}, {1, 3}, {2, 4}, {3, 3}, {5, 8}};
+    for (int[] size: sizes) {
+      tokenizer.setNGramMinSize(size[0]);
+      tokenizer.setNGramMaxSize(size[1]);
+      for (String s: SENTENCES)
+	assertEquals(size[0] + "-" + size[1] + ": '" + s + "'", windowTokens(tokenizer, s), TestHelper.tokenize(tokenizer, s));
+    }
+  }
+
+  public void testFixedWidth() {
+    HashedNGramTokenizer tokenizer = new HashedNGramTokenizer();
+    for (int bits: new int[]{1, 4, 5, 18, 31}) {
+      tokenizer.setNumBits(bits);
+      int width = HashedNGramTokenizer.PREFIX.length() + (bits + 3) / 4;
+      for (String s: SENTENCES) {
+	for (String token: TestHelper.tokenize(tokenizer, s)) {
+	  assertEquals(bits + ": " + token, width, token.length());
+	  assertTrue(bits + ": " + token, token.startsWith(HashedNGramTokenizer.PREFIX));
+	  long value = Long.parseLong(token.substring(HashedNGramTokenizer.PREFIX.length()), 16);
+	  assertTrue(bits + ": " + token, value < (1L << bits));
+	}
+      }
+    }
+  }
+
+  public void testSentenceBoundaries() {
+    HashedNGramTokenizer tokenizer = new HashedNGramTokenizer();
+    tokenizer.setNGramMaxSize(4);
+    StringBuilder doc = new StringBuilder();
+    List<String> expected = new ArrayList<String>();
+    for (String s: SENTENCES) {
+      if (doc.length() > 0)
+	doc.append(" ");
+      doc.append(s);
+      expected.addAll(windowTokens(tokenizer, s));
+    }
+    assertEquals(expected, TestHelper.tokenize(tokenizer, doc.toString()));
+
+    // sentences shorter than the minimum size contribute nothing
+    tokenizer.setNGramMinSize(3);
+    assertEquals(Arrays.asList(), TestHelper.tokenize(tokenizer, "Short."));
+    assertEquals(TestHelper.tokenize(tokenizer, SENTENCES[1]), TestHelper.tokenize(tokenizer, "Short. " + SENTENCES[1]));
+  }
+
+  public void testInvalidNumBits() {
+    HashedNGramTokenizer tokenizer = new HashedNGramTokenizer();
+    for (int bits: new int[]{-1, 0, 32}) {
+      // the setter accepts intermediate values (e.g., while editing in the GUI)
+      tokenizer.setNumBits(bits);
+      assertEquals(bits, tokenizer.getNumBits());
+      try {
+	tokenizer.tokenize(SENTENCES[0]);
+	fail("Tokenized with " + bits + " bits");
+      }
+      catch (IllegalStateException e) {
+	// expected
+      }
+    }
+    try {
+      tokenizer.setOptions(new String[]{"-num-bits", "40"});
+      fail("Accepted -num-bits 40");
+    }
+    catch (Exception e) {
+      // expected
+    }
+  }
+
+  public static Test suite() {
+    return new TestSuite(HashedNGramTokenizerTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.core.tokenizers;
+
+import edu.stanford.nlp.ling.Word;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import weka.tests.TestHelper;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests PTBTokenizer. Run from the command line with:<p>
+ * java weka.core.tokenizers.PTBTokenizerTest
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public class PTBTokenizerTest extends AbstractTokenizerTest {
+
+  /** the strings to tokenize. */
+  public static final String[] STRINGS = {
+    "",
+    "   ",
+    "The quick brown fox jumps over the lazy dog.",
+    "Humpty Dumpty couldn't be put together (again) by the king's men.",
+    "\"Quotes\", [brackets] and {braces}... -- all for $5.50 & 3/4 of a cent!",
+    "Mr. Smith went to Washington D.C. in the U.S. on 1/2/2019.",
+    "  leading and trailing white space  ",
+    "The colour of the behaviour centre.",
+    "e-mail me at someone@example.com or see http://www.example.com/x?y=1",
+  };
+
+  public PTBTokenizerTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception if an error occurs
+   */
+  @Override
+  protected void setUp() throws Exception {
+    TestHelper.setRegressionRoot();
+    super.setUp();
+  }
+
+  /**
+   * Creates a default PTBTokenizer.
+   *
+   * @return		the tokenizer
+   */
+  @Override
+  public Tokenizer getTokenizer() {
+    return new PTBTokenizer();
+  }
+
+  /**
+   * Returns the tokens the way the tokenizer used to generate them, i.e.,
+   * draining a new Stanford tokenizer with default options.
+   *
+   * @param s		the string to tokenize
+   * @return		the tokens
+   */
+  protected List<String> eagerTokens(String s) {
+    edu.stanford.nlp.process.PTBTokenizer<Word>	tokenizer;
+    List<String>				result;
+
+    tokenizer = edu.stanford.nlp.process.PTBTokenizer.newPTBTokenizer(new StringReader(s));
+    result    = new ArrayList<String>();
+    while (tokenizer.hasNext())
+      result.add(tokenizer.next().value());
+
+    return result;
+  }
+
+  public void testDefaultMatchesEager() {
+    PTBTokenizer tokenizer = new PTBTokenizer();
+    for (String s: STRINGS)
+      assertEquals("'" + s + "'", eagerTokens(s), TestHelper.tokenize(tokenizer, s));
+  }
+
+  public void testReuse() {
+    PTBTokenizer tokenizer = new PTBTokenizer();
+    // a new string discards the remaining tokens of the previous one
+    tokenizer.tokenize("one two three");
+    assertEquals("one", tokenizer.nextElement());
+    assertEquals(Arrays.asList("four", "five"), TestHelper.tokenize(tokenizer, "four five"));
+    // exhausted
+    assertFalse(tokenizer.hasMoreElements());
+  }
+
+  public void testInvertible() {
+    PTBTokenizer tokenizer = new PTBTokenizer();
+    tokenizer.setInvertible(true);
+    // same tokens, only more information about them
+    for (String s: STRINGS)
+      assertEquals("'" + s + "'", eagerTokens(s), TestHelper.tokenize(tokenizer, s));
+  }
+
+  public void testSpans() {
+    PTBTokenizer tokenizer = new PTBTokenizer();
+    for (boolean invertible: new boolean[]{false, true}) {
+      tokenizer.setInvertible(invertible);
+      for (String s: STRINGS) {
+	List<String> expected = TestHelper.tokenize(tokenizer, s);
+	List<String> actual = new ArrayList<String>();
+	int end = 0;
+	tokenizer.tokenize(s);
+	while (tokenizer.nextSpan()) {
+	  int begin = tokenizer.getSpanBegin();
+	  assertTrue("'" + s + "': " + begin + " < " + end, begin >= end);
+	  end = tokenizer.getSpanEnd();
+	  assertTrue("'" + s + "': " + end, end <= s.length());
+	  assertEquals("'" + s + "'", s.substring(begin, end), tokenizer.getSpan().toString());
+	  actual.add(tokenizer.getSpanToken());
+	}
+	assertEquals("'" + s + "'", expected, actual);
+      }
+    }
+
+    // the span covers the original characters, the token is normalized
+    tokenizer.tokenize("a (b)");
+    assertTrue(tokenizer.nextSpan());
+    assertEquals("a", tokenizer.getSpan().toString());
+    assertTrue(tokenizer.nextSpan());
+    assertEquals("(", tokenizer.getSpan().toString());
+    assertEquals("-LRB-", tokenizer.getSpanToken());
+    assertEquals(2, tokenizer.getSpanBegin());
+    assertEquals(3, tokenizer.getSpanEnd());
+  }
+
+  public void testOptions() {
+    PTBTokenizer tokenizer = new PTBTokenizer();
+    String s = "(colour) [x]";
+    assertEquals(Arrays.asList("-LRB-", "colour", "-RRB-", "-LSB-", "x", "-RSB-"), TestHelper.tokenize(tokenizer, s));
+    tokenizer.setNormalizeParentheses(false);
+    tokenizer.setNormalizeOtherBrackets(false);
+    tokenizer.setAmericanize(true);
+    assertEquals(Arrays.asList("(", "color", ")", "[", "x", "]"), TestHelper.tokenize(tokenizer, s));
+    tokenizer = new PTBTokenizer();
+    tokenizer.setPTB3Escaping(false);
+    assertEquals(Arrays.asList("(", "colour", ")", "[", "x", "]"), TestHelper.tokenize(tokenizer, s));
+  }
+
+  public static Test suite() {
+    return new TestSuite(PTBTokenizerTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.core.tokenizers;
+
+import edu.stanford.nlp.process.CoreLabelTokenFactory;
+import edu.stanford.nlp.process.DocumentPreprocessor;
+import edu.stanford.nlp.process.PTBTokenizer;
+import edu.stanford.nlp.util.StringUtils;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import weka.tests.TestHelper;
+import weka.core.tokenizers.sentence.RuleBasedSentenceDetector;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests SentenceTokenizer. Run from the command line with:<p>
+ * java weka.core.tokenizers.SentenceTokenizerTest
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public class SentenceTokenizerTest extends AbstractTokenizerTest {
+
+  /** the documents to split. */
+  public static final String[] DOCUMENTS = {
+    "",
+    "One sentence without a period",
+    "Humpty Dumpty sat on a wall. Humpty Dumpty had a great fall. All the king's horses and all the king's men couldn't put Humpty together again.",
+    "Is this a question? Yes! It is...  And (this) is \"quoted.\" The end.",
+    "Mr. Smith paid $3.50 in the U.S. on Jan. 5th. He went home.",
+    "  Leading and trailing white space.  \n\n Next paragraph.  ",
+  };
+
+  public SentenceTokenizerTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception if an error occurs
+   */
+  @Override
+  protected void setUp() throws Exception {
+    TestHelper.setRegressionRoot();
+    super.setUp();
+  }
+
+  /**
+   * Creates a default SentenceTokenizer.
+   *
+   * @return		the tokenizer
+   */
+  @Override
+  public Tokenizer getTokenizer() {
+    return new SentenceTokenizer();
+  }
+
+  /**
+   * Splits the document the way PartOfSpeechTagging used to, i.e., with
+   * Stanford's DocumentPreprocessor.
+   *
+   * @param doc		the document to split
+   * @return		the sentences
+   */
+  protected List<String> preprocessorSentences(String doc) {
+    List<String>		result;
+    DocumentPreprocessor	preProcessor;
+
+    result       = new ArrayList<String>();
+    preProcessor = new DocumentPreprocessor(new StringReader(doc));
+    preProcessor.setTokenizerFactory(PTBTokenizer.factory(
+      new CoreLabelTokenFactory(),
+      "normalizeParentheses=false,normalizeOtherBrackets=false,invertible=true"));
+    for (List sentence: preProcessor)
+      result.add(StringUtils.joinWithOriginalWhiteSpace(sentence));
+
+    return result;
+  }
+
+  public void testDefaultMatchesPreprocessor() {
+    SentenceTokenizer tokenizer = new SentenceTokenizer();
+    for (String doc: DOCUMENTS) {
+      assertEquals("'" + doc + "'", preprocessorSentences(doc), tokenizer.split(doc));
+      assertEquals("'" + doc + "'", preprocessorSentences(doc), TestHelper.tokenize(tokenizer, doc));
+    }
+  }
+
+  public void testRuleBased() {
+    SentenceTokenizer tokenizer = new SentenceTokenizer();
+    tokenizer.setDetector(new RuleBasedSentenceDetector());
+    assertEquals(Arrays.asList(), tokenizer.split(""));
+    assertEquals(Arrays.asList(), tokenizer.split("  \n "));
+    assertEquals(Arrays.asList("One sentence without a period"), tokenizer.split(DOCUMENTS[1]));
+    assertEquals(
+      Arrays.asList(
+	"Humpty Dumpty sat on a wall.",
+	"Humpty Dumpty had a great fall.",
+	"All the king's horses and all the king's men couldn't put Humpty together again."),
+      TestHelper.tokenize(tokenizer, DOCUMENTS[2]));
+    // runs of terminals, closing quotes and brackets
+    assertEquals(
+      Arrays.asList("Is this a question?", "Yes!", "It is...", "And (this) is \"quoted.\"", "The end."),
+      TestHelper.tokenize(tokenizer, DOCUMENTS[3]));
+    // abbreviations, initials and decimals
+    assertEquals(
+      Arrays.asList("Mr. Smith paid $3.50 in the U.S. on Jan. 5th.", "He went home."),
+      TestHelper.tokenize(tokenizer, DOCUMENTS[4]));
+    // periods followed by a lower case word or inside a token
+    assertEquals(
+      Arrays.asList("See www.example.com for details. e.g. this one.", "Done."),
+      TestHelper.tokenize(tokenizer, "See www.example.com for details. e.g. this one. Done."));
+    // white space gets trimmed
+    assertEquals(
+      Arrays.asList("Leading and trailing white space.", "Next paragraph."),
+      TestHelper.tokenize(tokenizer, DOCUMENTS[5]));
+  }
+
+  public void testRuleBasedOptions() {
+    RuleBasedSentenceDetector detector = new RuleBasedSentenceDetector();
+    assertEquals(Arrays.asList("Approx. Fifty people came.", "Line one\nline two."),
+      detector.detect("Approx. Fifty people came. Line one\nline two."));
+    detector.setAbbreviations("mr,dr");
+    detector.setSplitOnNewLines(true);
+    assertEquals(Arrays.asList("Approx.", "Fifty people came.", "Line one", "line two."),
+      detector.detect("Approx. Fifty people came. Line one\nline two."));
+  }
+
+  public void testRuleBasedNumberAbbreviations() {
+    RuleBasedSentenceDetector detector = new RuleBasedSentenceDetector();
+    // only abbreviations in front of a number
+    assertEquals(Arrays.asList("See No. 5 on p. 12 for details.", "Done."),
+      detector.detect("See No. 5 on p. 12 for details. Done."));
+    assertEquals(Arrays.asList("The answer is no.", "Then we left."),
+      detector.detect("The answer is no. Then we left."));
+    // single lower case letters are no initials
+    assertEquals(Arrays.asList("We went with plan b.", "It worked, said J. Smith."),
+      detector.detect("We went with plan b. It worked, said J. Smith."));
+  }
+
+  public static Test suite() {
+    return new TestSuite(SentenceTokenizerTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
@@ -0,0 +1,177 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.core.tokenizers;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import weka.tests.TestHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests WhiteSpaceTokenizer. Run from the command line with:<p>
+ * java weka.core.tokenizers.WhiteSpaceTokenizerTest
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public class WhiteSpaceTokenizerTest extends AbstractTokenizerTest {
+
+  /** strings with leading, trailing and consecutive separators. */
+  public static final String[] STRINGS = {
+    "",
+    " ",
+    "   ",
+    "a",
+    "the quick brown fox",
+    " leading",
+    "trailing ",
+    "  two  separators  ",
+    "tab\tnew\nline\r\nvertical\u000Btab\fform feed",
+    "\t\n",
+    "no-break\u00A0space",
+  };
+
+  public WhiteSpaceTokenizerTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception if an error occurs
+   */
+  @Override
+  protected void setUp() throws Exception {
+    TestHelper.setRegressionRoot();
+    super.setUp();
+  }
+
+  /**
+   * Creates a default WhiteSpaceTokenizer.
+   *
+   * @return		the tokenizer
+   */
+  @Override
+  public Tokenizer getTokenizer() {
+    return new WhiteSpaceTokenizer();
+  }
+
+  /**
+   * Generates random strings over letters and white space, with a high
+   * probability of consecutive separators.
+   *
+   * @return		the strings
+   */
+  protected List<String> randomStrings() {
+    List<String>	result;
+    Random		rand;
+    StringBuilder	s;
+    String		chars;
+    int			i;
+    int			n;
+
+    result = new ArrayList<String>();
+    rand   = new Random(42);
+    chars  = "ab \t\n\r\u000B\f\u00A0";
+    for (i = 0; i < 1000; i++) {
+      s = new StringBuilder();
+      for (n = rand.nextInt(12); n > 0; n--)
+	s.append(chars.charAt(rand.nextInt(chars.length())));
+      result.add(s.toString());
+    }
+
+    return result;
+  }
+
+  public void testDefaultMatchesSplit() {
+    List<String> strings = new ArrayList<String>(Arrays.asList(STRINGS));
+    strings.addAll(randomStrings());
+    WhiteSpaceTokenizer tokenizer = new WhiteSpaceTokenizer();
+    for (String s: strings)
+      assertEquals("'" + s + "'", Arrays.asList(s.split("\\s")), TestHelper.tokenize(tokenizer, s));
+  }
+
+  public void testEmptyTokens() {
+    WhiteSpaceTokenizer tokenizer = new WhiteSpaceTokenizer();
+    assertEquals(Arrays.asList(""), TestHelper.tokenize(tokenizer, ""));
+    assertEquals(Arrays.asList(), TestHelper.tokenize(tokenizer, "  \t"));
+    assertEquals(Arrays.asList("", "a", "", "b"), TestHelper.tokenize(tokenizer, " a  b  "));
+  }
+
+  public void testSpans() {
+    List<String> strings = new ArrayList<String>(Arrays.asList(STRINGS));
+    strings.addAll(randomStrings());
+    WhiteSpaceTokenizer tokenizer = new WhiteSpaceTokenizer();
+    for (boolean collapse: new boolean[]{false, true}) {
+      tokenizer.setCollapse(collapse);
+      for (String s: strings) {
+	List<String> expected = TestHelper.tokenize(tokenizer, s);
+	List<String> actual = new ArrayList<String>();
+	int end = 0;
+	tokenizer.tokenize(s);
+	while (tokenizer.nextSpan()) {
+	  int begin = tokenizer.getSpanBegin();
+	  assertTrue("'" + s + "': " + begin + " < " + end, begin >= end);
+	  end = tokenizer.getSpanEnd();
+	  assertEquals("'" + s + "'", s.substring(begin, end), tokenizer.getSpan().toString());
+	  assertEquals("'" + s + "'", s.substring(begin, end), tokenizer.getSpanToken());
+	  actual.add(tokenizer.getSpanToken());
+	}
+	assertEquals("'" + s + "'", expected, actual);
+      }
+    }
+  }
+
+  public void testCollapse() {
+    List<String> strings = new ArrayList<String>(Arrays.asList(STRINGS));
+    strings.addAll(randomStrings());
+    WhiteSpaceTokenizer tokenizer = new WhiteSpaceTokenizer();
+    tokenizer.setCollapse(true);
+    for (String s: strings) {
+      List<String> expected = new ArrayList<String>();
+      for (String token: s.split("\\s+")) {
+	if (!token.isEmpty())
+	  expected.add(token);
+      }
+      assertEquals("'" + s + "'", expected, TestHelper.tokenize(tokenizer, s));
+    }
+  }
+
+  public void testUnicode() {
+    WhiteSpaceTokenizer tokenizer = new WhiteSpaceTokenizer();
+    String s = "a\u00A0b\u2003c\u3000d\u0085e";
+    assertEquals(Arrays.asList(s), TestHelper.tokenize(tokenizer, s));
+    tokenizer.setUnicode(true);
+    assertEquals(Arrays.asList("a", "b", "c", "d", "e"), TestHelper.tokenize(tokenizer, s));
+  }
+
+  public static Test suite() {
+    return new TestSuite(WhiteSpaceTokenizerTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
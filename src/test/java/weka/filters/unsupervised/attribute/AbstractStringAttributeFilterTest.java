@@ -0,0 +1,62 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.filters.unsupervised.attribute;
+
+import weka.core.Instances;
+import weka.filters.AbstractFilterTest;
+import weka.filters.Filter;
+
+/**
+ * Ancestor for tests of filters derived from AbstractStringAttributeFilter.
+ * Checks that the output does not depend on the number of threads.
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public abstract class AbstractStringAttributeFilterTest
+  extends AbstractFilterTest {
+
+  public AbstractStringAttributeFilterTest(String name) {
+    super(name);
+  }
+
+  public void testMultiThreaded() {
+    Instances sequential = useFilter();
+    ((AbstractStringAttributeFilter) m_Filter).setNumThreads(4);
+    Instances parallel = useFilter();
+    // output must not depend on the number of threads (the relation names
+    // differ, as they contain the options)
+    assertEquals(sequential.numInstances(), parallel.numInstances());
+    for (int i = 0; i < sequential.numInstances(); i++)
+      assertEquals("instance #" + (i+1), sequential.instance(i).toString(), parallel.instance(i).toString());
+  }
+
+  public void testMultiThreadedSecondBatch() throws Exception {
+    Instances expected = useFilter();
+    ((AbstractStringAttributeFilter) m_Filter).setNumThreads(4);
+    m_Filter.setInputFormat(m_Instances);
+    Filter.useFilter(m_Instances, m_Filter);
+    // after the first batch, instances must be available straight away
+    for (int i = 0; i < m_Instances.numInstances(); i++) {
+      assertTrue("instance #" + (i+1) + " not available", m_Filter.input(m_Instances.instance(i)));
+      assertEquals("instance #" + (i+1), expected.instance(i).toString(), m_Filter.output().toString());
+    }
+  }
+}
@@ -22,11 +22,15 @@ package weka.filters.unsupervised.attribute;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import junit.textui.TestRunner;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
 import weka.core.Instances;
-import weka.filters.AbstractFilterTest;
 import weka.filters.Filter;
 import weka.tests.TestHelper;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Tests ChangeCase. Run from the command line with:<p>
  * java weka.filters.unsupervised.attribute.ChangeCaseTest
@@ -34,7 +38,7 @@ import weka.tests.TestHelper;
  * @author FracPete (fracpete at waikato dot ac dot nz)
  * @version $Revision: 8034 $
  */
-public class ChangeCaseTest extends AbstractFilterTest {
+public class ChangeCaseTest extends AbstractStringAttributeFilterTest {
   
   public ChangeCaseTest(String name) {
     super(name);
@@ -65,6 +69,96 @@ public class ChangeCaseTest extends AbstractFilterTest {
     assertEquals(m_Instances.numInstances(), result.numInstances());
   }
 
+  public void testLastAttribute() {
+    Instances result = useFilter();
+    int last = m_Instances.numAttributes() - 1;
+    // the last attribute gets copied like all the others
+    for (int i = 0; i < m_Instances.numInstances(); i++)
+      assertEquals(m_Instances.instance(i).value(last), result.instance(i).value(last), 0.0);
+  }
+
+  /**
+   * Filters the strings with the filter.
+   *
+   * @param filter	the filter to use
+   * @param strings	the strings to filter
+   * @return		the filtered strings
+   * @throws Exception	if filtering fails
+   */
+  protected String[] convert(ChangeCase filter, String... strings) throws Exception {
+    ArrayList<Attribute> atts = new ArrayList<Attribute>();
+    atts.add(new Attribute("text", (List<String>) null));
+    Instances data = new Instances("strings", atts, 0);
+    for (String s: strings)
+      data.add(new DenseInstance(1.0, new double[]{data.attribute(0).addStringValue(s)}));
+    filter.setInputFormat(data);
+    Instances filtered = Filter.useFilter(data, filter);
+    String[] result = new String[filtered.numInstances()];
+    for (int i = 0; i < result.length; i++)
+      result[i] = filtered.instance(i).stringValue(0);
+    return result;
+  }
+
+  public void testLocale() throws Exception {
+    ChangeCase filter = new ChangeCase();
+    filter.setOptions(new String[]{"-locale", "tr"});
+    // dotless i in Turkish
+    assertEquals("\u0131stanbul", convert(filter, "ISTANBUL")[0]);
+    filter.setOptions(new String[]{"-locale", "en"});
+    assertEquals("istanbul", convert(filter, "ISTANBUL")[0]);
+  }
+
+  public void testFullCaseFolding() throws Exception {
+    ChangeCase filter = new ChangeCase();
+    filter.setOptions(new String[]{"-full-case-folding"});
+    String[] converted = convert(filter, "Stra\u00DFe", "STRASSE", "\u039F\u0394\u039F\u03A3", "\u03BF\u03B4\u03BF\u03C2");
+    assertEquals("strasse", converted[0]);
+    assertEquals("strasse", converted[1]);
+    // the final sigma gets mapped to the regular one
+    assertEquals("\u03BF\u03B4\u03BF\u03C3", converted[2]);
+    assertEquals("\u03BF\u03B4\u03BF\u03C3", converted[3]);
+  }
+
+  public void testUnchangedString() throws Exception {
+    ChangeCase filter = new ChangeCase();
+    convert(filter, "Foo");
+    // strings already in the target case do not get copied
+    String s = "plain ascii, 42";
+    assertSame(s, filter.transform(s));
+    assertEquals("plain ascii, 42", filter.transform("Plain ASCII, 42"));
+  }
+
+  public void testReuseStringValues() throws Exception {
+    ArrayList<Attribute> atts = new ArrayList<Attribute>();
+    atts.add(new Attribute("text", (List<String>) null));
+    Instances data = new Instances("strings", atts, 0);
+    for (int i = 0; i < 10; i++) {
+      for (String s: new String[]{"Foo", "Bar BAZ", "foo"})
+	data.add(new DenseInstance(1.0, new double[]{data.attribute(0).addStringValue(s)}));
+    }
+    ChangeCase plain = new ChangeCase();
+    plain.setInputFormat(data);
+    Instances expected = Filter.useFilter(data, plain);
+    ChangeCase reuse = new ChangeCase();
+    reuse.setReuseStringValues(true);
+    reuse.setInputFormat(data);
+    Instances actual = Filter.useFilter(data, reuse);
+    assertEquals(expected.numInstances(), actual.numInstances());
+    for (int i = 0; i < expected.numInstances(); i++)
+      assertEquals("instance #" + (i+1), expected.instance(i).toString(), actual.instance(i).toString());
+
+    // repeated strings must not add values to the output format
+    int numValues = -1;
+    for (int i = 0; i < data.numInstances(); i++) {
+      assertTrue(reuse.input(data.instance(i)));
+      assertEquals("instance #" + (i+1), expected.instance(i).toString(), reuse.output().toString());
+      if (i == 2)
+	numValues = reuse.getOutputFormat().attribute(0).numValues();
+    }
+    assertEquals(numValues, reuse.getOutputFormat().attribute(0).numValues());
+    assertEquals(3, reuse.m_Pools[0].size());
+  }
+
   public static Test suite() {
     return new TestSuite(ChangeCaseTest.class);
   }
@@ -19,15 +19,33 @@
 
 package weka.filters.unsupervised.attribute;
 
+import edu.stanford.nlp.ling.HasWord;
+import edu.stanford.nlp.ling.Word;
+import edu.stanford.nlp.process.DocumentPreprocessor;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import junit.textui.TestRunner;
+import weka.core.Attribute;
+import weka.core.DenseInstance;
 import weka.core.Instances;
+import weka.core.nlp.DiskParseCache;
+import weka.core.nlp.ParserModelConverter;
+import weka.core.nlp.ParserModelRegistry;
+import weka.core.nlp.Vocabulary;
+import weka.core.tokenizers.PTBTokenizer;
+import weka.core.tokenizers.WhiteSpaceTokenizer;
 import weka.filters.AbstractFilterTest;
 import weka.filters.Filter;
 import weka.tests.TestHelper;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Tests PartOfSpeechTagging. Run from the command line with:<p>
@@ -72,12 +90,448 @@ public class PartOfSpeechTaggingTest extends AbstractFilterTest {
     return f;
   }
 
+  /**
+   * Generates a dataset with documents of different lengths, some of them
+   * consisting of multiple sentences.
+   *
+   * @return the dataset
+   */
+  protected Instances getDocuments() {
+    ArrayList<Attribute>	atts;
+    Instances			result;
+    String[]			docs;
+
+    docs = new String[]{
+      "The cat sat on the mat.",
+      "Humpty Dumpty sat on a wall. Humpty Dumpty had a great fall. "
+	+ "All the king's horses and all the king's men couldn't put Humpty together again.",
+      "Dogs bark.",
+      "The quick brown fox jumps over the lazy dog. The dog sleeps. "
+	+ "A bird sings in the old tree next to the house by the river.",
+      "Colorless green ideas sleep furiously.",
+      "She sells sea shells by the sea shore. The shells she sells are surely sea shells.",
+    };
+    atts = new ArrayList<Attribute>();
+    atts.add(new Attribute("text", (List<String>) null));
+    result = new Instances("documents", atts, docs.length);
+    for (String doc: docs)
+      result.add(new DenseInstance(1.0, new double[]{result.attribute(0).addStringValue(doc)}));
+
+    return result;
+  }
+
+  /**
+   * Filters the data with the filter.
+   *
+   * @param filter	the filter to use
+   * @param data	the data to filter
+   * @return		the filtered data
+   */
+  protected Instances useFilter(Filter filter, Instances data) {
+    try {
+      filter.setInputFormat(data);
+      return Filter.useFilter(data, filter);
+    }
+    catch (Exception e) {
+      fail("Filtering failed: " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Compares the instances of the two datasets (not the relation names,
+   * which contain the options).
+   *
+   * @param expected	the expected data
+   * @param actual	the actual data
+   */
+  protected void assertSameInstances(Instances expected, Instances actual) {
+    assertEquals(expected.numInstances(), actual.numInstances());
+    for (int i = 0; i < expected.numInstances(); i++)
+      assertEquals("instance #" + (i+1), expected.instance(i).toString(), actual.instance(i).toString());
+  }
+
   public void testTypical() {
     Instances result = useFilter();
     // Number of attributes and instances shouldn't change
     assertEquals(m_Instances.numInstances(), result.numInstances());
   }
 
+  public void testMultiThreaded() {
+    Instances sequential = useFilter();
+    ((PartOfSpeechTagging) m_Filter).setNumThreads(4);
+    Instances parallel = useFilter();
+    // output must not depend on the number of threads (the relation names
+    // differ, as they contain the options)
+    assertSameInstances(sequential, parallel);
+  }
+
+  public void testMultiThreadedSecondBatch() throws Exception {
+    Instances data = getDocuments();
+    Instances expected = useFilter(getFilter(), data);
+    PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+    filter.setNumThreads(4);
+    filter.setInputFormat(data);
+    Filter.useFilter(data, filter);
+    // after the first batch, instances must be available straight away
+    for (int i = 0; i < data.numInstances(); i++) {
+      assertTrue("instance #" + (i+1) + " not available", filter.input(data.instance(i)));
+      assertEquals("instance #" + (i+1), expected.instance(i).toString(), filter.output().toString());
+    }
+  }
+
+  public void testMultiSentenceDocuments() {
+    Instances data = getDocuments();
+    Instances expected = useFilter(getFilter(), data);
+    PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+    filter.setNumThreads(4);
+    assertSameInstances(expected, useFilter(filter, data));
+  }
+
+  public void testMoreInstancesThanJobs() {
+    Instances data = getDocuments();
+    // more instances than can be in flight with two threads
+    while (data.numInstances() <= 2 * PartOfSpeechTagging.JOBS_PER_THREAD) {
+      for (int i = 0, n = data.numInstances(); i < n; i++)
+	data.add(data.instance(i));
+    }
+    Instances expected = useFilter(getFilter(), data);
+    PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+    filter.setNumThreads(2);
+    assertSameInstances(expected, useFilter(filter, data));
+  }
+
+  public void testParallelSentences() {
+    Instances data = getDocuments();
+    Instances expected = useFilter(getFilter(), data);
+    PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+    filter.setNumThreads(4);
+    filter.setParallelSentences(true);
+    // the sentences of a document get stitched back together in order
+    assertSameInstances(expected, useFilter(filter, data));
+    int numSentences = 0;
+    for (int i = 0; i < data.numInstances(); i++)
+      numSentences += filter.getSentences(data.instance(i).stringValue(0)).size();
+    assertTrue(filter.getStatistics(), filter.getStatistics().startsWith("sentences=" + numSentences + ","));
+  }
+
+  public void testParallelSentencesSecondBatch() throws Exception {
+    Instances data = getDocuments();
+    Instances expected = useFilter(getFilter(), data);
+    PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+    filter.setNumThreads(4);
+    filter.setParallelSentences(true);
+    filter.setInputFormat(data);
+    Filter.useFilter(data, filter);
+    // the sentences of single instances get parsed by the worker threads as well
+    for (int i = 0; i < data.numInstances(); i++) {
+      assertTrue("instance #" + (i+1) + " not available", filter.input(data.instance(i)));
+      assertEquals("instance #" + (i+1), expected.instance(i).toString(), filter.output().toString());
+      int numSentences = filter.getSentences(data.instance(i).stringValue(0)).size();
+      assertTrue(filter.getStatistics(), filter.getStatistics().startsWith("sentences=" + numSentences + ","));
+    }
+  }
+
+  public void testLongestFirst() {
+    Instances data = getDocuments();
+    Instances expected = useFilter(getFilter(), data);
+    PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+    filter.setNumThreads(4);
+    filter.setLongestFirst(true);
+    // the scheduling order must not affect the output
+    assertSameInstances(expected, useFilter(filter, data));
+    assertTrue(filter.getStatistics(), filter.getStatistics().contains("longest-first=true"));
+  }
+
+  public void testLongestFirstWindows() {
+    Instances data = getDocuments();
+    // more instances than fit into a window with two threads
+    while (data.numInstances() <= 2 * PartOfSpeechTagging.WINDOW_PER_THREAD) {
+      for (int i = 0, n = data.numInstances(); i < n; i++)
+	data.add(data.instance(i));
+    }
+    PartOfSpeechTagging sequential = (PartOfSpeechTagging) getFilter();
+    sequential.setOutputIDs(true);
+    Instances expected = useFilter(sequential, data);
+    PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+    filter.setOutputIDs(true);
+    filter.setNumThreads(2);
+    filter.setLongestFirst(true);
+    // windows get assembled in order, i.e., the IDs match as well
+    assertSameInstances(expected, useFilter(filter, data));
+    int numSentences = 0;
+    for (int i = 0; i < data.numInstances(); i++)
+      numSentences += filter.getSentences(data.instance(i).stringValue(0)).size();
+    assertTrue(filter.getStatistics(), filter.getStatistics().startsWith("sentences=" + numSentences + ","));
+  }
+
+  public void testOutputIDsMultiThreaded() {
+    Instances data = getDocuments();
+    PartOfSpeechTagging sequential = (PartOfSpeechTagging) getFilter();
+    sequential.setOutputIDs(true);
+    Instances expected = useFilter(sequential, data);
+    for (boolean parallelSentences: new boolean[]{false, true}) {
+      PartOfSpeechTagging parallel = (PartOfSpeechTagging) getFilter();
+      parallel.setOutputIDs(true);
+      parallel.setNumThreads(4);
+      parallel.setParallelSentences(parallelSentences);
+      // the IDs must not depend on the order in which the threads finish
+      assertSameInstances(expected, useFilter(parallel, data));
+      Vocabulary vocab = parallel.getVocabulary();
+      assertEquals(sequential.getVocabulary().size(), vocab.size());
+      for (int i = 0; i < vocab.size(); i++)
+	assertEquals("ID " + i, sequential.getVocabulary().get(i), vocab.get(i));
+    }
+  }
+
+  public void testCache() {
+    Instances data = getDocuments();
+    // every document twice
+    for (int i = 0, n = data.numInstances(); i < n; i++)
+      data.add(data.instance(i));
+    Instances expected = useFilter(getFilter(), data);
+    PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+    filter.setCacheMaxEntries(100);
+    assertSameInstances(expected, useFilter(filter, data));
+    assertFalse(filter.getCacheStatistics(), filter.getCacheStatistics().contains("hits=0,"));
+    // evicting entries must not affect the output either
+    filter = (PartOfSpeechTagging) getFilter();
+    filter.setCacheMaxEntries(2);
+    filter.setCacheMaxBytes(1024);
+    assertSameInstances(expected, useFilter(filter, data));
+  }
+
+  public void testDiskCache() throws Exception {
+    Instances data = getDocuments();
+    Instances expected = useFilter(getFilter(), data);
+    File dir = new File(TestHelper.getTmpDirectory() + File.separator + "PartOfSpeechTaggingTest-cache");
+    try {
+      PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+      filter.setUseDiskCache(true);
+      filter.setDiskCacheDir(dir);
+      assertSameInstances(expected, useFilter(filter, data));
+      int size = DiskParseCache.getInstance(dir).size();
+      assertTrue(size > 0);
+      // a new filter instance finds the sentences in the cache
+      filter = (PartOfSpeechTagging) getFilter();
+      filter.setUseDiskCache(true);
+      filter.setDiskCacheDir(dir);
+      assertSameInstances(expected, useFilter(filter, data));
+      assertEquals(size, DiskParseCache.getInstance(dir).size());
+      assertFalse(filter.getCacheStatistics(), filter.getCacheStatistics().contains("hits=0,"));
+    }
+    finally {
+      DiskParseCache.getInstance(dir).close();
+      File[] files = dir.listFiles();
+      if (files != null) {
+	for (File file: files)
+	  file.delete();
+      }
+      dir.delete();
+    }
+  }
+
+  public void testDiskCacheModelChange() throws Exception {
+    Instances data = getDocuments();
+    Instances expected = useFilter(getFilter(), data);
+    File dir = new File(TestHelper.getTmpDirectory() + File.separator + "PartOfSpeechTaggingTest-cache");
+    try {
+      PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+      filter.setUseDiskCache(true);
+      filter.setDiskCacheDir(dir);
+      assertSameInstances(expected, useFilter(filter, data));
+      int size = DiskParseCache.getInstance(dir).size();
+      DiskParseCache.getInstance(dir).close();
+
+      // an updated model: the sentences of the old one get removed
+      File model = filter.getModel();
+      assertTrue(model.setLastModified(model.lastModified() - 60000));
+      filter = (PartOfSpeechTagging) getFilter();
+      filter.setUseDiskCache(true);
+      filter.setDiskCacheDir(dir);
+      assertSameInstances(expected, useFilter(filter, data));
+      assertTrue(filter.getCacheStatistics(), filter.getCacheStatistics().contains("hits=0,"));
+      assertEquals(size, DiskParseCache.getInstance(dir).size());
+      assertFalse(DiskParseCache.getInstance(dir).needsCompaction());
+    }
+    finally {
+      DiskParseCache.getInstance(dir).close();
+      File[] files = dir.listFiles();
+      if (files != null) {
+	for (File file: files)
+	  file.delete();
+      }
+      dir.delete();
+    }
+  }
+
+  public void testDiskCacheFailure() throws Exception {
+    Instances data = getDocuments();
+    Instances expected = useFilter(getFilter(), data);
+    File file = new File(TestHelper.getTmpDirectory() + File.separator + "PartOfSpeechTaggingTest-nocache");
+    File dir = new File(TestHelper.getTmpDirectory() + File.separator + "PartOfSpeechTaggingTest-cache");
+    try {
+      // the cache cannot be opened
+      new FileOutputStream(file).close();
+      PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+      filter.setUseDiskCache(true);
+      filter.setDiskCacheDir(file);
+      assertSameInstances(expected, useFilter(filter, data));
+      assertTrue(filter.getCacheStatistics(), filter.getCacheStatistics().startsWith("disk: disabled"));
+
+      // storing sentences fails
+      filter = (PartOfSpeechTagging) getFilter();
+      filter.setUseDiskCache(true);
+      filter.setDiskCacheDir(dir);
+      filter.setInputFormat(data);
+      DiskParseCache.getInstance(dir).close();
+      assertSameInstances(expected, Filter.useFilter(data, filter));
+      assertTrue(filter.getCacheStatistics(), filter.getCacheStatistics().startsWith("disk: disabled"));
+    }
+    finally {
+      file.delete();
+      DiskParseCache.getInstance(dir).close();
+      File[] files = dir.listFiles();
+      if (files != null) {
+	for (File f: files)
+	  f.delete();
+      }
+      dir.delete();
+    }
+  }
+
+  public void testUseSentenceTokens() {
+    Instances data = getDocuments();
+    PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+    filter.setTokenizer(new PTBTokenizer());
+    Instances expected = useFilter(filter, data);
+    filter = (PartOfSpeechTagging) getFilter();
+    filter.setUseSentenceTokens(true);
+    // the same as re-tokenizing the joined sentences with the PTB tokenizer
+    assertSameInstances(expected, useFilter(filter, data));
+    filter.setNumThreads(4);
+    filter.setParallelSentences(true);
+    assertSameInstances(expected, useFilter(filter, data));
+  }
+
+  public void testPreTokenized() {
+    Instances data = getDocuments();
+    PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+    filter.setUseSentenceTokens(true);
+    Instances expected = useFilter(filter, data);
+
+    // split the documents beforehand, using custom delimiters
+    Instances split = new Instances(data, data.numInstances());
+    for (int i = 0; i < data.numInstances(); i++) {
+      DocumentPreprocessor preProcessor = new DocumentPreprocessor(new StringReader(data.instance(i).stringValue(0)));
+      preProcessor.setTokenizerFactory(PartOfSpeechTagging.getTokenizerFactory());
+      StringBuilder doc = new StringBuilder();
+      for (List<HasWord> sentence: preProcessor) {
+	if (doc.length() > 0)
+	  doc.append(" <s> ");
+	for (int n = 0; n < sentence.size(); n++) {
+	  if (n > 0)
+	    doc.append("\t");
+	  doc.append(sentence.get(n).word());
+	}
+      }
+      split.add(new DenseInstance(1.0, new double[]{split.attribute(0).addStringValue(doc.toString())}));
+    }
+
+    filter = (PartOfSpeechTagging) getFilter();
+    filter.setPreTokenized(true);
+    filter.setSentenceDelimiter(" <s> ");
+    filter.setTokenDelimiter("\\t");
+    assertSameInstances(expected, useFilter(filter, split));
+  }
+
+  public void testReuseStringValues() throws Exception {
+    Instances data = getDocuments();
+    Instances expected = useFilter(getFilter(), data);
+    PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+    filter.setReuseStringValues(true);
+    assertSameInstances(expected, useFilter(filter, data));
+
+    // repeated documents must not add values to the output format
+    int numValues = -1;
+    for (int n = 0; n < 2; n++) {
+      for (int i = 0; i < data.numInstances(); i++) {
+	assertTrue(filter.input(data.instance(i)));
+	assertEquals("instance #" + (i+1), expected.instance(i).toString(), filter.output().toString());
+      }
+      if (n == 0)
+	numValues = filter.getOutputFormat().attribute(0).numValues();
+    }
+    assertEquals(numValues, filter.getOutputFormat().attribute(0).numValues());
+    assertEquals(data.numInstances(), filter.m_Pools[0].size());
+  }
+
+  public void testUncompressedModel() throws Exception {
+    Instances data = getDocuments();
+    Instances expected = useFilter(getFilter(), data);
+    File model = new File(TestHelper.getTmpDirectory() + File.separator + "englishPCFG.ser");
+    ParserModelConverter.convert(new File(TestHelper.getTmpDirectory() + File.separator + "englishPCFG.ser.gz"), model);
+    try {
+      PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+      filter.setModel(model);
+      // the memory-mapped model tags like the compressed one
+      assertSameInstances(expected, useFilter(filter, data));
+      ParserModelRegistry.release(filter);
+    }
+    finally {
+      model.delete();
+    }
+  }
+
+  public void testTokenStrings() {
+    PartOfSpeechTagging filter = new PartOfSpeechTagging();
+    PartOfSpeechTagging.TaggingContext context = new PartOfSpeechTagging.TaggingContext(new WhiteSpaceTokenizer(), null);
+    List<? extends HasWord> first = filter.tokenize("the cat sat on the mat", context);
+    List<? extends HasWord> second = filter.tokenize("the dog", context);
+    assertEquals(6, first.size());
+    assertEquals("cat", first.get(1).word());
+    assertEquals(4, ((Word) first.get(1)).beginPosition());
+    // repeated words share the same string
+    assertSame(first.get(0).word(), first.get(4).word());
+    assertSame(first.get(0).word(), second.get(0).word());
+  }
+
+  public void testPreload() throws Exception {
+    Instances data = getDocuments();
+    Instances expected = useFilter(getFilter(), data);
+    List<String> options = new ArrayList<String>(Arrays.asList(((PartOfSpeechTagging) getFilter()).getOptions()));
+    options.add("-preload");
+    PartOfSpeechTagging filter = new PartOfSpeechTagging();
+    filter.setOptions(options.toArray(new String[options.size()]));
+    // the background load gets triggered once all options have been set
+    assertNotNull(filter.m_Preloading);
+    assertSameInstances(expected, useFilter(filter, data));
+  }
+
+  public void testWarmUp() throws Exception {
+    Instances data = getDocuments();
+    Instances expected = useFilter(getFilter(), data);
+    File corpus = new File(TestHelper.getTmpDirectory() + File.separator + "warm-up.txt");
+    Writer writer = new OutputStreamWriter(new FileOutputStream(corpus), "UTF-8");
+    try {
+      writer.write("The cat sat on the mat.\nDogs bark.\n");
+    }
+    finally {
+      writer.close();
+    }
+    try {
+      PartOfSpeechTagging filter = (PartOfSpeechTagging) getFilter();
+      filter.setWarmUpCorpus(corpus);
+      filter.setWarmUpIterations(2);
+      // parsing the corpus beforehand must not affect the output
+      assertSameInstances(expected, useFilter(filter, data));
+      assertTrue(filter.getWarmUpTime() >= 0);
+    }
+    finally {
+      corpus.delete();
+    }
+  }
+
   public static Test suite() {
     return new TestSuite(PartOfSpeechTaggingTest.class);
   }
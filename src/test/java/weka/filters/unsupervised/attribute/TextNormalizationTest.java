@@ -0,0 +1,77 @@
+/*
+ *   This program is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   This program is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+/*
+ * Copyright (C) 2019 University of Waikato
+ */
+
+package weka.filters.unsupervised.attribute;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+import junit.textui.TestRunner;
+import weka.core.Instances;
+import weka.filters.Filter;
+import weka.tests.TestHelper;
+
+/**
+ * Tests TextNormalization. Run from the command line with:<p>
+ * java weka.filters.unsupervised.attribute.TextNormalizationTest
+ *
+ * @author FracPete (fracpete at waikato dot ac dot nz)
+ * @version $Revision: 8034 $
+ */
+public class TextNormalizationTest extends AbstractStringAttributeFilterTest {
+  
+  public TextNormalizationTest(String name) {
+    super(name);
+  }
+
+  /**
+   * Called by JUnit before each test method.
+   *
+   * @throws Exception if an error occurs
+   */
+  @Override
+  protected void setUp() throws Exception {
+    TestHelper.setRegressionRoot();
+    super.setUp();
+  }
+
+  /**
+   * Creates an example TextNormalization.
+   */
+  public Filter getFilter() {
+    TextNormalization f = new TextNormalization();
+    f.setCollapseWhiteSpace(true);
+    f.setStripPunctuation(true);
+    return f;
+  }
+
+  public void testTypical() {
+    Instances result = useFilter();
+    // Number of attributes and instances shouldn't change
+    assertEquals(m_Instances.numAttributes(), result.numAttributes());
+    assertEquals(m_Instances.numInstances(), result.numInstances());
+  }
+
+  public static Test suite() {
+    return new TestSuite(TextNormalizationTest.class);
+  }
+
+  public static void main(String[] args){
+    TestRunner.run(suite());
+  }
+}
@@ -20,11 +20,15 @@
 
 package weka.tests;
 
+import weka.core.tokenizers.Tokenizer;
+
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Helper class for tests.
@@ -147,4 +151,23 @@ public class TestHelper {
 
     return result;
   }
+
+  /**
+   * Returns all the tokens of the string, using the tokenizer as is (unlike
+   * {@link Tokenizer#tokenize(Tokenizer, String[])}, which resets the options).
+   *
+   * @param tokenizer	the tokenizer to use
+   * @param s		the string to tokenize
+   * @return		the tokens
+   */
+  public static List<String> tokenize(Tokenizer tokenizer, String s) {
+    List<String>	result;
+
+    result = new ArrayList<String>();
+    tokenizer.tokenize(s);
+    while (tokenizer.hasMoreElements())
+      result.add(tokenizer.nextElement());
+
+    return result;
+  }
 }